@@ -1299,6 +1299,22 @@ public abstract class AbstractByteBuf extends ByteBuf {
     }
 
     int forEachByteAsc0(int start, int end, ByteProcessor processor) throws Exception {
+        // The well-known stateless processors only look for one or two byte values, so we can use the SWAR search.
+        if (processor == ByteProcessor.FIND_LF) {
+            return ByteBufUtil.firstIndexOf(this, start, end, (byte) '\n');
+        }
+        if (processor == ByteProcessor.FIND_CRLF) {
+            return ByteBufUtil.firstIndexOfAny(this, start, end, (byte) '\r', (byte) '\n');
+        }
+        if (processor == ByteProcessor.FIND_CR) {
+            return ByteBufUtil.firstIndexOf(this, start, end, (byte) '\r');
+        }
+        if (processor == ByteProcessor.FIND_NUL) {
+            return ByteBufUtil.firstIndexOf(this, start, end, (byte) 0);
+        }
+        if (processor == ByteProcessor.FIND_LINEAR_WHITESPACE) {
+            return ByteBufUtil.firstIndexOfAny(this, start, end, (byte) ' ', (byte) '\t');
+        }
         for (; start < end; ++start) {
             if (!processor.process(_getByte(start))) {
                 return start;
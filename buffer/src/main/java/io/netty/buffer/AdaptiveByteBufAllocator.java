@@ -0,0 +1,120 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.StringUtil;
+
+/**
+ * Pooling {@link ByteBufAllocator} that adapts the size of its chunks to the allocation sizes it observes and which
+ * does not use any locks on the allocation path.
+ * <p>
+ * In contrast to {@link PooledByteBufAllocator} there are no per-thread caches which hold on to memory of idle threads
+ * and no arenas which need to be locked. Instead threads are striped over a set of "magazines" which are only ever
+ * try-locked and which grow in number when they are contended. Chunks are returned to a bounded central queue once
+ * all their buffers are released and anything that does not fit into it is given back to the OS.
+ * <p>
+ * Direct buffers are only pooled if {@code sun.misc.Unsafe} is available.
+ */
+public final class AdaptiveByteBufAllocator extends AbstractByteBufAllocator
+        implements ByteBufAllocatorMetricProvider {
+
+    public static final AdaptiveByteBufAllocator DEFAULT =
+            new AdaptiveByteBufAllocator(PlatformDependent.directBufferPreferred());
+
+    private final AdaptivePoolingAllocator heap;
+    private final AdaptivePoolingAllocator direct;
+    private final UnpooledByteBufAllocator unpooled;
+    private final AdaptiveByteBufAllocatorMetric metric = new AdaptiveByteBufAllocatorMetric();
+
+    /**
+     * Create a new instance which prefers direct buffers if {@link PlatformDependent#directBufferPreferred()}.
+     */
+    public AdaptiveByteBufAllocator() {
+        this(PlatformDependent.directBufferPreferred());
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param preferDirect {@code true} if {@link #buffer(int)} should try to allocate a direct buffer rather than
+     *                     a heap buffer
+     */
+    public AdaptiveByteBufAllocator(boolean preferDirect) {
+        super(preferDirect);
+        // Chunks are never exposed to the user so there is no need for leak-detection on them.
+        unpooled = new UnpooledByteBufAllocator(preferDirect, true);
+        heap = new AdaptivePoolingAllocator(this, unpooled, false);
+        direct = new AdaptivePoolingAllocator(this, unpooled, true);
+    }
+
+    @Override
+    protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+        return toLeakAwareBuffer(heap.allocate(initialCapacity, maxCapacity));
+    }
+
+    @Override
+    protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+        if (!PlatformDependent.hasUnsafe()) {
+            // Without Unsafe the chunks would share their internal NIO buffer between threads.
+            return toLeakAwareBuffer(unpooled.directBuffer(initialCapacity, maxCapacity));
+        }
+        return toLeakAwareBuffer(direct.allocate(initialCapacity, maxCapacity));
+    }
+
+    @Override
+    public boolean isDirectBufferPooled() {
+        return PlatformDependent.hasUnsafe();
+    }
+
+    @Override
+    public ByteBufAllocatorMetric metric() {
+        return metric;
+    }
+
+    /**
+     * Returns the number of magazines that are currently used for heap buffers.
+     */
+    int heapMagazines() {
+        return heap.magazineCount();
+    }
+
+    /**
+     * Returns the number of magazines that are currently used for direct buffers.
+     */
+    int directMagazines() {
+        return direct.magazineCount();
+    }
+
+    private final class AdaptiveByteBufAllocatorMetric implements ByteBufAllocatorMetric {
+        @Override
+        public long usedHeapMemory() {
+            // All chunks and unpooled buffers are allocated by the unpooled allocator.
+            return unpooled.metric().usedHeapMemory();
+        }
+
+        @Override
+        public long usedDirectMemory() {
+            return unpooled.metric().usedDirectMemory();
+        }
+
+        @Override
+        public String toString() {
+            return StringUtil.simpleClassName(this) +
+                    "(usedHeapMemory: " + usedHeapMemory() + "; usedDirectMemory: " + usedDirectMemory() + ')';
+        }
+    }
+}
@@ -0,0 +1,688 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.internal.MathUtil;
+import io.netty.util.internal.ObjectPool;
+import io.netty.util.internal.ObjectPool.Handle;
+import io.netty.util.internal.ObjectPool.ObjectCreator;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Pooling allocator used by {@link AdaptiveByteBufAllocator} for either heap or direct memory.
+ * <p>
+ * Buffers are carved out of chunks with a bump pointer. Each chunk is owned by one {@link Magazine} at a time and
+ * threads are striped across the magazines by their id. Magazines are only ever try-locked, if a magazine is busy
+ * the next one is tried and the number of magazines is expanded on contention, so an allocation never waits for
+ * another thread. A chunk is reference counted by the buffers allocated from it and put into a bounded central queue
+ * once all of them are released, from where any magazine can pick it up again. Chunks that don't fit into the queue
+ * are released, which gives the memory back to the OS when the load drops.
+ * <p>
+ * The size of new chunks follows the allocation sizes observed by the magazines: each magazine keeps a histogram of
+ * the sizes it served and sizes its chunks so that they fit {@link #BUFS_PER_CHUNK} buffers of the 99th percentile.
+ */
+final class AdaptivePoolingAllocator {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(AdaptivePoolingAllocator.class);
+
+    static final int MIN_CHUNK_SIZE = 128 * 1024;
+    static final int MAX_CHUNK_SIZE = 8 * 1024 * 1024;
+    static final int BUFS_PER_CHUNK = 8;
+    // Bigger buffers are not pooled but get a dedicated chunk.
+    static final int MAX_POOLED_BUF_SIZE = MAX_CHUNK_SIZE / BUFS_PER_CHUNK;
+
+    private static final int INITIAL_MAGAZINES = 4;
+    private static final int MAX_STRIPES = Math.max(INITIAL_MAGAZINES,
+            MathUtil.findNextPositivePowerOfTwo(Runtime.getRuntime().availableProcessors() * 2));
+    private static final int EXPANSION_ATTEMPTS = 3;
+    private static final int CENTRAL_QUEUE_CAPACITY;
+
+    private static final int HISTO_MIN_BUCKET_SHIFT = 8;
+    private static final int HISTO_MAX_BUCKET_SHIFT = 20;
+    private static final int HISTO_BUCKET_COUNT = HISTO_MAX_BUCKET_SHIFT - HISTO_MIN_BUCKET_SHIFT + 1;
+    private static final int HISTO_WINDOW = 8192;
+
+    static {
+        CENTRAL_QUEUE_CAPACITY = Math.max(2, SystemPropertyUtil.getInt(
+                "io.netty.allocator.centralQueueCapacity", Runtime.getRuntime().availableProcessors() * 2));
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.allocator.centralQueueCapacity: {}", CENTRAL_QUEUE_CAPACITY);
+        }
+    }
+
+    private final ByteBufAllocator parent;
+    private final UnpooledByteBufAllocator chunkAllocator;
+    private final boolean direct;
+    private final Queue<Chunk> centralQueue;
+    private volatile Magazine[] magazines;
+    private volatile int sharedPrefChunkSize = MIN_CHUNK_SIZE;
+
+    AdaptivePoolingAllocator(ByteBufAllocator parent, UnpooledByteBufAllocator chunkAllocator, boolean direct) {
+        this.parent = parent;
+        this.chunkAllocator = chunkAllocator;
+        this.direct = direct;
+        centralQueue = PlatformDependent.newFixedMpmcQueue(CENTRAL_QUEUE_CAPACITY);
+        Magazine[] magazines = new Magazine[INITIAL_MAGAZINES];
+        for (int i = 0; i < magazines.length; i++) {
+            magazines[i] = new Magazine(this);
+        }
+        this.magazines = magazines;
+    }
+
+    ByteBuf allocate(int initialCapacity, int maxCapacity) {
+        AdaptiveByteBuf buf = AdaptiveByteBuf.newInstance(parent, maxCapacity);
+        allocate(initialCapacity, buf);
+        return buf;
+    }
+
+    private void allocate(int size, AdaptiveByteBuf into) {
+        if (size <= MAX_POOLED_BUF_SIZE && allocateFromMagazine(size, into)) {
+            return;
+        }
+        // The buffer is too big to be pooled or all magazines are busy.
+        Chunk chunk = new Chunk(newChunkBuffer(size), this, false);
+        chunk.readInitInto(into, size);
+        chunk.release();
+    }
+
+    private boolean allocateFromMagazine(int size, AdaptiveByteBuf into) {
+        long threadId = Thread.currentThread().getId();
+        for (int attempt = 0; attempt < EXPANSION_ATTEMPTS; attempt++) {
+            Magazine[] mags = magazines;
+            int mask = mags.length - 1;
+            int index = (int) (threadId & mask);
+            for (int i = 0; i < mags.length; i++) {
+                Magazine mag = mags[(index + i) & mask];
+                if (mag.tryLock()) {
+                    try {
+                        mag.allocate(size, into);
+                        return true;
+                    } finally {
+                        mag.unlock();
+                    }
+                }
+            }
+            if (!tryExpandMagazines(mags.length)) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private boolean tryExpandMagazines(int currentLength) {
+        if (currentLength >= MAX_STRIPES) {
+            return false;
+        }
+        // Only taken when all magazines are contended, which happens at most log2(MAX_STRIPES) times.
+        synchronized (this) {
+            Magazine[] mags = magazines;
+            if (mags.length == currentLength) {
+                Magazine[] expanded = Arrays.copyOf(mags, mags.length << 1);
+                for (int i = mags.length; i < expanded.length; i++) {
+                    expanded[i] = new Magazine(this);
+                }
+                magazines = expanded;
+            }
+        }
+        return true;
+    }
+
+    void reallocate(int size, AdaptiveByteBuf into) {
+        allocate(size, into);
+    }
+
+    int magazineCount() {
+        return magazines.length;
+    }
+
+    int preferredChunkSize() {
+        return sharedPrefChunkSize;
+    }
+
+    private void updatePreferredChunkSize() {
+        int size = MIN_CHUNK_SIZE;
+        for (Magazine mag : magazines) {
+            size = Math.max(size, mag.localPrefChunkSize);
+        }
+        sharedPrefChunkSize = size;
+    }
+
+    private Chunk pollChunk(int size) {
+        Chunk chunk = centralQueue.poll();
+        if (chunk != null) {
+            if (chunk.capacity() >= size) {
+                return chunk;
+            }
+            chunk.free();
+        }
+        return new Chunk(newChunkBuffer(Math.max(sharedPrefChunkSize, size)), this, true);
+    }
+
+    private boolean offerChunk(Chunk chunk) {
+        int capacity = chunk.capacity();
+        int preferred = sharedPrefChunkSize;
+        if (capacity < preferred || capacity > preferred << 1) {
+            // The chunk does not match the observed allocation sizes anymore.
+            return false;
+        }
+        chunk.reset();
+        return centralQueue.offer(chunk);
+    }
+
+    private AbstractByteBuf newChunkBuffer(int capacity) {
+        // The chunk allocator keeps track of the used memory.
+        ByteBuf buf = direct ? chunkAllocator.directBuffer(capacity, capacity) :
+                chunkAllocator.heapBuffer(capacity, capacity);
+        return (AbstractByteBuf) buf;
+    }
+
+    static int sizeBucket(int size) {
+        if (size <= 1 << HISTO_MIN_BUCKET_SHIFT) {
+            return 0;
+        }
+        int bucket = 32 - Integer.numberOfLeadingZeros(size - 1) - HISTO_MIN_BUCKET_SHIFT;
+        return Math.min(bucket, HISTO_BUCKET_COUNT - 1);
+    }
+
+    static final class Magazine {
+        private static final AtomicIntegerFieldUpdater<Magazine> LOCKED_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(Magazine.class, "locked");
+
+        private final AdaptivePoolingAllocator parent;
+        private final int[] histo = new int[HISTO_BUCKET_COUNT];
+        private int histoCount;
+        private volatile int localPrefChunkSize = MIN_CHUNK_SIZE;
+        private Chunk current;
+        private volatile int locked;
+
+        Magazine(AdaptivePoolingAllocator parent) {
+            this.parent = parent;
+        }
+
+        boolean tryLock() {
+            return locked == 0 && LOCKED_UPDATER.compareAndSet(this, 0, 1);
+        }
+
+        void unlock() {
+            LOCKED_UPDATER.lazySet(this, 0);
+        }
+
+        void allocate(int size, AdaptiveByteBuf into) {
+            recordAllocationSize(size);
+            Chunk curr = current;
+            if (curr != null) {
+                if (curr.remainingCapacity() >= size) {
+                    curr.readInitInto(into, size);
+                    return;
+                }
+                // Not enough space left, retire the chunk. It is reused once all its buffers are released.
+                current = null;
+                curr.release();
+            }
+            curr = parent.pollChunk(size);
+            current = curr;
+            curr.readInitInto(into, size);
+        }
+
+        private void recordAllocationSize(int size) {
+            histo[sizeBucket(size)]++;
+            if (++histoCount == HISTO_WINDOW) {
+                rotateHistogram();
+            }
+        }
+
+        private void rotateHistogram() {
+            int target = histoCount * 99 / 100;
+            int sum = 0;
+            int bucket = 0;
+            while (bucket < HISTO_BUCKET_COUNT - 1) {
+                sum += histo[bucket];
+                if (sum > target) {
+                    break;
+                }
+                bucket++;
+            }
+            int percentileSize = 1 << (bucket + HISTO_MIN_BUCKET_SHIFT);
+            localPrefChunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, percentileSize * BUFS_PER_CHUNK));
+            Arrays.fill(histo, 0);
+            histoCount = 0;
+            parent.updatePreferredChunkSize();
+        }
+    }
+
+    static final class Chunk {
+        private static final AtomicIntegerFieldUpdater<Chunk> REFCNT_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(Chunk.class, "refCnt");
+
+        private final AbstractByteBuf delegate;
+        private final AdaptivePoolingAllocator parent;
+        private final boolean pooled;
+        private int allocatedBytes;
+        // One reference is held by the owner of the chunk and one by each buffer allocated from it.
+        private volatile int refCnt = 1;
+
+        Chunk(AbstractByteBuf delegate, AdaptivePoolingAllocator parent, boolean pooled) {
+            this.delegate = delegate;
+            this.parent = parent;
+            this.pooled = pooled;
+        }
+
+        void readInitInto(AdaptiveByteBuf buf, int size) {
+            int startIndex = allocatedBytes;
+            allocatedBytes = startIndex + size;
+            REFCNT_UPDATER.getAndIncrement(this);
+            buf.init(delegate, this, startIndex, size);
+        }
+
+        int capacity() {
+            return delegate.capacity();
+        }
+
+        int remainingCapacity() {
+            return delegate.capacity() - allocatedBytes;
+        }
+
+        void release() {
+            if (REFCNT_UPDATER.decrementAndGet(this) == 0) {
+                if (!pooled || !parent.offerChunk(this)) {
+                    free();
+                }
+            }
+        }
+
+        void reset() {
+            allocatedBytes = 0;
+            REFCNT_UPDATER.set(this, 1);
+        }
+
+        void free() {
+            delegate.release();
+        }
+    }
+
+    static final class AdaptiveByteBuf extends AbstractReferenceCountedByteBuf {
+        private static final ObjectPool<AdaptiveByteBuf> RECYCLER = ObjectPool.newPool(
+                new ObjectCreator<AdaptiveByteBuf>() {
+            @Override
+            public AdaptiveByteBuf newObject(Handle<AdaptiveByteBuf> handle) {
+                return new AdaptiveByteBuf(handle);
+            }
+        });
+
+        static AdaptiveByteBuf newInstance(ByteBufAllocator allocator, int maxCapacity) {
+            AdaptiveByteBuf buf = RECYCLER.get();
+            buf.allocator = allocator;
+            buf.maxCapacity(maxCapacity);
+            buf.resetRefCnt();
+            buf.setIndex0(0, 0);
+            buf.discardMarks();
+            return buf;
+        }
+
+        private final Handle<AdaptiveByteBuf> handle;
+        private ByteBufAllocator allocator;
+        private AbstractByteBuf rootParent;
+        private Chunk chunk;
+        private int adjustment;
+        private int length;
+        private int maxFastCapacity;
+        private ByteBuffer tmpNioBuf;
+
+        private AdaptiveByteBuf(Handle<AdaptiveByteBuf> handle) {
+            super(0);
+            this.handle = handle;
+        }
+
+        void init(AbstractByteBuf rootParent, Chunk chunk, int adjustment, int capacity) {
+            this.rootParent = rootParent;
+            this.chunk = chunk;
+            this.adjustment = adjustment;
+            length = capacity;
+            maxFastCapacity = capacity;
+            tmpNioBuf = null;
+        }
+
+        private int idx(int index) {
+            return index + adjustment;
+        }
+
+        @Override
+        public int capacity() {
+            return length;
+        }
+
+        @Override
+        public int maxFastWritableBytes() {
+            return Math.min(maxFastCapacity, maxCapacity()) - writerIndex;
+        }
+
+        @Override
+        public ByteBuf capacity(int newCapacity) {
+            if (length <= newCapacity && newCapacity <= maxFastCapacity) {
+                ensureAccessible();
+                length = newCapacity;
+                return this;
+            }
+            checkNewCapacity(newCapacity);
+            if (newCapacity < length) {
+                length = newCapacity;
+                trimIndicesToCapacity(newCapacity);
+                return this;
+            }
+
+            // Reallocation required.
+            Chunk oldChunk = chunk;
+            AbstractByteBuf oldRoot = rootParent;
+            int oldAdjustment = adjustment;
+            int oldLength = length;
+            oldChunk.parent.reallocate(newCapacity, this);
+            rootParent.setBytes(adjustment, oldRoot, oldAdjustment, oldLength);
+            oldChunk.release();
+            return this;
+        }
+
+        @Override
+        public ByteBufAllocator alloc() {
+            return allocator;
+        }
+
+        @Override
+        @Deprecated
+        public ByteOrder order() {
+            return ByteOrder.BIG_ENDIAN;
+        }
+
+        @Override
+        public ByteBuf unwrap() {
+            return null;
+        }
+
+        @Override
+        public boolean isDirect() {
+            return rootParent.isDirect();
+        }
+
+        @Override
+        public boolean isContiguous() {
+            return true;
+        }
+
+        @Override
+        public boolean hasArray() {
+            return rootParent.hasArray();
+        }
+
+        @Override
+        public byte[] array() {
+            ensureAccessible();
+            return rootParent.array();
+        }
+
+        @Override
+        public int arrayOffset() {
+            return idx(rootParent.arrayOffset());
+        }
+
+        @Override
+        public boolean hasMemoryAddress() {
+            return rootParent.hasMemoryAddress();
+        }
+
+        @Override
+        public long memoryAddress() {
+            ensureAccessible();
+            return rootParent.memoryAddress() + adjustment;
+        }
+
+        @Override
+        protected byte _getByte(int index) {
+            return rootParent._getByte(idx(index));
+        }
+
+        @Override
+        protected short _getShort(int index) {
+            return rootParent._getShort(idx(index));
+        }
+
+        @Override
+        protected short _getShortLE(int index) {
+            return rootParent._getShortLE(idx(index));
+        }
+
+        @Override
+        protected int _getUnsignedMedium(int index) {
+            return rootParent._getUnsignedMedium(idx(index));
+        }
+
+        @Override
+        protected int _getUnsignedMediumLE(int index) {
+            return rootParent._getUnsignedMediumLE(idx(index));
+        }
+
+        @Override
+        protected int _getInt(int index) {
+            return rootParent._getInt(idx(index));
+        }
+
+        @Override
+        protected int _getIntLE(int index) {
+            return rootParent._getIntLE(idx(index));
+        }
+
+        @Override
+        protected long _getLong(int index) {
+            return rootParent._getLong(idx(index));
+        }
+
+        @Override
+        protected long _getLongLE(int index) {
+            return rootParent._getLongLE(idx(index));
+        }
+
+        @Override
+        protected void _setByte(int index, int value) {
+            rootParent._setByte(idx(index), value);
+        }
+
+        @Override
+        protected void _setShort(int index, int value) {
+            rootParent._setShort(idx(index), value);
+        }
+
+        @Override
+        protected void _setShortLE(int index, int value) {
+            rootParent._setShortLE(idx(index), value);
+        }
+
+        @Override
+        protected void _setMedium(int index, int value) {
+            rootParent._setMedium(idx(index), value);
+        }
+
+        @Override
+        protected void _setMediumLE(int index, int value) {
+            rootParent._setMediumLE(idx(index), value);
+        }
+
+        @Override
+        protected void _setInt(int index, int value) {
+            rootParent._setInt(idx(index), value);
+        }
+
+        @Override
+        protected void _setIntLE(int index, int value) {
+            rootParent._setIntLE(idx(index), value);
+        }
+
+        @Override
+        protected void _setLong(int index, long value) {
+            rootParent._setLong(idx(index), value);
+        }
+
+        @Override
+        protected void _setLongLE(int index, long value) {
+            rootParent._setLongLE(idx(index), value);
+        }
+
+        @Override
+        public ByteBuf getBytes(int index, ByteBuf dst, int dstIndex, int length) {
+            checkIndex(index, length);
+            rootParent.getBytes(idx(index), dst, dstIndex, length);
+            return this;
+        }
+
+        @Override
+        public ByteBuf getBytes(int index, byte[] dst, int dstIndex, int length) {
+            checkIndex(index, length);
+            rootParent.getBytes(idx(index), dst, dstIndex, length);
+            return this;
+        }
+
+        @Override
+        public ByteBuf getBytes(int index, ByteBuffer dst) {
+            // Don't delegate as the root buffer may use its internal NIO buffer which is shared with other buffers
+            // of the same chunk, possibly used by other threads.
+            dst.put(internalNioBuffer(index, dst.remaining()));
+            return this;
+        }
+
+        @Override
+        public ByteBuf getBytes(int index, OutputStream out, int length) throws IOException {
+            checkIndex(index, length);
+            rootParent.getBytes(idx(index), out, length);
+            return this;
+        }
+
+        @Override
+        public int getBytes(int index, GatheringByteChannel out, int length) throws IOException {
+            return out.write(nioBuffer(index, length));
+        }
+
+        @Override
+        public int getBytes(int index, FileChannel out, long position, int length) throws IOException {
+            return out.write(nioBuffer(index, length), position);
+        }
+
+        @Override
+        public ByteBuf setBytes(int index, ByteBuf src, int srcIndex, int length) {
+            checkIndex(index, length);
+            rootParent.setBytes(idx(index), src, srcIndex, length);
+            return this;
+        }
+
+        @Override
+        public ByteBuf setBytes(int index, byte[] src, int srcIndex, int length) {
+            checkIndex(index, length);
+            rootParent.setBytes(idx(index), src, srcIndex, length);
+            return this;
+        }
+
+        @Override
+        public ByteBuf setBytes(int index, ByteBuffer src) {
+            internalNioBuffer(index, src.remaining()).put(src);
+            return this;
+        }
+
+        @Override
+        public int setBytes(int index, InputStream in, int length) throws IOException {
+            checkIndex(index, length);
+            return rootParent.setBytes(idx(index), in, length);
+        }
+
+        @Override
+        public int setBytes(int index, ScatteringByteChannel in, int length) throws IOException {
+            try {
+                return in.read(internalNioBuffer(index, length));
+            } catch (ClosedChannelException ignored) {
+                return -1;
+            }
+        }
+
+        @Override
+        public int setBytes(int index, FileChannel in, long position, int length) throws IOException {
+            try {
+                return in.read(internalNioBuffer(index, length), position);
+            } catch (ClosedChannelException ignored) {
+                return -1;
+            }
+        }
+
+        @Override
+        public ByteBuf copy(int index, int length) {
+            checkIndex(index, length);
+            ByteBuf copy = isDirect() ? alloc().directBuffer(length, maxCapacity()) :
+                    alloc().heapBuffer(length, maxCapacity());
+            return copy.writeBytes(this, index, length);
+        }
+
+        @Override
+        public int nioBufferCount() {
+            return 1;
+        }
+
+        @Override
+        public ByteBuffer nioBuffer(int index, int length) {
+            checkIndex(index, length);
+            return rootParent.nioBuffer(idx(index), length);
+        }
+
+        @Override
+        public ByteBuffer[] nioBuffers(int index, int length) {
+            return new ByteBuffer[] { nioBuffer(index, length) };
+        }
+
+        @Override
+        public ByteBuffer internalNioBuffer(int index, int length) {
+            checkIndex(index, length);
+            ByteBuffer tmpNioBuf = this.tmpNioBuf;
+            if (tmpNioBuf == null) {
+                // Our own view of the chunk, never share the internal NIO buffer of the root.
+                this.tmpNioBuf = tmpNioBuf = rootParent.nioBuffer(adjustment, maxFastCapacity);
+            } else {
+                tmpNioBuf.clear();
+            }
+            return (ByteBuffer) tmpNioBuf.limit(index + length).position(index);
+        }
+
+        @Override
+        protected void deallocate() {
+            Chunk chunk = this.chunk;
+            if (chunk != null) {
+                // Keep rootParent so hasArray() and friends still work on a released buffer.
+                this.chunk = null;
+                tmpNioBuf = null;
+                allocator = null;
+                chunk.release();
+                handle.recycle(this);
+            }
+        }
+    }
+}
@@ -85,6 +85,9 @@ public final class ByteBufUtil {
         } else if ("pooled".equals(allocType)) {
             alloc = PooledByteBufAllocator.DEFAULT;
             logger.debug("-Dio.netty.allocator.type: {}", allocType);
+        } else if ("adaptive".equals(allocType)) {
+            alloc = AdaptiveByteBufAllocator.DEFAULT;
+            logger.debug("-Dio.netty.allocator.type: {}", allocType);
         } else {
             alloc = PooledByteBufAllocator.DEFAULT;
             logger.debug("-Dio.netty.allocator.type: pooled (unknown: {})", allocType);
@@ -229,13 +232,73 @@ public final class ByteBufUtil {
      * Returns the reader index of needle in haystack, or -1 if needle is not in haystack.
      */
     public static int indexOf(ByteBuf needle, ByteBuf haystack) {
-        // TODO: maybe use Boyer Moore for efficiency.
-        int attempts = haystack.readableBytes() - needle.readableBytes() + 1;
-        for (int i = 0; i < attempts; i++) {
-            if (equals(needle, needle.readerIndex(),
-                       haystack, haystack.readerIndex() + i,
-                       needle.readableBytes())) {
-                return haystack.readerIndex() + i;
+        final int needleLength = needle.readableBytes();
+        final int haystackIndex = haystack.readerIndex();
+        final int haystackLength = haystack.readableBytes();
+        if (needleLength > haystackLength) {
+            return -1;
+        }
+        if (needleLength == 0) {
+            return haystackIndex;
+        }
+        final int needleIndex = needle.readerIndex();
+        final byte firstByte = needle.getByte(needleIndex);
+        if (needleLength == 1) {
+            return haystack.indexOf(haystackIndex, haystack.writerIndex(), firstByte);
+        }
+        final int lastStartIndex = haystack.writerIndex() - needleLength;
+        if (haystack instanceof AbstractByteBuf && PlatformDependent.isUnaligned()) {
+            return swarIndexOf(needle, needleIndex, needleLength, (AbstractByteBuf) haystack,
+                               haystackIndex, lastStartIndex);
+        }
+        // Let the (possibly SWAR based) single byte search skip over the positions that can not match.
+        int index = haystackIndex;
+        while (index <= lastStartIndex) {
+            index = haystack.indexOf(index, lastStartIndex + 1, firstByte);
+            if (index == -1) {
+                return -1;
+            }
+            if (equals(needle, needleIndex, haystack, index, needleLength)) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    /**
+     * Searches {@code needle} by filtering 8 candidate positions at once on both its first and its last byte using a
+     * SWAR (SIMD Within A Register) technique, and only compares the whole needle for the surviving candidates.
+     */
+    private static int swarIndexOf(ByteBuf needle, int needleIndex, int needleLength,
+                                   AbstractByteBuf haystack, int fromIndex, int lastStartIndex) {
+        haystack.checkIndex(fromIndex, lastStartIndex + needleLength - fromIndex);
+        final byte firstByte = needle.getByte(needleIndex);
+        final byte lastByte = needle.getByte(needleIndex + needleLength - 1);
+        final long firstPattern = SWARByteSearch.compilePattern(firstByte);
+        final long lastPattern = SWARByteSearch.compilePattern(lastByte);
+        final boolean useLE = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+        final int lastOffset = needleLength - 1;
+        int offset = fromIndex;
+        // Both words are fully inside the haystack as long as offset + 7 is still a valid start index.
+        for (; offset <= lastStartIndex - 7; offset += Long.BYTES) {
+            final long firstWord = useLE? haystack._getLongLE(offset) : haystack._getLong(offset);
+            final int lastWordOffset = offset + lastOffset;
+            final long lastWord = useLE? haystack._getLongLE(lastWordOffset) : haystack._getLong(lastWordOffset);
+            long candidates = SWARByteSearch.matchMask(firstWord, firstPattern) &
+                              SWARByteSearch.matchMask(lastWord, lastPattern);
+            while (candidates != 0) {
+                final int index = offset + SWARByteSearch.firstMatch(candidates, !useLE);
+                if (equals(needle, needleIndex, haystack, index, needleLength)) {
+                    return index;
+                }
+                candidates = SWARByteSearch.clearFirstMatch(candidates, !useLE);
+            }
+        }
+        for (; offset <= lastStartIndex; offset++) {
+            if (haystack._getByte(offset) == firstByte && haystack._getByte(offset + lastOffset) == lastByte &&
+                equals(needle, needleIndex, haystack, offset, needleLength)) {
+                return offset;
             }
         }
         return -1;
@@ -396,12 +459,38 @@ public final class ByteBufUtil {
         }
 
         private static int firstAnyPattern(long word, long pattern, boolean leading) {
+            return firstMatch(matchMask(word, pattern), leading);
+        }
+
+        private static int firstAnyPattern(long word, long pattern1, long pattern2, boolean leading) {
+            return firstMatch(matchMask(word, pattern1) | matchMask(word, pattern2), leading);
+        }
+
+        /**
+         * Returns a mask with the high bit set for every byte of {@code word} equal to the byte of {@code pattern}.
+         * The mask is exact (no false positives caused by borrows), so it can be combined with other masks.
+         */
+        private static long matchMask(long word, long pattern) {
             long input = word ^ pattern;
             long tmp = (input & 0x7F7F7F7F7F7F7F7FL) + 0x7F7F7F7F7F7F7F7FL;
-            tmp = ~(tmp | input | 0x7F7F7F7F7F7F7F7FL);
-            final int binaryPosition = leading? Long.numberOfLeadingZeros(tmp) : Long.numberOfTrailingZeros(tmp);
+            return ~(tmp | input | 0x7F7F7F7F7F7F7F7FL);
+        }
+
+        /**
+         * Returns the byte position of the first match in {@code mask}, or {@link Long#BYTES} if there is none.
+         */
+        private static int firstMatch(long mask, boolean leading) {
+            final int binaryPosition = leading? Long.numberOfLeadingZeros(mask) : Long.numberOfTrailingZeros(mask);
             return binaryPosition >>> 3;
         }
+
+        private static long clearFirstMatch(long mask, boolean leading) {
+            return leading? mask & ~Long.highestOneBit(mask) : mask & (mask - 1);
+        }
+
+        private static boolean isAscii(long word) {
+            return (word & 0x8080808080808080L) == 0;
+        }
     }
 
     private static int unrolledFirstIndexOf(AbstractByteBuf buffer, int fromIndex, int byteCount, byte value) {
@@ -492,6 +581,42 @@ public final class ByteBufUtil {
         return -1;
     }
 
+    /**
+     * Same as {@link #firstIndexOf(AbstractByteBuf, int, int, byte)} but stops at the first byte that is equal to
+     * either {@code value1} or {@code value2}, which is what {@link ByteProcessor#FIND_CRLF} and
+     * {@link ByteProcessor#FIND_LINEAR_WHITESPACE} look for.
+     */
+    static int firstIndexOfAny(AbstractByteBuf buffer, int fromIndex, int toIndex, byte value1, byte value2) {
+        fromIndex = Math.max(fromIndex, 0);
+        if (fromIndex >= toIndex || buffer.capacity() == 0) {
+            return -1;
+        }
+        final int length = toIndex - fromIndex;
+        buffer.checkIndex(fromIndex, length);
+        int offset = fromIndex;
+        if (PlatformDependent.isUnaligned()) {
+            final boolean useLE = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+            final long pattern1 = SWARByteSearch.compilePattern(value1);
+            final long pattern2 = SWARByteSearch.compilePattern(value2);
+            final int longCount = length >>> 3;
+            for (int i = 0; i < longCount; i++) {
+                final long word = useLE? buffer._getLongLE(offset) : buffer._getLong(offset);
+                int index = SWARByteSearch.firstAnyPattern(word, pattern1, pattern2, !useLE);
+                if (index < Long.BYTES) {
+                    return offset + index;
+                }
+                offset += Long.BYTES;
+            }
+        }
+        for (; offset < toIndex; offset++) {
+            final byte b = buffer._getByte(offset);
+            if (b == value1 || b == value2) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
     private static int linearFirstIndexOf(AbstractByteBuf buffer, int fromIndex, int toIndex, byte value) {
         for (int i = fromIndex; i < toIndex; i++) {
             if (buffer._getByte(i) == value) {
@@ -1624,7 +1749,15 @@ public final class ByteBufUtil {
      * @param length The length of the specified buffer.
      */
     private static boolean isAscii(ByteBuf buf, int index, int length) {
-        return buf.forEachByte(index, length, FIND_NON_ASCII) == -1;
+        // Check 8 bytes at once, none of them may have the high bit set. This does not depend on the byte order.
+        final int longCount = length >>> 3;
+        for (int i = 0; i < longCount; i++) {
+            if (!SWARByteSearch.isAscii(buf.getLong(index))) {
+                return false;
+            }
+            index += Long.BYTES;
+        }
+        return buf.forEachByte(index, length & 7, FIND_NON_ASCII) == -1;
     }
 
     /**
@@ -1676,7 +1809,10 @@ public final class ByteBufUtil {
             byte b1 = buf.getByte(index++);
             byte b2, b3, b4;
             if ((b1 & 0x80) == 0) {
-                // 1 byte
+                // 1 byte, ASCII text usually comes in runs so skip the following ASCII bytes 8 at a time
+                while (index <= endIndex - Long.BYTES && SWARByteSearch.isAscii(buf.getLong(index))) {
+                    index += Long.BYTES;
+                }
                 continue;
             }
             if ((b1 & 0xE0) == 0xC0) {
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.internal.PlatformDependent;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class AdaptiveByteBufAllocatorTest extends AbstractByteBufAllocatorTest<AdaptiveByteBufAllocator> {
+
+    @Override
+    protected AdaptiveByteBufAllocator newAllocator(boolean preferDirect) {
+        return new AdaptiveByteBufAllocator(preferDirect);
+    }
+
+    @Override
+    protected AdaptiveByteBufAllocator newUnpooledAllocator() {
+        return new AdaptiveByteBufAllocator(false);
+    }
+
+    @Override
+    protected long expectedUsedMemory(AdaptiveByteBufAllocator allocator, int capacity) {
+        return AdaptivePoolingAllocator.MIN_CHUNK_SIZE;
+    }
+
+    @Override
+    protected long expectedUsedMemoryAfterRelease(AdaptiveByteBufAllocator allocator, int capacity) {
+        // The chunk is still owned by the magazine.
+        return AdaptivePoolingAllocator.MIN_CHUNK_SIZE;
+    }
+
+    @Override
+    @Test
+    public void testUsedDirectMemory() {
+        // Without Unsafe direct buffers are not pooled.
+        assumeTrue(PlatformDependent.hasUnsafe());
+        super.testUsedDirectMemory();
+    }
+
+    @Override
+    @Test
+    public void testUnsafeHeapBufferAndUnsafeDirectBuffer() {
+        AdaptiveByteBufAllocator allocator = newUnpooledAllocator();
+        ByteBuf directBuffer = allocator.directBuffer();
+        if (PlatformDependent.hasUnsafe()) {
+            assertInstanceOf(directBuffer, AdaptivePoolingAllocator.AdaptiveByteBuf.class);
+        } else {
+            assertInstanceOf(directBuffer, UnpooledDirectByteBuf.class);
+        }
+        directBuffer.release();
+
+        ByteBuf heapBuffer = allocator.heapBuffer();
+        assertInstanceOf(heapBuffer, AdaptivePoolingAllocator.AdaptiveByteBuf.class);
+        heapBuffer.release();
+    }
+
+    @Test
+    public void testBuffersShareChunk() {
+        AdaptiveByteBufAllocator allocator = newAllocator(false);
+        ByteBuf a = allocator.heapBuffer(128);
+        ByteBuf b = allocator.heapBuffer(128);
+        assertTrue(a.hasArray());
+        assertTrue(a.array() == b.array());
+        assertEquals(a.arrayOffset() + 128, b.arrayOffset());
+        a.release();
+        b.release();
+    }
+
+    @Test
+    public void testHugeBufferIsNotPooled() {
+        AdaptiveByteBufAllocator allocator = newAllocator(false);
+        ByteBufAllocatorMetric metric = allocator.metric();
+        int size = AdaptivePoolingAllocator.MAX_POOLED_BUF_SIZE + 1;
+        ByteBuf buffer = allocator.heapBuffer(size);
+        assertEquals(size, metric.usedHeapMemory());
+        buffer.release();
+        assertEquals(0, metric.usedHeapMemory());
+    }
+
+    @Test
+    public void testReleasedChunkIsReused() {
+        AdaptiveByteBufAllocator allocator = newAllocator(false);
+        ByteBufAllocatorMetric metric = allocator.metric();
+        int size = AdaptivePoolingAllocator.MIN_CHUNK_SIZE / 4;
+        List<ByteBuf> buffers = new ArrayList<ByteBuf>();
+        for (int i = 0; i < 8; i++) {
+            buffers.add(allocator.heapBuffer(size));
+        }
+        assertEquals(2L * AdaptivePoolingAllocator.MIN_CHUNK_SIZE, metric.usedHeapMemory());
+        for (ByteBuf buffer : buffers) {
+            buffer.release();
+        }
+        buffers.clear();
+
+        // The retired chunk went to the central queue and is picked up again.
+        for (int i = 0; i < 8; i++) {
+            buffers.add(allocator.heapBuffer(size));
+        }
+        assertEquals(2L * AdaptivePoolingAllocator.MIN_CHUNK_SIZE, metric.usedHeapMemory());
+        for (ByteBuf buffer : buffers) {
+            buffer.release();
+        }
+    }
+
+    @Test
+    public void testCapacityIncreaseKeepsContent() {
+        AdaptiveByteBufAllocator allocator = newAllocator(false);
+        ByteBuf buffer = allocator.heapBuffer(8);
+        buffer.writeLong(42);
+        buffer.writeLong(43);
+        assertEquals(16, buffer.readableBytes());
+        assertEquals(42, buffer.readLong());
+        assertEquals(43, buffer.readLong());
+        buffer.release();
+    }
+
+    @Test(timeout = 10000)
+    public void testConcurrentAllocations() throws Exception {
+        final AdaptiveByteBufAllocator allocator = newAllocator(false);
+        int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        for (int i = 0; i < threads; i++) {
+            final int value = i;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < 10000; j++) {
+                            ByteBuf buffer = allocator.heapBuffer(64 + j % 1024);
+                            buffer.writeInt(value);
+                            buffer.writeZero(buffer.writableBytes() - 4);
+                            buffer.setInt(buffer.writerIndex() - 4, value);
+                            assertEquals(value, buffer.readInt());
+                            assertEquals(value, buffer.getInt(buffer.writerIndex() - 4));
+                            buffer.release();
+                        }
+                    } catch (Throwable cause) {
+                        synchronized (errors) {
+                            errors.add(cause);
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertTrue(allocator.heapMagazines() >= 4);
+    }
+}
@@ -16,6 +16,7 @@
 package io.netty.buffer;
 
 import io.netty.util.AsciiString;
+import io.netty.util.ByteProcessor;
 import io.netty.util.CharsetUtil;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -738,6 +739,99 @@ public class ByteBufUtilTest {
         assertIsText(invalidBytes, false, CharsetUtil.US_ASCII);
     }
 
+    @Test
+    public void testIsTextWithLongInput() {
+        byte[] ascii = new byte[67];
+        Arrays.fill(ascii, (byte) 'a');
+        assertIsText(ascii, true, CharsetUtil.US_ASCII);
+        assertIsText(ascii, true, CharsetUtil.UTF_8);
+        for (int i = 0; i < ascii.length; i++) {
+            byte[] invalid = ascii.clone();
+            invalid[i] = (byte) 0x80;
+            assertIsText(invalid, false, CharsetUtil.US_ASCII);
+            assertIsText(invalid, false, CharsetUtil.UTF_8);
+
+            byte[] utf8 = new byte[ascii.length + 1];
+            Arrays.fill(utf8, (byte) 'a');
+            utf8[i] = (byte) 0xC2;
+            utf8[i + 1] = (byte) 0xA2;
+            assertIsText(utf8, true, CharsetUtil.UTF_8);
+            assertIsText(utf8, false, CharsetUtil.US_ASCII);
+        }
+    }
+
+    @Test
+    public void testIndexOf() {
+        final byte[] bytes = new byte[100];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) ('a' + i % 7);
+        }
+        final ByteBuf haystack = buffer(bytes.length);
+        try {
+            haystack.writeBytes(bytes);
+            for (int needleLength = 0; needleLength <= 10; needleLength++) {
+                for (int start = 0; start + needleLength <= bytes.length; start += 3) {
+                    ByteBuf needle = Unpooled.wrappedBuffer(bytes, start, needleLength);
+                    assertEquals(naiveIndexOf(bytes, start, needleLength), ByteBufUtil.indexOf(needle, haystack));
+                }
+            }
+            // Same first and last byte but different middle bytes must not match.
+            ByteBuf needle = Unpooled.wrappedBuffer(new byte[] { 'a', 'z', 'z', 'z', 'z', 'z', 'z', 'a' });
+            assertEquals(-1, ByteBufUtil.indexOf(needle, haystack));
+            ByteBuf tooLong = Unpooled.wrappedBuffer(new byte[bytes.length + 1]);
+            assertEquals(-1, ByteBufUtil.indexOf(tooLong, haystack));
+
+            haystack.readerIndex(10);
+            needle = Unpooled.wrappedBuffer(bytes, 0, 8);
+            assertEquals(14, ByteBufUtil.indexOf(needle, haystack));
+        } finally {
+            haystack.release();
+        }
+    }
+
+    private static int naiveIndexOf(byte[] bytes, int needleStart, int needleLength) {
+        outer:
+        for (int i = 0; i + needleLength <= bytes.length; i++) {
+            for (int j = 0; j < needleLength; j++) {
+                if (bytes[i + j] != bytes[needleStart + j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    @Test
+    public void testForEachByteWithFindProcessors() {
+        final ByteBuf buffer = buffer(64);
+        try {
+            for (int i = 0; i < 64; i++) {
+                buffer.writeByte('a');
+            }
+            assertEquals(-1, buffer.forEachByte(ByteProcessor.FIND_CRLF));
+            assertEquals(-1, buffer.forEachByte(ByteProcessor.FIND_LINEAR_WHITESPACE));
+            for (int i = 0; i < 64; i++) {
+                buffer.setByte(i, '\n');
+                assertEquals(i, buffer.forEachByte(ByteProcessor.FIND_LF));
+                assertEquals(i, buffer.forEachByte(ByteProcessor.FIND_CRLF));
+                assertEquals(-1, buffer.forEachByte(ByteProcessor.FIND_CR));
+                buffer.setByte(i, '\r');
+                assertEquals(i, buffer.forEachByte(ByteProcessor.FIND_CR));
+                assertEquals(i, buffer.forEachByte(ByteProcessor.FIND_CRLF));
+                assertEquals(-1, buffer.forEachByte(0, i, ByteProcessor.FIND_CRLF));
+                buffer.setByte(i, '\t');
+                assertEquals(i, buffer.forEachByte(ByteProcessor.FIND_LINEAR_WHITESPACE));
+                buffer.setByte(i, 0);
+                assertEquals(i, buffer.forEachByte(ByteProcessor.FIND_NUL));
+                assertEquals(-1, buffer.forEachByte(i + 1, 63 - i, ByteProcessor.FIND_NUL));
+                buffer.setByte(i, 'a');
+            }
+        } finally {
+            buffer.release();
+        }
+    }
+
     @Test
     public void testIsTextWithInvalidIndexAndLength() {
         ByteBuf buffer = buffer(4);
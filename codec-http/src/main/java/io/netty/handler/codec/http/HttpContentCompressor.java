@@ -16,9 +16,21 @@
 package io.netty.handler.codec.http;
 
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.BrotliEncoder;
+import io.netty.handler.codec.compression.BrotliOptions;
+import io.netty.handler.codec.compression.CompressionOptions;
+import io.netty.handler.codec.compression.DeflateOptions;
+import io.netty.handler.codec.compression.GzipOptions;
+import io.netty.handler.codec.compression.JdkZlibPool;
+import io.netty.handler.codec.compression.StandardCompressionOptions;
 import io.netty.handler.codec.compression.ZlibCodecFactory;
 import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.compression.Zstd;
+import io.netty.handler.codec.compression.ZstdEncoder;
+import io.netty.handler.codec.compression.ZstdOptions;
 import io.netty.util.internal.ObjectUtil;
 
 /**
@@ -27,9 +39,19 @@ import io.netty.util.internal.ObjectUtil;
  * If there is no matching encoding, no compression is done.  For more
  * information on how this handler modifies the message, please refer to
  * {@link HttpContentEncoder}.
+ * <p>
+ * When created with {@link CompressionOptions}, the handler also supports the {@code br} (Brotli) and
+ * {@code zstd} (Zstandard) encodings if their optional native libraries are available, and picks the
+ * encoding with the highest quality value in the {@code "Accept-Encoding"} header, see
+ * {@link #determineEncoding(String)}.
  */
 public class HttpContentCompressor extends HttpContentEncoder {
 
+    private final boolean supportsCompressionOptions;
+    private final BrotliOptions brotliOptions;
+    private final ZstdOptions zstdOptions;
+    private final GzipOptions gzipOptions;
+    private final DeflateOptions deflateOptions;
     private final int compressionLevel;
     private final int windowBits;
     private final int memLevel;
@@ -108,6 +130,77 @@ public class HttpContentCompressor extends HttpContentEncoder {
         this.windowBits = ObjectUtil.checkInRange(windowBits, 9, 15, "windowBits");
         this.memLevel = ObjectUtil.checkInRange(memLevel, 1, 9, "memLevel");
         this.contentSizeThreshold = ObjectUtil.checkPositiveOrZero(contentSizeThreshold, "contentSizeThreshold");
+        supportsCompressionOptions = false;
+        brotliOptions = null;
+        zstdOptions = null;
+        gzipOptions = null;
+        deflateOptions = null;
+    }
+
+    /**
+     * Creates a new handler with the specified {@link CompressionOptions}.
+     * If no options are given, all the supported encodings are enabled with their default options.
+     *
+     * @param compressionOptions
+     *        the {@link CompressionOptions} of the encodings to enable
+     */
+    public HttpContentCompressor(CompressionOptions... compressionOptions) {
+        this(0, compressionOptions);
+    }
+
+    /**
+     * Creates a new handler with the specified content size threshold and {@link CompressionOptions}.
+     * If no options are given, all the supported encodings are enabled with their default options.
+     * Brotli and Zstandard options are ignored when their native library is not available.
+     *
+     * @param contentSizeThreshold
+     *        The response body is compressed when the size of the response
+     *        body exceeds the threshold. The value should be a non negative
+     *        number. {@code 0} will enable compression for all responses.
+     * @param compressionOptions
+     *        the {@link CompressionOptions} of the encodings to enable
+     */
+    public HttpContentCompressor(int contentSizeThreshold, CompressionOptions... compressionOptions) {
+        this.contentSizeThreshold = ObjectUtil.checkPositiveOrZero(contentSizeThreshold, "contentSizeThreshold");
+        ObjectUtil.checkNotNull(compressionOptions, "compressionOptions");
+        if (compressionOptions.length == 0) {
+            compressionOptions = new CompressionOptions[] {
+                    StandardCompressionOptions.brotli(), StandardCompressionOptions.zstd(),
+                    StandardCompressionOptions.gzip(), StandardCompressionOptions.deflate() };
+        }
+
+        BrotliOptions brotliOptions = null;
+        ZstdOptions zstdOptions = null;
+        GzipOptions gzipOptions = null;
+        DeflateOptions deflateOptions = null;
+        for (CompressionOptions options : compressionOptions) {
+            ObjectUtil.checkNotNull(options, "compressionOptions");
+            if (options instanceof BrotliOptions) {
+                if (Brotli.isAvailable()) {
+                    brotliOptions = (BrotliOptions) options;
+                }
+            } else if (options instanceof ZstdOptions) {
+                if (Zstd.isAvailable()) {
+                    zstdOptions = (ZstdOptions) options;
+                }
+            } else if (options instanceof GzipOptions) {
+                gzipOptions = (GzipOptions) options;
+            } else if (options instanceof DeflateOptions) {
+                deflateOptions = (DeflateOptions) options;
+            } else {
+                throw new IllegalArgumentException("Unsupported " + CompressionOptions.class.getSimpleName() +
+                        ": " + options);
+            }
+        }
+        this.brotliOptions = brotliOptions;
+        this.zstdOptions = zstdOptions;
+        this.gzipOptions = gzipOptions;
+        this.deflateOptions = deflateOptions;
+        supportsCompressionOptions = true;
+        // Unused by the CompressionOptions code path.
+        compressionLevel = -1;
+        windowBits = -1;
+        memLevel = -1;
     }
 
     @Override
@@ -131,6 +224,14 @@ public class HttpContentCompressor extends HttpContentEncoder {
             return null;
         }
 
+        if (supportsCompressionOptions) {
+            String targetContentEncoding = determineEncoding(acceptEncoding);
+            if (targetContentEncoding == null) {
+                return null;
+            }
+            return new Result(targetContentEncoding, newEmbeddedChannel(newEncoder(targetContentEncoding)));
+        }
+
         ZlibWrapper wrapper = determineWrapper(acceptEncoding);
         if (wrapper == null) {
             return null;
@@ -148,11 +249,118 @@ public class HttpContentCompressor extends HttpContentEncoder {
             throw new Error();
         }
 
-        return new Result(
-                targetContentEncoding,
-                new EmbeddedChannel(ctx.channel().id(), ctx.channel().metadata().hasDisconnect(),
-                        ctx.channel().config(), ZlibCodecFactory.newZlibEncoder(
-                        wrapper, compressionLevel, windowBits, memLevel)));
+        return new Result(targetContentEncoding, newEmbeddedChannel(ZlibCodecFactory.newZlibEncoder(
+                wrapper, compressionLevel, windowBits, memLevel, JdkZlibPool.DEFAULT)));
+    }
+
+    private EmbeddedChannel newEmbeddedChannel(ChannelHandler encoder) {
+        return new EmbeddedChannel(ctx.channel().id(), ctx.channel().metadata().hasDisconnect(),
+                ctx.channel().config(), encoder);
+    }
+
+    private ChannelHandler newEncoder(String contentEncoding) {
+        if (HttpHeaderValues.BR.contentEquals(contentEncoding)) {
+            return new BrotliEncoder(brotliOptions);
+        }
+        if (HttpHeaderValues.ZSTD.contentEquals(contentEncoding)) {
+            return new ZstdEncoder(zstdOptions);
+        }
+        if (HttpHeaderValues.GZIP.contentEquals(contentEncoding)) {
+            return ZlibCodecFactory.newZlibEncoder(ZlibWrapper.GZIP, gzipOptions.compressionLevel(),
+                    gzipOptions.windowBits(), gzipOptions.memLevel(), JdkZlibPool.DEFAULT);
+        }
+        if (HttpHeaderValues.DEFLATE.contentEquals(contentEncoding)) {
+            return ZlibCodecFactory.newZlibEncoder(ZlibWrapper.ZLIB, deflateOptions.compressionLevel(),
+                    deflateOptions.windowBits(), deflateOptions.memLevel(), JdkZlibPool.DEFAULT);
+        }
+        throw new Error();
+    }
+
+    /**
+     * Returns the content encoding to use for the given {@code "Accept-Encoding"} header value, or {@code null}
+     * if none of the enabled encodings is acceptable. Only used when this handler was created with
+     * {@link CompressionOptions}.
+     * <p>
+     * Each coding is matched exactly, and its quality value defaults to the one of {@code "*"} if it is not
+     * listed. The enabled encoding with the highest non zero quality value wins; ties are broken in favour of
+     * {@code br}, then {@code zstd}, then {@code gzip} and finally {@code deflate}.
+     */
+    @SuppressWarnings("FloatingPointEquality")
+    protected String determineEncoding(String acceptEncoding) {
+        float starQ = -1.0f;
+        float brQ = -1.0f;
+        float zstdQ = -1.0f;
+        float gzipQ = -1.0f;
+        float deflateQ = -1.0f;
+        for (String encoding : acceptEncoding.split(",")) {
+            String coding = encoding;
+            float q = 1.0f;
+            int paramsPos = encoding.indexOf(';');
+            if (paramsPos != -1) {
+                coding = encoding.substring(0, paramsPos);
+                q = parseQuality(encoding.substring(paramsPos + 1));
+            }
+            coding = coding.trim();
+            if ("*".equals(coding)) {
+                starQ = Math.max(starQ, q);
+            } else if (HttpHeaderValues.BR.contentEqualsIgnoreCase(coding)) {
+                brQ = Math.max(brQ, q);
+            } else if (HttpHeaderValues.ZSTD.contentEqualsIgnoreCase(coding)) {
+                zstdQ = Math.max(zstdQ, q);
+            } else if (HttpHeaderValues.GZIP.contentEqualsIgnoreCase(coding) ||
+                    HttpHeaderValues.X_GZIP.contentEqualsIgnoreCase(coding)) {
+                gzipQ = Math.max(gzipQ, q);
+            } else if (HttpHeaderValues.DEFLATE.contentEqualsIgnoreCase(coding) ||
+                    HttpHeaderValues.X_DEFLATE.contentEqualsIgnoreCase(coding)) {
+                deflateQ = Math.max(deflateQ, q);
+            }
+        }
+
+        String encoding = null;
+        float bestQ = 0.0f;
+        if (brotliOptions != null) {
+            float q = brQ == -1.0f ? starQ : brQ;
+            if (q > bestQ) {
+                bestQ = q;
+                encoding = HttpHeaderValues.BR.toString();
+            }
+        }
+        if (zstdOptions != null) {
+            float q = zstdQ == -1.0f ? starQ : zstdQ;
+            if (q > bestQ) {
+                bestQ = q;
+                encoding = HttpHeaderValues.ZSTD.toString();
+            }
+        }
+        if (gzipOptions != null) {
+            float q = gzipQ == -1.0f ? starQ : gzipQ;
+            if (q > bestQ) {
+                bestQ = q;
+                encoding = HttpHeaderValues.GZIP.toString();
+            }
+        }
+        if (deflateOptions != null) {
+            float q = deflateQ == -1.0f ? starQ : deflateQ;
+            if (q > bestQ) {
+                encoding = HttpHeaderValues.DEFLATE.toString();
+            }
+        }
+        return encoding;
+    }
+
+    private static float parseQuality(String params) {
+        for (String param : params.split(";")) {
+            int equalsPos = param.indexOf('=');
+            if (equalsPos != -1 && "q".equalsIgnoreCase(param.substring(0, equalsPos).trim())) {
+                try {
+                    return Float.parseFloat(param.substring(equalsPos + 1).trim());
+                } catch (NumberFormatException e) {
+                    // Ignore encoding
+                    return 0.0f;
+                }
+            }
+        }
+        return 1.0f;
     }
 
     @SuppressWarnings("FloatingPointEquality")
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.util.AsciiString;
+import io.netty.util.internal.MathUtil;
+import io.netty.util.internal.PlatformDependent;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps the bytes of a received header name to the matching {@link HttpHeaderNames} constant without allocating.
+ * Only exact matches are returned so the case of the name as it was received is preserved, for this reason each
+ * name is known in its lowercase form and in its canonical form (e.g. {@code Content-Length}).
+ */
+final class HttpHeaderNameCache {
+
+    private static final AsciiString[] NAMES;
+    private static final int MASK;
+
+    static {
+        List<AsciiString> names = new ArrayList<AsciiString>();
+        for (Field field : HttpHeaderNames.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == AsciiString.class) {
+                try {
+                    AsciiString name = (AsciiString) field.get(null);
+                    names.add(name);
+                    names.add(canonicalName(name));
+                } catch (IllegalAccessException e) {
+                    throw new ExceptionInInitializerError(e);
+                }
+            }
+        }
+        // Keep the load factor below 0.25 so lookups rarely need to probe.
+        NAMES = new AsciiString[MathUtil.findNextPositivePowerOfTwo(names.size() * 4)];
+        MASK = NAMES.length - 1;
+        for (AsciiString name : names) {
+            int index = name.hashCode() & MASK;
+            while (NAMES[index] != null) {
+                index = index + 1 & MASK;
+            }
+            NAMES[index] = name;
+        }
+    }
+
+    private HttpHeaderNameCache() { }
+
+    /**
+     * Returns the {@link HttpHeaderNames} constant which is equal to the {@code length} bytes in {@code bytes}
+     * starting at {@code offset}, or {@code null} if there is none.
+     */
+    static AsciiString lookup(byte[] bytes, int offset, int length) {
+        int index = PlatformDependent.hashCodeAscii(bytes, offset, length) & MASK;
+        for (;;) {
+            AsciiString name = NAMES[index];
+            if (name == null) {
+                return null;
+            }
+            if (contentEquals(name, bytes, offset, length)) {
+                return name;
+            }
+            index = index + 1 & MASK;
+        }
+    }
+
+    private static boolean contentEquals(AsciiString name, byte[] bytes, int offset, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        final byte[] array = name.array();
+        final int arrayOffset = name.arrayOffset();
+        for (int i = 0; i < length; i++) {
+            if (array[arrayOffset + i] != bytes[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static AsciiString canonicalName(AsciiString name) {
+        byte[] bytes = name.toByteArray();
+        boolean upper = true;
+        for (int i = 0; i < bytes.length; i++) {
+            if (upper && bytes[i] >= 'a' && bytes[i] <= 'z') {
+                bytes[i] -= 'a' - 'A';
+            }
+            upper = bytes[i] == '-';
+        }
+        return new AsciiString(bytes, false);
+    }
+}
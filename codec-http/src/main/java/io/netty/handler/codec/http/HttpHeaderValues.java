@@ -60,6 +60,10 @@ public final class HttpHeaderValues {
      * {@code "boundary"}
      */
     public static final AsciiString BOUNDARY = AsciiString.cached("boundary");
+    /**
+     * {@code "br"}
+     */
+    public static final AsciiString BR = AsciiString.cached("br");
     /**
      * {@code "bytes"}
      */
@@ -232,6 +236,10 @@ public final class HttpHeaderValues {
      * {@code "XmlHttpRequest"}
      */
     public static final AsciiString XML_HTTP_REQUEST = AsciiString.cached("XmlHttpRequest");
+    /**
+     * {@code "zstd"}
+     */
+    public static final AsciiString ZSTD = AsciiString.cached("zstd");
 
     private HttpHeaderValues() { }
 }
@@ -26,7 +26,9 @@ import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.DecoderResult;
 import io.netty.handler.codec.PrematureChannelClosureException;
 import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.AsciiString;
 import io.netty.util.ByteProcessor;
+import io.netty.util.CharsetUtil;
 import io.netty.util.internal.AppendableCharSequence;
 
 import java.util.List;
@@ -78,6 +80,14 @@ import java.util.regex.Pattern;
  *     The duplicated field-values will be replaced with a single valid Content-Length field.
  *     See <a href="https://tools.ietf.org/html/rfc7230#section-3.3.2">RFC 7230, Section 3.3.2</a>.</td>
  * </tr>
+ * <tr>
+ * <td>{@code asciiStringHeaders}</td>
+ * <td>{@value #DEFAULT_ASCII_STRING_HEADERS}</td>
+ * <td>When set to {@code true}, the header block is copied out of the inbound buffer once and the header names
+ * and values are added to the {@link HttpHeaders} as {@link AsciiString}s sharing that copy, instead of creating
+ * two {@link String}s per header. Well-known names are replaced by their {@link HttpHeaderNames} constant, values
+ * are only decoded into a {@link String} when they are accessed as such.</td>
+ * </tr>
  * </table>
  *
  * <h3>Chunked Content</h3>
@@ -129,6 +139,7 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
     public static final boolean DEFAULT_VALIDATE_HEADERS = true;
     public static final int DEFAULT_INITIAL_BUFFER_SIZE = 128;
     public static final boolean DEFAULT_ALLOW_DUPLICATE_CONTENT_LENGTHS = false;
+    public static final boolean DEFAULT_ASCII_STRING_HEADERS = false;
 
     private static final String EMPTY_VALUE = "";
     private static final Pattern COMMA_PATTERN = Pattern.compile(",");
@@ -139,6 +150,7 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
     private final boolean allowDuplicateContentLengths;
     private final HeaderParser headerParser;
     private final LineParser lineParser;
+    private final HeaderBlockParser headerBlockParser;
 
     private HttpMessage message;
     private long chunkSize;
@@ -213,6 +225,14 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
             int maxInitialLineLength, int maxHeaderSize, int maxChunkSize,
             boolean chunkedSupported, boolean validateHeaders, int initialBufferSize,
             boolean allowDuplicateContentLengths) {
+        this(maxInitialLineLength, maxHeaderSize, maxChunkSize, chunkedSupported, validateHeaders, initialBufferSize,
+             allowDuplicateContentLengths, DEFAULT_ASCII_STRING_HEADERS);
+    }
+
+    protected HttpObjectDecoder(
+            int maxInitialLineLength, int maxHeaderSize, int maxChunkSize,
+            boolean chunkedSupported, boolean validateHeaders, int initialBufferSize,
+            boolean allowDuplicateContentLengths, boolean asciiStringHeaders) {
         checkPositive(maxInitialLineLength, "maxInitialLineLength");
         checkPositive(maxHeaderSize, "maxHeaderSize");
         checkPositive(maxChunkSize, "maxChunkSize");
@@ -220,6 +240,7 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         AppendableCharSequence seq = new AppendableCharSequence(initialBufferSize);
         lineParser = new LineParser(seq, maxInitialLineLength);
         headerParser = new HeaderParser(seq, maxHeaderSize);
+        headerBlockParser = asciiStringHeaders ? new HeaderBlockParser(maxHeaderSize) : null;
         this.maxChunkSize = maxChunkSize;
         this.chunkedSupported = chunkedSupported;
         this.validateHeaders = validateHeaders;
@@ -545,6 +566,9 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         contentLength = Long.MIN_VALUE;
         lineParser.reset();
         headerParser.reset();
+        if (headerBlockParser != null) {
+            headerBlockParser.reset();
+        }
         trailer = null;
         if (!isDecodingRequest()) {
             HttpResponse res = (HttpResponse) message;
@@ -593,41 +617,14 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         final HttpMessage message = this.message;
         final HttpHeaders headers = message.headers();
 
-        AppendableCharSequence line = headerParser.parse(buffer);
-        if (line == null) {
+        if (headerBlockParser != null) {
+            if (!headerBlockParser.parse(buffer, headers)) {
+                return null;
+            }
+        } else if (!readHeaderLines(buffer, headers)) {
             return null;
         }
-        if (line.length() > 0) {
-            do {
-                char firstChar = line.charAtUnsafe(0);
-                if (name != null && (firstChar == ' ' || firstChar == '\t')) {
-                    //please do not make one line from below code
-                    //as it breaks +XX:OptimizeStringConcat optimization
-                    String trimmedLine = line.toString().trim();
-                    String valueStr = String.valueOf(value);
-                    value = valueStr + ' ' + trimmedLine;
-                } else {
-                    if (name != null) {
-                        headers.add(name, value);
-                    }
-                    splitHeader(line);
-                }
 
-                line = headerParser.parse(buffer);
-                if (line == null) {
-                    return null;
-                }
-            } while (line.length() > 0);
-        }
-
-        // Add the last header.
-        if (name != null) {
-            headers.add(name, value);
-        }
-
-        // reset name and value fields
-        name = null;
-        value = null;
 
         List<String> contentLengthFields = headers.getAll(HttpHeaderNames.CONTENT_LENGTH);
 
@@ -717,6 +714,45 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         contentLength = Long.MIN_VALUE;
     }
 
+    private boolean readHeaderLines(ByteBuf buffer, HttpHeaders headers) {
+        AppendableCharSequence line = headerParser.parse(buffer);
+        if (line == null) {
+            return false;
+        }
+        if (line.length() > 0) {
+            do {
+                char firstChar = line.charAtUnsafe(0);
+                if (name != null && (firstChar == ' ' || firstChar == '\t')) {
+                    //please do not make one line from below code
+                    //as it breaks +XX:OptimizeStringConcat optimization
+                    String trimmedLine = line.toString().trim();
+                    String valueStr = String.valueOf(value);
+                    value = valueStr + ' ' + trimmedLine;
+                } else {
+                    if (name != null) {
+                        headers.add(name, value);
+                    }
+                    splitHeader(line);
+                }
+
+                line = headerParser.parse(buffer);
+                if (line == null) {
+                    return false;
+                }
+            } while (line.length() > 0);
+        }
+
+        // Add the last header.
+        if (name != null) {
+            headers.add(name, value);
+        }
+
+        // reset name and value fields
+        name = null;
+        value = null;
+        return true;
+    }
+
     private long contentLength() {
         if (contentLength == Long.MIN_VALUE) {
             contentLength = HttpUtil.getContentLength(message, -1L);
@@ -924,6 +960,157 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         return ch == ' ' || ch == (char) 0x09;
     }
 
+    /**
+     * Reads the complete header block in one go once its terminating empty line was received. The block is copied
+     * into a single {@code byte[]} and every header name and value becomes an {@link AsciiString} view on it.
+     */
+    private final class HeaderBlockParser {
+        private final int maxLength;
+        // The number of bytes after the reader index which are known to be complete header lines.
+        private int scanned;
+        // The number of bytes in the scanned lines, without the line delimiters.
+        private int size;
+
+        HeaderBlockParser(int maxLength) {
+            this.maxLength = maxLength;
+        }
+
+        boolean parse(ByteBuf buffer, HttpHeaders headers) {
+            final int start = buffer.readerIndex();
+            final int end = buffer.writerIndex();
+            int lineStart = start + scanned;
+            int lineEnd;
+            for (;;) {
+                lineEnd = buffer.forEachByte(lineStart, end - lineStart, ByteProcessor.FIND_LF);
+                if (lineEnd == -1) {
+                    checkSize(size + end - lineStart);
+                    scanned = lineStart - start;
+                    return false;
+                }
+                int lineLength = lineEnd - lineStart;
+                if (lineLength > 0 && buffer.getByte(lineEnd - 1) == HttpConstants.CR) {
+                    lineLength--;
+                }
+                if (lineLength == 0) {
+                    break;
+                }
+                size += lineLength;
+                checkSize(size);
+                lineStart = lineEnd + 1;
+            }
+
+            final int blockLength = lineStart - start;
+            if (blockLength > 0) {
+                byte[] block = new byte[blockLength];
+                buffer.getBytes(start, block);
+                parseBlock(block, headers);
+            }
+            buffer.readerIndex(lineEnd + 1);
+            reset();
+            return true;
+        }
+
+        void reset() {
+            scanned = 0;
+            size = 0;
+        }
+
+        private void checkSize(int size) {
+            if (size > maxLength) {
+                throw headerParser.newException(maxLength);
+            }
+        }
+
+        private void parseBlock(byte[] block, HttpHeaders headers) {
+            CharSequence headerName = null;
+            CharSequence headerValue = null;
+            int lineStart = 0;
+            while (lineStart < block.length) {
+                int lineEnd = lineStart;
+                while (block[lineEnd] != HttpConstants.LF) {
+                    lineEnd++;
+                }
+                final int nextLineStart = lineEnd + 1;
+                if (lineEnd > lineStart && block[lineEnd - 1] == HttpConstants.CR) {
+                    lineEnd--;
+                }
+
+                byte firstByte = block[lineStart];
+                if (headerName != null && (firstByte == ' ' || firstByte == '\t')) {
+                    //please do not make one line from below code
+                    //as it breaks +XX:OptimizeStringConcat optimization
+                    String trimmedLine = new String(block, lineStart, lineEnd - lineStart, CharsetUtil.ISO_8859_1)
+                            .trim();
+                    String valueStr = String.valueOf(headerValue);
+                    headerValue = valueStr + ' ' + trimmedLine;
+                } else {
+                    if (headerName != null) {
+                        headers.add(headerName, headerValue);
+                    }
+                    // See splitHeader(AppendableCharSequence) for the rules applied here.
+                    int nameStart = findNonWhitespace(block, lineStart, lineEnd, false);
+                    int nameEnd;
+                    for (nameEnd = nameStart; nameEnd < lineEnd; nameEnd ++) {
+                        byte b = block[nameEnd];
+                        if (b == ':' || !isDecodingRequest() && isOWS((char) b)) {
+                            break;
+                        }
+                    }
+                    if (nameEnd == lineEnd) {
+                        // There was no colon present at all.
+                        throw new IllegalArgumentException("No colon found");
+                    }
+                    int colonEnd;
+                    for (colonEnd = nameEnd; colonEnd < lineEnd; colonEnd ++) {
+                        if (block[colonEnd] == ':') {
+                            colonEnd ++;
+                            break;
+                        }
+                    }
+
+                    headerName = HttpHeaderNameCache.lookup(block, nameStart, nameEnd - nameStart);
+                    if (headerName == null) {
+                        headerName = new AsciiString(block, nameStart, nameEnd - nameStart, false);
+                    }
+                    int valueStart = findNonWhitespace(block, colonEnd, lineEnd, true);
+                    if (valueStart == lineEnd) {
+                        headerValue = EMPTY_VALUE;
+                    } else {
+                        int valueEnd = findEndOfString(block, lineStart, lineEnd);
+                        headerValue = new AsciiString(block, valueStart, valueEnd - valueStart, false);
+                    }
+                }
+                lineStart = nextLineStart;
+            }
+            if (headerName != null) {
+                headers.add(headerName, headerValue);
+            }
+        }
+    }
+
+    private static int findNonWhitespace(byte[] bytes, int offset, int end, boolean validateOWS) {
+        for (int result = offset; result < end; ++result) {
+            char c = (char) (bytes[result] & 0xFF);
+            if (!Character.isWhitespace(c)) {
+                return result;
+            } else if (validateOWS && !isOWS(c)) {
+                // Only OWS is supported for whitespace
+                throw new IllegalArgumentException("Invalid separator, only a single space or horizontal tab allowed," +
+                        " but received a '" + c + "'");
+            }
+        }
+        return end;
+    }
+
+    private static int findEndOfString(byte[] bytes, int start, int end) {
+        for (int result = end - 1; result > start; --result) {
+            if (!Character.isWhitespace((char) (bytes[result] & 0xFF))) {
+                return result + 1;
+            }
+        }
+        return start;
+    }
+
     private static class HeaderParser implements ByteProcessor {
         private final AppendableCharSequence seq;
         private final int maxLength;
@@ -20,6 +20,7 @@ import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.CodecException;
+import io.netty.handler.codec.compression.JdkZlibPool;
 import io.netty.handler.codec.compression.ZlibCodecFactory;
 import io.netty.handler.codec.compression.ZlibWrapper;
 import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
@@ -116,8 +117,9 @@ abstract class DeflateEncoder extends WebSocketExtensionEncoder {
 
     private ByteBuf compressContent(ChannelHandlerContext ctx, WebSocketFrame msg) {
         if (encoder == null) {
+            // Without context takeover the compression state only lives for one message, so borrow it from the pool.
             encoder = new EmbeddedChannel(ZlibCodecFactory.newZlibEncoder(
-                    ZlibWrapper.NONE, compressionLevel, windowSize, 8));
+                    ZlibWrapper.NONE, compressionLevel, windowSize, 8, noContext ? JdkZlibPool.DEFAULT : null));
         }
 
         encoder.writeOutbound(msg.content().retain());
@@ -33,7 +33,11 @@ import io.netty.channel.local.LocalChannel;
 import io.netty.channel.local.LocalServerChannel;
 import io.netty.handler.codec.DecoderResult;
 import io.netty.handler.codec.EncoderException;
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.CompressionOptions;
+import io.netty.handler.codec.compression.StandardCompressionOptions;
 import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.compression.Zstd;
 import io.netty.util.CharsetUtil;
 import io.netty.util.ReferenceCountUtil;
 import java.util.UUID;
@@ -89,6 +93,59 @@ public class HttpContentCompressorTest {
         }
     }
 
+    @Test
+    public void testDetermineEncoding() throws Exception {
+        HttpContentCompressor compressor = new HttpContentCompressor(
+                StandardCompressionOptions.gzip(), StandardCompressionOptions.deflate());
+
+        String[] tests = {
+            // Accept-Encoding -> Content-Encoding
+            "", null,
+            "*", "gzip",
+            "*;q=0.0", null,
+            "br, zstd", null,
+            "br, *;q=0.1", "gzip",
+            "gzip;q=0.5, deflate", "deflate",
+            "deflate;q=0.5, gzip;q=0.5", "gzip",
+            "GZIP ; q=0.1", "gzip",
+            "x-gzip", "gzip",
+            "gzips, deflate;q=0.2", "deflate",
+            "gzip;level=1;q=0, deflate;q=0", null,
+            " deflate ; q=0 , *;q=0.5", "gzip",
+        };
+        for (int i = 0; i < tests.length; i += 2) {
+            assertEquals(tests[i], tests[i + 1], compressor.determineEncoding(tests[i]));
+        }
+    }
+
+    @Test
+    public void testDetermineEncodingPrefersBrotliAndZstd() throws Exception {
+        HttpContentCompressor compressor = new HttpContentCompressor();
+        HttpContentCompressor defaultCompressor = new HttpContentCompressor(new CompressionOptions[0]);
+
+        String expected = Brotli.isAvailable() ? "br" : Zstd.isAvailable() ? "zstd" : "gzip";
+        assertEquals(expected, defaultCompressor.determineEncoding("gzip, deflate, br, zstd"));
+        assertEquals("deflate", defaultCompressor.determineEncoding("gzip;q=0.5, deflate, br;q=0.1, zstd;q=0.1"));
+        // The legacy constructors only negotiate gzip and deflate.
+        assertEquals(ZlibWrapper.GZIP, compressor.determineWrapper("gzip, deflate, br, zstd"));
+    }
+
+    @Test
+    public void testCompressionOptionsEncoding() throws Exception {
+        EmbeddedChannel ch = new EmbeddedChannel(new HttpContentCompressor(StandardCompressionOptions.deflate()));
+        FullHttpRequest req = newRequest();
+        req.headers().set(HttpHeaderNames.ACCEPT_ENCODING, "gzip, deflate");
+        ch.writeInbound(req);
+
+        FullHttpResponse res = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer("Hello, World", CharsetUtil.US_ASCII));
+        ch.writeOutbound(res);
+
+        HttpResponse response = ch.readOutbound();
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_ENCODING), is("deflate"));
+        assertTrue(ch.finishAndReleaseAll());
+    }
+
     @Test
     public void testSplitContent() throws Exception {
         EmbeddedChannel ch = new EmbeddedChannel(new HttpContentCompressor());
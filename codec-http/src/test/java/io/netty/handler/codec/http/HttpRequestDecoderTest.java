@@ -22,7 +22,9 @@ import io.netty.util.AsciiString;
 import io.netty.util.CharsetUtil;
 import org.junit.Test;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import static io.netty.handler.codec.http.HttpHeaderNames.*;
 import static io.netty.handler.codec.http.HttpHeadersTestUtils.of;
@@ -34,6 +36,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class HttpRequestDecoderTest {
@@ -79,8 +82,19 @@ public class HttpRequestDecoderTest {
         testDecodeWholeRequestAtOnce(CONTENT_MIXED_DELIMITERS);
     }
 
+    @Test
+    public void testDecodeWholeRequestAtOnceAsciiStringHeaders() {
+        testDecodeWholeRequestAtOnce(CONTENT_CRLF_DELIMITERS, true);
+        testDecodeWholeRequestAtOnce(CONTENT_LF_DELIMITERS, true);
+        testDecodeWholeRequestAtOnce(CONTENT_MIXED_DELIMITERS, true);
+    }
+
     private static void testDecodeWholeRequestAtOnce(byte[] content) {
-        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+        testDecodeWholeRequestAtOnce(content, false);
+    }
+
+    private static void testDecodeWholeRequestAtOnce(byte[] content, boolean asciiStringHeaders) {
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(asciiStringHeaders));
         assertTrue(channel.writeInbound(Unpooled.copiedBuffer(content)));
         HttpRequest req = channel.readInbound();
         assertNotNull(req);
@@ -128,14 +142,26 @@ public class HttpRequestDecoderTest {
         testDecodeWholeRequestInMultipleSteps(CONTENT_MIXED_DELIMITERS);
     }
 
+    @Test
+    public void testDecodeWholeRequestInMultipleStepsAsciiStringHeaders() {
+        testDecodeWholeRequestInMultipleSteps(CONTENT_CRLF_DELIMITERS, true);
+        testDecodeWholeRequestInMultipleSteps(CONTENT_LF_DELIMITERS, true);
+        testDecodeWholeRequestInMultipleSteps(CONTENT_MIXED_DELIMITERS, true);
+    }
+
     private static void testDecodeWholeRequestInMultipleSteps(byte[] content) {
+        testDecodeWholeRequestInMultipleSteps(content, false);
+    }
+
+    private static void testDecodeWholeRequestInMultipleSteps(byte[] content, boolean asciiStringHeaders) {
         for (int i = 1; i < content.length; i++) {
-            testDecodeWholeRequestInMultipleSteps(content, i);
+            testDecodeWholeRequestInMultipleSteps(content, i, asciiStringHeaders);
         }
     }
 
-    private static void testDecodeWholeRequestInMultipleSteps(byte[] content, int fragmentSize) {
-        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+    private static void testDecodeWholeRequestInMultipleSteps(
+            byte[] content, int fragmentSize, boolean asciiStringHeaders) {
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(asciiStringHeaders));
         int headerLength = content.length - CONTENT_LENGTH;
 
         // split up the header
@@ -175,6 +201,61 @@ public class HttpRequestDecoderTest {
         assertNull(channel.readInbound());
     }
 
+    private static HttpRequestDecoder newDecoder(boolean asciiStringHeaders) {
+        return new HttpRequestDecoder(
+                HttpObjectDecoder.DEFAULT_MAX_INITIAL_LINE_LENGTH, HttpObjectDecoder.DEFAULT_MAX_HEADER_SIZE,
+                HttpObjectDecoder.DEFAULT_MAX_CHUNK_SIZE, HttpObjectDecoder.DEFAULT_VALIDATE_HEADERS,
+                HttpObjectDecoder.DEFAULT_INITIAL_BUFFER_SIZE,
+                HttpObjectDecoder.DEFAULT_ALLOW_DUPLICATE_CONTENT_LENGTHS, asciiStringHeaders);
+    }
+
+    @Test
+    public void testAsciiStringHeaders() {
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(true));
+        String request = "GET /some/path HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "content-type:text/plain  \r\n" +
+                "X-Custom:  value\r\n" +
+                "EmptyHeader:\r\n" +
+                "MyTestHeader: part1\r\n" +
+                "              newLinePart2\r\n\r\n";
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer(request, CharsetUtil.US_ASCII)));
+        HttpRequest req = channel.readInbound();
+        HttpHeaders headers = req.headers();
+        assertEquals(5, headers.size());
+        assertEquals("localhost", headers.get(HOST));
+        assertEquals("text/plain", headers.get(CONTENT_TYPE));
+        assertEquals("value", headers.get(of("x-custom")));
+        assertEquals("", headers.get(of("EmptyHeader")));
+        assertEquals("part1 newLinePart2", headers.get(of("MyTestHeader")));
+
+        Iterator<Map.Entry<CharSequence, CharSequence>> iterator = headers.iteratorCharSequence();
+        Map.Entry<CharSequence, CharSequence> host = iterator.next();
+        // Well-known names are interned without changing their case.
+        assertEquals("Host", host.getKey().toString());
+        assertThat(host.getValue(), instanceOf(AsciiString.class));
+        assertSame(CONTENT_TYPE, iterator.next().getKey());
+        Map.Entry<CharSequence, CharSequence> custom = iterator.next();
+        assertEquals("X-Custom", custom.getKey().toString());
+        assertThat(custom.getValue(), instanceOf(AsciiString.class));
+
+        LastHttpContent c = channel.readInbound();
+        c.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testTooLargeHeadersAsciiStringHeaders() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder(1024, 10, 1024, true, 128, false, true));
+        assertFalse(channel.writeInbound(Unpooled.copiedBuffer("GET /some/path HTTP/1.1\r\nHost: lo",
+                                                               CharsetUtil.US_ASCII)));
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer("calhost1\r\n\r\n", CharsetUtil.US_ASCII)));
+        HttpRequest request = channel.readInbound();
+        assertTrue(request.decoderResult().isFailure());
+        assertTrue(request.decoderResult().cause() instanceof TooLongFrameException);
+        assertFalse(channel.finish());
+    }
+
     @Test
     public void testMultiLineHeader() {
         EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
@@ -63,6 +63,8 @@ import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
  *   <li>{@link #headerSensitivityDetector(SensitivityDetector)}</li>
  *   <li>{@link #encoderEnforceMaxConcurrentStreams(boolean)}</li>
  *   <li>{@link #encoderIgnoreMaxHeaderListSize(boolean)}</li>
+ *   <li>{@link #headerInterner(Http2HeaderInterner)}</li>
+ *   <li>{@link #encoderFrameCoalescingBufferSize(int)}</li>
  * </ul>
  *
  * <h3>Exposing necessary methods in a subclass</h3>
@@ -104,6 +106,8 @@ public abstract class AbstractHttp2ConnectionHandlerBuilder<T extends Http2Conne
     private SensitivityDetector headerSensitivityDetector;
     private Boolean encoderEnforceMaxConcurrentStreams;
     private Boolean encoderIgnoreMaxHeaderListSize;
+    private Http2HeaderInterner headerInterner;
+    private Integer frameCoalescingBufferSize;
     private Http2PromisedRequestVerifier promisedRequestVerifier = ALWAYS_VERIFY;
     private boolean autoAckSettingsFrame = true;
     private boolean autoAckPingFrame = true;
@@ -259,6 +263,8 @@ public abstract class AbstractHttp2ConnectionHandlerBuilder<T extends Http2Conne
         enforceConstraint("codec", "validateHeaders", validateHeaders);
         enforceConstraint("codec", "headerSensitivityDetector", headerSensitivityDetector);
         enforceConstraint("codec", "encoderEnforceMaxConcurrentStreams", encoderEnforceMaxConcurrentStreams);
+        enforceConstraint("codec", "headerInterner", headerInterner);
+        enforceConstraint("codec", "encoderFrameCoalescingBufferSize", frameCoalescingBufferSize);
 
         checkNotNull(decoder, "decoder");
         checkNotNull(encoder, "encoder");
@@ -380,6 +386,47 @@ public abstract class AbstractHttp2ConnectionHandlerBuilder<T extends Http2Conne
         return self();
     }
 
+    /**
+     * Returns the size of the buffers into which the frames written between two flushes are serialized, or
+     * {@code 0} if every frame is written as a separate buffer.
+     */
+    protected int encoderFrameCoalescingBufferSize() {
+        return frameCoalescingBufferSize != null ? frameCoalescingBufferSize : 0;
+    }
+
+    /**
+     * Sets the size of the buffers into which the frames written between two flushes are serialized. Coalescing
+     * frame headers and small payloads reduces the number of buffers, and so the number of allocations and
+     * I/O vectors, if many streams write small frames. Large payloads are still written without copying.
+     *
+     * {@code 0} means every frame is written as a separate buffer, which is the default.
+     */
+    protected B encoderFrameCoalescingBufferSize(int frameCoalescingBufferSize) {
+        enforceNonCodecConstraints("encoderFrameCoalescingBufferSize");
+        this.frameCoalescingBufferSize = ObjectUtil.checkPositiveOrZero(frameCoalescingBufferSize,
+                "frameCoalescingBufferSize");
+        return self();
+    }
+
+    /**
+     * Returns the {@link Http2HeaderInterner} which is used to share decoded header names and values between
+     * connections or {@code null} if none is used.
+     */
+    protected Http2HeaderInterner headerInterner() {
+        return headerInterner;
+    }
+
+    /**
+     * Sets the {@link Http2HeaderInterner} which is used to share decoded header names and values between
+     * connections. The same instance should be used for all connections built by this builder.
+     * @return this.
+     */
+    protected B headerInterner(Http2HeaderInterner headerInterner) {
+        enforceNonCodecConstraints("headerInterner");
+        this.headerInterner = checkNotNull(headerInterner, "headerInterner");
+        return self();
+    }
+
     /**
      * Does nothing, do not call.
      *
@@ -507,11 +554,10 @@ public abstract class AbstractHttp2ConnectionHandlerBuilder<T extends Http2Conne
     private T buildFromConnection(Http2Connection connection) {
         Long maxHeaderListSize = initialSettings.maxHeaderListSize();
         Http2FrameReader reader = new DefaultHttp2FrameReader(new DefaultHttp2HeadersDecoder(isValidateHeaders(),
-                maxHeaderListSize == null ? DEFAULT_HEADER_LIST_SIZE : maxHeaderListSize,
-                /* initialHuffmanDecodeCapacity= */ -1));
-        Http2FrameWriter writer = encoderIgnoreMaxHeaderListSize == null ?
-                new DefaultHttp2FrameWriter(headerSensitivityDetector()) :
-                new DefaultHttp2FrameWriter(headerSensitivityDetector(), encoderIgnoreMaxHeaderListSize);
+                maxHeaderListSize == null ? DEFAULT_HEADER_LIST_SIZE : maxHeaderListSize, headerInterner));
+        Http2HeadersEncoder headersEncoder = new DefaultHttp2HeadersEncoder(headerSensitivityDetector(),
+                encoderIgnoreMaxHeaderListSize != null && encoderIgnoreMaxHeaderListSize);
+        Http2FrameWriter writer = new DefaultHttp2FrameWriter(headersEncoder, encoderFrameCoalescingBufferSize());
 
         if (frameLogger != null) {
             reader = new Http2InboundFrameLogger(reader, frameLogger);
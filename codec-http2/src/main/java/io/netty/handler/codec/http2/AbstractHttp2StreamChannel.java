@@ -36,6 +36,8 @@ import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.VoidChannelPromise;
 import io.netty.channel.WriteBufferWaterMark;
 import io.netty.handler.codec.http2.Http2FrameCodec.DefaultHttp2FrameStream;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
 import io.netty.util.DefaultAttributeMap;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.internal.StringUtil;
@@ -54,7 +56,7 @@ import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import static io.netty.handler.codec.http2.Http2CodecUtil.isStreamIdValid;
 import static java.lang.Math.min;
 
-abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements Http2StreamChannel {
+abstract class AbstractHttp2StreamChannel implements Http2StreamChannel {
 
     static final Http2FrameStreamVisitor WRITABLE_VISITOR = new Http2FrameStreamVisitor() {
         @Override
@@ -123,6 +125,7 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
     private final ChannelFutureListener windowUpdateFrameWriteListener = new ChannelFutureListener() {
         @Override
         public void operationComplete(ChannelFuture future) {
+            pendingWindowUpdates--;
             windowUpdateFrameWriteComplete(future, AbstractHttp2StreamChannel.this);
         }
     };
@@ -147,12 +150,15 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
         REQUESTED
     }
 
-    private final Http2StreamChannelConfig config = new Http2StreamChannelConfig(this);
     private final Http2ChannelUnsafe unsafe = new Http2ChannelUnsafe();
-    private final ChannelId channelId;
     private final ChannelPipeline pipeline;
-    private final DefaultHttp2FrameStream stream;
-    private final ChannelPromise closePromise;
+
+    // Not final as these are replaced when the channel is reset to be used for another stream.
+    private Http2StreamChannelConfig config = new Http2StreamChannelConfig(this);
+    private DefaultAttributeMap attributes = new DefaultAttributeMap();
+    private ChannelId channelId;
+    private DefaultHttp2FrameStream stream;
+    private ChannelPromise closePromise;
 
     private volatile boolean registered;
 
@@ -164,6 +170,7 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
 
     private boolean outboundClosed;
     private int flowControlledBytes;
+    private int pendingWindowUpdates;
 
     /**
      * This variable represents if a read is in progress for the current channel or was requested.
@@ -180,8 +187,6 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
     private boolean readCompletePending;
 
     AbstractHttp2StreamChannel(DefaultHttp2FrameStream stream, int id, ChannelHandler inboundHandler) {
-        this.stream = stream;
-        stream.attachment = this;
         pipeline = new DefaultChannelPipeline(this) {
             @Override
             protected void incrementPendingOutboundBytes(long size) {
@@ -194,6 +199,12 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
             }
         };
 
+        init(stream, id, inboundHandler);
+    }
+
+    private void init(DefaultHttp2FrameStream stream, int id, ChannelHandler inboundHandler) {
+        this.stream = stream;
+        stream.attachment = this;
         closePromise = pipeline.newPromise();
         channelId = new Http2StreamChannelId(parent().id(), id);
 
@@ -203,6 +214,40 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
         }
     }
 
+    /**
+     * Returns {@code true} if this channel was closed and unregistered, all of its handlers were removed and no
+     * write is pending anymore, which means it can be {@linkplain #reset(DefaultHttp2FrameStream, int,
+     * ChannelHandler) reset} and used for another stream.
+     */
+    final boolean isResettable() {
+        return closePromise.isDone() && !registered && pipeline.first() == null &&
+                totalPendingSize == 0 && pendingWindowUpdates == 0 && stream.state() == Http2Stream.State.CLOSED;
+    }
+
+    /**
+     * Resets this channel so it can be used for another stream. The {@link ChannelPipeline}, the {@link Unsafe} and
+     * a few cached objects are kept, everything that is visible to the user (e.g. {@link #id()},
+     * {@link #config()}, {@link #closeFuture()} and the attributes) is replaced.
+     */
+    final void reset(DefaultHttp2FrameStream stream, int id, ChannelHandler inboundHandler) {
+        assert eventLoop().inEventLoop();
+        assert isResettable();
+
+        // The old stream is closed, make sure nothing can reach this channel through it anymore.
+        this.stream.attachment = null;
+        config = new Http2StreamChannelConfig(this);
+        attributes = new DefaultAttributeMap();
+        unsafe.reset();
+        unwritable = 0;
+        outboundClosed = false;
+        flowControlledBytes = 0;
+        readStatus = ReadStatus.IDLE;
+        inboundBuffer = null;
+        firstFrameWritten = false;
+        readCompletePending = false;
+        init(stream, id, inboundHandler);
+    }
+
     private void incrementPendingOutboundBytes(long size, boolean invokeLater) {
         if (size == 0) {
             return;
@@ -288,6 +333,16 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
         return stream;
     }
 
+    @Override
+    public <T> Attribute<T> attr(AttributeKey<T> key) {
+        return attributes.attr(key);
+    }
+
+    @Override
+    public <T> boolean hasAttr(AttributeKey<T> key) {
+        return attributes.hasAttr(key);
+    }
+
     void closeOutbound() {
         outboundClosed = true;
     }
@@ -585,6 +640,13 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
         private boolean closeInitiated;
         private boolean readEOS;
 
+        void reset() {
+            recvHandle = null;
+            writeDoneAndNoFlush = false;
+            closeInitiated = false;
+            readEOS = false;
+        }
+
         @Override
         public void connect(final SocketAddress remoteAddress,
                             SocketAddress localAddress, final ChannelPromise promise) {
@@ -738,11 +800,15 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
                     }
                     // The user can fire `deregister` events multiple times but we only want to fire the pipeline
                     // event if the channel was actually registered.
-                    if (registered) {
+                    boolean unregistered = registered;
+                    if (unregistered) {
                         registered = false;
                         pipeline.fireChannelUnregistered();
                     }
                     safeSetSuccess(promise);
+                    if (unregistered) {
+                        channelUnregistered();
+                    }
                 }
             });
         }
@@ -849,6 +915,7 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
                 if (future.isDone()) {
                     windowUpdateFrameWriteComplete(future, AbstractHttp2StreamChannel.this);
                 } else {
+                    pendingWindowUpdates++;
                     future.addListener(windowUpdateFrameWriteListener);
                 }
             }
@@ -1100,6 +1167,13 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
         return promise;
     }
 
+    /**
+     * Called once the channel was unregistered from its {@link EventLoop}.
+     */
+    protected void channelUnregistered() {
+        // NOOP
+    }
+
     protected abstract boolean isParentReadInProgress();
     protected abstract void addChannelToReadCompletePendingQueue();
     protected abstract ChannelHandlerContext parentContext();
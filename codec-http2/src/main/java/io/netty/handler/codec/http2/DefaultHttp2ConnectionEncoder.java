@@ -485,6 +485,10 @@ public class DefaultHttp2ConnectionEncoder implements Http2ConnectionEncoder, Ht
                         // queue and it is not end of stream yet. Just complete their promises by getting the buffer
                         // corresponding to 0 bytes and writing it to the channel (to preserve notification order).
                         ChannelPromise writePromise = ctx.newPromise().addListener(this);
+                        if (frameWriter instanceof DefaultHttp2FrameWriter) {
+                            // Frames which were coalesced so far must be notified first.
+                            ((DefaultHttp2FrameWriter) frameWriter).writePendingFrames(ctx);
+                        }
                         ctx.write(queue.remove(0, writePromise), writePromise);
                     }
                     return;
@@ -22,9 +22,14 @@ import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http2.Http2CodecUtil.SimpleChannelPromiseAggregator;
 import io.netty.handler.codec.http2.Http2FrameWriter.Configuration;
 import io.netty.handler.codec.http2.Http2HeadersEncoder.SensitivityDetector;
+import io.netty.util.concurrent.PromiseNotifier;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.UnstableApi;
 
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+
 import static io.netty.buffer.Unpooled.directBuffer;
 import static io.netty.buffer.Unpooled.unreleasableBuffer;
 import static io.netty.handler.codec.http2.Http2CodecUtil.CONTINUATION_FRAME_HEADER_LENGTH;
@@ -82,6 +87,12 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
             unreleasableBuffer(directBuffer(MAX_UNSIGNED_BYTE).writeZero(MAX_UNSIGNED_BYTE)).asReadOnly();
 
     private final Http2HeadersEncoder headersEncoder;
+    private final int coalescingBufferSize;
+    // Only used if frames are coalesced.
+    private final List<ChannelPromise> pendingPromises;
+    private final Runnable writePendingFramesTask;
+    private ByteBuf pendingFrames;
+    private ChannelHandlerContext pendingFramesCtx;
     private int maxFrameSize;
 
     public DefaultHttp2FrameWriter() {
@@ -97,7 +108,39 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
     }
 
     public DefaultHttp2FrameWriter(Http2HeadersEncoder headersEncoder) {
+        this(headersEncoder, 0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param headersEncoder the {@link Http2HeadersEncoder} to use.
+     * @param coalescingBufferSize if positive, the frames written during a task of the event loop are serialized
+     * into shared buffers of (at least) this size instead of writing a separate buffer for each frame header.
+     * Payloads of up to a quarter of this size are copied as well, while larger payloads are still written as they
+     * are. The coalesced frames are written and flushed once the task completes, unless
+     * {@link #writePendingFrames(ChannelHandlerContext)} is called before. Use {@code 0} to disable coalescing.
+     */
+    public DefaultHttp2FrameWriter(Http2HeadersEncoder headersEncoder, int coalescingBufferSize) {
         this.headersEncoder = headersEncoder;
+        this.coalescingBufferSize = checkPositiveOrZero(coalescingBufferSize, "coalescingBufferSize");
+        if (coalescingBufferSize > 0) {
+            pendingPromises = new ArrayList<ChannelPromise>();
+            writePendingFramesTask = new Runnable() {
+                @Override
+                public void run() {
+                    ChannelHandlerContext ctx = pendingFramesCtx;
+                    pendingFramesCtx = null;
+                    if (pendingFrames != null) {
+                        writePendingFrames(ctx);
+                        ctx.flush();
+                    }
+                }
+            };
+        } else {
+            pendingPromises = null;
+            writePendingFramesTask = null;
+        }
         maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
     }
 
@@ -129,15 +172,47 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
         return maxFrameSize;
     }
 
+    /**
+     * Writes the frames which were coalesced so far, if any. This happens once the current task of the event loop
+     * completes anyway, calling this method before the channel is flushed only avoids the delay.
+     */
+    public void writePendingFrames(ChannelHandlerContext ctx) {
+        ByteBuf pending = pendingFrames;
+        if (pending == null) {
+            return;
+        }
+        pendingFrames = null;
+        ChannelPromise promise;
+        if (pendingPromises.size() == 1) {
+            promise = pendingPromises.get(0);
+        } else {
+            promise = ctx.newPromise();
+            promise.addListener(new PromiseNotifier<Void, ChannelFuture>(false,
+                    pendingPromises.toArray(new ChannelPromise[0])));
+        }
+        pendingPromises.clear();
+        ctx.write(pending, promise);
+    }
+
     @Override
-    public void close() { }
+    public void close() {
+        ByteBuf pending = pendingFrames;
+        if (pending != null) {
+            pendingFrames = null;
+            pending.release();
+            ClosedChannelException cause = new ClosedChannelException();
+            for (ChannelPromise promise : pendingPromises) {
+                promise.tryFailure(cause);
+            }
+            pendingPromises.clear();
+        }
+    }
 
     @Override
     public ChannelFuture writeData(ChannelHandlerContext ctx, int streamId, ByteBuf data,
             int padding, boolean endStream, ChannelPromise promise) {
         final SimpleChannelPromiseAggregator promiseAggregator =
                 new SimpleChannelPromiseAggregator(promise, ctx.channel(), ctx.executor());
-        ByteBuf frameHeader = null;
         try {
             verifyStreamId(streamId, STREAM_ID);
             verifyPadding(padding);
@@ -147,59 +222,42 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
             flags.endOfStream(false);
             flags.paddingPresent(false);
             // Fast path to write frames of payload size maxFrameSize first.
-            if (remainingData > maxFrameSize) {
-                frameHeader = ctx.alloc().buffer(FRAME_HEADER_LENGTH);
+            // Stop iterating if remainingData == maxFrameSize so we can take care of reference counts below.
+            while (remainingData > maxFrameSize) {
+                // Write the header.
+                ByteBuf frameHeader = frameBuffer(ctx, FRAME_HEADER_LENGTH);
                 writeFrameHeaderInternal(frameHeader, maxFrameSize, DATA, flags, streamId);
-                do {
-                    // Write the header.
-                    ctx.write(frameHeader.retainedSlice(), promiseAggregator.newPromise());
+                writeFrameBuffer(ctx, frameHeader, promiseAggregator.newPromise());
 
-                    // Write the payload.
-                    ctx.write(data.readRetainedSlice(maxFrameSize), promiseAggregator.newPromise());
+                // Write the payload.
+                write(ctx, data.readRetainedSlice(maxFrameSize), promiseAggregator.newPromise());
 
-                    remainingData -= maxFrameSize;
-                    // Stop iterating if remainingData == maxFrameSize so we can take care of reference counts below.
-                } while (remainingData > maxFrameSize);
+                remainingData -= maxFrameSize;
             }
 
             if (padding == 0) {
                 // Write the header.
-                if (frameHeader != null) {
-                    frameHeader.release();
-                    frameHeader = null;
-                }
-                ByteBuf frameHeader2 = ctx.alloc().buffer(FRAME_HEADER_LENGTH);
+                ByteBuf frameHeader = frameBuffer(ctx, FRAME_HEADER_LENGTH);
                 flags.endOfStream(endStream);
-                writeFrameHeaderInternal(frameHeader2, remainingData, DATA, flags, streamId);
-                ctx.write(frameHeader2, promiseAggregator.newPromise());
+                writeFrameHeaderInternal(frameHeader, remainingData, DATA, flags, streamId);
+                writeFrameBuffer(ctx, frameHeader, promiseAggregator.newPromise());
 
                 // Write the payload.
                 ByteBuf lastFrame = data.readSlice(remainingData);
                 data = null;
-                ctx.write(lastFrame, promiseAggregator.newPromise());
+                write(ctx, lastFrame, promiseAggregator.newPromise());
             } else {
-                if (remainingData != maxFrameSize) {
-                    if (frameHeader != null) {
-                        frameHeader.release();
-                        frameHeader = null;
-                    }
-                } else {
+                if (remainingData == maxFrameSize) {
                     remainingData -= maxFrameSize;
                     // Write the header.
-                    ByteBuf lastFrame;
-                    if (frameHeader == null) {
-                        lastFrame = ctx.alloc().buffer(FRAME_HEADER_LENGTH);
-                        writeFrameHeaderInternal(lastFrame, maxFrameSize, DATA, flags, streamId);
-                    } else {
-                        lastFrame = frameHeader.slice();
-                        frameHeader = null;
-                    }
-                    ctx.write(lastFrame, promiseAggregator.newPromise());
+                    ByteBuf frameHeader = frameBuffer(ctx, FRAME_HEADER_LENGTH);
+                    writeFrameHeaderInternal(frameHeader, maxFrameSize, DATA, flags, streamId);
+                    writeFrameBuffer(ctx, frameHeader, promiseAggregator.newPromise());
 
                     // Write the payload.
-                    lastFrame = data.readableBytes() != maxFrameSize ? data.readSlice(maxFrameSize) : data;
+                    ByteBuf lastFrame = data.readableBytes() != maxFrameSize ? data.readSlice(maxFrameSize) : data;
                     data = null;
-                    ctx.write(lastFrame, promiseAggregator.newPromise());
+                    write(ctx, lastFrame, promiseAggregator.newPromise());
                 }
 
                 do {
@@ -211,36 +269,32 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
                     remainingData -= frameDataBytes;
 
                     // Write the header.
-                    ByteBuf frameHeader2 = ctx.alloc().buffer(DATA_FRAME_HEADER_LENGTH);
+                    ByteBuf frameHeader = frameBuffer(ctx, DATA_FRAME_HEADER_LENGTH);
                     flags.endOfStream(endStream && remainingData == 0 && padding == 0);
                     flags.paddingPresent(framePaddingBytes > 0);
-                    writeFrameHeaderInternal(frameHeader2, framePaddingBytes + frameDataBytes, DATA, flags, streamId);
-                    writePaddingLength(frameHeader2, framePaddingBytes);
-                    ctx.write(frameHeader2, promiseAggregator.newPromise());
+                    writeFrameHeaderInternal(frameHeader, framePaddingBytes + frameDataBytes, DATA, flags, streamId);
+                    writePaddingLength(frameHeader, framePaddingBytes);
+                    writeFrameBuffer(ctx, frameHeader, promiseAggregator.newPromise());
 
                     // Write the payload.
                     if (frameDataBytes != 0 && data != null) { // Make sure Data is not null
                         if (remainingData == 0) {
                             ByteBuf lastFrame = data.readSlice(frameDataBytes);
                             data = null;
-                            ctx.write(lastFrame, promiseAggregator.newPromise());
+                            write(ctx, lastFrame, promiseAggregator.newPromise());
                         } else {
-                            ctx.write(data.readRetainedSlice(frameDataBytes), promiseAggregator.newPromise());
+                            write(ctx, data.readRetainedSlice(frameDataBytes), promiseAggregator.newPromise());
                         }
                     }
                     // Write the frame padding.
                     if (paddingBytes(framePaddingBytes) > 0) {
-                        ctx.write(ZERO_BUFFER.slice(0, paddingBytes(framePaddingBytes)),
+                        write(ctx, ZERO_BUFFER.slice(0, paddingBytes(framePaddingBytes)),
                                   promiseAggregator.newPromise());
                     }
                 } while (remainingData != 0 || padding != 0);
             }
         } catch (Throwable cause) {
-            if (frameHeader != null) {
-                frameHeader.release();
-            }
-            // Use a try/finally here in case the data has been released before calling this method. This is not
-            // necessary above because we internally allocate frameHeader.
+            // Use a try/finally here in case the data has been released before calling this method.
             try {
                 if (data != null) {
                     data.release();
@@ -277,12 +331,12 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
             verifyStreamOrConnectionId(streamDependency, STREAM_DEPENDENCY);
             verifyWeight(weight);
 
-            ByteBuf buf = ctx.alloc().buffer(PRIORITY_FRAME_LENGTH);
+            ByteBuf buf = frameBuffer(ctx, PRIORITY_FRAME_LENGTH);
             writeFrameHeaderInternal(buf, PRIORITY_ENTRY_LENGTH, PRIORITY, new Http2Flags(), streamId);
             buf.writeInt(exclusive ? (int) (0x80000000L | streamDependency) : streamDependency);
             // Adjust the weight so that it fits into a single byte on the wire.
             buf.writeByte(weight - 1);
-            return ctx.write(buf, promise);
+            return writeFrameBuffer(ctx, buf, promise);
         } catch (Throwable t) {
             return promise.setFailure(t);
         }
@@ -295,10 +349,10 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
             verifyStreamId(streamId, STREAM_ID);
             verifyErrorCode(errorCode);
 
-            ByteBuf buf = ctx.alloc().buffer(RST_STREAM_FRAME_LENGTH);
+            ByteBuf buf = frameBuffer(ctx, RST_STREAM_FRAME_LENGTH);
             writeFrameHeaderInternal(buf, INT_FIELD_LENGTH, RST_STREAM, new Http2Flags(), streamId);
             buf.writeInt((int) errorCode);
-            return ctx.write(buf, promise);
+            return writeFrameBuffer(ctx, buf, promise);
         } catch (Throwable t) {
             return promise.setFailure(t);
         }
@@ -310,13 +364,13 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
         try {
             checkNotNull(settings, "settings");
             int payloadLength = SETTING_ENTRY_LENGTH * settings.size();
-            ByteBuf buf = ctx.alloc().buffer(FRAME_HEADER_LENGTH + settings.size() * SETTING_ENTRY_LENGTH);
+            ByteBuf buf = frameBuffer(ctx, FRAME_HEADER_LENGTH + settings.size() * SETTING_ENTRY_LENGTH);
             writeFrameHeaderInternal(buf, payloadLength, SETTINGS, new Http2Flags(), 0);
             for (Http2Settings.PrimitiveEntry<Long> entry : settings.entries()) {
                 buf.writeChar(entry.key());
                 buf.writeInt(entry.value().intValue());
             }
-            return ctx.write(buf, promise);
+            return writeFrameBuffer(ctx, buf, promise);
         } catch (Throwable t) {
             return promise.setFailure(t);
         }
@@ -325,9 +379,9 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
     @Override
     public ChannelFuture writeSettingsAck(ChannelHandlerContext ctx, ChannelPromise promise) {
         try {
-            ByteBuf buf = ctx.alloc().buffer(FRAME_HEADER_LENGTH);
+            ByteBuf buf = frameBuffer(ctx, FRAME_HEADER_LENGTH);
             writeFrameHeaderInternal(buf, 0, SETTINGS, new Http2Flags().ack(true), 0);
-            return ctx.write(buf, promise);
+            return writeFrameBuffer(ctx, buf, promise);
         } catch (Throwable t) {
             return promise.setFailure(t);
         }
@@ -336,12 +390,12 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
     @Override
     public ChannelFuture writePing(ChannelHandlerContext ctx, boolean ack, long data, ChannelPromise promise) {
         Http2Flags flags = ack ? new Http2Flags().ack(true) : new Http2Flags();
-        ByteBuf buf = ctx.alloc().buffer(FRAME_HEADER_LENGTH + PING_FRAME_PAYLOAD_LENGTH);
+        ByteBuf buf = frameBuffer(ctx, FRAME_HEADER_LENGTH + PING_FRAME_PAYLOAD_LENGTH);
         // Assume nothing below will throw until buf is written. That way we don't have to take care of ownership
         // in the catch block.
         writeFrameHeaderInternal(buf, PING_FRAME_PAYLOAD_LENGTH, PING, flags, 0);
         buf.writeLong(data);
-        return ctx.write(buf, promise);
+        return writeFrameBuffer(ctx, buf, promise);
     }
 
     @Override
@@ -369,20 +423,20 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
             flags.endOfHeaders(!headerBlock.isReadable());
 
             int payloadLength = fragment.readableBytes() + nonFragmentLength;
-            ByteBuf buf = ctx.alloc().buffer(PUSH_PROMISE_FRAME_HEADER_LENGTH);
+            ByteBuf buf = frameBuffer(ctx, PUSH_PROMISE_FRAME_HEADER_LENGTH);
             writeFrameHeaderInternal(buf, payloadLength, PUSH_PROMISE, flags, streamId);
             writePaddingLength(buf, padding);
 
             // Write out the promised stream ID.
             buf.writeInt(promisedStreamId);
-            ctx.write(buf, promiseAggregator.newPromise());
+            writeFrameBuffer(ctx, buf, promiseAggregator.newPromise());
 
             // Write the first fragment.
-            ctx.write(fragment, promiseAggregator.newPromise());
+            write(ctx, fragment, promiseAggregator.newPromise());
 
             // Write out the padding, if any.
             if (paddingBytes(padding) > 0) {
-                ctx.write(ZERO_BUFFER.slice(0, paddingBytes(padding)), promiseAggregator.newPromise());
+                write(ctx, ZERO_BUFFER.slice(0, paddingBytes(padding)), promiseAggregator.newPromise());
             }
 
             if (!flags.endOfHeaders()) {
@@ -412,13 +466,13 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
             verifyErrorCode(errorCode);
 
             int payloadLength = 8 + debugData.readableBytes();
-            ByteBuf buf = ctx.alloc().buffer(GO_AWAY_FRAME_HEADER_LENGTH);
+            ByteBuf buf = frameBuffer(ctx, GO_AWAY_FRAME_HEADER_LENGTH);
             // Assume nothing below will throw until buf is written. That way we don't have to take care of ownership
             // in the catch block.
             writeFrameHeaderInternal(buf, payloadLength, GO_AWAY, new Http2Flags(), 0);
             buf.writeInt(lastStreamId);
             buf.writeInt((int) errorCode);
-            ctx.write(buf, promiseAggregator.newPromise());
+            writeFrameBuffer(ctx, buf, promiseAggregator.newPromise());
         } catch (Throwable t) {
             try {
                 debugData.release();
@@ -430,7 +484,7 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
         }
 
         try {
-            ctx.write(debugData, promiseAggregator.newPromise());
+            write(ctx, debugData, promiseAggregator.newPromise());
         } catch (Throwable t) {
             promiseAggregator.setFailure(t);
         }
@@ -444,10 +498,10 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
             verifyStreamOrConnectionId(streamId, STREAM_ID);
             verifyWindowSizeIncrement(windowSizeIncrement);
 
-            ByteBuf buf = ctx.alloc().buffer(WINDOW_UPDATE_FRAME_LENGTH);
+            ByteBuf buf = frameBuffer(ctx, WINDOW_UPDATE_FRAME_LENGTH);
             writeFrameHeaderInternal(buf, INT_FIELD_LENGTH, WINDOW_UPDATE, new Http2Flags(), streamId);
             buf.writeInt(windowSizeIncrement);
-            return ctx.write(buf, promise);
+            return writeFrameBuffer(ctx, buf, promise);
         } catch (Throwable t) {
             return promise.setFailure(t);
         }
@@ -460,11 +514,11 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
                 new SimpleChannelPromiseAggregator(promise, ctx.channel(), ctx.executor());
         try {
             verifyStreamOrConnectionId(streamId, STREAM_ID);
-            ByteBuf buf = ctx.alloc().buffer(FRAME_HEADER_LENGTH);
+            ByteBuf buf = frameBuffer(ctx, FRAME_HEADER_LENGTH);
             // Assume nothing below will throw until buf is written. That way we don't have to take care of ownership
             // in the catch block.
             writeFrameHeaderInternal(buf, payload.readableBytes(), frameType, flags, streamId);
-            ctx.write(buf, promiseAggregator.newPromise());
+            writeFrameBuffer(ctx, buf, promiseAggregator.newPromise());
         } catch (Throwable t) {
             try {
                 payload.release();
@@ -475,7 +529,7 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
             return promiseAggregator;
         }
         try {
-            ctx.write(payload, promiseAggregator.newPromise());
+            write(ctx, payload, promiseAggregator.newPromise());
         } catch (Throwable t) {
             promiseAggregator.setFailure(t);
         }
@@ -512,7 +566,7 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
             flags.endOfHeaders(!headerBlock.isReadable());
 
             int payloadLength = fragment.readableBytes() + nonFragmentBytes;
-            ByteBuf buf = ctx.alloc().buffer(HEADERS_FRAME_HEADER_LENGTH);
+            ByteBuf buf = frameBuffer(ctx, HEADERS_FRAME_HEADER_LENGTH);
             writeFrameHeaderInternal(buf, payloadLength, HEADERS, flags, streamId);
             writePaddingLength(buf, padding);
 
@@ -522,14 +576,14 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
                 // Adjust the weight so that it fits into a single byte on the wire.
                 buf.writeByte(weight - 1);
             }
-            ctx.write(buf, promiseAggregator.newPromise());
+            writeFrameBuffer(ctx, buf, promiseAggregator.newPromise());
 
             // Write the first fragment.
-            ctx.write(fragment, promiseAggregator.newPromise());
+            write(ctx, fragment, promiseAggregator.newPromise());
 
             // Write out the padding, if any.
             if (paddingBytes(padding) > 0) {
-                ctx.write(ZERO_BUFFER.slice(0, paddingBytes(padding)), promiseAggregator.newPromise());
+                write(ctx, ZERO_BUFFER.slice(0, paddingBytes(padding)), promiseAggregator.newPromise());
             }
 
             if (!flags.endOfHeaders()) {
@@ -556,32 +610,78 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
             ByteBuf headerBlock, SimpleChannelPromiseAggregator promiseAggregator) {
         Http2Flags flags = new Http2Flags();
 
-        if (headerBlock.isReadable()) {
-            // The frame header (and padding) only changes on the last frame, so allocate it once and re-use
+        while (headerBlock.isReadable()) {
             int fragmentReadableBytes = min(headerBlock.readableBytes(), maxFrameSize);
-            ByteBuf buf = ctx.alloc().buffer(CONTINUATION_FRAME_HEADER_LENGTH);
+            // Only the last frame ends the header block.
+            flags.endOfHeaders(fragmentReadableBytes == headerBlock.readableBytes());
+            ByteBuf buf = frameBuffer(ctx, CONTINUATION_FRAME_HEADER_LENGTH);
             writeFrameHeaderInternal(buf, fragmentReadableBytes, CONTINUATION, flags, streamId);
+            writeFrameBuffer(ctx, buf, promiseAggregator.newPromise());
 
-            do {
-                fragmentReadableBytes = min(headerBlock.readableBytes(), maxFrameSize);
-                ByteBuf fragment = headerBlock.readRetainedSlice(fragmentReadableBytes);
-
-                if (headerBlock.isReadable()) {
-                    ctx.write(buf.retain(), promiseAggregator.newPromise());
-                } else {
-                    // The frame header is different for the last frame, so re-allocate and release the old buffer
-                    flags = flags.endOfHeaders(true);
-                    buf.release();
-                    buf = ctx.alloc().buffer(CONTINUATION_FRAME_HEADER_LENGTH);
-                    writeFrameHeaderInternal(buf, fragmentReadableBytes, CONTINUATION, flags, streamId);
-                    ctx.write(buf, promiseAggregator.newPromise());
-                }
+            write(ctx, headerBlock.readRetainedSlice(fragmentReadableBytes), promiseAggregator.newPromise());
+        }
+        return promiseAggregator;
+    }
+
+    /**
+     * Returns the buffer to serialize a frame header, or a frame without payload, of {@code length} bytes into. If
+     * frames are coalesced these are the pending frames, otherwise it is a new buffer. Once serialized, the frame
+     * must be passed to {@link #writeFrameBuffer(ChannelHandlerContext, ByteBuf, ChannelPromise)}.
+     */
+    private ByteBuf frameBuffer(ChannelHandlerContext ctx, int length) {
+        return pendingPromises != null ? pendingFrames(ctx, length) : ctx.alloc().buffer(length);
+    }
+
+    /**
+     * Writes a frame serialized into the buffer returned by {@link #frameBuffer(ChannelHandlerContext, int)}.
+     */
+    private ChannelFuture writeFrameBuffer(ChannelHandlerContext ctx, ByteBuf buf, ChannelPromise promise) {
+        if (pendingPromises == null) {
+            return ctx.write(buf, promise);
+        }
+        // The frame was appended to the pending frames already.
+        pendingPromises.add(promise);
+        return promise;
+    }
 
-                ctx.write(fragment, promiseAggregator.newPromise());
+    /**
+     * Writes {@code payload} or, if frames are coalesced and it is small enough, appends a copy of it to the pending
+     * frames. Anything larger is written as it is once the pending frames were written to preserve the ordering.
+     */
+    private ChannelFuture write(ChannelHandlerContext ctx, ByteBuf payload, ChannelPromise promise) {
+        if (pendingPromises == null) {
+            return ctx.write(payload, promise);
+        }
+        int length = payload.readableBytes();
+        if (length > coalescingBufferSize >>> 2) {
+            writePendingFrames(ctx);
+            return ctx.write(payload, promise);
+        }
+        pendingFrames(ctx, length).writeBytes(payload, payload.readerIndex(), length);
+        payload.release();
+        pendingPromises.add(promise);
+        return promise;
+    }
 
-            } while (headerBlock.isReadable());
+    /**
+     * Returns the pending frames, which can hold at least {@code length} more bytes.
+     */
+    private ByteBuf pendingFrames(ChannelHandlerContext ctx, int length) {
+        ByteBuf pending = pendingFrames;
+        if (pending != null && pending.writableBytes() < length) {
+            writePendingFrames(ctx);
+            pending = null;
         }
-        return promiseAggregator;
+        if (pending == null) {
+            pending = pendingFrames = ctx.alloc().buffer(max(length, coalescingBufferSize));
+            if (pendingFramesCtx == null) {
+                // Make sure the frames are written even if the channel is flushed without calling
+                // writePendingFrames(...) before.
+                pendingFramesCtx = ctx;
+                ctx.executor().execute(writePendingFramesTask);
+            }
+        }
+        return pending;
     }
 
     /**
@@ -73,6 +73,40 @@ public class DefaultHttp2HeadersDecoder implements Http2HeadersDecoder, Http2Hea
         this(validateHeaders, new HpackDecoder(maxHeaderListSize));
     }
 
+    /**
+     * Create a new instance which returns shared instances for frequently repeated literal header names and values.
+     * @param validateHeaders {@code true} to validate headers are valid according to the RFC.
+     * @param maxHeaderListSize This is the only setting that can be configured before notifying the peer.
+     *  This is because <a href="https://tools.ietf.org/html/rfc7540#section-6.5.1">SETTINGS_MAX_HEADER_LIST_SIZE</a>
+     *  allows a lower than advertised limit from being enforced, and the default limit is unlimited
+     *  (which is dangerous).
+     * @param interner the {@link Http2HeaderInterner} to use, which is usually shared by many connections, or
+     *  {@code null} to always create new strings.
+     */
+    public DefaultHttp2HeadersDecoder(boolean validateHeaders, long maxHeaderListSize,
+                                      Http2HeaderInterner interner) {
+        this(validateHeaders, maxHeaderListSize, interner, false);
+    }
+
+    /**
+     * Create a new instance.
+     * @param validateHeaders {@code true} to validate headers are valid according to the RFC.
+     * @param maxHeaderListSize This is the only setting that can be configured before notifying the peer.
+     *  This is because <a href="https://tools.ietf.org/html/rfc7540#section-6.5.1">SETTINGS_MAX_HEADER_LIST_SIZE</a>
+     *  allows a lower than advertised limit from being enforced, and the default limit is unlimited
+     *  (which is dangerous).
+     * @param interner the {@link Http2HeaderInterner} to use, which is usually shared by many connections, or
+     *  {@code null} to always create new strings.
+     * @param lazyValues {@code true} if literal header values which are not added to the HPACK dynamic table should
+     *  only be decoded when they are accessed. Such values keep a reference to a copy of the header block, and if
+     *  they are forwarded untouched {@link DefaultHttp2HeadersEncoder} writes the received bytes without decoding
+     *  and re-encoding them. This is useful for proxies which do not inspect most of the headers.
+     */
+    public DefaultHttp2HeadersDecoder(boolean validateHeaders, long maxHeaderListSize,
+                                      Http2HeaderInterner interner, boolean lazyValues) {
+        this(validateHeaders, new HpackDecoder(maxHeaderListSize, interner, lazyValues));
+    }
+
     /**
      * Exposed Used for testing only! Default values used in the initial settings frame are overridden intentionally
      * for testing but violate the RFC if used outside the scope of testing.
@@ -272,10 +272,18 @@ public class DefaultHttp2RemoteFlowController implements Http2RemoteFlowControll
      */
     private final class FlowState implements StreamByteDistributor.StreamState {
         private final Http2Stream stream;
-        private final Deque<FlowControlled> pendingWriteQueue;
+        // Only allocated once a frame is queued, as most streams never have to wait for a window update.
+        private Deque<FlowControlled> pendingWriteQueue;
         private int window;
         private long pendingBytes;
         private boolean markedWritable;
+        /**
+         * Links of the intrusive list of streams which are writable on their own, see
+         * {@link ListenerWritabilityMonitor}.
+         */
+        private FlowState prevWritable;
+        private FlowState nextWritable;
+        private boolean linkedWritable;
 
         /**
          * Set to true while a frame is being written, false otherwise.
@@ -288,7 +296,6 @@ public class DefaultHttp2RemoteFlowController implements Http2RemoteFlowControll
 
         FlowState(Http2Stream stream) {
             this.stream = stream;
-            pendingWriteQueue = new ArrayDeque<FlowControlled>(2);
         }
 
         /**
@@ -430,7 +437,7 @@ public class DefaultHttp2RemoteFlowController implements Http2RemoteFlowControll
          * Adds the {@code frame} to the pending queue and increments the pending byte count.
          */
         void enqueueFrame(FlowControlled frame) {
-            FlowControlled last = pendingWriteQueue.peekLast();
+            FlowControlled last = pendingWriteQueue == null ? null : pendingWriteQueue.peekLast();
             if (last == null) {
                 enqueueFrameWithoutMerge(frame);
                 return;
@@ -445,6 +452,9 @@ public class DefaultHttp2RemoteFlowController implements Http2RemoteFlowControll
         }
 
         private void enqueueFrameWithoutMerge(FlowControlled frame) {
+            if (pendingWriteQueue == null) {
+                pendingWriteQueue = new ArrayDeque<FlowControlled>(2);
+            }
             pendingWriteQueue.offer(frame);
             // This must be called after adding to the queue in order so that hasFrame() is
             // updated before updating the stream state.
@@ -453,14 +463,14 @@ public class DefaultHttp2RemoteFlowController implements Http2RemoteFlowControll
 
         @Override
         public boolean hasFrame() {
-            return !pendingWriteQueue.isEmpty();
+            return pendingWriteQueue != null && !pendingWriteQueue.isEmpty();
         }
 
         /**
          * Returns the head of the pending queue, or {@code null} if empty.
          */
         private FlowControlled peek() {
-            return pendingWriteQueue.peek();
+            return pendingWriteQueue == null ? null : pendingWriteQueue.peek();
         }
 
         /**
@@ -475,7 +485,7 @@ public class DefaultHttp2RemoteFlowController implements Http2RemoteFlowControll
                 return;
             }
 
-            FlowControlled frame = pendingWriteQueue.poll();
+            FlowControlled frame = pendingWriteQueue == null ? null : pendingWriteQueue.poll();
             if (frame != null) {
                 // Only create exception once and reuse to reduce overhead of filling in the stacktrace.
                 final Http2Exception exception = streamError(stream.id(), error, cause,
@@ -666,17 +676,41 @@ public class DefaultHttp2RemoteFlowController implements Http2RemoteFlowControll
      * Stream Window - Bytes Queued for Stream > 0 &&
      * isChannelWritable()
      * </pre>
+     * Only streams for which the second condition holds can change their writability when the writability of the
+     * connection changes. These streams are kept in an intrusive list, so the number of streams which are blocked by
+     * their own flow control window does not matter when the connection window or the channel writability changes.
      */
     private final class ListenerWritabilityMonitor extends WritabilityMonitor implements Http2StreamVisitor {
         private final Listener listener;
+        private FlowState writableHead;
+        private int writableCount;
 
         ListenerWritabilityMonitor(Listener listener) {
             this.listener = listener;
+            try {
+                // Streams may have been created before the listener was set.
+                connection.forEachActiveStream(new Http2StreamVisitor() {
+                    @Override
+                    public boolean visit(Http2Stream stream) {
+                        FlowState state = state(stream);
+                        if (state != null) {
+                            // Drop the links of a previous monitor.
+                            state.prevWritable = state.nextWritable = null;
+                            state.linkedWritable = false;
+                            updateWritableList(state);
+                        }
+                        return true;
+                    }
+                });
+            } catch (Http2Exception e) {
+                throw new IllegalStateException("Caught unexpected exception from forEachActiveStream", e);
+            }
         }
 
         @Override
         public boolean visit(Http2Stream stream) throws Http2Exception {
             FlowState state = state(stream);
+            updateWritableList(state);
             if (isWritable(state) != state.markedWritability()) {
                 notifyWritabilityChanged(state);
             }
@@ -686,6 +720,7 @@ public class DefaultHttp2RemoteFlowController implements Http2RemoteFlowControll
         @Override
         void windowSize(FlowState state, int initialWindowSize) {
             super.windowSize(state, initialWindowSize);
+            updateWritableList(state);
             try {
                 checkStateWritability(state);
             } catch (Http2Exception e) {
@@ -696,27 +731,29 @@ public class DefaultHttp2RemoteFlowController implements Http2RemoteFlowControll
         @Override
         void incrementWindowSize(FlowState state, int delta) throws Http2Exception {
             super.incrementWindowSize(state, delta);
+            updateWritableList(state);
             checkStateWritability(state);
         }
 
         @Override
         void initialWindowSize(int newWindowSize) throws Http2Exception {
             super.initialWindowSize(newWindowSize);
-            if (isWritableConnection()) {
-                // If the write operation does not occur we still need to check all streams because they
-                // may have transitioned from writable to not writable.
-                checkAllWritabilityChanged();
-            }
+            // The window of every stream changed, so all of them have to be checked, even if the write operation did
+            // not occur, because they may have transitioned from writable to not writable.
+            connectionState.markedWritability(isWritableConnection());
+            connection.forEachActiveStream(this);
         }
 
         @Override
         void enqueueFrame(FlowState state, FlowControlled frame) throws Http2Exception {
             super.enqueueFrame(state, frame);
+            updateWritableList(state);
             checkConnectionThenStreamWritabilityChanged(state);
         }
 
         @Override
         void stateCancelled(FlowState state) {
+            updateWritableList(state);
             try {
                 checkConnectionThenStreamWritabilityChanged(state);
             } catch (Http2Exception e) {
@@ -754,15 +791,62 @@ public class DefaultHttp2RemoteFlowController implements Http2RemoteFlowControll
             // It is possible that the connection window and/or the individual stream writability could change.
             if (isWritableConnection() != connectionState.markedWritability()) {
                 checkAllWritabilityChanged();
-            } else if (isWritable(state) != state.markedWritability()) {
+            }
+            // The stream may just have been removed from the list of writable streams.
+            if (isWritable(state) != state.markedWritability()) {
                 notifyWritabilityChanged(state);
             }
         }
 
-        private void checkAllWritabilityChanged() throws Http2Exception {
+        private void checkAllWritabilityChanged() {
             // Make sure we mark that we have notified as a result of this change.
             connectionState.markedWritability(isWritableConnection());
-            connection.forEachActiveStream(this);
+            if (writableCount == 0) {
+                return;
+            }
+
+            // The listener may change the list, so take a snapshot first.
+            FlowState[] states = new FlowState[writableCount];
+            int i = 0;
+            for (FlowState state = writableHead; state != null; state = state.nextWritable) {
+                states[i++] = state;
+            }
+            for (FlowState state : states) {
+                if (isWritable(state) != state.markedWritability()) {
+                    notifyWritabilityChanged(state);
+                }
+            }
+        }
+
+        /**
+         * Adds {@code state} to or removes it from the list of streams which are writable on their own.
+         */
+        private void updateWritableList(FlowState state) {
+            if (state == connectionState || state.isWritable() == state.linkedWritable) {
+                return;
+            }
+            if (state.linkedWritable) {
+                if (state.prevWritable == null) {
+                    writableHead = state.nextWritable;
+                } else {
+                    state.prevWritable.nextWritable = state.nextWritable;
+                }
+                if (state.nextWritable != null) {
+                    state.nextWritable.prevWritable = state.prevWritable;
+                }
+                state.prevWritable = state.nextWritable = null;
+                state.linkedWritable = false;
+                writableCount--;
+            } else {
+                state.prevWritable = null;
+                state.nextWritable = writableHead;
+                if (writableHead != null) {
+                    writableHead.prevWritable = state;
+                }
+                writableHead = state;
+                state.linkedWritable = true;
+                writableCount++;
+            }
         }
     }
 }
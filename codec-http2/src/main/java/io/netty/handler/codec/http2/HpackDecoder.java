@@ -32,6 +32,7 @@
 package io.netty.handler.codec.http2;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.handler.codec.http2.HpackUtil.IndexType;
 import io.netty.util.AsciiString;
 
@@ -90,6 +91,12 @@ final class HpackDecoder {
 
     private final HpackHuffmanDecoder huffmanDecoder = new HpackHuffmanDecoder();
     private final HpackDynamicTable hpackDynamicTable;
+    private final Http2HeaderInterner interner;
+    private final boolean lazyValues;
+    private byte[] literalScratch;
+    // Copy of the remaining header block which backs the lazily decoded values of the current decode operation.
+    private byte[] lazyBlock;
+    private int lazyBlockBase;
     private long maxHeaderListSize;
     private long maxDynamicTableSize;
     private long encoderMaxDynamicTableSize;
@@ -111,7 +118,34 @@ final class HpackDecoder {
      * for testing but violate the RFC if used outside the scope of testing.
      */
     HpackDecoder(long maxHeaderListSize, int maxHeaderTableSize) {
+        this(maxHeaderListSize, maxHeaderTableSize, null, false);
+    }
+
+    /**
+     * Create a new instance which looks up decoded literal strings in the given {@link Http2HeaderInterner}.
+     * @param maxHeaderListSize see {@link #HpackDecoder(long)}.
+     * @param interner the {@link Http2HeaderInterner} to use or {@code null} to always create new strings.
+     */
+    HpackDecoder(long maxHeaderListSize, Http2HeaderInterner interner) {
+        this(maxHeaderListSize, interner, false);
+    }
+
+    /**
+     * Create a new instance.
+     * @param maxHeaderListSize see {@link #HpackDecoder(long)}.
+     * @param interner the {@link Http2HeaderInterner} to use or {@code null} to always create new strings.
+     * @param lazyValues {@code true} if literal values which are not added to the dynamic table should only be
+     *  decoded once they are accessed.
+     */
+    HpackDecoder(long maxHeaderListSize, Http2HeaderInterner interner, boolean lazyValues) {
+        this(maxHeaderListSize, DEFAULT_HEADER_TABLE_SIZE, interner, lazyValues);
+    }
+
+    private HpackDecoder(long maxHeaderListSize, int maxHeaderTableSize, Http2HeaderInterner interner,
+                         boolean lazyValues) {
         this.maxHeaderListSize = checkPositive(maxHeaderListSize, "maxHeaderListSize");
+        this.interner = interner;
+        this.lazyValues = lazyValues;
 
         maxDynamicTableSize = encoderMaxDynamicTableSize = maxHeaderTableSize;
         maxDynamicTableSizeChangeRequired = false;
@@ -125,7 +159,11 @@ final class HpackDecoder {
      */
     public void decode(int streamId, ByteBuf in, Http2Headers headers, boolean validateHeaders) throws Http2Exception {
         Http2HeadersSink sink = new Http2HeadersSink(streamId, headers, maxHeaderListSize, validateHeaders);
-        decode(in, sink);
+        try {
+            decode(in, sink);
+        } finally {
+            lazyBlock = null;
+        }
 
         // Now that we've read all of our headers we can perform the validation steps. We must
         // delay throwing until this point to prevent dynamic table corruption.
@@ -287,7 +325,9 @@ final class HpackDecoder {
                         throw notEnoughDataException(in);
                     }
 
-                    CharSequence value = readStringLiteral(in, valueLength, huffmanEncoded);
+                    CharSequence value = lazyValues && indexType != IndexType.INCREMENTAL ?
+                            readLazyStringLiteral(in, valueLength, huffmanEncoded, indexType == IndexType.NEVER) :
+                            readStringLiteral(in, valueLength, huffmanEncoded);
                     insertHeader(sink, name, value, indexType);
                     state = READ_HEADER_REPRESENTATION;
                     break;
@@ -445,13 +485,46 @@ final class HpackDecoder {
 
     private CharSequence readStringLiteral(ByteBuf in, int length, boolean huffmanEncoded) throws Http2Exception {
         if (huffmanEncoded) {
-            return huffmanDecoder.decode(in, length);
+            return huffmanDecoder.decode(in, length, interner);
+        }
+        if (interner != null && length <= interner.maxLength()) {
+            if (in.hasArray()) {
+                AsciiString string = interner.intern(in.array(), in.arrayOffset() + in.readerIndex(), length);
+                in.skipBytes(length);
+                return string;
+            }
+            if (literalScratch == null) {
+                literalScratch = new byte[interner.maxLength()];
+            }
+            in.readBytes(literalScratch, 0, length);
+            return interner.intern(literalScratch, 0, length);
         }
         byte[] buf = new byte[length];
         in.readBytes(buf);
         return new AsciiString(buf, false);
     }
 
+    /**
+     * Reads a string literal which is only decoded once it is accessed. The literal is backed by a copy of the
+     * header block, which is shared by all lazy literals of the block.
+     */
+    private CharSequence readLazyStringLiteral(ByteBuf in, int length, boolean huffmanEncoded, boolean neverIndexed)
+            throws Http2Exception {
+        if (lazyBlock == null) {
+            lazyBlockBase = in.readerIndex();
+            lazyBlock = ByteBufUtil.getBytes(in, lazyBlockBase, in.readableBytes(), true);
+        }
+        int offset = in.readerIndex() - lazyBlockBase;
+        if (huffmanEncoded) {
+            // Validate the encoding now, so errors are still reported as COMPRESSION_ERROR.
+            int decodedLength = huffmanDecoder.decodedLength(in, length);
+            return decodedLength == 0 ? EMPTY_STRING :
+                    new HpackHuffmanString(lazyBlock, offset, length, decodedLength, neverIndexed);
+        }
+        in.skipBytes(length);
+        return new AsciiString(lazyBlock, offset, length, false);
+    }
+
     private static IllegalArgumentException notEnoughDataException(ByteBuf in) {
         return new IllegalArgumentException("decode only works with an entire header block! " + in);
     }
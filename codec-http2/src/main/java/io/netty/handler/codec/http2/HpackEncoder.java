@@ -160,6 +160,14 @@ final class HpackEncoder {
             return;
         }
 
+        if (value instanceof HpackHuffmanString && !((HpackHuffmanString) value).isDecoded()) {
+            // The value was received as a literal that was not indexed and was forwarded untouched. Keep the
+            // representation, which allows to copy the Huffman coded bytes without ever decoding the value.
+            IndexType indexType = ((HpackHuffmanString) value).neverIndexed() ? IndexType.NEVER : IndexType.NONE;
+            encodeLiteral(out, name, value, indexType, getNameIndex(name));
+            return;
+        }
+
         // If the peer will only use the static table
         if (maxHeaderTableSize == 0) {
             int staticTableIndex = HpackStaticTable.getIndexInsensitive(name, value);
@@ -262,6 +270,12 @@ final class HpackEncoder {
      * Encode string literal according to Section 5.2.
      */
     private void encodeStringLiteral(ByteBuf out, CharSequence string) {
+        if (string instanceof HpackHuffmanString) {
+            HpackHuffmanString huffmanString = (HpackHuffmanString) string;
+            encodeInteger(out, 0x80, 7, huffmanString.encodedLength());
+            huffmanString.writeEncoded(out);
+            return;
+        }
         int huffmanLength;
         if (string.length() >= huffCodeThreshold
                 && (huffmanLength = hpackHuffmanEncoder.getEncodedLength(string)) < string.length()) {
@@ -4669,6 +4669,8 @@ final class HpackHuffmanDecoder implements ByteProcessor {
                     Http2Exception.ShutdownHint.HARD_SHUTDOWN, HpackHuffmanDecoder.class, "decode(..)");
 
     private byte[] dest;
+    // Reused as dest when the decoded string is looked up in a Http2HeaderInterner.
+    private byte[] scratch;
     private int k;
     private int state;
 
@@ -4682,10 +4684,33 @@ final class HpackHuffmanDecoder implements ByteProcessor {
      * @throws Http2Exception EOS Decoded
      */
     public AsciiString decode(ByteBuf buf, int length) throws Http2Exception {
+        return decode(buf, length, null);
+    }
+
+    /**
+     * Decompresses the given Huffman coded string literal and returns a shared instance from the given
+     * {@link Http2HeaderInterner} if possible. In this case a scratch buffer is reused between calls, so only
+     * strings which are not cached yet are copied.
+     *
+     * @param buf the string literal to be decoded
+     * @param interner the {@link Http2HeaderInterner} to use or {@code null}
+     * @return the output stream for the compressed data
+     * @throws Http2Exception EOS Decoded
+     */
+    AsciiString decode(ByteBuf buf, int length, Http2HeaderInterner interner) throws Http2Exception {
         if (length == 0) {
             return AsciiString.EMPTY_STRING;
         }
-        dest = new byte[length * 8 / 5];
+        final int maxDecodedLength = length * 8 / 5;
+        final boolean intern = interner != null && maxDecodedLength <= interner.maxLength();
+        if (intern) {
+            if (scratch == null) {
+                scratch = new byte[interner.maxLength()];
+            }
+            dest = scratch;
+        } else {
+            dest = new byte[maxDecodedLength];
+        }
         try {
             int readerIndex = buf.readerIndex();
             // Using ByteProcessor to reduce bounds-checking and reference-count checking during byte-by-byte
@@ -4697,7 +4722,7 @@ final class HpackHuffmanDecoder implements ByteProcessor {
                 if ((state & HUFFMAN_COMPLETE_SHIFT) != HUFFMAN_COMPLETE_SHIFT) {
                     throw BAD_ENCODING;
                 }
-                return new AsciiString(dest, 0, k, false);
+                return intern ? interner.intern(dest, 0, k) : new AsciiString(dest, 0, k, false);
             }
 
             // The process(...) method returned before the requested length was requested. This means there
@@ -4711,6 +4736,37 @@ final class HpackHuffmanDecoder implements ByteProcessor {
         }
     }
 
+    /**
+     * Validates the given Huffman coded string literal and returns the length of the decoded string without
+     * decoding it.
+     *
+     * @param buf the string literal to be validated
+     * @return the length of the decoded string
+     * @throws Http2Exception EOS Decoded
+     */
+    int decodedLength(ByteBuf buf, int length) throws Http2Exception {
+        if (length == 0) {
+            return 0;
+        }
+        assert dest == null;
+        try {
+            int readerIndex = buf.readerIndex();
+            int endIndex = buf.forEachByte(readerIndex, length, this);
+            if (endIndex == -1) {
+                buf.readerIndex(readerIndex + length);
+                if ((state & HUFFMAN_COMPLETE_SHIFT) != HUFFMAN_COMPLETE_SHIFT) {
+                    throw BAD_ENCODING;
+                }
+                return k;
+            }
+            buf.readerIndex(endIndex);
+            throw BAD_ENCODING;
+        } finally {
+            k = 0;
+            state = 0;
+        }
+    }
+
     /**
      * <strong>This should never be called from anything but this class itself!</strong>
      */
@@ -4728,8 +4784,11 @@ final class HpackHuffmanDecoder implements ByteProcessor {
             return false;
         }
         if ((state & HUFFMAN_EMIT_SYMBOL_SHIFT) != 0) {
-            // state is always positive so can cast without mask here
-            dest[k++] = (byte) state;
+            if (dest != null) {
+                // state is always positive so can cast without mask here
+                dest[k] = (byte) state;
+            }
+            k++;
         }
         return true;
     }
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.AsciiString;
+
+/**
+ * A Huffman coded string literal of a received header block which is only decoded once its content is accessed.
+ * The encoded bytes were already validated and the decoded length is known, so headers which are forwarded
+ * untouched can be re-emitted by {@link HpackEncoder} without ever being decoded.
+ */
+final class HpackHuffmanString implements CharSequence {
+    private final byte[] block;
+    private final int offset;
+    private final int encodedLength;
+    private final int length;
+    private final boolean neverIndexed;
+    private AsciiString decoded;
+
+    HpackHuffmanString(byte[] block, int offset, int encodedLength, int length, boolean neverIndexed) {
+        this.block = block;
+        this.offset = offset;
+        this.encodedLength = encodedLength;
+        this.length = length;
+        this.neverIndexed = neverIndexed;
+    }
+
+    /**
+     * Returns {@code true} if the literal was received with the never indexed representation, which must be
+     * preserved by intermediaries.
+     */
+    boolean neverIndexed() {
+        return neverIndexed;
+    }
+
+    /**
+     * Returns {@code true} if the content was accessed already.
+     */
+    boolean isDecoded() {
+        return decoded != null;
+    }
+
+    int encodedLength() {
+        return encodedLength;
+    }
+
+    /**
+     * Write the Huffman coded bytes as they were received.
+     */
+    void writeEncoded(ByteBuf out) {
+        out.writeBytes(block, offset, encodedLength);
+    }
+
+    private AsciiString decoded() {
+        AsciiString decoded = this.decoded;
+        if (decoded == null) {
+            try {
+                decoded = new HpackHuffmanDecoder().decode(
+                        Unpooled.wrappedBuffer(block, offset, encodedLength), encodedLength);
+            } catch (Http2Exception e) {
+                // Can not happen as the bytes were validated while decoding the header block.
+                throw new IllegalStateException(e);
+            }
+            assert decoded.length() == length;
+            this.decoded = decoded;
+        }
+        return decoded;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return decoded().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return decoded().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return decoded().toString();
+    }
+}
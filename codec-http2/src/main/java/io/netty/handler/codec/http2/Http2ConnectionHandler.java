@@ -186,6 +186,7 @@ public class Http2ConnectionHandler extends ByteToMessageDecoder implements Http
         try {
             // Trigger pending writes in the remote flow controller.
             encoder.flowController().writePendingBytes();
+            writePendingFrames(ctx);
             ctx.flush();
         } catch (Http2Exception e) {
             onError(ctx, true, e);
@@ -526,9 +527,23 @@ public class Http2ConnectionHandler extends ByteToMessageDecoder implements Http
 
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        // Keep the ordering with frames which the frame writer may have coalesced.
+        writePendingFrames(ctx);
         ctx.write(msg, promise);
     }
 
+    /**
+     * Writes the frames which a {@link DefaultHttp2FrameWriter} has coalesced so far. The writer would write them
+     * on its own once the current task of the event loop completes, so this is only needed to keep the ordering and
+     * to not delay them until after the flush.
+     */
+    void writePendingFrames(ChannelHandlerContext ctx) {
+        Http2FrameWriter frameWriter = encoder.frameWriter();
+        if (frameWriter instanceof DefaultHttp2FrameWriter) {
+            ((DefaultHttp2FrameWriter) frameWriter).writePendingFrames(ctx);
+        }
+    }
+
     @Override
     public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
         // Trigger flush after read on the assumption that flush is cheap if there is nothing to write and that
@@ -87,6 +87,26 @@ public final class Http2ConnectionHandlerBuilder
         return super.encoderIgnoreMaxHeaderListSize(encoderIgnoreMaxHeaderListSize);
     }
 
+    @Override
+    public int encoderFrameCoalescingBufferSize() {
+        return super.encoderFrameCoalescingBufferSize();
+    }
+
+    @Override
+    public Http2ConnectionHandlerBuilder encoderFrameCoalescingBufferSize(int frameCoalescingBufferSize) {
+        return super.encoderFrameCoalescingBufferSize(frameCoalescingBufferSize);
+    }
+
+    @Override
+    public Http2HeaderInterner headerInterner() {
+        return super.headerInterner();
+    }
+
+    @Override
+    public Http2ConnectionHandlerBuilder headerInterner(Http2HeaderInterner headerInterner) {
+        return super.headerInterner(headerInterner);
+    }
+
     @Override
     public Http2ConnectionHandlerBuilder headerSensitivityDetector(SensitivityDetector headerSensitivityDetector) {
         return super.headerSensitivityDetector(headerSensitivityDetector);
@@ -146,6 +146,26 @@ public class Http2FrameCodecBuilder extends
         return super.encoderIgnoreMaxHeaderListSize(ignoreMaxHeaderListSize);
     }
 
+    @Override
+    public int encoderFrameCoalescingBufferSize() {
+        return super.encoderFrameCoalescingBufferSize();
+    }
+
+    @Override
+    public Http2FrameCodecBuilder encoderFrameCoalescingBufferSize(int frameCoalescingBufferSize) {
+        return super.encoderFrameCoalescingBufferSize(frameCoalescingBufferSize);
+    }
+
+    @Override
+    public Http2HeaderInterner headerInterner() {
+        return super.headerInterner();
+    }
+
+    @Override
+    public Http2FrameCodecBuilder headerInterner(Http2HeaderInterner headerInterner) {
+        return super.headerInterner(headerInterner);
+    }
+
     @Override
     @Deprecated
     public Http2FrameCodecBuilder initialHuffmanDecodeCapacity(int initialHuffmanDecodeCapacity) {
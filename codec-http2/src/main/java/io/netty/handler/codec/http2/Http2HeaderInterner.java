@@ -0,0 +1,131 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.util.AsciiString;
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.MathUtil;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+
+/**
+ * A bounded cache of decoded header names and values which can be shared by many HTTP/2 connections. When many
+ * connections receive the same literal headers (for example {@code :authority}, {@code user-agent} or
+ * {@code content-type}) the decoders return the same immutable {@link AsciiString} instances instead of a new copy
+ * per header, which reduces the allocation rate and the retained heap of header maps and HPACK dynamic tables.
+ * <p>
+ * The cache is direct-mapped: every string hashes to exactly one slot and a newer string replaces the older one
+ * on collision. Lookups and updates are lock-free, so a single instance can be used by all
+ * {@link io.netty.channel.EventLoop}s.
+ */
+@UnstableApi
+public final class Http2HeaderInterner {
+
+    /**
+     * The default number of slots.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * The default maximum length of a string to cache.
+     */
+    public static final int DEFAULT_MAX_LENGTH = 128;
+
+    private final AtomicReferenceArray<AsciiString> table;
+    private final int mask;
+    private final int maxLength;
+    private final LongCounter hits = PlatformDependent.newLongCounter();
+    private final LongCounter misses = PlatformDependent.newLongCounter();
+
+    /**
+     * Creates a new instance with {@link #DEFAULT_CAPACITY} slots which caches strings of up to
+     * {@link #DEFAULT_MAX_LENGTH} bytes.
+     */
+    public Http2HeaderInterner() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param capacity the number of slots, rounded up to the next power of two.
+     * @param maxLength the maximum length in bytes of a string to cache. Longer strings are decoded as usual.
+     */
+    public Http2HeaderInterner(int capacity, int maxLength) {
+        checkPositive(capacity, "capacity");
+        this.maxLength = checkPositive(maxLength, "maxLength");
+        int size = MathUtil.safeFindNextPositivePowerOfTwo(capacity);
+        table = new AtomicReferenceArray<AsciiString>(size);
+        mask = size - 1;
+    }
+
+    /**
+     * Returns the number of slots.
+     */
+    public int capacity() {
+        return table.length();
+    }
+
+    /**
+     * Returns the maximum length in bytes of a string to cache.
+     */
+    public int maxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Returns the number of lookups that returned a cached instance.
+     */
+    public long hits() {
+        return hits.value();
+    }
+
+    /**
+     * Returns the number of lookups that needed to create a new instance.
+     */
+    public long misses() {
+        return misses.value();
+    }
+
+    /**
+     * Returns an {@link AsciiString} with the content of the given bytes. The bytes are copied if a new instance
+     * needs to be created, so the caller may reuse the array.
+     */
+    AsciiString intern(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            return AsciiString.EMPTY_STRING;
+        }
+        if (length > maxLength) {
+            return new AsciiString(bytes, offset, length, true);
+        }
+        int hash = PlatformDependent.hashCodeAscii(bytes, offset, length);
+        int index = (hash ^ hash >>> 16) & mask;
+        AsciiString cached = table.get(index);
+        if (cached != null && cached.hashCode() == hash && cached.length() == length &&
+                PlatformDependent.equals(cached.array(), cached.arrayOffset(), bytes, offset, length)) {
+            hits.increment();
+            return cached;
+        }
+        AsciiString string = new AsciiString(bytes, offset, length, true);
+        table.lazySet(index, string);
+        misses.increment();
+        return string;
+    }
+}
@@ -175,6 +175,26 @@ public class Http2MultiplexCodecBuilder
         return super.encoderIgnoreMaxHeaderListSize(ignoreMaxHeaderListSize);
     }
 
+    @Override
+    public int encoderFrameCoalescingBufferSize() {
+        return super.encoderFrameCoalescingBufferSize();
+    }
+
+    @Override
+    public Http2MultiplexCodecBuilder encoderFrameCoalescingBufferSize(int frameCoalescingBufferSize) {
+        return super.encoderFrameCoalescingBufferSize(frameCoalescingBufferSize);
+    }
+
+    @Override
+    public Http2HeaderInterner headerInterner() {
+        return super.headerInterner();
+    }
+
+    @Override
+    public Http2MultiplexCodecBuilder headerInterner(Http2HeaderInterner headerInterner) {
+        return super.headerInterner(headerInterner);
+    }
+
     @Override
     @Deprecated
     public Http2MultiplexCodecBuilder initialHuffmanDecodeCapacity(int initialHuffmanDecodeCapacity) {
@@ -81,6 +81,20 @@ import static io.netty.handler.codec.http2.Http2Exception.connectionError;
  * window. {@link ChannelHandler}s are free to ignore the channel's writability, in which case the excessive writes will
  * be buffered by the parent channel. It's important to note that only {@link Http2DataFrame}s are subject to
  * HTTP/2 flow control.
+ *
+ * <h3>Pooling of child channels</h3>
+ *
+ * When constructed with a {@code maxPooledStreamChannels} greater than {@code 0}, the {@link Channel}s that were
+ * created for inbound streams are reset and reused for new inbound streams once they are closed, instead of
+ * creating a new {@link Channel} and {@link ChannelPipeline} for every stream. A child channel is only reused
+ * once its stream is closed, it was unregistered, all of its handlers were removed and none of its writes are
+ * pending anymore. The {@code inboundStreamHandler} is added to the pipeline of the reused channel again, so
+ * {@link ChannelHandler#handlerAdded(ChannelHandlerContext)} and
+ * {@link ChannelHandler#handlerRemoved(ChannelHandlerContext)} can be used to take stateful handlers from and
+ * return them to a pool of their own. The {@link Channel#id()}, {@link Channel#config()},
+ * {@link Channel#closeFuture()} and attributes are not shared between streams, but the {@link Channel} and
+ * {@link ChannelPipeline} instances are, so applications must not use a child channel anymore once it was
+ * closed when pooling is enabled.
  */
 @UnstableApi
 public final class Http2MultiplexHandler extends Http2ChannelDuplexHandler {
@@ -99,6 +113,9 @@ public final class Http2MultiplexHandler extends Http2ChannelDuplexHandler {
                     // Choose 100 which is what is used most of the times as default.
                     Http2CodecUtil.SMALLEST_MAX_CONCURRENT_STREAMS);
 
+    private final int maxPooledStreamChannels;
+    private Queue<Http2MultiplexHandlerStreamChannel> streamChannelPool;
+
     private boolean parentReadInProgress;
     private int idCount;
 
@@ -124,8 +141,25 @@ public final class Http2MultiplexHandler extends Http2ChannelDuplexHandler {
      *                             upgraded {@link Channel}.
      */
     public Http2MultiplexHandler(ChannelHandler inboundStreamHandler, ChannelHandler upgradeStreamHandler) {
+        this(inboundStreamHandler, upgradeStreamHandler, 0);
+    }
+
+    /**
+     * Creates a new instance
+     *
+     * @param inboundStreamHandler the {@link ChannelHandler} that will be added to the {@link ChannelPipeline} of
+     *                             the {@link Channel}s created for new inbound streams.
+     * @param upgradeStreamHandler the {@link ChannelHandler} that will be added to the {@link ChannelPipeline} of the
+     *                             upgraded {@link Channel}.
+     * @param maxPooledStreamChannels the maximum number of closed {@link Channel}s of inbound streams that are kept
+     *                                to be reused for new inbound streams, {@code 0} disables pooling.
+     */
+    public Http2MultiplexHandler(ChannelHandler inboundStreamHandler, ChannelHandler upgradeStreamHandler,
+                                 int maxPooledStreamChannels) {
         this.inboundStreamHandler = ObjectUtil.checkNotNull(inboundStreamHandler, "inboundStreamHandler");
         this.upgradeStreamHandler = upgradeStreamHandler;
+        this.maxPooledStreamChannels =
+                ObjectUtil.checkPositiveOrZero(maxPooledStreamChannels, "maxPooledStreamChannels");
     }
 
     static void registerDone(ChannelFuture future) {
@@ -153,6 +187,7 @@ public final class Http2MultiplexHandler extends Http2ChannelDuplexHandler {
     @Override
     protected void handlerRemoved0(ChannelHandlerContext ctx) {
         readCompletePendingQueue.clear();
+        streamChannelPool = null;
     }
 
     @Override
@@ -233,7 +268,7 @@ public final class Http2MultiplexHandler extends Http2ChannelDuplexHandler {
                             ch = new Http2MultiplexHandlerStreamChannel(stream, upgradeStreamHandler);
                             ch.closeOutbound();
                         } else {
-                            ch = new Http2MultiplexHandlerStreamChannel(stream, inboundStreamHandler);
+                            ch = newInboundStreamChannel(stream);
                         }
                         ChannelFuture future = ctx.channel().eventLoop().register(ch);
                         if (future.isDone()) {
@@ -258,6 +293,30 @@ public final class Http2MultiplexHandler extends Http2ChannelDuplexHandler {
         ctx.fireUserEventTriggered(evt);
     }
 
+    private AbstractHttp2StreamChannel newInboundStreamChannel(DefaultHttp2FrameStream stream) {
+        Http2MultiplexHandlerStreamChannel ch = streamChannelPool == null ? null : streamChannelPool.poll();
+        if (ch == null) {
+            ch = new Http2MultiplexHandlerStreamChannel(stream, inboundStreamHandler);
+            ch.pooled = maxPooledStreamChannels > 0;
+        } else {
+            ch.reset(stream, ++idCount, inboundStreamHandler);
+        }
+        return ch;
+    }
+
+    private void release(Http2MultiplexHandlerStreamChannel ch) {
+        if (!ch.parent().isActive() || !ch.isResettable()) {
+            return;
+        }
+        if (streamChannelPool == null) {
+            streamChannelPool = new ArrayDeque<Http2MultiplexHandlerStreamChannel>(
+                    Math.min(maxPooledStreamChannels, Http2CodecUtil.SMALLEST_MAX_CONCURRENT_STREAMS));
+        }
+        if (streamChannelPool.size() < maxPooledStreamChannels) {
+            streamChannelPool.add(ch);
+        }
+    }
+
     // TODO: This is most likely not the best way to expose this, need to think more about it.
     Http2StreamChannel newOutboundStream() {
         return new Http2MultiplexHandlerStreamChannel((DefaultHttp2FrameStream) newStream(), null);
@@ -337,11 +396,20 @@ public final class Http2MultiplexHandler extends Http2ChannelDuplexHandler {
     }
 
     private final class Http2MultiplexHandlerStreamChannel extends AbstractHttp2StreamChannel {
+        // Only set for channels of inbound streams as the application controls the lifetime of outbound ones.
+        boolean pooled;
 
         Http2MultiplexHandlerStreamChannel(DefaultHttp2FrameStream stream, ChannelHandler inboundHandler) {
             super(stream, ++idCount, inboundHandler);
         }
 
+        @Override
+        protected void channelUnregistered() {
+            if (pooled) {
+                release(this);
+            }
+        }
+
         @Override
         protected boolean isParentReadInProgress() {
             return parentReadInProgress;
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.internal.UnstableApi;
+
+import static io.netty.handler.codec.http2.Http2Error.INTERNAL_ERROR;
+import static io.netty.handler.codec.http2.Http2Exception.streamError;
+
+/**
+ * A server side {@link Http2ConnectionHandler} that passes requests directly to a
+ * {@link Http2ServerRequestListener}.
+ * <p>
+ * Compared to {@link Http2FrameCodec} in combination with {@link Http2MultiplexHandler} no child
+ * {@link io.netty.channel.Channel}, no {@link io.netty.channel.ChannelPipeline} per stream and no
+ * {@link Http2StreamFrame}s are created, which makes it a good fit for simple request / response handlers. The
+ * response is written via the {@link Http2ServerStream} of the request. Writes done while the connection is
+ * reading are flushed once the read completes, so responses to all requests read at once are flushed together.
+ * <p>
+ * The request body is either aggregated up to a maximum size (see
+ * {@link Http2ServerRequestHandlerBuilder#maxContentLength(int)}), in which case it is consumed from the inbound
+ * flow control window right away, or passed on as it arrives, in which case the listener controls how fast the
+ * inbound flow control window is expanded. Exceptions thrown by the listener reset the stream of the request.
+ * <p>
+ * Use {@link Http2ServerRequestHandlerBuilder} to create instances of this class.
+ */
+@UnstableApi
+public final class Http2ServerRequestHandler extends Http2ConnectionHandler {
+
+    private final Http2ServerRequestListener listener;
+    private final int maxContentLength;
+    private final Http2Connection.PropertyKey streamKey;
+
+    Http2ServerRequestHandler(Http2ConnectionDecoder decoder, Http2ConnectionEncoder encoder,
+                              Http2Settings initialSettings, boolean decoupleCloseAndGoAway,
+                              Http2ServerRequestListener listener, int maxContentLength) {
+        super(decoder, encoder, initialSettings, decoupleCloseAndGoAway);
+        this.listener = listener;
+        this.maxContentLength = maxContentLength;
+        streamKey = connection().newKey();
+        decoder.frameListener(new FrameListener());
+        connection().addListener(new Http2ConnectionAdapter() {
+            @Override
+            public void onStreamRemoved(Http2Stream stream) {
+                Http2ServerStream serverStream = stream.removeProperty(streamKey);
+                if (serverStream != null) {
+                    serverStream.release();
+                }
+            }
+        });
+    }
+
+    private Http2ServerStream serverStream(int streamId) {
+        Http2Stream stream = connection().stream(streamId);
+        return stream == null ? null : stream.<Http2ServerStream>getProperty(streamKey);
+    }
+
+    private void onRequest(ChannelHandlerContext ctx, Http2ServerStream stream, Http2Headers headers,
+                           ByteBuf content, boolean endOfStream) throws Http2Exception {
+        try {
+            listener.onRequest(ctx, stream, headers, content, endOfStream);
+        } catch (Http2Exception e) {
+            throw e;
+        } catch (Throwable cause) {
+            throw streamError(stream.id(), INTERNAL_ERROR, cause, "Failed to process request on stream %d",
+                    stream.id());
+        }
+    }
+
+    private int onContent(ChannelHandlerContext ctx, Http2ServerStream stream, ByteBuf content,
+                          boolean endOfStream) throws Http2Exception {
+        try {
+            return listener.onContent(ctx, stream, content, endOfStream);
+        } catch (Http2Exception e) {
+            throw e;
+        } catch (Throwable cause) {
+            throw streamError(stream.id(), INTERNAL_ERROR, cause, "Failed to process content on stream %d",
+                    stream.id());
+        }
+    }
+
+    private void onAggregatedRequest(ChannelHandlerContext ctx, Http2ServerStream stream) throws Http2Exception {
+        Http2Headers headers = stream.headers;
+        ByteBuf content = stream.content;
+        stream.headers = null;
+        stream.content = null;
+        if (content == null) {
+            onRequest(ctx, stream, headers, Unpooled.EMPTY_BUFFER, true);
+        } else {
+            try {
+                onRequest(ctx, stream, headers, content, true);
+            } finally {
+                content.release();
+            }
+        }
+    }
+
+    private final class FrameListener extends Http2FrameAdapter {
+
+        @Override
+        public void onHeadersRead(ChannelHandlerContext ctx, int streamId, Http2Headers headers,
+                                  int streamDependency, short weight, boolean exclusive, int padding,
+                                  boolean endOfStream) throws Http2Exception {
+            onHeadersRead(ctx, streamId, headers, padding, endOfStream);
+        }
+
+        @Override
+        public void onHeadersRead(ChannelHandlerContext ctx, int streamId, Http2Headers headers, int padding,
+                                  boolean endOfStream) throws Http2Exception {
+            Http2Stream stream = connection().stream(streamId);
+            Http2ServerStream serverStream = stream.getProperty(streamKey);
+            if (serverStream == null) {
+                serverStream = new Http2ServerStream(Http2ServerRequestHandler.this, ctx, stream);
+                stream.setProperty(streamKey, serverStream);
+                if (maxContentLength == 0 || endOfStream) {
+                    onRequest(ctx, serverStream, headers, Unpooled.EMPTY_BUFFER, endOfStream);
+                } else {
+                    serverStream.headers = headers;
+                }
+                return;
+            }
+
+            // These are the trailers.
+            serverStream.trailers(headers);
+            if (maxContentLength == 0) {
+                onContent(ctx, serverStream, Unpooled.EMPTY_BUFFER, endOfStream);
+            } else {
+                onAggregatedRequest(ctx, serverStream);
+            }
+        }
+
+        @Override
+        public int onDataRead(ChannelHandlerContext ctx, int streamId, ByteBuf data, int padding,
+                              boolean endOfStream) throws Http2Exception {
+            Http2ServerStream serverStream = serverStream(streamId);
+            if (maxContentLength == 0) {
+                return onContent(ctx, serverStream, data, endOfStream) + padding;
+            }
+
+            final int dataReadableBytes = data.readableBytes();
+            ByteBuf content = serverStream.content;
+            if ((content == null ? 0 : content.readableBytes()) > maxContentLength - dataReadableBytes) {
+                throw streamError(streamId, INTERNAL_ERROR,
+                        "Content length exceeded max of %d for stream id %d", maxContentLength, streamId);
+            }
+            if (content == null) {
+                if (endOfStream) {
+                    // The whole body arrived in a single DATA frame, no need to copy it.
+                    Http2Headers headers = serverStream.headers;
+                    serverStream.headers = null;
+                    onRequest(ctx, serverStream, headers, data, true);
+                    return dataReadableBytes + padding;
+                }
+                content = serverStream.content = ctx.alloc().buffer(dataReadableBytes);
+            }
+            content.writeBytes(data, data.readerIndex(), dataReadableBytes);
+            if (endOfStream) {
+                onAggregatedRequest(ctx, serverStream);
+            }
+            // The aggregated content is bounded by maxContentLength so the bytes can be consumed right away.
+            return dataReadableBytes + padding;
+        }
+
+        @Override
+        public void onRstStreamRead(ChannelHandlerContext ctx, int streamId, long errorCode) throws Http2Exception {
+            Http2ServerStream serverStream = serverStream(streamId);
+            if (serverStream == null) {
+                return;
+            }
+            try {
+                listener.onReset(ctx, serverStream, errorCode);
+            } catch (Http2Exception e) {
+                throw e;
+            } catch (Throwable cause) {
+                throw streamError(streamId, INTERNAL_ERROR, cause, "Failed to process reset of stream %d",
+                        streamId);
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.util.internal.UnstableApi;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * Builder for the {@link Http2ServerRequestHandler}.
+ */
+@UnstableApi
+public final class Http2ServerRequestHandlerBuilder extends
+        AbstractHttp2ConnectionHandlerBuilder<Http2ServerRequestHandler, Http2ServerRequestHandlerBuilder> {
+
+    private final Http2ServerRequestListener listener;
+    private int maxContentLength;
+
+    /**
+     * Creates a new builder.
+     *
+     * @param listener the {@link Http2ServerRequestListener} that will receive the requests.
+     */
+    public Http2ServerRequestHandlerBuilder(Http2ServerRequestListener listener) {
+        this.listener = checkNotNull(listener, "listener");
+        server(true);
+    }
+
+    /**
+     * Returns the maximum length of a request body that is aggregated, {@code 0} if request bodies are not
+     * aggregated.
+     */
+    public int maxContentLength() {
+        return maxContentLength;
+    }
+
+    /**
+     * Sets the maximum length of a request body that is aggregated before it is passed to
+     * {@link Http2ServerRequestListener#onRequest(io.netty.channel.ChannelHandlerContext, Http2ServerStream,
+     * Http2Headers, io.netty.buffer.ByteBuf, boolean)}. Streams of requests with a larger body are reset.
+     * The default of {@code 0} passes the request body on as it arrives instead.
+     */
+    public Http2ServerRequestHandlerBuilder maxContentLength(int maxContentLength) {
+        this.maxContentLength = checkPositiveOrZero(maxContentLength, "maxContentLength");
+        return this;
+    }
+
+    @Override
+    public Http2Settings initialSettings() {
+        return super.initialSettings();
+    }
+
+    @Override
+    public Http2ServerRequestHandlerBuilder initialSettings(Http2Settings settings) {
+        return super.initialSettings(settings);
+    }
+
+    @Override
+    public long gracefulShutdownTimeoutMillis() {
+        return super.gracefulShutdownTimeoutMillis();
+    }
+
+    @Override
+    public Http2ServerRequestHandlerBuilder gracefulShutdownTimeoutMillis(long gracefulShutdownTimeoutMillis) {
+        return super.gracefulShutdownTimeoutMillis(gracefulShutdownTimeoutMillis);
+    }
+
+    @Override
+    public boolean isServer() {
+        return super.isServer();
+    }
+
+    @Override
+    public boolean isValidateHeaders() {
+        return super.isValidateHeaders();
+    }
+
+    @Override
+    public Http2ServerRequestHandlerBuilder validateHeaders(boolean validateHeaders) {
+        return super.validateHeaders(validateHeaders);
+    }
+
+    @Override
+    public Http2FrameLogger frameLogger() {
+        return super.frameLogger();
+    }
+
+    @Override
+    public Http2ServerRequestHandlerBuilder frameLogger(Http2FrameLogger frameLogger) {
+        return super.frameLogger(frameLogger);
+    }
+
+    @Override
+    public int encoderEnforceMaxQueuedControlFrames() {
+        return super.encoderEnforceMaxQueuedControlFrames();
+    }
+
+    @Override
+    public Http2ServerRequestHandlerBuilder encoderEnforceMaxQueuedControlFrames(int maxQueuedControlFrames) {
+        return super.encoderEnforceMaxQueuedControlFrames(maxQueuedControlFrames);
+    }
+
+    @Override
+    public Http2HeadersEncoder.SensitivityDetector headerSensitivityDetector() {
+        return super.headerSensitivityDetector();
+    }
+
+    @Override
+    public Http2ServerRequestHandlerBuilder headerSensitivityDetector(
+            Http2HeadersEncoder.SensitivityDetector headerSensitivityDetector) {
+        return super.headerSensitivityDetector(headerSensitivityDetector);
+    }
+
+    @Override
+    public Http2ServerRequestHandlerBuilder encoderIgnoreMaxHeaderListSize(boolean ignoreMaxHeaderListSize) {
+        return super.encoderIgnoreMaxHeaderListSize(ignoreMaxHeaderListSize);
+    }
+
+    @Override
+    public int encoderFrameCoalescingBufferSize() {
+        return super.encoderFrameCoalescingBufferSize();
+    }
+
+    @Override
+    public Http2ServerRequestHandlerBuilder encoderFrameCoalescingBufferSize(int frameCoalescingBufferSize) {
+        return super.encoderFrameCoalescingBufferSize(frameCoalescingBufferSize);
+    }
+
+    @Override
+    public Http2HeaderInterner headerInterner() {
+        return super.headerInterner();
+    }
+
+    @Override
+    public Http2ServerRequestHandlerBuilder headerInterner(Http2HeaderInterner headerInterner) {
+        return super.headerInterner(headerInterner);
+    }
+
+    @Override
+    public Http2ServerRequestHandlerBuilder autoAckSettingsFrame(boolean autoAckSettings) {
+        return super.autoAckSettingsFrame(autoAckSettings);
+    }
+
+    @Override
+    public Http2ServerRequestHandlerBuilder autoAckPingFrame(boolean autoAckPingFrame) {
+        return super.autoAckPingFrame(autoAckPingFrame);
+    }
+
+    @Override
+    public Http2ServerRequestHandlerBuilder decoupleCloseAndGoAway(boolean decoupleCloseAndGoAway) {
+        return super.decoupleCloseAndGoAway(decoupleCloseAndGoAway);
+    }
+
+    @Override
+    public int decoderEnforceMaxConsecutiveEmptyDataFrames() {
+        return super.decoderEnforceMaxConsecutiveEmptyDataFrames();
+    }
+
+    @Override
+    public Http2ServerRequestHandlerBuilder decoderEnforceMaxConsecutiveEmptyDataFrames(int maxConsecutiveEmptyFrames) {
+        return super.decoderEnforceMaxConsecutiveEmptyDataFrames(maxConsecutiveEmptyFrames);
+    }
+
+    @Override
+    public Http2ServerRequestHandler build() {
+        return super.build();
+    }
+
+    @Override
+    protected Http2ServerRequestHandler build(
+            Http2ConnectionDecoder decoder, Http2ConnectionEncoder encoder, Http2Settings initialSettings) {
+        return new Http2ServerRequestHandler(decoder, encoder, initialSettings, decoupleCloseAndGoAway(),
+                listener, maxContentLength);
+    }
+}
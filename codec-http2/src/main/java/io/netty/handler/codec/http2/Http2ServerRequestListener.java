@@ -0,0 +1,72 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * Receives the requests of a {@link Http2ServerRequestHandler}. All methods are called from the
+ * {@link io.netty.channel.EventLoop} of the connection.
+ */
+@UnstableApi
+public interface Http2ServerRequestListener {
+
+    /**
+     * Called once for every request.
+     * <p>
+     * If the handler aggregates the request body (see
+     * {@link Http2ServerRequestHandlerBuilder#maxContentLength(int)}) this is called once the whole request was
+     * received, {@code content} holds the whole body and {@code endOfStream} is always {@code true}. Otherwise this
+     * is called as soon as the request headers were received, {@code content} is empty and the body is passed to
+     * {@link #onContent(ChannelHandlerContext, Http2ServerStream, ByteBuf, boolean)} afterwards.
+     *
+     * @param ctx the context of the {@link Http2ServerRequestHandler}.
+     * @param stream the stream of the request, used to write the response.
+     * @param headers the request headers.
+     * @param content the request body. This buffer will be released once this method returns, call
+     *                {@link ByteBuf#retain()} to keep it.
+     * @param endOfStream {@code true} if the request is complete.
+     */
+    void onRequest(ChannelHandlerContext ctx, Http2ServerStream stream, Http2Headers headers, ByteBuf content,
+                   boolean endOfStream) throws Exception;
+
+    /**
+     * Called for every part of the request body if the handler does not aggregate it. Trailers are available via
+     * {@link Http2ServerStream#trailers()} once {@code endOfStream} is {@code true}.
+     *
+     * @param ctx the context of the {@link Http2ServerRequestHandler}.
+     * @param stream the stream of the request.
+     * @param content a part of the request body. This buffer will be released once this method returns, call
+     *                {@link ByteBuf#retain()} to keep it.
+     * @param endOfStream {@code true} if this is the last part of the request.
+     * @return the number of bytes that have been processed. The inbound flow control window of the stream is only
+     * expanded by the processed bytes, the remaining ones must be returned with
+     * {@link Http2ServerStream#consumeBytes(int)} later.
+     */
+    int onContent(ChannelHandlerContext ctx, Http2ServerStream stream, ByteBuf content, boolean endOfStream)
+            throws Exception;
+
+    /**
+     * Called if the client reset the stream of a request.
+     *
+     * @param ctx the context of the {@link Http2ServerRequestHandler}.
+     * @param stream the stream that was reset.
+     * @param errorCode the error code sent by the client.
+     */
+    void onReset(ChannelHandlerContext ctx, Http2ServerStream stream, long errorCode) throws Exception;
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.internal.UnstableApi;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * The stream of a request received by a {@link Http2ServerRequestHandler}, used to write the response.
+ * <p>
+ * The methods of this class may be called from any thread. Writes are not flushed automatically unless they are
+ * done while the connection is reading, call {@link #flush()} otherwise.
+ */
+@UnstableApi
+public final class Http2ServerStream {
+    private final Http2ServerRequestHandler handler;
+    private final ChannelHandlerContext ctx;
+    private final Http2Stream stream;
+
+    // Only used by the Http2ServerRequestHandler while aggregating the request.
+    Http2Headers headers;
+    ByteBuf content;
+    private Http2Headers trailers;
+
+    Http2ServerStream(Http2ServerRequestHandler handler, ChannelHandlerContext ctx, Http2Stream stream) {
+        this.handler = handler;
+        this.ctx = ctx;
+        this.stream = stream;
+    }
+
+    /**
+     * Returns the id of the stream.
+     */
+    public int id() {
+        return stream.id();
+    }
+
+    /**
+     * Returns the underlying {@link Http2Stream}.
+     */
+    public Http2Stream stream() {
+        return stream;
+    }
+
+    /**
+     * Returns the trailers of the request or {@code null} if none were received (yet).
+     */
+    public Http2Headers trailers() {
+        return trailers;
+    }
+
+    void trailers(Http2Headers trailers) {
+        this.trailers = trailers;
+    }
+
+    /**
+     * Returns {@code true} if the remote flow control window of the stream and the connection allow to write more
+     * data without buffering it.
+     */
+    public boolean isWritable() {
+        return handler.encoder().flowController().isWritable(stream);
+    }
+
+    /**
+     * Writes the headers (or trailers) of the response.
+     */
+    public ChannelFuture writeHeaders(final Http2Headers headers, final boolean endStream) {
+        checkNotNull(headers, "headers");
+        final ChannelPromise promise = ctx.newPromise();
+        if (ctx.executor().inEventLoop()) {
+            handler.encoder().writeHeaders(ctx, stream.id(), headers, 0, endStream, promise);
+        } else {
+            ctx.executor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    handler.encoder().writeHeaders(ctx, stream.id(), headers, 0, endStream, promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    /**
+     * Writes a part of the response body, subject to the remote flow control window. The ownership of {@code data}
+     * is transferred to this method.
+     */
+    public ChannelFuture writeData(final ByteBuf data, final boolean endStream) {
+        checkNotNull(data, "data");
+        final ChannelPromise promise = ctx.newPromise();
+        if (ctx.executor().inEventLoop()) {
+            handler.encoder().writeData(ctx, stream.id(), data, 0, endStream, promise);
+        } else {
+            ctx.executor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    handler.encoder().writeData(ctx, stream.id(), data, 0, endStream, promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    /**
+     * Resets the stream with the given error.
+     */
+    public ChannelFuture reset(final Http2Error error) {
+        checkNotNull(error, "error");
+        final ChannelPromise promise = ctx.newPromise();
+        if (ctx.executor().inEventLoop()) {
+            handler.resetStream(ctx, stream.id(), error.code(), promise);
+        } else {
+            ctx.executor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    handler.resetStream(ctx, stream.id(), error.code(), promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    /**
+     * Returns request body bytes that were not reported as processed by
+     * {@link Http2ServerRequestListener#onContent(ChannelHandlerContext, Http2ServerStream, ByteBuf, boolean)}
+     * to the inbound flow control window.
+     */
+    public void consumeBytes(final int numBytes) {
+        if (ctx.executor().inEventLoop()) {
+            consumeBytes0(numBytes);
+        } else {
+            ctx.executor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    consumeBytes0(numBytes);
+                }
+            });
+        }
+    }
+
+    private void consumeBytes0(int numBytes) {
+        try {
+            handler.connection().local().flowController().consumeBytes(stream, numBytes);
+        } catch (Http2Exception e) {
+            handler.onError(ctx, false, e);
+        }
+    }
+
+    /**
+     * Flushes all pending writes of the connection.
+     */
+    public void flush() {
+        if (ctx.executor().inEventLoop()) {
+            handler.flush(ctx);
+        } else {
+            ctx.executor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    handler.flush(ctx);
+                }
+            });
+        }
+    }
+
+    void release() {
+        headers = null;
+        ByteBuf content = this.content;
+        if (content != null) {
+            this.content = null;
+            content.release();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Http2ServerStream(" + stream + ')';
+    }
+}
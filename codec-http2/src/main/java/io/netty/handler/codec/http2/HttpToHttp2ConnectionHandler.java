@@ -80,6 +80,7 @@ public class HttpToHttp2ConnectionHandler extends Http2ConnectionHandler {
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
 
         if (!(msg instanceof HttpMessage || msg instanceof HttpContent)) {
+            writePendingFrames(ctx);
             ctx.write(msg, promise);
             return;
         }
@@ -23,11 +23,13 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.DefaultChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.ImmediateEventExecutor;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.invocation.InvocationOnMock;
@@ -35,7 +37,9 @@ import org.mockito.stubbing.Answer;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
@@ -247,6 +251,45 @@ public class DefaultHttp2FrameWriterTest {
                 secondPayload);
     }
 
+    @Test
+    public void writeLargeHeadersWithSeveralContinuationFrames() throws Exception {
+        int streamId = 1;
+        Http2Headers headers = new DefaultHttp2Headers()
+                .method("GET").path("/").authority("foo.com").scheme("https");
+        headers = dummyHeaders(headers, 70);
+
+        http2HeadersEncoder.configuration().maxHeaderListSize(Integer.MAX_VALUE);
+        frameWriter.headersConfiguration().maxHeaderListSize(Integer.MAX_VALUE);
+        frameWriter.maxFrameSize(Http2CodecUtil.MAX_FRAME_SIZE_LOWER_BOUND);
+        frameWriter.writeHeaders(ctx, streamId, headers, 0, true, promise);
+
+        byte[] expectedPayload = headerPayload(streamId, headers);
+        assertTrue(expectedPayload.length > 3 * Http2CodecUtil.MAX_FRAME_SIZE_LOWER_BOUND);
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        int frames = 0;
+        while (outbound.isReadable()) {
+            int length = outbound.readUnsignedMedium();
+            byte type = outbound.readByte();
+            byte flags = outbound.readByte();
+            assertEquals(streamId, outbound.readInt());
+            if (frames == 0) {
+                assertEquals(0x01, type);
+                assertEquals(0x01, flags);
+            } else {
+                // Only the last CONTINUATION frame ends the header block.
+                assertEquals(0x09, type);
+                assertEquals(length < Http2CodecUtil.MAX_FRAME_SIZE_LOWER_BOUND ? 0x04 : 0x00, flags);
+            }
+            byte[] framePayload = new byte[length];
+            outbound.readBytes(framePayload);
+            payload.write(framePayload);
+            frames++;
+        }
+        assertEquals(4, frames);
+        assertArrayEquals(expectedPayload, payload.toByteArray());
+    }
+
     @Test
     public void writeFrameZeroPayload() throws Exception {
         frameWriter.writeFrame(ctx, (byte) 0xf, 0, new Http2Flags(), Unpooled.EMPTY_BUFFER, promise);
@@ -312,6 +355,153 @@ public class DefaultHttp2FrameWriterTest {
         assertEquals(expectedOutbound, outbound);
     }
 
+    @Test
+    public void writeCoalescedFrames() throws Exception {
+        queueTasks();
+        when(ctx.newPromise()).thenReturn(new DefaultChannelPromise(channel, ImmediateEventExecutor.INSTANCE));
+        DefaultHttp2FrameWriter coalescingWriter = new DefaultHttp2FrameWriter(new DefaultHttp2HeadersEncoder(
+                Http2HeadersEncoder.NEVER_SENSITIVE, new HpackEncoder(false, 16, 0)), 1024);
+        try {
+            writeFrames(coalescingWriter, 16);
+            verify(ctx, never()).write(any(), any(ChannelPromise.class));
+
+            coalescingWriter.writePendingFrames(ctx);
+            verify(ctx, times(1)).write(any(), any(ChannelPromise.class));
+        } finally {
+            coalescingWriter.close();
+        }
+        expectedOutbound = outbound.copy();
+        outbound.clear();
+
+        writeFrames(frameWriter, 16);
+        assertEquals(expectedOutbound, outbound);
+    }
+
+    @Test
+    public void writeCoalescedFramesDoesNotCopyLargePayload() throws Exception {
+        queueTasks();
+        when(ctx.newPromise()).thenReturn(new DefaultChannelPromise(channel, ImmediateEventExecutor.INSTANCE));
+        DefaultHttp2FrameWriter coalescingWriter = new DefaultHttp2FrameWriter(new DefaultHttp2HeadersEncoder(
+                Http2HeadersEncoder.NEVER_SENSITIVE, new HpackEncoder(false, 16, 0)), 1024);
+        try {
+            writeFrames(coalescingWriter, 2048);
+            // The frames in front of the payload, the payload and the frames after it.
+            verify(ctx, times(2)).write(any(), any(ChannelPromise.class));
+
+            coalescingWriter.writePendingFrames(ctx);
+            verify(ctx, times(3)).write(any(), any(ChannelPromise.class));
+        } finally {
+            coalescingWriter.close();
+        }
+        expectedOutbound = outbound.copy();
+        outbound.clear();
+
+        writeFrames(frameWriter, 2048);
+        assertEquals(expectedOutbound, outbound);
+    }
+
+    @Test
+    public void writeCoalescedFramesOnceTheTaskCompletes() throws Exception {
+        EmbeddedChannel eventLoopChannel = queueTasks();
+        when(ctx.newPromise()).thenReturn(new DefaultChannelPromise(channel, ImmediateEventExecutor.INSTANCE));
+        DefaultHttp2FrameWriter coalescingWriter = new DefaultHttp2FrameWriter(new DefaultHttp2HeadersEncoder(
+                Http2HeadersEncoder.NEVER_SENSITIVE, new HpackEncoder(false, 16, 0)), 1024);
+        try {
+            writeFrames(coalescingWriter, 16);
+            verify(ctx, never()).write(any(), any(ChannelPromise.class));
+
+            // writePendingFrames(...) is not called, so the writer must write and flush the frames on its own.
+            eventLoopChannel.runPendingTasks();
+            InOrder inOrder = inOrder(ctx);
+            inOrder.verify(ctx).write(any(), any(ChannelPromise.class));
+            inOrder.verify(ctx).flush();
+        } finally {
+            coalescingWriter.close();
+        }
+        expectedOutbound = outbound.copy();
+        outbound.clear();
+
+        writeFrames(frameWriter, 16);
+        assertEquals(expectedOutbound, outbound);
+    }
+
+    @Test
+    public void writeCoalescedMultiFrameDataWithTinyBufferSize() throws Exception {
+        queueTasks();
+        when(ctx.newPromise()).thenReturn(new DefaultChannelPromise(channel, ImmediateEventExecutor.INSTANCE));
+        // Queue the written buffers like the outbound buffer of a channel does, so a frame header which is
+        // overwritten before it is flushed would show up.
+        final List<ByteBuf> written = new ArrayList<ByteBuf>();
+        when(ctx.write(any(), any(ChannelPromise.class))).then(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                written.add((ByteBuf) invocation.getArgument(0));
+                return future;
+            }
+        });
+        // A quarter of the coalescing buffer size is smaller than a frame header.
+        DefaultHttp2FrameWriter coalescingWriter = new DefaultHttp2FrameWriter(new DefaultHttp2HeadersEncoder(
+                Http2HeadersEncoder.NEVER_SENSITIVE, new HpackEncoder(false, 16, 0)), 16);
+        try {
+            writeMultiFrameData(coalescingWriter);
+            coalescingWriter.writePendingFrames(ctx);
+        } finally {
+            coalescingWriter.close();
+        }
+        expectedOutbound = drain(written);
+
+        writeMultiFrameData(frameWriter);
+        ByteBuf actual = drain(written);
+        try {
+            assertEquals(expectedOutbound, actual);
+        } finally {
+            actual.release();
+        }
+    }
+
+    /**
+     * Makes the tasks submitted to the executor of the context only run once
+     * {@link EmbeddedChannel#runPendingTasks()} is called.
+     */
+    private EmbeddedChannel queueTasks() {
+        EmbeddedChannel eventLoopChannel = new EmbeddedChannel();
+        when(ctx.executor()).thenReturn(eventLoopChannel.eventLoop());
+        return eventLoopChannel;
+    }
+
+    private void writeMultiFrameData(DefaultHttp2FrameWriter writer) {
+        int maxFrameSize = Http2CodecUtil.DEFAULT_MAX_FRAME_SIZE;
+        writer.writeData(ctx, 1, dataOfLength(maxFrameSize * 2 + 100), 0, false, promise);
+        writer.writeData(ctx, 1, dataOfLength(maxFrameSize * 2), 10, true, promise);
+    }
+
+    private static ByteBuf dataOfLength(int length) {
+        ByteBuf data = Unpooled.buffer(length);
+        for (int i = 0; i < length; i++) {
+            data.writeByte(i);
+        }
+        return data;
+    }
+
+    private static ByteBuf drain(List<ByteBuf> written) {
+        ByteBuf buf = Unpooled.buffer();
+        for (ByteBuf b : written) {
+            buf.writeBytes(b);
+            b.release();
+        }
+        written.clear();
+        return buf;
+    }
+
+    private void writeFrames(DefaultHttp2FrameWriter writer, int dataLength) {
+        Http2Headers headers = new DefaultHttp2Headers()
+                .method("GET").path("/").authority("foo.com").scheme("https");
+        writer.writeHeaders(ctx, 1, headers, 0, false, promise);
+        writer.writeData(ctx, 1, Unpooled.wrappedBuffer(new byte[dataLength]), 0, true, promise);
+        writer.writeWindowUpdate(ctx, 0, 1024, promise);
+        writer.writePing(ctx, false, 8, promise);
+    }
+
     private byte[] headerPayload(int streamId, Http2Headers headers, byte padding) throws Http2Exception, IOException {
         if (padding == 0) {
             return headerPayload(streamId, headers);
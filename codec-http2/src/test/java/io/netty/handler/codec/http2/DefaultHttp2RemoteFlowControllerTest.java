@@ -908,6 +908,82 @@ public abstract class DefaultHttp2RemoteFlowControllerTest {
         dataA.assertFullyWritten();
     }
 
+    @Test
+    public void channelWritabilityChangeShouldOnlyNotifySelfWritableStreams() throws Http2Exception {
+        exhaustStreamWindow(STREAM_B);
+        verify(listener, times(1)).writabilityChanged(stream(STREAM_B));
+        reset(listener);
+
+        setChannelWritability(false);
+        verify(listener, times(1)).writabilityChanged(stream(STREAM_A));
+        verify(listener, never()).writabilityChanged(stream(STREAM_B));
+        verify(listener, times(1)).writabilityChanged(stream(STREAM_C));
+        verify(listener, times(1)).writabilityChanged(stream(STREAM_D));
+        reset(listener);
+
+        // Once its window is restored the stream follows the channel writability again.
+        incrementWindowSize(STREAM_B, 100);
+        verifyZeroInteractions(listener);
+        setChannelWritability(true);
+        assertWritabilityChanged(1, true);
+    }
+
+    @Test
+    public void replacingListenerShouldKeepTrackOfSelfWritableStreams() throws Http2Exception {
+        // Move STREAM_A to another position in the list of streams which are writable on their own.
+        exhaustStreamWindow(STREAM_A);
+        incrementWindowSize(STREAM_A, 100);
+
+        Http2RemoteFlowController.Listener listener2 = mock(Http2RemoteFlowController.Listener.class);
+        controller.listener(listener2);
+        exhaustStreamWindow(STREAM_D);
+        verify(listener2, times(1)).writabilityChanged(stream(STREAM_D));
+        reset(listener2);
+
+        setChannelWritability(false);
+        verify(listener2, times(1)).writabilityChanged(stream(STREAM_A));
+        verify(listener2, times(1)).writabilityChanged(stream(STREAM_B));
+        verify(listener2, times(1)).writabilityChanged(stream(STREAM_C));
+        verify(listener2, never()).writabilityChanged(stream(STREAM_D));
+        reset(listener2);
+
+        setChannelWritability(true);
+        verify(listener2, times(1)).writabilityChanged(stream(STREAM_A));
+        verify(listener2, times(1)).writabilityChanged(stream(STREAM_B));
+        verify(listener2, times(1)).writabilityChanged(stream(STREAM_C));
+        verify(listener2, never()).writabilityChanged(stream(STREAM_D));
+        assertFalse(controller.isWritable(stream(STREAM_D)));
+    }
+
+    @Test
+    public void queuedFrameBlockingConnectionAndStreamShouldNotifyAllStreams() throws Http2Exception {
+        incrementWindowSize(CONNECTION_STREAM_ID, 10 - window(CONNECTION_STREAM_ID));
+        incrementWindowSize(STREAM_A, 5 - window(STREAM_A));
+        verifyZeroInteractions(listener);
+
+        // Blocks the connection and STREAM_A on its own window at the same time.
+        sendData(STREAM_A, new FakeFlowControlled(20));
+        assertWritabilityChanged(1, false);
+    }
+
+    @Test
+    public void initialWindowSizeShouldUpdateStreamsBlockedOnTheirOwnWindow() throws Http2Exception {
+        exhaustStreamWindow(STREAM_A);
+        exhaustStreamWindow(STREAM_B);
+        exhaustStreamWindow(STREAM_C);
+        exhaustStreamWindow(STREAM_D);
+        assertWritabilityChanged(1, false);
+        reset(listener);
+
+        // The streams become writable on their own while the channel is not writable.
+        setChannelWritability(false);
+        controller.initialWindowSize(DEFAULT_WINDOW_SIZE + 100);
+        verifyZeroInteractions(listener);
+
+        setChannelWritability(true);
+        assertWritabilityChanged(1, true);
+    }
+
     @Test(expected = AssertionError.class)
     public void invalidParentStreamIdThrows() {
         controller.updateDependencyTree(STREAM_D, -1, DEFAULT_PRIORITY_WEIGHT, true);
@@ -48,6 +48,9 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
@@ -671,4 +674,104 @@ public class HpackDecoderTest {
             in2.release();
         }
     }
+
+    @Test
+    public void testInternerSharesLiteralsBetweenDecoders() throws Http2Exception {
+        // Literal Header Field without Indexing - New Name
+        String encoded = "000a" + hex("custom-key") + "0c" + hex("custom-value");
+        Http2HeaderInterner interner = new Http2HeaderInterner();
+        Http2Headers first = decodeWithInterner(encoded, interner, false);
+        Http2Headers second = decodeWithInterner(encoded, interner, true);
+
+        assertEquals("custom-value", first.get("custom-key").toString());
+        assertSame(first.names().iterator().next(), second.names().iterator().next());
+        assertSame(first.get("custom-key"), second.get("custom-key"));
+        assertEquals(2, interner.misses());
+        assertEquals(2, interner.hits());
+    }
+
+    @Test
+    public void testInternerSharesHuffmanLiteralsBetweenDecoders() throws Http2Exception {
+        // https://tools.ietf.org/html/rfc7541#appendix-C.4.1
+        String encoded = "828684418cf1e3c2e5f23a6ba0ab90f4ff";
+        Http2HeaderInterner interner = new Http2HeaderInterner();
+        Http2Headers first = decodeWithInterner(encoded, interner, false);
+        Http2Headers second = decodeWithInterner(encoded, interner, false);
+
+        assertEquals("www.example.com", first.authority().toString());
+        assertSame(first.authority(), second.authority());
+    }
+
+    @Test
+    public void testInternerIgnoresLongLiterals() throws Http2Exception {
+        String encoded = "000a" + hex("custom-key") + "0c" + hex("custom-value");
+        Http2HeaderInterner interner = new Http2HeaderInterner(16, 10);
+        Http2Headers first = decodeWithInterner(encoded, interner, false);
+        Http2Headers second = decodeWithInterner(encoded, interner, false);
+
+        assertSame(first.names().iterator().next(), second.names().iterator().next());
+        assertEquals(second.get("custom-key"), first.get("custom-key"));
+        assertNotSame(first.get("custom-key"), second.get("custom-key"));
+    }
+
+    @Test
+    public void testLazyValuesAreReEncodedWithoutDecoding() throws Http2Exception {
+        Http2Headers headers = new DefaultHttp2Headers(false);
+        headers.add("authorization", "basic-credentials");
+        headers.add("cookie", "secret");
+        ByteBuf original = Unpooled.buffer();
+        ByteBuf in = Unpooled.buffer();
+        ByteBuf out = Unpooled.buffer();
+        try {
+            new HpackEncoder(false, 16, 0).encodeHeaders(3, original, headers, Http2HeadersEncoder.ALWAYS_SENSITIVE);
+            in.writeBytes(original, original.readerIndex(), original.readableBytes());
+
+            Http2Headers decoded = new DefaultHttp2Headers(false);
+            new HpackDecoder(8192, null, true).decode(3, in, decoded, true);
+            HpackHuffmanString value = (HpackHuffmanString) decoded.get("cookie");
+            assertTrue(value.neverIndexed());
+            assertFalse(value.isDecoded());
+            assertEquals("secret".length(), value.length());
+
+            new HpackEncoder().encodeHeaders(3, out, decoded, NEVER_SENSITIVE);
+            assertEquals(original, out);
+            assertFalse(value.isDecoded());
+
+            assertEquals("secret", value.toString());
+            assertEquals("basic-credentials", decoded.get("authorization").toString());
+            assertTrue(value.isDecoded());
+        } finally {
+            original.release();
+            in.release();
+            out.release();
+        }
+    }
+
+    @Test
+    public void testLazyValuesRejectInvalidHuffman() throws Http2Exception {
+        // Literal Header Field Never Indexed - New Name, value has a padding that is not all ones
+        byte[] input = StringUtil.decodeHexDump("1003" + hex("foo") + "8100");
+        ByteBuf in = Unpooled.wrappedBuffer(input);
+        try {
+            new HpackDecoder(8192, null, true).decode(0, in, new DefaultHttp2Headers(false), true);
+            fail();
+        } catch (Http2Exception e) {
+            assertEquals(Http2Error.COMPRESSION_ERROR, e.error());
+        } finally {
+            in.release();
+        }
+    }
+
+    private static Http2Headers decodeWithInterner(String encoded, Http2HeaderInterner interner, boolean direct)
+            throws Http2Exception {
+        byte[] b = StringUtil.decodeHexDump(encoded);
+        ByteBuf in = direct ? Unpooled.directBuffer(b.length).writeBytes(b) : Unpooled.wrappedBuffer(b);
+        try {
+            Http2Headers headers = new DefaultHttp2Headers(false);
+            new HpackDecoder(8192, interner).decode(0, in, headers, true);
+            return headers;
+        } finally {
+            in.release();
+        }
+    }
 }
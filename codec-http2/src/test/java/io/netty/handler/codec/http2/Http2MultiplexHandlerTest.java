@@ -14,7 +14,25 @@
  */
 package io.netty.handler.codec.http2;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 /**
  * Unit tests for {@link Http2MultiplexHandler}.
@@ -40,4 +58,63 @@ public class Http2MultiplexHandlerTest extends Http2MultiplexTest<Http2FrameCode
     protected boolean ignoreWindowUpdateFrames() {
         return true;
     }
+
+    @Test
+    public void closedInboundStreamChannelsAreReused() {
+        final AttributeKey<Boolean> key = AttributeKey.valueOf("closedInboundStreamChannelsAreReused");
+        final List<Http2StreamChannel> channels = new ArrayList<Http2StreamChannel>();
+        final List<Object> ids = new ArrayList<Object>();
+        final ChannelHandler responder = new ChannelInboundHandlerAdapter() {
+            @Override
+            public boolean isSharable() {
+                return true;
+            }
+
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                try {
+                    if (msg instanceof Http2HeadersFrame && ((Http2HeadersFrame) msg).isEndStream()) {
+                        // Attributes must not leak from one stream to the next.
+                        assertNull(ctx.channel().attr(key).getAndSet(Boolean.TRUE));
+                        ctx.writeAndFlush(new DefaultHttp2HeadersFrame(new DefaultHttp2Headers().status("200"), true));
+                    }
+                } finally {
+                    ReferenceCountUtil.release(msg);
+                }
+            }
+        };
+        EmbeddedChannel parentChannel = new EmbeddedChannel();
+        parentChannel.connect(new InetSocketAddress(0));
+        parentChannel.pipeline().addLast(new Http2FrameCodecBuilder(true).build());
+        parentChannel.pipeline().addLast(new Http2MultiplexHandler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) {
+                channels.add((Http2StreamChannel) ch);
+                ids.add(ch.id());
+                ch.pipeline().addLast(responder);
+            }
+        }, null, 1));
+        parentChannel.runPendingTasks();
+        parentChannel.pipeline().fireChannelActive();
+        parentChannel.writeInbound(Http2CodecUtil.connectionPrefaceBuf());
+
+        Http2FrameInboundWriter frameInboundWriter = new Http2FrameInboundWriter(parentChannel);
+        frameInboundWriter.writeInboundSettings(new Http2Settings());
+        frameInboundWriter.writeInboundSettingsAck();
+
+        Http2Headers request = new DefaultHttp2Headers().method("GET").path("/").scheme("https");
+        for (int streamId = 3; streamId < 9; streamId += 2) {
+            frameInboundWriter.writeInboundHeaders(streamId, request, 0, true);
+            parentChannel.runPendingTasks();
+            Http2StreamChannel channel = channels.get(channels.size() - 1);
+            assertEquals(streamId, channel.stream().id());
+            assertFalse(channel.isOpen());
+        }
+        assertEquals(3, channels.size());
+        assertSame(channels.get(0), channels.get(1));
+        assertSame(channels.get(0), channels.get(2));
+        assertNotEquals(ids.get(0), ids.get(1));
+        assertNotEquals(ids.get(1), ids.get(2));
+        parentChannel.finishAndReleaseAll();
+    }
 }
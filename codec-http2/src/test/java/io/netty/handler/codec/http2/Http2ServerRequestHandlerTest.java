@@ -0,0 +1,186 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class Http2ServerRequestHandlerTest {
+
+    private static final Http2Headers REQUEST = new DefaultHttp2Headers().method("POST").path("/").scheme("https");
+
+    private final List<String> events = new ArrayList<String>();
+    private EmbeddedChannel channel;
+    private Http2FrameInboundWriter frameInboundWriter;
+
+    @After
+    public void tearDown() {
+        if (channel != null) {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    private void setUp(int maxContentLength) {
+        channel = new EmbeddedChannel(new Http2ServerRequestHandlerBuilder(new Http2ServerRequestListener() {
+            @Override
+            public void onRequest(ChannelHandlerContext ctx, Http2ServerStream stream, Http2Headers headers,
+                                  ByteBuf content, boolean endOfStream) {
+                events.add("request " + stream.id() + ' ' + content.toString(CharsetUtil.US_ASCII) + ' ' +
+                        endOfStream);
+                if (endOfStream) {
+                    respond(stream);
+                }
+            }
+
+            @Override
+            public int onContent(ChannelHandlerContext ctx, Http2ServerStream stream, ByteBuf content,
+                                 boolean endOfStream) {
+                events.add("content " + stream.id() + ' ' + content.toString(CharsetUtil.US_ASCII) + ' ' +
+                        endOfStream);
+                if (endOfStream) {
+                    respond(stream);
+                }
+                return content.readableBytes();
+            }
+
+            @Override
+            public void onReset(ChannelHandlerContext ctx, Http2ServerStream stream, long errorCode) {
+                events.add("reset " + stream.id() + ' ' + errorCode);
+            }
+
+            private void respond(Http2ServerStream stream) {
+                if (stream.trailers() != null) {
+                    events.add("trailers " + stream.id() + ' ' + stream.trailers().get("x"));
+                }
+                stream.writeHeaders(new DefaultHttp2Headers().status("200"), false);
+                stream.writeData(Unpooled.copiedBuffer("response", CharsetUtil.US_ASCII), true);
+            }
+        }).maxContentLength(maxContentLength).build());
+        frameInboundWriter = new Http2FrameInboundWriter(channel);
+        channel.writeInbound(Http2CodecUtil.connectionPrefaceBuf());
+        frameInboundWriter.writeInboundSettings(new Http2Settings());
+    }
+
+    @Test
+    public void testAggregatedRequests() throws Exception {
+        setUp(1024);
+        frameInboundWriter.writeInboundHeaders(3, REQUEST, 0, true);
+        frameInboundWriter.writeInboundHeaders(5, REQUEST, 0, false);
+        frameInboundWriter.writeInboundData(5, bb("hello"), 0, true);
+        frameInboundWriter.writeInboundHeaders(7, REQUEST, 0, false);
+        frameInboundWriter.writeInboundData(7, bb("hello"), 0, false);
+        frameInboundWriter.writeInboundData(7, bb("world"), 0, false);
+        frameInboundWriter.writeInboundHeaders(7, new DefaultHttp2Headers().set("x", "y"), 0, true);
+
+        assertEquals(4, events.size());
+        assertEquals("request 3  true", events.get(0));
+        assertEquals("request 5 hello true", events.get(1));
+        assertEquals("request 7 helloworld true", events.get(2));
+        assertEquals("trailers 7 y", events.get(3));
+        assertEquals(6, readResponseFrames().size());
+    }
+
+    @Test
+    public void testStreamedRequest() throws Exception {
+        setUp(0);
+        frameInboundWriter.writeInboundHeaders(3, REQUEST, 0, false);
+        frameInboundWriter.writeInboundData(3, bb("hello"), 0, false);
+        frameInboundWriter.writeInboundData(3, bb("world"), 0, true);
+        frameInboundWriter.writeInboundHeaders(5, REQUEST, 0, false);
+        frameInboundWriter.writeInboundRstStream(5, Http2Error.CANCEL.code());
+
+        assertEquals(5, events.size());
+        assertEquals("request 3  false", events.get(0));
+        assertEquals("content 3 hello false", events.get(1));
+        assertEquals("content 3 world true", events.get(2));
+        assertEquals("request 5  false", events.get(3));
+        assertEquals("reset 5 " + Http2Error.CANCEL.code(), events.get(4));
+
+        List<String> frames = readResponseFrames();
+        assertEquals(2, frames.size());
+        assertEquals("headers 3 200 false", frames.get(0));
+        assertEquals("data 3 response true", frames.get(1));
+    }
+
+    @Test
+    public void testContentLengthExceededResetsStream() throws Exception {
+        setUp(4);
+        frameInboundWriter.writeInboundHeaders(3, REQUEST, 0, false);
+        frameInboundWriter.writeInboundData(3, bb("hello"), 0, true);
+
+        assertTrue(events.isEmpty());
+        List<String> frames = readResponseFrames();
+        assertEquals(1, frames.size());
+        assertEquals("reset 3 " + Http2Error.INTERNAL_ERROR.code(), frames.get(0));
+    }
+
+    private static ByteBuf bb(String s) {
+        return Unpooled.copiedBuffer(s, CharsetUtil.US_ASCII);
+    }
+
+    private List<String> readResponseFrames() throws Http2Exception {
+        final List<String> frames = new ArrayList<String>();
+        ByteBuf out = Unpooled.buffer();
+        for (;;) {
+            ByteBuf buf = channel.readOutbound();
+            if (buf == null) {
+                break;
+            }
+            out.writeBytes(buf);
+            buf.release();
+        }
+        EmbeddedChannel readerChannel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        DefaultHttp2FrameReader reader = new DefaultHttp2FrameReader();
+        try {
+            reader.readFrame(readerChannel.pipeline().firstContext(), out, new Http2FrameAdapter() {
+                @Override
+                public void onHeadersRead(ChannelHandlerContext ctx, int streamId, Http2Headers headers,
+                                          int padding, boolean endOfStream) {
+                    frames.add("headers " + streamId + ' ' + headers.status() + ' ' + endOfStream);
+                }
+
+                @Override
+                public int onDataRead(ChannelHandlerContext ctx, int streamId, ByteBuf data, int padding,
+                                      boolean endOfStream) {
+                    frames.add("data " + streamId + ' ' + data.toString(CharsetUtil.US_ASCII) + ' ' + endOfStream);
+                    return data.readableBytes() + padding;
+                }
+
+                @Override
+                public void onRstStreamRead(ChannelHandlerContext ctx, int streamId, long errorCode) {
+                    frames.add("reset " + streamId + ' ' + errorCode);
+                }
+            });
+        } finally {
+            reader.close();
+            out.release();
+            readerChannel.finishAndReleaseAll();
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.handler.codec.ByteToMessageDecoder.Cumulator;
+
+import static io.netty.handler.codec.ByteToMessageDecoder.expandCumulation;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+
+/**
+ * A {@link Cumulator} which chooses per stream between merging the received {@link ByteBuf}s with memory copies,
+ * like {@link ByteToMessageDecoder#MERGE_CUMULATOR}, and adding them to a {@link CompositeByteBuf}, like
+ * {@link ByteToMessageDecoder#COMPOSITE_CUMULATOR}.
+ * <p>
+ * Between two calls it observes how many bytes the decoder consumed. Decoders which consume small frames, or which
+ * consume large bodies while they arrive (like {@code HttpObjectDecoder}), keep a small
+ * cumulation that is cheap to merge and fast to access. Decoders which wait for frames that span many reads (like
+ * {@link LengthFieldBasedFrameDecoder} with large frames) build up a large cumulation. Once either the cumulation or
+ * the observed frame length reaches the composite threshold, received buffers are added as components instead of
+ * being copied. As soon as both drop below the threshold again the remaining bytes are merged back into a single
+ * buffer.
+ * <p>
+ * When merging, the cumulation is expanded to the observed frame length at once instead of being doubled repeatedly.
+ * If the cumulation is too small but holds only a few unread bytes, the read bytes are discarded in place instead of
+ * reallocating the buffer.
+ * <p>
+ * As an {@link AdaptiveCumulator} keeps state about the stream it must not be shared between decoders:
+ * <pre>
+ * decoder.setCumulator(new AdaptiveCumulator());
+ * </pre>
+ */
+public final class AdaptiveCumulator implements Cumulator {
+
+    static final int DEFAULT_COMPOSITE_THRESHOLD = 512 * 1024;
+
+    private final int compositeThreshold;
+    // Moving average of the number of bytes the decoder consumed whenever it made progress.
+    private int frameLengthEstimate;
+    // Readable bytes of the cumulation returned by the last call.
+    private int lastReadableBytes;
+
+    /**
+     * Creates a new instance which adds received buffers as components once {@code 512 KiB} are cumulated.
+     */
+    public AdaptiveCumulator() {
+        this(DEFAULT_COMPOSITE_THRESHOLD);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param compositeThreshold the number of cumulated bytes, or the observed frame length, from which on received
+     *                           buffers are added to a {@link CompositeByteBuf} instead of being copied.
+     */
+    public AdaptiveCumulator(int compositeThreshold) {
+        this.compositeThreshold = checkPositive(compositeThreshold, "compositeThreshold");
+    }
+
+    /**
+     * Returns the number of bytes the decoder consumed on average whenever it made progress.
+     */
+    int frameLengthEstimate() {
+        return frameLengthEstimate;
+    }
+
+    @Override
+    public ByteBuf cumulate(ByteBufAllocator alloc, ByteBuf cumulation, ByteBuf in) {
+        int readable = cumulation.readableBytes();
+        int consumed = lastReadableBytes - readable;
+        if (consumed > 0) {
+            frameLengthEstimate = frameLengthEstimate == 0 ? consumed :
+                    (int) (((long) frameLengthEstimate * 3 + consumed) >>> 2);
+        }
+        // Reset first so we do not count the same bytes twice if cumulating fails.
+        lastReadableBytes = 0;
+
+        final ByteBuf newCumulation;
+        if (Math.max(frameLengthEstimate, (long) readable + in.readableBytes()) >= compositeThreshold) {
+            newCumulation = addComponent(alloc, cumulation, in);
+        } else {
+            newCumulation = merge(alloc, cumulation, in);
+        }
+        lastReadableBytes = newCumulation.readableBytes();
+        return newCumulation;
+    }
+
+    private ByteBuf merge(ByteBufAllocator alloc, ByteBuf cumulation, ByteBuf in) {
+        if (!cumulation.isReadable() && in.isContiguous()) {
+            // If cumulation is empty and input buffer is contiguous, use it directly
+            cumulation.release();
+            return in;
+        }
+        try {
+            final int required = in.readableBytes();
+            if (required > cumulation.maxFastWritableBytes() || cumulation.isReadOnly() ||
+                    cumulation instanceof CompositeByteBuf) {
+                // Writing would reallocate the cumulation, which copies its read bytes as well.
+                if (canCompact(cumulation, required)) {
+                    cumulation.discardReadBytes();
+                } else {
+                    return expandCumulation(alloc, cumulation, in, frameLengthEstimate);
+                }
+            }
+            cumulation.writeBytes(in, in.readerIndex(), required);
+            in.readerIndex(in.writerIndex());
+            return cumulation;
+        } finally {
+            // We must release in in all cases as otherwise it may produce a leak if writeBytes(...) throw
+            // for whatever release (for example because of OutOfMemoryError)
+            in.release();
+        }
+    }
+
+    /**
+     * Returns {@code true} if moving the unread bytes of the cumulation to its start makes enough room for
+     * {@code required} bytes and is cheaper than copying them into a new buffer together with the received bytes.
+     */
+    private static boolean canCompact(ByteBuf cumulation, int required) {
+        int readable = cumulation.readableBytes();
+        return cumulation.refCnt() == 1 && !cumulation.isReadOnly() && !(cumulation instanceof CompositeByteBuf) &&
+                readable <= required && required <= cumulation.capacity() - readable;
+    }
+
+    private static ByteBuf addComponent(ByteBufAllocator alloc, ByteBuf cumulation, ByteBuf in) {
+        if (!cumulation.isReadable()) {
+            cumulation.release();
+            return in;
+        }
+        CompositeByteBuf composite = null;
+        try {
+            if (cumulation instanceof CompositeByteBuf && cumulation.refCnt() == 1) {
+                composite = (CompositeByteBuf) cumulation;
+                // Release the components the decoder has read completely, there is no one else who can access them.
+                composite.discardReadComponents();
+                // Writer index must equal capacity if we are going to "write"
+                // new components to the end
+                if (composite.writerIndex() != composite.capacity()) {
+                    composite.capacity(composite.writerIndex());
+                }
+            } else {
+                composite = alloc.compositeBuffer(Integer.MAX_VALUE).addFlattenedComponents(true, cumulation);
+            }
+            composite.addFlattenedComponents(true, in);
+            in = null;
+            return composite;
+        } finally {
+            if (in != null) {
+                // We must release if the ownership was not transferred as otherwise it may produce a leak
+                in.release();
+                // Also release any new buffer allocated if we're not returning it
+                if (composite != null && composite != cumulation) {
+                    composite.release();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.aayushatharva.brotli4j.encoder.BrotliEncoderChannel;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ChannelPromiseNotifier;
+import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.ObjectUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compresses a {@link ByteBuf} using the <a href="https://tools.ietf.org/html/rfc7932">Brotli</a> format.
+ *
+ * The encoder keeps a single Brotli stream open for the lifetime of the channel and flushes it after every
+ * message, so each written {@link ByteBuf} can be decoded by the remote peer as soon as it is received.
+ * The stream is finished when the channel is closed or when {@link #close()} is called.
+ *
+ * See <a href="https://github.com/hyperxpro/Brotli4j">Brotli4j</a>.
+ */
+public class BrotliEncoder extends MessageToByteEncoder<ByteBuf> {
+
+    private static final long DEFAULT_CLOSE_TIMEOUT_MILLIS = 10000;
+
+    private final Encoder.Parameters parameters;
+    private final OutputChannel output = new OutputChannel();
+    private BrotliEncoderChannel encoder;
+    private volatile ChannelHandlerContext ctx;
+    private volatile boolean finished;
+    private volatile long closeTimeoutMillis = DEFAULT_CLOSE_TIMEOUT_MILLIS;
+
+    /**
+     * Creates a new encoder with the default {@link BrotliOptions}.
+     */
+    public BrotliEncoder() {
+        this(StandardCompressionOptions.brotli());
+    }
+
+    /**
+     * Creates a new encoder with the given {@link BrotliOptions}.
+     */
+    public BrotliEncoder(BrotliOptions options) {
+        ObjectUtil.checkNotNull(options, "options");
+        parameters = new Encoder.Parameters().setQuality(options.quality()).setWindow(options.window());
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, ByteBuf msg, boolean preferDirect) {
+        // Brotli never expands the input by more than a few bytes per meta-block.
+        int maxOutputLength = msg.readableBytes() + (msg.readableBytes() >> 10) + 32;
+        return preferDirect ? ctx.alloc().ioBuffer(maxOutputLength) : ctx.alloc().heapBuffer(maxOutputLength);
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out) throws Exception {
+        if (finished) {
+            out.writeBytes(in);
+            return;
+        }
+        if (!in.isReadable()) {
+            return;
+        }
+
+        int length = in.readableBytes();
+        ByteBuffer src = CompressionUtil.safeNioBuffer(in);
+        output.target = out;
+        try {
+            while (src.hasRemaining()) {
+                encoder.write(src);
+            }
+            encoder.flush();
+        } finally {
+            output.target = null;
+        }
+        in.skipBytes(length);
+    }
+
+    private ChannelFuture finishEncode(final ChannelHandlerContext ctx, ChannelPromise promise) {
+        if (finished) {
+            promise.setSuccess();
+            return promise;
+        }
+        finished = true;
+
+        ByteBuf footer = ctx.alloc().ioBuffer(32);
+        output.target = footer;
+        try {
+            encoder.close();
+        } catch (IOException e) {
+            footer.release();
+            promise.setFailure(new CompressionException(e));
+            return promise;
+        } finally {
+            output.target = null;
+        }
+        return ctx.writeAndFlush(footer, promise);
+    }
+
+    /**
+     * Returns {@code true} if and only if the compressed stream has been finished.
+     */
+    public boolean isClosed() {
+        return finished;
+    }
+
+    /**
+     * Close this {@link BrotliEncoder} and so finish the encoding.
+     *
+     * The returned {@link ChannelFuture} will be notified once the operation completes.
+     */
+    public ChannelFuture close() {
+        return close(ctx().newPromise());
+    }
+
+    /**
+     * Close this {@link BrotliEncoder} and so finish the encoding.
+     * The given {@link ChannelFuture} will be notified once the operation
+     * completes and will also be returned.
+     */
+    public ChannelFuture close(final ChannelPromise promise) {
+        ChannelHandlerContext ctx = ctx();
+        EventExecutor executor = ctx.executor();
+        if (executor.inEventLoop()) {
+            return finishEncode(ctx, promise);
+        } else {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    ChannelFuture f = finishEncode(ctx(), promise);
+                    f.addListener(new ChannelPromiseNotifier(promise));
+                }
+            });
+            return promise;
+        }
+    }
+
+    /**
+     * Gets the timeout (in ms) for writing the end of the compressed stream when the {@link Channel} is closed.
+     */
+    public long getCloseTimeoutMillis() {
+        return closeTimeoutMillis;
+    }
+
+    /**
+     * Sets the timeout for writing the end of the compressed stream when the {@link Channel} is closed. If it was
+     * not written in the given timeout the {@link Channel} will be closed forcibly.
+     */
+    public void setCloseTimeout(long closeTimeout, TimeUnit unit) {
+        setCloseTimeoutMillis(unit.toMillis(closeTimeout));
+    }
+
+    /**
+     * See {@link #setCloseTimeout(long, TimeUnit)}.
+     */
+    public void setCloseTimeoutMillis(long closeTimeoutMillis) {
+        this.closeTimeoutMillis = ObjectUtil.checkPositiveOrZero(closeTimeoutMillis, "closeTimeoutMillis");
+    }
+
+    @Override
+    public void close(final ChannelHandlerContext ctx, final ChannelPromise promise) throws Exception {
+        ChannelFuture f = finishEncode(ctx, ctx.newPromise());
+        long timeoutMillis = closeTimeoutMillis;
+        if (f.isDone() || timeoutMillis == 0) {
+            ctx.close(promise);
+            return;
+        }
+
+        // Ensure the channel is closed even if the end of the stream cannot be written in time.
+        final ScheduledFuture<?> timeoutFuture = ctx.executor().schedule(new Runnable() {
+            @Override
+            public void run() {
+                ctx.close(promise);
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        f.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture f) throws Exception {
+                // Only close the channel if this was not done by the timeout already.
+                if (timeoutFuture.cancel(false)) {
+                    ctx.close(promise);
+                }
+            }
+        });
+    }
+
+    private ChannelHandlerContext ctx() {
+        ChannelHandlerContext ctx = this.ctx;
+        if (ctx == null) {
+            throw new IllegalStateException("not added to a pipeline");
+        }
+        return ctx;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+        encoder = new BrotliEncoderChannel(output, parameters);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        super.handlerRemoved(ctx);
+        if (!finished) {
+            finished = true;
+            // Releases the native encoder, the remaining output is discarded.
+            encoder.close();
+        }
+    }
+
+    /**
+     * Sink of the native encoder which appends the compressed bytes to the current output {@link ByteBuf}.
+     */
+    private static final class OutputChannel implements WritableByteChannel {
+        ByteBuf target;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int length = src.remaining();
+            if (target != null) {
+                target.writeBytes(src);
+            } else {
+                src.position(src.limit());
+            }
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
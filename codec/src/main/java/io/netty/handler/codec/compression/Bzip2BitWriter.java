@@ -95,6 +95,28 @@ final class Bzip2BitWriter {
         writeBits(out, 32, value);
     }
 
+    /**
+     * Writes the bits written by another writer, that is the bytes it has written to a {@link ByteBuf} followed
+     * by the bits it still buffers, to the output {@link ByteBuf}.
+     * @param bytes The bytes written by the other writer
+     * @param writer The other writer
+     */
+    void writeBits(ByteBuf out, ByteBuf bytes, Bzip2BitWriter writer) {
+        if (bitCount == 0) {
+            out.writeBytes(bytes);
+        } else {
+            while (bytes.readableBytes() >= 4) {
+                writeInt(out, bytes.readInt());
+            }
+            while (bytes.isReadable()) {
+                writeBits(out, 8, bytes.readUnsignedByte());
+            }
+        }
+        if (writer.bitCount > 0) {
+            writeBits(out, writer.bitCount, writer.bitBuffer >>> 64 - writer.bitCount);
+        }
+    }
+
     /**
      * Writes any remaining bits to the output {@link ByteBuf},
      * zero padding to a whole byte as required.
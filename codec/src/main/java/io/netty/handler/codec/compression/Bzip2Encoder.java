@@ -16,6 +16,8 @@
 package io.netty.handler.codec.compression;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
@@ -25,6 +27,7 @@ import io.netty.channel.ChannelPromiseNotifier;
 import io.netty.handler.codec.MessageToByteEncoder;
 import io.netty.util.concurrent.EventExecutor;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 import static io.netty.handler.codec.compression.Bzip2Constants.*;
@@ -32,6 +35,9 @@ import static io.netty.handler.codec.compression.Bzip2Constants.*;
 /**
  * Compresses a {@link ByteBuf} using the Bzip2 algorithm.
  *
+ * The blocks can be compressed on an {@link Executor} instead of the {@link io.netty.channel.EventLoop}, see
+ * {@link #Bzip2Encoder(int, Executor)}.
+ *
  * See <a href="https://en.wikipedia.org/wiki/Bzip2">Bzip2</a>.
  */
 public class Bzip2Encoder extends MessageToByteEncoder<ByteBuf> {
@@ -77,6 +83,24 @@ public class Bzip2Encoder extends MessageToByteEncoder<ByteBuf> {
      */
     private volatile ChannelHandlerContext ctx;
 
+    /**
+     * The {@link Executor} the blocks are compressed on, or {@code null} to compress them on the event loop.
+     */
+    private final Executor executor;
+
+    /**
+     * The maximum number of bytes of a block compressed on the {@link #executor}, small enough for the block
+     * to never overflow after the initial Run-Length Encoding which expands runs of 4 bytes to 5 bytes.
+     */
+    private final int parallelBlockSize;
+
+    /**
+     * The data of the next block compressed on the {@link #executor}.
+     */
+    private ByteBuf parallelBlock;
+
+    private ParallelBlockCompressor parallelCompressor;
+
     /**
      * Creates a new bzip2 encoder with the maximum (900,000 byte) block size.
      */
@@ -92,15 +116,48 @@ public class Bzip2Encoder extends MessageToByteEncoder<ByteBuf> {
      *        but give better compression ratios. {@code 9} will usually be the best value to use.
      */
     public Bzip2Encoder(final int blockSizeMultiplier) {
+        this(blockSizeMultiplier, null);
+    }
+
+    /**
+     * Creates a new bzip2 encoder with the specified {@code blockSizeMultiplier} which compresses the blocks on
+     * the given {@link Executor}, so that large streams do not stall the other channels of the event loop.
+     * Blocks are written in order, and the data waiting to be compressed counts toward the writability of the
+     * channel. Blocks only hold up to 80% of the block size to leave room for the initial Run-Length Encoding,
+     * and partial blocks are only written when the encoder is closed.
+     * @param blockSizeMultiplier
+     *        The Bzip2 block size as a multiple of 100,000 bytes (minimum {@code 1}, maximum {@code 9}).
+     *        Larger block sizes require more memory for both compression and decompression,
+     *        but give better compression ratios. {@code 9} will usually be the best value to use.
+     * @param executor
+     *        The {@link Executor} to compress the blocks on, or {@code null} to compress them on the event loop.
+     */
+    public Bzip2Encoder(final int blockSizeMultiplier, Executor executor) {
         if (blockSizeMultiplier < MIN_BLOCK_SIZE || blockSizeMultiplier > MAX_BLOCK_SIZE) {
             throw new IllegalArgumentException(
                     "blockSizeMultiplier: " + blockSizeMultiplier + " (expected: 1-9)");
         }
         streamBlockSize = blockSizeMultiplier * BASE_BLOCK_SIZE;
+        this.executor = executor;
+        // See Bzip2BlockCompressor#blockLengthLimit
+        parallelBlockSize = (streamBlockSize - 6) / 5 * 4;
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, ByteBuf msg, boolean preferDirect) throws Exception {
+        if (parallelCompressor != null) {
+            // Everything is written by the ParallelBlockCompressor.
+            return Unpooled.EMPTY_BUFFER;
+        }
+        return super.allocateBuffer(ctx, msg, preferDirect);
     }
 
     @Override
     protected void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out) throws Exception {
+        if (parallelCompressor != null) {
+            encodeParallel(ctx, in);
+            return;
+        }
         if (finished) {
             out.writeBytes(in);
             return;
@@ -145,6 +202,39 @@ public class Bzip2Encoder extends MessageToByteEncoder<ByteBuf> {
         }
     }
 
+    private void encodeParallel(ChannelHandlerContext ctx, ByteBuf in) {
+        if (finished) {
+            parallelCompressor.write(in.readRetainedSlice(in.readableBytes()), ctx.voidPromise());
+            return;
+        }
+        writeParallelHeader(ctx);
+        while (in.isReadable()) {
+            if (parallelBlock == null) {
+                parallelBlock = ctx.alloc().buffer(parallelBlockSize, parallelBlockSize);
+            }
+            in.readBytes(parallelBlock, Math.min(in.readableBytes(), parallelBlock.writableBytes()));
+            if (!parallelBlock.isWritable()) {
+                submitParallelBlock(ctx, false, ctx.voidPromise());
+            }
+        }
+    }
+
+    private void writeParallelHeader(ChannelHandlerContext ctx) {
+        if (currentState == State.INIT) {
+            ByteBuf header = ctx.alloc().buffer(4);
+            header.writeMedium(MAGIC_NUMBER);
+            header.writeByte('0' + streamBlockSize / BASE_BLOCK_SIZE);
+            parallelCompressor.write(header, ctx.voidPromise());
+            currentState = State.WRITE_DATA;
+        }
+    }
+
+    private void submitParallelBlock(ChannelHandlerContext ctx, boolean last, ChannelPromise promise) {
+        ByteBuf data = parallelBlock != null ? parallelBlock : Unpooled.EMPTY_BUFFER;
+        parallelBlock = null;
+        parallelCompressor.submit(new ParallelBlock(data, last), promise);
+    }
+
     /**
      * Close current block and update {@link #streamCRC}.
      */
@@ -223,6 +313,14 @@ public class Bzip2Encoder extends MessageToByteEncoder<ByteBuf> {
         }
         finished = true;
 
+        if (parallelCompressor != null) {
+            writeParallelHeader(ctx);
+            // The end of stream is written with the last block, once the CRC of all the blocks is known.
+            submitParallelBlock(ctx, true, promise);
+            parallelCompressor.flush();
+            return promise;
+        }
+
         final ByteBuf footer = ctx.alloc().buffer();
         closeBlock(footer);
 
@@ -239,6 +337,15 @@ public class Bzip2Encoder extends MessageToByteEncoder<ByteBuf> {
         return ctx.writeAndFlush(footer, promise);
     }
 
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (parallelCompressor != null) {
+            parallelCompressor.flush();
+        } else {
+            ctx.flush();
+        }
+    }
+
     private ChannelHandlerContext ctx() {
         ChannelHandlerContext ctx = this.ctx;
         if (ctx == null) {
@@ -250,5 +357,74 @@ public class Bzip2Encoder extends MessageToByteEncoder<ByteBuf> {
     @Override
     public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
         this.ctx = ctx;
+        if (executor != null) {
+            parallelCompressor = new ParallelBlockCompressor(ctx, executor);
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        super.handlerRemoved(ctx);
+        if (parallelCompressor != null) {
+            if (parallelBlock != null) {
+                parallelBlock.release();
+                parallelBlock = null;
+            }
+            parallelCompressor.release(new CompressionException("encoder removed before the end of the stream"));
+        }
+    }
+
+    /**
+     * A block compressed on the {@link #executor} with its own {@link Bzip2BitWriter}, whose bits are then
+     * appended to the stream in order.
+     */
+    private final class ParallelBlock extends ParallelBlockCompressor.Block {
+        private final boolean last;
+        private Bzip2BitWriter blockWriter;
+        private int blockCRC;
+
+        ParallelBlock(ByteBuf data, boolean last) {
+            super(data);
+            this.last = last;
+        }
+
+        @Override
+        ByteBuf compress(ByteBufAllocator alloc) {
+            final Bzip2BitWriter writer = new Bzip2BitWriter();
+            final Bzip2BlockCompressor blockCompressor = new Bzip2BlockCompressor(writer, streamBlockSize);
+            final int length = input.readableBytes();
+            if (blockCompressor.write(input, input.readerIndex(), length) != length) {
+                throw new IllegalStateException("block overflow");
+            }
+            final ByteBuf out = alloc.buffer(length >>> 1);
+            blockCompressor.close(out);
+            blockWriter = writer;
+            blockCRC = blockCompressor.crc();
+            return out;
+        }
+
+        @Override
+        ByteBuf complete(ByteBufAllocator alloc, ByteBuf compressed) {
+            final Bzip2BitWriter writer = Bzip2Encoder.this.writer;
+            final ByteBuf out = alloc.buffer(compressed.readableBytes() + 16);
+            try {
+                if (blockWriter != null) {
+                    writer.writeBits(out, compressed, blockWriter);
+                    streamCRC = (streamCRC << 1 | streamCRC >>> 31) ^ blockCRC;
+                }
+                if (last) {
+                    writer.writeBits(out, 24, END_OF_STREAM_MAGIC_1);
+                    writer.writeBits(out, 24, END_OF_STREAM_MAGIC_2);
+                    writer.writeInt(out, streamCRC);
+                    writer.flush(out);
+                }
+            } catch (RuntimeException e) {
+                out.release();
+                throw e;
+            } finally {
+                compressed.release();
+            }
+            return out;
+        }
     }
 }
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.github.luben.zstd.ZstdDictTrainer;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+
+/**
+ * Builds compression dictionaries from a sample of the messages of an application, to improve the compression
+ * of small messages which share a lot of content with each other but too little with themselves.
+ * <p>
+ * Messages are offered with {@link #addSample(ByteBuf)}, which keeps a uniform random sample of them bounded by
+ * a total number of bytes. The dictionaries built from this sample can then be used with
+ * {@link JdkZlibEncoder#JdkZlibEncoder(byte[])} and {@link JdkZlibDecoder#JdkZlibDecoder(int, byte[]...)}, or with
+ * {@link ZstdEncoder#ZstdEncoder(ZstdOptions, ZstdDictionary)} and
+ * {@link ZstdDecoder#ZstdDecoder(ZstdDictionary...)}. Both formats carry the ID of the dictionary in the frame
+ * header, so peers can move to a newly trained dictionary while still decoding the older one.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class CompressionDictionaryTrainer {
+
+    /**
+     * The maximum size of a zlib dictionary, any byte beyond the window size would never be referenced.
+     */
+    static final int MAX_ZLIB_DICTIONARY_SIZE = 32 * 1024;
+
+    private static final int KMER_SIZE = 8;
+    private static final int SEGMENT_SIZE = 64;
+    private static final int SEGMENT_STEP = 16;
+
+    private final int maxSampleBytes;
+    private final int maxSampleSize;
+    private final List<byte[]> samples = new ArrayList<byte[]>();
+    private long sampleBytes;
+    private long offered;
+
+    /**
+     * Creates a new trainer which keeps at most {@code maxSampleBytes} bytes of samples, each of them truncated
+     * to {@code 4096} bytes.
+     */
+    public CompressionDictionaryTrainer(int maxSampleBytes) {
+        this(maxSampleBytes, 4096);
+    }
+
+    /**
+     * Creates a new trainer which keeps at most {@code maxSampleBytes} bytes of samples, each of them truncated
+     * to {@code maxSampleSize} bytes.
+     */
+    public CompressionDictionaryTrainer(int maxSampleBytes, int maxSampleSize) {
+        this.maxSampleBytes = checkPositive(maxSampleBytes, "maxSampleBytes");
+        this.maxSampleSize = checkPositive(maxSampleSize, "maxSampleSize");
+    }
+
+    /**
+     * Offers the readable bytes of the given {@link ByteBuf} as a sample, without modifying its indexes.
+     *
+     * @return {@code true} if the message was retained in the sample
+     */
+    public boolean addSample(ByteBuf msg) {
+        checkNotNull(msg, "msg");
+        int length = Math.min(msg.readableBytes(), maxSampleSize);
+        if (length == 0) {
+            return false;
+        }
+        synchronized (this) {
+            // Reservoir sampling, the i-th message replaces a random retained one with a probability of size / i.
+            long index = offered++;
+            if (sampleBytes + length <= maxSampleBytes) {
+                samples.add(copy(msg, length));
+                sampleBytes += length;
+                return true;
+            }
+            if (samples.isEmpty()) {
+                return false;
+            }
+            long slot = (long) (PlatformDependent.threadLocalRandom().nextDouble() * (index + 1));
+            if (slot >= samples.size()) {
+                return false;
+            }
+            int replaced = samples.get((int) slot).length;
+            if (sampleBytes - replaced + length > maxSampleBytes) {
+                return false;
+            }
+            samples.set((int) slot, copy(msg, length));
+            sampleBytes += length - replaced;
+            return true;
+        }
+    }
+
+    /**
+     * Returns the number of samples currently retained.
+     */
+    public synchronized int sampleCount() {
+        return samples.size();
+    }
+
+    /**
+     * Returns the total size of the samples currently retained.
+     */
+    public synchronized long sampleBytes() {
+        return sampleBytes;
+    }
+
+    /**
+     * Discards all the samples.
+     */
+    public synchronized void clear() {
+        samples.clear();
+        sampleBytes = 0;
+        offered = 0;
+    }
+
+    /**
+     * Builds a dictionary of at most {@code dictionarySize} bytes, capped to the {@code 32 KiB} zlib window,
+     * for {@link JdkZlibEncoder} and {@link JdkZlibDecoder}.
+     * <p>
+     * The dictionary is made of the segments of the samples which contain the byte sequences shared by the most
+     * samples, the most valuable ones being placed at the end of the dictionary where they can be referenced
+     * with the shortest distances.
+     */
+    public byte[] trainZlibDictionary(int dictionarySize) {
+        checkPositive(dictionarySize, "dictionarySize");
+        return buildDictionary(samples(), Math.min(dictionarySize, MAX_ZLIB_DICTIONARY_SIZE));
+    }
+
+    /**
+     * Builds a dictionary of at most {@code dictionarySize} bytes with the Zstandard trainer, for
+     * {@link ZstdEncoder} and {@link ZstdDecoder}.
+     *
+     * @throws CompressionException if zstd-jni is not available or if there are not enough samples to train
+     *         a dictionary
+     */
+    public ZstdDictionary trainZstdDictionary(int dictionarySize) {
+        checkPositive(dictionarySize, "dictionarySize");
+        if (!Zstd.isAvailable()) {
+            throw new CompressionException("zstd-jni is not available", Zstd.cause());
+        }
+        List<byte[]> samples = samples();
+        long totalBytes = 0;
+        for (byte[] sample : samples) {
+            totalBytes += sample.length;
+        }
+        byte[] dictionary;
+        try {
+            ZstdDictTrainer trainer = new ZstdDictTrainer((int) totalBytes, dictionarySize);
+            for (byte[] sample : samples) {
+                trainer.addSample(sample);
+            }
+            dictionary = trainer.trainSamples();
+        } catch (RuntimeException e) {
+            throw new CompressionException("failed to train a dictionary with " + samples.size() + " samples", e);
+        }
+        if (dictionary.length == 0) {
+            throw new CompressionException("failed to train a dictionary with " + samples.size() + " samples");
+        }
+        return new ZstdDictionary(dictionary);
+    }
+
+    private synchronized List<byte[]> samples() {
+        return new ArrayList<byte[]>(samples);
+    }
+
+    private static byte[] copy(ByteBuf msg, int length) {
+        byte[] sample = new byte[length];
+        msg.getBytes(msg.readerIndex(), sample);
+        return sample;
+    }
+
+    static byte[] buildDictionary(List<byte[]> samples, int dictionarySize) {
+        // Count in how many samples each k-mer appears, a sequence repeated in a single sample is of no use.
+        Map<Long, int[]> frequencies = new HashMap<Long, int[]>();
+        for (int i = 0; i < samples.size(); i++) {
+            byte[] sample = samples.get(i);
+            for (int offset = 0; offset + KMER_SIZE <= sample.length; offset++) {
+                Long kmer = kmer(sample, offset);
+                int[] frequency = frequencies.get(kmer);
+                if (frequency == null) {
+                    frequencies.put(kmer, new int[] { 1, i });
+                } else if (frequency[1] != i) {
+                    frequency[0]++;
+                    frequency[1] = i;
+                }
+            }
+        }
+
+        PriorityQueue<Segment> candidates = new PriorityQueue<Segment>();
+        for (byte[] sample : samples) {
+            for (int offset = 0; offset + KMER_SIZE <= sample.length; offset += SEGMENT_STEP) {
+                Segment segment = new Segment(sample, offset, Math.min(SEGMENT_SIZE, sample.length - offset));
+                segment.score = segment.score(frequencies);
+                if (segment.score > 0) {
+                    candidates.add(segment);
+                }
+            }
+        }
+
+        // Greedily select the segment with the best score, scores only decrease as k-mers get covered so they
+        // are recomputed lazily when a segment reaches the head of the queue.
+        List<Segment> selected = new ArrayList<Segment>();
+        int size = 0;
+        Segment segment;
+        while (size < dictionarySize && (segment = candidates.poll()) != null) {
+            int score = segment.score(frequencies);
+            if (score <= 0) {
+                continue;
+            }
+            Segment next = candidates.peek();
+            if (next != null && score < next.score) {
+                segment.score = score;
+                candidates.add(segment);
+                continue;
+            }
+            segment.cover(frequencies);
+            selected.add(segment);
+            size += segment.length;
+        }
+
+        byte[] dictionary = new byte[Math.min(size, dictionarySize)];
+        int end = dictionary.length;
+        for (int i = 0; i < selected.size() && end > 0; i++) {
+            Segment s = selected.get(i);
+            int length = Math.min(s.length, end);
+            end -= length;
+            System.arraycopy(s.sample, s.offset, dictionary, end, length);
+        }
+        return dictionary;
+    }
+
+    private static Long kmer(byte[] bytes, int offset) {
+        long kmer = 0;
+        for (int i = 0; i < KMER_SIZE; i++) {
+            kmer = kmer << 8 | bytes[offset + i] & 0xff;
+        }
+        return kmer;
+    }
+
+    private static final class Segment implements Comparable<Segment> {
+        final byte[] sample;
+        final int offset;
+        final int length;
+        int score;
+
+        Segment(byte[] sample, int offset, int length) {
+            this.sample = sample;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        int score(Map<Long, int[]> frequencies) {
+            int score = 0;
+            for (int i = offset; i + KMER_SIZE <= offset + length; i++) {
+                int[] frequency = frequencies.get(kmer(sample, i));
+                // Only shared k-mers count, and each of them once even if repeated in the segment. The sample index
+                // is no longer needed once frequencies are counted, so it is reused to mark the scored k-mers.
+                if (frequency[0] > 1 && frequency[1] != -1) {
+                    score += frequency[0];
+                    frequency[1] = -1;
+                }
+            }
+            for (int i = offset; i + KMER_SIZE <= offset + length; i++) {
+                frequencies.get(kmer(sample, i))[1] = 0;
+            }
+            return score;
+        }
+
+        void cover(Map<Long, int[]> frequencies) {
+            for (int i = offset; i + KMER_SIZE <= offset + length; i++) {
+                frequencies.get(kmer(sample, i))[0] = 0;
+            }
+        }
+
+        @Override
+        public int compareTo(Segment o) {
+            return o.score < score ? -1 : o.score == score ? 0 : 1;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.util.internal.ObjectUtil;
 
 import java.util.List;
+import java.util.zip.Adler32;
 import java.util.zip.CRC32;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
@@ -37,7 +38,10 @@ public class JdkZlibDecoder extends ZlibDecoder {
     private static final int FRESERVED = 0xE0;
 
     private Inflater inflater;
-    private final byte[] dictionary;
+    private boolean nowrap;
+    private final JdkZlibPool pool;
+    private final byte[][] dictionaries;
+    private final int[] dictionaryIds;
 
     // GZIP related
     private final ByteBufChecksum crc;
@@ -66,7 +70,7 @@ public class JdkZlibDecoder extends ZlibDecoder {
      * Creates a new instance with the default wrapper ({@link ZlibWrapper#ZLIB}).
      */
     public JdkZlibDecoder() {
-        this(ZlibWrapper.ZLIB, null, false, 0);
+        this(ZlibWrapper.ZLIB, null, false, 0, null);
     }
 
     /**
@@ -78,7 +82,7 @@ public class JdkZlibDecoder extends ZlibDecoder {
      *          If zero, maximum size is decided by the {@link ByteBufAllocator}.
      */
     public JdkZlibDecoder(int maxAllocation) {
-        this(ZlibWrapper.ZLIB, null, false, maxAllocation);
+        this(ZlibWrapper.ZLIB, null, false, maxAllocation, null);
     }
 
     /**
@@ -87,7 +91,7 @@ public class JdkZlibDecoder extends ZlibDecoder {
      * supports the preset dictionary.
      */
     public JdkZlibDecoder(byte[] dictionary) {
-        this(ZlibWrapper.ZLIB, dictionary, false, 0);
+        this(ZlibWrapper.ZLIB, dictionaries(dictionary), false, 0, null);
     }
 
     /**
@@ -100,7 +104,22 @@ public class JdkZlibDecoder extends ZlibDecoder {
      *          If zero, maximum size is decided by the {@link ByteBufAllocator}.
      */
     public JdkZlibDecoder(byte[] dictionary, int maxAllocation) {
-        this(ZlibWrapper.ZLIB, dictionary, false, maxAllocation);
+        this(ZlibWrapper.ZLIB, dictionaries(dictionary), false, maxAllocation, null);
+    }
+
+    /**
+     * Creates a new instance with the specified preset dictionaries and maximum buffer allocation.
+     * The dictionary of a stream is picked by the Adler-32 checksum which the encoder writes in the
+     * {@code DICTID} field of the zlib header, so peers can use any of the given dictionaries.
+     * The wrapper is always {@link ZlibWrapper#ZLIB} because it is the only format that
+     * supports the preset dictionary.
+     *
+     * @param maxAllocation
+     *          Maximum size of the decompression buffer. Must be &gt;= 0.
+     *          If zero, maximum size is decided by the {@link ByteBufAllocator}.
+     */
+    public JdkZlibDecoder(int maxAllocation, byte[]... dictionaries) {
+        this(ZlibWrapper.ZLIB, dictionaries.clone(), false, maxAllocation, null);
     }
 
     /**
@@ -109,7 +128,7 @@ public class JdkZlibDecoder extends ZlibDecoder {
      * supported atm.
      */
     public JdkZlibDecoder(ZlibWrapper wrapper) {
-        this(wrapper, null, false, 0);
+        this(wrapper, null, false, 0, null);
     }
 
     /**
@@ -122,53 +141,86 @@ public class JdkZlibDecoder extends ZlibDecoder {
      *          If zero, maximum size is decided by the {@link ByteBufAllocator}.
      */
     public JdkZlibDecoder(ZlibWrapper wrapper, int maxAllocation) {
-        this(wrapper, null, false, maxAllocation);
+        this(wrapper, null, false, maxAllocation, null);
     }
 
     public JdkZlibDecoder(ZlibWrapper wrapper, boolean decompressConcatenated) {
-        this(wrapper, null, decompressConcatenated, 0);
+        this(wrapper, null, decompressConcatenated, 0, null);
     }
 
     public JdkZlibDecoder(ZlibWrapper wrapper, boolean decompressConcatenated, int maxAllocation) {
-        this(wrapper, null, decompressConcatenated, maxAllocation);
+        this(wrapper, null, decompressConcatenated, maxAllocation, null);
     }
 
     public JdkZlibDecoder(boolean decompressConcatenated) {
-        this(ZlibWrapper.GZIP, null, decompressConcatenated, 0);
+        this(ZlibWrapper.GZIP, null, decompressConcatenated, 0, null);
     }
 
     public JdkZlibDecoder(boolean decompressConcatenated, int maxAllocation) {
-        this(ZlibWrapper.GZIP, null, decompressConcatenated, maxAllocation);
+        this(ZlibWrapper.GZIP, null, decompressConcatenated, maxAllocation, null);
+    }
+
+    /**
+     * Creates a new instance with the specified wrapper and maximum buffer allocation, which borrows its
+     * {@link Inflater} from the given {@link JdkZlibPool} when it starts decompressing and gives it back once the
+     * handler is removed.
+     *
+     * @param maxAllocation
+     *          Maximum size of the decompression buffer. Must be &gt;= 0.
+     *          If zero, maximum size is decided by the {@link ByteBufAllocator}.
+     * @param pool
+     *          the {@link JdkZlibPool} to borrow the {@link Inflater} from, or {@code null} to allocate
+     *          a dedicated one
+     */
+    public JdkZlibDecoder(ZlibWrapper wrapper, boolean decompressConcatenated, int maxAllocation, JdkZlibPool pool) {
+        this(wrapper, null, decompressConcatenated, maxAllocation, pool);
     }
 
-    private JdkZlibDecoder(ZlibWrapper wrapper, byte[] dictionary, boolean decompressConcatenated, int maxAllocation) {
+    private JdkZlibDecoder(ZlibWrapper wrapper, byte[][] dictionaries, boolean decompressConcatenated,
+                           int maxAllocation, JdkZlibPool pool) {
         super(maxAllocation);
 
         ObjectUtil.checkNotNull(wrapper, "wrapper");
 
         this.decompressConcatenated = decompressConcatenated;
+        this.pool = pool;
         switch (wrapper) {
             case GZIP:
-                inflater = new Inflater(true);
+                nowrap = true;
                 crc = ByteBufChecksum.wrapChecksum(new CRC32());
                 break;
             case NONE:
-                inflater = new Inflater(true);
+                nowrap = true;
                 crc = null;
                 break;
             case ZLIB:
-                inflater = new Inflater();
+                nowrap = false;
                 crc = null;
                 break;
             case ZLIB_OR_NONE:
                 // Postpone the decision until decode(...) is called.
                 decideZlibOrNone = true;
+                nowrap = false;
                 crc = null;
                 break;
             default:
                 throw new IllegalArgumentException("Only GZIP or ZLIB is supported, but you used " + wrapper);
         }
-        this.dictionary = dictionary;
+        if (dictionaries != null) {
+            dictionaryIds = new int[dictionaries.length];
+            for (int i = 0; i < dictionaries.length; i++) {
+                ObjectUtil.checkNotNull(dictionaries[i], "dictionary");
+                Adler32 adler = new Adler32();
+                adler.update(dictionaries[i]);
+                dictionaryIds[i] = (int) adler.getValue();
+            }
+        } else {
+            dictionaryIds = null;
+        }
+        this.dictionaries = dictionaries;
+        if (pool == null && !decideZlibOrNone) {
+            inflater = new Inflater(nowrap);
+        }
     }
 
     @Override
@@ -195,9 +247,14 @@ public class JdkZlibDecoder extends ZlibDecoder {
                 return;
             }
 
-            boolean nowrap = !looksLikeZlib(in.getShort(in.readerIndex()));
-            inflater = new Inflater(nowrap);
+            nowrap = !looksLikeZlib(in.getShort(in.readerIndex()));
             decideZlibOrNone = false;
+            if (pool == null) {
+                inflater = new Inflater(nowrap);
+            }
+        }
+        if (inflater == null) {
+            inflater = pool.acquireInflater(nowrap);
         }
 
         if (crc != null) {
@@ -244,11 +301,7 @@ public class JdkZlibDecoder extends ZlibDecoder {
                         crc.update(outArray, outIndex, outputLength);
                     }
                 } else  if (inflater.needsDictionary()) {
-                    if (dictionary == null) {
-                        throw new DecompressionException(
-                                "decompression failure, unable to set dictionary as non was specified");
-                    }
-                    inflater.setDictionary(dictionary);
+                    inflater.setDictionary(dictionary(inflater.getAdler()));
                 }
 
                 if (inflater.finished()) {
@@ -280,6 +333,24 @@ public class JdkZlibDecoder extends ZlibDecoder {
         }
     }
 
+    private static byte[][] dictionaries(byte[] dictionary) {
+        return dictionary == null ? null : new byte[][] { dictionary };
+    }
+
+    private byte[] dictionary(int dictionaryId) {
+        if (dictionaries == null) {
+            throw new DecompressionException(
+                    "decompression failure, unable to set dictionary as non was specified");
+        }
+        for (int i = 0; i < dictionaries.length; i++) {
+            if (dictionaryIds[i] == dictionaryId) {
+                return dictionaries[i];
+            }
+        }
+        throw new DecompressionException(
+                "decompression failure, unknown dictionary id: " + (dictionaryId & 0xFFFFFFFFL));
+    }
+
     private boolean handleGzipFooter(ByteBuf in) {
         if (readGZIPFooter(in)) {
             finished = !decompressConcatenated;
@@ -303,7 +374,12 @@ public class JdkZlibDecoder extends ZlibDecoder {
     protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
         super.handlerRemoved0(ctx);
         if (inflater != null) {
-            inflater.end();
+            if (pool == null) {
+                inflater.end();
+            } else {
+                pool.releaseInflater(inflater, nowrap);
+                inflater = null;
+            }
         }
     }
 
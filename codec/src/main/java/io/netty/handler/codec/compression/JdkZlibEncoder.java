@@ -36,7 +36,9 @@ import java.util.zip.Deflater;
 public class JdkZlibEncoder extends ZlibEncoder {
 
     private final ZlibWrapper wrapper;
-    private final Deflater deflater;
+    private final JdkZlibPool pool;
+    private final int compressionLevel;
+    private Deflater deflater;
     private volatile boolean finished;
     private volatile ChannelHandlerContext ctx;
 
@@ -94,6 +96,26 @@ public class JdkZlibEncoder extends ZlibEncoder {
      * @throws CompressionException if failed to initialize zlib
      */
     public JdkZlibEncoder(ZlibWrapper wrapper, int compressionLevel) {
+        this(wrapper, compressionLevel, null);
+    }
+
+    /**
+     * Creates a new zlib encoder with the specified {@code compressionLevel}
+     * and the specified wrapper, which borrows its {@link Deflater} from the
+     * given {@link JdkZlibPool} when it starts compressing and gives it back
+     * once the stream is finished or the handler is removed.
+     *
+     * @param compressionLevel
+     *        {@code 1} yields the fastest compression and {@code 9} yields the
+     *        best compression.  {@code 0} means no compression.  The default
+     *        compression level is {@code 6}.
+     * @param pool
+     *        the {@link JdkZlibPool} to borrow the {@link Deflater} from, or
+     *        {@code null} to allocate a dedicated one
+     *
+     * @throws CompressionException if failed to initialize zlib
+     */
+    public JdkZlibEncoder(ZlibWrapper wrapper, int compressionLevel, JdkZlibPool pool) {
         if (compressionLevel < 0 || compressionLevel > 9) {
             throw new IllegalArgumentException(
                     "compressionLevel: " + compressionLevel + " (expected: 0-9)");
@@ -106,7 +128,11 @@ public class JdkZlibEncoder extends ZlibEncoder {
         }
 
         this.wrapper = wrapper;
-        deflater = new Deflater(compressionLevel, wrapper != ZlibWrapper.ZLIB);
+        this.compressionLevel = compressionLevel;
+        this.pool = pool;
+        if (pool == null) {
+            deflater = new Deflater(compressionLevel, wrapper != ZlibWrapper.ZLIB);
+        }
     }
 
     /**
@@ -145,6 +171,8 @@ public class JdkZlibEncoder extends ZlibEncoder {
         ObjectUtil.checkNotNull(dictionary, "dictionary");
 
         wrapper = ZlibWrapper.ZLIB;
+        this.compressionLevel = compressionLevel;
+        pool = null;
         deflater = new Deflater(compressionLevel);
         deflater.setDictionary(dictionary);
     }
@@ -223,6 +251,7 @@ public class JdkZlibEncoder extends ZlibEncoder {
             crc.update(inAry, offset, len);
         }
 
+        Deflater deflater = deflater();
         deflater.setInput(inAry, offset, len);
         for (;;) {
             deflate(out);
@@ -293,6 +322,7 @@ public class JdkZlibEncoder extends ZlibEncoder {
             footer.writeBytes(gzipHeader);
         }
 
+        Deflater deflater = deflater();
         deflater.finish();
 
         while (!deflater.finished()) {
@@ -315,10 +345,27 @@ public class JdkZlibEncoder extends ZlibEncoder {
             footer.writeByte(uncBytes >>> 16);
             footer.writeByte(uncBytes >>> 24);
         }
-        deflater.end();
+        releaseDeflater();
         return ctx.writeAndFlush(footer, promise);
     }
 
+    private Deflater deflater() {
+        Deflater deflater = this.deflater;
+        if (deflater == null) {
+            this.deflater = deflater = pool.acquireDeflater(compressionLevel, wrapper != ZlibWrapper.ZLIB);
+        }
+        return deflater;
+    }
+
+    private void releaseDeflater() {
+        if (pool == null) {
+            deflater.end();
+        } else if (deflater != null) {
+            pool.releaseDeflater(deflater, compressionLevel, wrapper != ZlibWrapper.ZLIB);
+            deflater = null;
+        }
+    }
+
     @SuppressJava6Requirement(reason = "Usage guarded by java version check")
     private void deflate(ByteBuf out) {
         if (PlatformDependent.javaVersion() < 7) {
@@ -347,4 +394,14 @@ public class JdkZlibEncoder extends ZlibEncoder {
     public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
         this.ctx = ctx;
     }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        super.handlerRemoved(ctx);
+        if (pool != null && !finished) {
+            // Give back the borrowed Deflater, the stream can not be finished anymore.
+            finished = true;
+            releaseDeflater();
+        }
+    }
 }
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A bounded, per-thread pool of {@link Deflater} and {@link Inflater} instances.
+ * <p>
+ * Each {@link Deflater} holds about {@code 256 KiB} and each {@link Inflater} about {@code 40 KiB} of native
+ * memory, which is only released when {@code end()} is called or the instance is garbage collected. Codecs that
+ * compress or decompress a single, short lived stream, like one HTTP message or one WebSocket message without
+ * context takeover, can borrow an instance from this pool with {@link #acquireDeflater(int, boolean)} or
+ * {@link #acquireInflater(boolean)} and give it back once the stream is done, instead of allocating and freeing
+ * the native state for every stream.
+ * <p>
+ * Instances are pooled per thread, so in practice per {@link io.netty.channel.EventLoop}, and at most
+ * {@link #maxPooledPerThread()} deflaters and as many inflaters are kept by each thread. Released instances
+ * beyond that are ended right away. The pooled instances of a thread are ended when the thread terminates, if it
+ * is a {@link io.netty.util.concurrent.FastThreadLocalThread}.
+ */
+public final class JdkZlibPool {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(JdkZlibPool.class);
+
+    private static final int DEFAULT_MAX_POOLED_PER_THREAD;
+
+    static {
+        DEFAULT_MAX_POOLED_PER_THREAD = Math.max(0,
+                SystemPropertyUtil.getInt("io.netty.jdkZlib.maxPooledPerThread", 8));
+        logger.debug("-Dio.netty.jdkZlib.maxPooledPerThread: {}", DEFAULT_MAX_POOLED_PER_THREAD);
+    }
+
+    /**
+     * The pool shared by the codecs of Netty. Its size can be set with the
+     * {@code io.netty.jdkZlib.maxPooledPerThread} system property, {@code 0} disables pooling.
+     */
+    public static final JdkZlibPool DEFAULT = new JdkZlibPool(DEFAULT_MAX_POOLED_PER_THREAD);
+
+    // One deque of deflaters per compression level and nowrap flag, and one of inflaters per nowrap flag.
+    private static final int DEFLATER_QUEUES = 10 * 2;
+
+    private final int maxPooledPerThread;
+    private final FastThreadLocal<ThreadContexts> threadContexts = new FastThreadLocal<ThreadContexts>() {
+        @Override
+        protected ThreadContexts initialValue() {
+            return new ThreadContexts();
+        }
+
+        @Override
+        protected void onRemoval(ThreadContexts contexts) {
+            contexts.endAll();
+        }
+    };
+
+    private final LongCounter allocatedDeflaters = PlatformDependent.newLongCounter();
+    private final LongCounter allocatedInflaters = PlatformDependent.newLongCounter();
+    private final LongCounter acquiredDeflaters = PlatformDependent.newLongCounter();
+    private final LongCounter acquiredInflaters = PlatformDependent.newLongCounter();
+    private final LongCounter pooledDeflaters = PlatformDependent.newLongCounter();
+    private final LongCounter pooledInflaters = PlatformDependent.newLongCounter();
+
+    /**
+     * Creates a new pool.
+     *
+     * @param maxPooledPerThread the maximum number of deflaters, and of inflaters, each thread keeps
+     */
+    public JdkZlibPool(int maxPooledPerThread) {
+        this.maxPooledPerThread = ObjectUtil.checkPositiveOrZero(maxPooledPerThread, "maxPooledPerThread");
+    }
+
+    /**
+     * Returns the maximum number of deflaters, and of inflaters, each thread keeps.
+     */
+    public int maxPooledPerThread() {
+        return maxPooledPerThread;
+    }
+
+    /**
+     * Returns a {@link Deflater} with the given compression level and nowrap flag, either pooled by the current
+     * thread or newly allocated. It must be given back with {@link #releaseDeflater(Deflater, int, boolean)}.
+     */
+    public Deflater acquireDeflater(int compressionLevel, boolean nowrap) {
+        ObjectUtil.checkInRange(compressionLevel, 0, 9, "compressionLevel");
+        acquiredDeflaters.increment();
+        if (maxPooledPerThread > 0) {
+            Deflater deflater = threadContexts.get().pollDeflater(compressionLevel, nowrap);
+            if (deflater != null) {
+                pooledDeflaters.decrement();
+                return deflater;
+            }
+        }
+        allocatedDeflaters.increment();
+        return new Deflater(compressionLevel, nowrap);
+    }
+
+    /**
+     * Gives back a {@link Deflater} obtained from {@link #acquireDeflater(int, boolean)} with the same
+     * compression level and nowrap flag. The {@link Deflater} must not be used anymore by the caller.
+     */
+    public void releaseDeflater(Deflater deflater, int compressionLevel, boolean nowrap) {
+        ObjectUtil.checkNotNull(deflater, "deflater");
+        if (maxPooledPerThread > 0 && threadContexts.get().offerDeflater(deflater, compressionLevel, nowrap)) {
+            pooledDeflaters.increment();
+        } else {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Returns an {@link Inflater} with the given nowrap flag, either pooled by the current thread or newly
+     * allocated. It must be given back with {@link #releaseInflater(Inflater, boolean)}.
+     */
+    public Inflater acquireInflater(boolean nowrap) {
+        acquiredInflaters.increment();
+        if (maxPooledPerThread > 0) {
+            Inflater inflater = threadContexts.get().pollInflater(nowrap);
+            if (inflater != null) {
+                pooledInflaters.decrement();
+                return inflater;
+            }
+        }
+        allocatedInflaters.increment();
+        return new Inflater(nowrap);
+    }
+
+    /**
+     * Gives back an {@link Inflater} obtained from {@link #acquireInflater(boolean)} with the same nowrap flag.
+     * The {@link Inflater} must not be used anymore by the caller.
+     */
+    public void releaseInflater(Inflater inflater, boolean nowrap) {
+        ObjectUtil.checkNotNull(inflater, "inflater");
+        if (maxPooledPerThread > 0 && threadContexts.get().offerInflater(inflater, nowrap)) {
+            pooledInflaters.increment();
+        } else {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Returns the number of deflaters currently pooled by all threads.
+     */
+    public long numPooledDeflaters() {
+        return pooledDeflaters.value();
+    }
+
+    /**
+     * Returns the number of inflaters currently pooled by all threads.
+     */
+    public long numPooledInflaters() {
+        return pooledInflaters.value();
+    }
+
+    /**
+     * Returns the number of deflaters allocated by this pool because none was pooled.
+     */
+    public long numAllocatedDeflaters() {
+        return allocatedDeflaters.value();
+    }
+
+    /**
+     * Returns the number of inflaters allocated by this pool because none was pooled.
+     */
+    public long numAllocatedInflaters() {
+        return allocatedInflaters.value();
+    }
+
+    /**
+     * Returns the number of calls to {@link #acquireDeflater(int, boolean)}.
+     */
+    public long numAcquiredDeflaters() {
+        return acquiredDeflaters.value();
+    }
+
+    /**
+     * Returns the number of calls to {@link #acquireInflater(boolean)}.
+     */
+    public long numAcquiredInflaters() {
+        return acquiredInflaters.value();
+    }
+
+    @Override
+    public String toString() {
+        return "JdkZlibPool(maxPooledPerThread: " + maxPooledPerThread +
+                ", pooledDeflaters: " + numPooledDeflaters() +
+                ", pooledInflaters: " + numPooledInflaters() +
+                ", allocatedDeflaters: " + numAllocatedDeflaters() +
+                ", allocatedInflaters: " + numAllocatedInflaters() +
+                ", acquiredDeflaters: " + numAcquiredDeflaters() +
+                ", acquiredInflaters: " + numAcquiredInflaters() + ')';
+    }
+
+    private final class ThreadContexts {
+        @SuppressWarnings("unchecked")
+        private final ArrayDeque<Deflater>[] deflaters = new ArrayDeque[DEFLATER_QUEUES];
+        private final ArrayDeque<Inflater> inflaters = new ArrayDeque<Inflater>();
+        private final ArrayDeque<Inflater> nowrapInflaters = new ArrayDeque<Inflater>();
+        private int deflaterCount;
+
+        Deflater pollDeflater(int compressionLevel, boolean nowrap) {
+            ArrayDeque<Deflater> queue = deflaters[deflaterIndex(compressionLevel, nowrap)];
+            Deflater deflater = queue == null ? null : queue.pollLast();
+            if (deflater != null) {
+                deflaterCount--;
+            }
+            return deflater;
+        }
+
+        boolean offerDeflater(Deflater deflater, int compressionLevel, boolean nowrap) {
+            if (deflaterCount >= maxPooledPerThread) {
+                return false;
+            }
+            int index = deflaterIndex(compressionLevel, nowrap);
+            ArrayDeque<Deflater> queue = deflaters[index];
+            if (queue == null) {
+                queue = deflaters[index] = new ArrayDeque<Deflater>();
+            }
+            deflater.reset();
+            queue.addLast(deflater);
+            deflaterCount++;
+            return true;
+        }
+
+        Inflater pollInflater(boolean nowrap) {
+            return (nowrap ? nowrapInflaters : inflaters).pollLast();
+        }
+
+        boolean offerInflater(Inflater inflater, boolean nowrap) {
+            if (inflaters.size() + nowrapInflaters.size() >= maxPooledPerThread) {
+                return false;
+            }
+            inflater.reset();
+            (nowrap ? nowrapInflaters : inflaters).addLast(inflater);
+            return true;
+        }
+
+        void endAll() {
+            for (ArrayDeque<Deflater> queue : deflaters) {
+                if (queue != null) {
+                    for (Deflater deflater; (deflater = queue.pollLast()) != null;) {
+                        deflater.end();
+                        pooledDeflaters.decrement();
+                    }
+                }
+            }
+            deflaterCount = 0;
+            endAll(inflaters);
+            endAll(nowrapInflaters);
+        }
+
+        private void endAll(ArrayDeque<Inflater> queue) {
+            for (Inflater inflater; (inflater = queue.pollLast()) != null;) {
+                inflater.end();
+                pooledInflaters.decrement();
+            }
+        }
+    }
+
+    private static int deflaterIndex(int compressionLevel, boolean nowrap) {
+        return compressionLevel << 1 | (nowrap ? 1 : 0);
+    }
+}
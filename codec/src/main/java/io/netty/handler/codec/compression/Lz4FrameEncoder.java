@@ -17,6 +17,7 @@
 package io.netty.handler.codec.compression;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
@@ -33,6 +34,7 @@ import net.jpountz.lz4.LZ4Exception;
 import net.jpountz.lz4.LZ4Factory;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.Checksum;
 
@@ -65,6 +67,9 @@ import static io.netty.handler.codec.compression.Lz4Constants.TOKEN_OFFSET;
  *  * Magic * Token *  Compressed *  Decompressed *  Checksum *  +  *  LZ4 compressed *
  *  *       *       *    length   *     length    *           *     *      block      *
  *  * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *     * * * * * * * * * *
+ *
+ * The blocks can be compressed on an {@link Executor} instead of the {@link io.netty.channel.EventLoop}, see
+ * {@link #Lz4FrameEncoder(LZ4Factory, boolean, int, Checksum, int, Executor)}.
  */
 public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
     static final int DEFAULT_MAX_ENCODE_SIZE = Integer.MAX_VALUE;
@@ -106,6 +111,13 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
      */
     private volatile ChannelHandlerContext ctx;
 
+    /**
+     * The {@link Executor} the blocks are compressed on, or {@code null} to compress them on the event loop.
+     */
+    private final Executor executor;
+
+    private ParallelBlockCompressor parallelCompressor;
+
     /**
      * Creates the fastest LZ4 encoder with default block size (64 KB)
      * and xxhash hashing for Java, based on Yann Collet's work available at
@@ -158,6 +170,29 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
          */
     public Lz4FrameEncoder(LZ4Factory factory, boolean highCompressor, int blockSize,
                            Checksum checksum, int maxEncodeSize) {
+        this(factory, highCompressor, blockSize, checksum, maxEncodeSize, null);
+    }
+
+    /**
+     * Creates a new customizable LZ4 encoder which compresses the blocks on the given {@link Executor}, so that
+     * large streams do not stall the other channels of the event loop. Blocks are written in order, and the data
+     * waiting to be compressed counts toward the writability of the channel.
+     *
+     * @param factory         user customizable {@link LZ4Factory} instance
+     *                        which may be JNI bindings to the original C implementation, a pure Java implementation
+     *                        or a Java implementation that uses the {@link sun.misc.Unsafe}
+     * @param highCompressor  if {@code true} codec will use compressor which requires more memory
+     *                        and is slower but compresses more efficiently
+     * @param blockSize       the maximum number of bytes to try to compress at once,
+     *                        must be >= 64 and <= 32 M
+     * @param checksum        the {@link Checksum} instance to use to check data for integrity, it is only used by
+     *                        one block at a time
+     * @param maxEncodeSize   the maximum size for an encode (compressed) buffer
+     * @param executor        the {@link Executor} to compress the blocks on, or {@code null} to compress them on
+     *                        the event loop
+     */
+    public Lz4FrameEncoder(LZ4Factory factory, boolean highCompressor, int blockSize,
+                           Checksum checksum, int maxEncodeSize, Executor executor) {
         ObjectUtil.checkNotNull(factory, "factory");
         ObjectUtil.checkNotNull(checksum, "checksum");
 
@@ -167,6 +202,7 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
         compressionLevel = compressionLevel(blockSize);
         this.blockSize = blockSize;
         this.maxEncodeSize = ObjectUtil.checkPositive(maxEncodeSize, "maxEncodeSize");
+        this.executor = executor;
         finished = false;
     }
 
@@ -185,6 +221,10 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
 
     @Override
     protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, ByteBuf msg, boolean preferDirect) {
+        if (parallelCompressor != null) {
+            // Everything is written by the ParallelBlockCompressor.
+            return Unpooled.EMPTY_BUFFER;
+        }
         return allocateBuffer(ctx, msg, preferDirect, true);
     }
 
@@ -233,6 +273,10 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
      */
     @Override
     protected void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out) throws Exception {
+        if (parallelCompressor != null) {
+            encodeParallel(ctx, in);
+            return;
+        }
         if (finished) {
             if (!out.isWritable(in.readableBytes())) {
                 // out should be EMPTY_BUFFER because we should have allocated enough space above in allocateBuffer.
@@ -254,14 +298,52 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
         }
     }
 
+    private void encodeParallel(ChannelHandlerContext ctx, ByteBuf in) {
+        if (finished) {
+            parallelCompressor.write(in.readRetainedSlice(in.readableBytes()), ctx.voidPromise());
+            return;
+        }
+        int length;
+        while ((length = in.readableBytes()) > 0) {
+            in.readBytes(buffer, Math.min(length, buffer.writableBytes()));
+            if (!buffer.isWritable()) {
+                submitBufferedData(ctx);
+            }
+        }
+    }
+
+    /**
+     * Hands the buffered data over to the {@link #executor} and replaces {@link #buffer}.
+     */
+    private void submitBufferedData(ChannelHandlerContext ctx) {
+        if (!buffer.isReadable()) {
+            return;
+        }
+        ByteBuf data = buffer;
+        buffer = ctx.alloc().heapBuffer(blockSize, blockSize);
+        parallelCompressor.submit(new ParallelBlock(data), ctx.voidPromise());
+    }
+
     private void flushBufferedData(ByteBuf out) {
-        int flushableBytes = buffer.readableBytes();
+        compressBlock(buffer, out);
+        buffer.clear();
+    }
+
+    /**
+     * Compresses the readable bytes of {@code data} into a block written to {@code out}.
+     */
+    private void compressBlock(ByteBuf data, ByteBuf out) {
+        int flushableBytes = data.readableBytes();
         if (flushableBytes == 0) {
             return;
         }
-        checksum.reset();
-        checksum.update(buffer, buffer.readerIndex(), flushableBytes);
-        final int check = (int) checksum.getValue();
+        final int check;
+        // Blocks compressed on the executor may be compressed concurrently.
+        synchronized (checksum) {
+            checksum.reset();
+            checksum.update(data, data.readerIndex(), flushableBytes);
+            check = (int) checksum.getValue();
+        }
 
         final int bufSize = compressor.maxCompressedLength(flushableBytes) + HEADER_LENGTH;
         out.ensureWritable(bufSize);
@@ -271,7 +353,7 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
             ByteBuffer outNioBuffer = out.internalNioBuffer(idx + HEADER_LENGTH, out.writableBytes() - HEADER_LENGTH);
             int pos = outNioBuffer.position();
             // We always want to start at position 0 as we take care of reusing the buffer in the encode(...) loop.
-            compressor.compress(buffer.internalNioBuffer(buffer.readerIndex(), flushableBytes), outNioBuffer);
+            compressor.compress(data.internalNioBuffer(data.readerIndex(), flushableBytes), outNioBuffer);
             compressedLength = outNioBuffer.position() - pos;
         } catch (LZ4Exception e) {
             throw new CompressionException(e);
@@ -280,7 +362,7 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
         if (compressedLength >= flushableBytes) {
             blockType = BLOCK_TYPE_NON_COMPRESSED;
             compressedLength = flushableBytes;
-            out.setBytes(idx + HEADER_LENGTH, buffer, 0, flushableBytes);
+            out.setBytes(idx + HEADER_LENGTH, data, data.readerIndex(), flushableBytes);
         } else {
             blockType = BLOCK_TYPE_COMPRESSED;
         }
@@ -291,11 +373,17 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
         out.setIntLE(idx + DECOMPRESSED_LENGTH_OFFSET, flushableBytes);
         out.setIntLE(idx + CHECKSUM_OFFSET, check);
         out.writerIndex(idx + HEADER_LENGTH + compressedLength);
-        buffer.clear();
     }
 
     @Override
     public void flush(final ChannelHandlerContext ctx) throws Exception {
+        if (parallelCompressor != null) {
+            if (buffer != null) {
+                submitBufferedData(ctx);
+            }
+            parallelCompressor.flush();
+            return;
+        }
         if (buffer != null && buffer.isReadable()) {
             final ByteBuf buf = allocateBuffer(ctx, Unpooled.EMPTY_BUFFER, isPreferDirect(), false);
             flushBufferedData(buf);
@@ -311,6 +399,9 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
         }
         finished = true;
 
+        if (parallelCompressor != null) {
+            submitBufferedData(ctx);
+        }
         final ByteBuf footer = ctx.alloc().heapBuffer(
                 compressor.maxCompressedLength(buffer.readableBytes()) + HEADER_LENGTH);
         flushBufferedData(footer);
@@ -324,6 +415,11 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
 
         footer.writerIndex(idx + HEADER_LENGTH);
 
+        if (parallelCompressor != null) {
+            parallelCompressor.write(footer, promise);
+            parallelCompressor.flush();
+            return promise;
+        }
         return ctx.writeAndFlush(footer, promise);
     }
 
@@ -400,6 +496,9 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
         // Ensure we use a heap based ByteBuf.
         buffer = Unpooled.wrappedBuffer(new byte[blockSize]);
         buffer.clear();
+        if (executor != null) {
+            parallelCompressor = new ParallelBlockCompressor(ctx, executor);
+        }
     }
 
     @Override
@@ -409,9 +508,33 @@ public class Lz4FrameEncoder extends MessageToByteEncoder<ByteBuf> {
             buffer.release();
             buffer = null;
         }
+        if (parallelCompressor != null) {
+            parallelCompressor.release(new CompressionException("encoder removed before the end of the stream"));
+        }
     }
 
     final ByteBuf getBackingBuffer() {
         return buffer;
     }
+
+    /**
+     * A block compressed on the {@link #executor}.
+     */
+    private final class ParallelBlock extends ParallelBlockCompressor.Block {
+        ParallelBlock(ByteBuf data) {
+            super(data);
+        }
+
+        @Override
+        ByteBuf compress(ByteBufAllocator alloc) {
+            final ByteBuf out = alloc.heapBuffer(compressor.maxCompressedLength(input.readableBytes()) + HEADER_LENGTH);
+            try {
+                compressBlock(input, out);
+            } catch (RuntimeException e) {
+                out.release();
+                throw e;
+            }
+            return out;
+        }
+    }
 }
@@ -21,9 +21,18 @@ import com.ning.compress.lzf.LZFChunk;
 import com.ning.compress.lzf.LZFEncoder;
 import com.ning.compress.lzf.util.ChunkEncoderFactory;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.MessageToByteEncoder;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
 import static com.ning.compress.lzf.LZFChunk.MAX_CHUNK_LEN;
 
 /**
@@ -31,6 +40,9 @@ import static com.ning.compress.lzf.LZFChunk.MAX_CHUNK_LEN;
  * <p>
  * See original <a href="http://oldhome.schmorp.de/marc/liblzf.html">LZF package</a>
  * and <a href="https://github.com/ning/compress/wiki/LZFFormat">LZF format</a> for full description.
+ * <p>
+ * The chunks can be compressed on an {@link Executor} instead of the {@link io.netty.channel.EventLoop}, see
+ * {@link #LzfEncoder(boolean, int, int, Executor)}.
  */
 public class LzfEncoder extends MessageToByteEncoder<ByteBuf> {
 
@@ -40,6 +52,11 @@ public class LzfEncoder extends MessageToByteEncoder<ByteBuf> {
      */
     private static final int MIN_BLOCK_TO_COMPRESS = 16;
 
+    /**
+     * Maximum number of bytes of a message compressed at once on the {@link #executor}, a whole number of chunks.
+     */
+    private static final int PARALLEL_BLOCK_SIZE = 16 * MAX_CHUNK_LEN;
+
     /**
      * Compress threshold for LZF format. When the amount of input data is less than compressThreshold,
      * we will construct an uncompressed output according to the LZF format.
@@ -59,6 +76,20 @@ public class LzfEncoder extends MessageToByteEncoder<ByteBuf> {
      */
     private final BufferRecycler recycler;
 
+    /**
+     * The {@link Executor} the chunks are compressed on, or {@code null} to compress them on the event loop.
+     */
+    private final Executor executor;
+
+    /**
+     * The {@link ChunkEncoder}s used on the {@link #executor}, as they are not thread-safe.
+     */
+    private final Queue<ChunkEncoder> parallelEncoders;
+
+    private final boolean safeInstance;
+    private final int totalLength;
+    private ParallelBlockCompressor parallelCompressor;
+
     /**
      * Creates a new LZF encoder with the most optimal available methods for underlying data access.
      * It will "unsafe" instance if one can be used on current JVM.
@@ -124,6 +155,29 @@ public class LzfEncoder extends MessageToByteEncoder<ByteBuf> {
      *                              to the LZF format.
      */
     public LzfEncoder(boolean safeInstance, int totalLength, int compressThreshold) {
+        this(safeInstance, totalLength, compressThreshold, null);
+    }
+
+    /**
+     * Creates a new LZF encoder with specified settings which compresses the chunks on the given {@link Executor},
+     * so that large messages do not stall the other channels of the event loop. Messages are split into blocks of
+     * up to 16 chunks which are written in order, and the data waiting to be compressed counts toward the
+     * writability of the channel.
+     *
+     * @param safeInstance          If {@code true} encoder will use {@link ChunkEncoder} that only uses standard JDK
+     *                              access methods, and should work on all Java platforms and JVMs.
+     *                              Otherwise encoder will try to use highly optimized {@link ChunkEncoder}
+     *                              implementation that uses Sun JDK's {@link sun.misc.Unsafe}
+     *                              class (which may be included by other JDK's as well).
+     * @param totalLength           Expected total length of content to compress; only matters for outgoing messages
+     *                              that is smaller than maximum chunk size (64k), to optimize encoding hash tables.
+     * @param compressThreshold     Compress threshold for LZF format. When the amount of input data is less than
+     *                              compressThreshold, we will construct an uncompressed output according
+     *                              to the LZF format.
+     * @param executor              The {@link Executor} to compress the chunks on, or {@code null} to compress them
+     *                              on the event loop.
+     */
+    public LzfEncoder(boolean safeInstance, int totalLength, int compressThreshold, Executor executor) {
         super(false);
         if (totalLength < MIN_BLOCK_TO_COMPRESS || totalLength > MAX_CHUNK_LEN) {
             throw new IllegalArgumentException("totalLength: " + totalLength +
@@ -137,15 +191,46 @@ public class LzfEncoder extends MessageToByteEncoder<ByteBuf> {
         }
         this.compressThreshold = compressThreshold;
 
-        this.encoder = safeInstance ?
+        this.encoder = newChunkEncoder(safeInstance, totalLength);
+
+        this.recycler = BufferRecycler.instance();
+        this.executor = executor;
+        this.safeInstance = safeInstance;
+        this.totalLength = totalLength;
+        parallelEncoders = executor == null ? null : new ConcurrentLinkedQueue<ChunkEncoder>();
+    }
+
+    private static ChunkEncoder newChunkEncoder(boolean safeInstance, int totalLength) {
+        return safeInstance ?
                 ChunkEncoderFactory.safeNonAllocatingInstance(totalLength)
                 : ChunkEncoderFactory.optimalNonAllocatingInstance(totalLength);
+    }
 
-        this.recycler = BufferRecycler.instance();
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, ByteBuf msg, boolean preferDirect) throws Exception {
+        if (parallelCompressor != null) {
+            // Everything is written by the ParallelBlockCompressor.
+            return Unpooled.EMPTY_BUFFER;
+        }
+        return super.allocateBuffer(ctx, msg, preferDirect);
     }
 
     @Override
     protected void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out) throws Exception {
+        if (parallelCompressor != null) {
+            // The compress threshold applies to the whole message, like when it is compressed on the event loop.
+            final boolean compress = in.readableBytes() >= compressThreshold;
+            while (in.isReadable()) {
+                ByteBuf data = in.readRetainedSlice(Math.min(in.readableBytes(), PARALLEL_BLOCK_SIZE));
+                parallelCompressor.submit(new ParallelBlock(data, compress), ctx.voidPromise());
+            }
+            return;
+        }
+        encode(encoder, recycler, in, out, in.readableBytes() >= compressThreshold);
+    }
+
+    private static void encode(ChunkEncoder encoder, BufferRecycler recycler, ByteBuf in, ByteBuf out,
+                               boolean compress) {
         final int length = in.readableBytes();
         final int idx = in.readerIndex();
         final byte[] input;
@@ -165,9 +250,9 @@ public class LzfEncoder extends MessageToByteEncoder<ByteBuf> {
         final int outputPtr = out.arrayOffset() + out.writerIndex();
 
         final int outputLength;
-        if (length >= compressThreshold) {
+        if (compress) {
             // compress.
-            outputLength = encodeCompress(input, inputPtr, length, output, outputPtr);
+            outputLength = encodeCompress(encoder, input, inputPtr, length, output, outputPtr);
         } else {
             // not compress.
             outputLength = encodeNonCompress(input, inputPtr, length, output, outputPtr);
@@ -181,7 +266,8 @@ public class LzfEncoder extends MessageToByteEncoder<ByteBuf> {
         }
     }
 
-    private int encodeCompress(byte[] input, int inputPtr, int length, byte[] output, int outputPtr) {
+    private static int encodeCompress(ChunkEncoder encoder,
+                                      byte[] input, int inputPtr, int length, byte[] output, int outputPtr) {
         return LZFEncoder.appendEncoded(encoder,
                 input, inputPtr, length, output, outputPtr) - outputPtr;
     }
@@ -211,9 +297,78 @@ public class LzfEncoder extends MessageToByteEncoder<ByteBuf> {
         return lzfEncodeNonCompress(input, inputPtr, length, output, outputPtr) - outputPtr;
     }
 
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (parallelCompressor != null) {
+            parallelCompressor.flush();
+        } else {
+            ctx.flush();
+        }
+    }
+
+    @Override
+    public void close(final ChannelHandlerContext ctx, final ChannelPromise promise) throws Exception {
+        if (parallelCompressor == null || parallelCompressor.isEmpty()) {
+            ctx.close(promise);
+            return;
+        }
+        // Wait for the chunks which are still compressed on the executor.
+        ChannelPromise written = ctx.newPromise();
+        parallelCompressor.write(Unpooled.EMPTY_BUFFER, written);
+        parallelCompressor.flush();
+        written.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture f) throws Exception {
+                ctx.close(promise);
+            }
+        });
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        if (executor != null) {
+            parallelCompressor = new ParallelBlockCompressor(ctx, executor);
+        }
+    }
+
     @Override
     public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
         encoder.close();
+        if (parallelCompressor != null) {
+            parallelCompressor.release(new CompressionException("encoder removed before all data was written"));
+        }
+        // The ChunkEncoders of the executor are not closed, as it would hand their buffers over to the
+        // BufferRecycler of the thread which created them from another thread.
         super.handlerRemoved(ctx);
     }
+
+    /**
+     * A part of a message compressed on the {@link #executor}.
+     */
+    private final class ParallelBlock extends ParallelBlockCompressor.Block {
+        private final boolean compress;
+
+        ParallelBlock(ByteBuf data, boolean compress) {
+            super(data);
+            this.compress = compress;
+        }
+
+        @Override
+        ByteBuf compress(ByteBufAllocator alloc) {
+            ChunkEncoder encoder = parallelEncoders.poll();
+            if (encoder == null) {
+                encoder = newChunkEncoder(safeInstance, totalLength);
+            }
+            final ByteBuf out = alloc.heapBuffer(LZFEncoder.estimateMaxWorkspaceSize(input.readableBytes()));
+            try {
+                encode(encoder, BufferRecycler.instance(), input, out, compress);
+            } catch (RuntimeException e) {
+                out.release();
+                throw e;
+            } finally {
+                parallelEncoders.offer(encoder);
+            }
+            return out;
+        }
+    }
 }
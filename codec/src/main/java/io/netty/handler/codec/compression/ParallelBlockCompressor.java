@@ -0,0 +1,241 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.PendingWriteQueue;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * Compresses the independent blocks of a block oriented encoder on an {@link Executor} and writes them to the
+ * {@link ChannelHandlerContext} in the order they were submitted, so that the {@link io.netty.channel.EventLoop}
+ * only does the framing and the hand-off.
+ * <p>
+ * The input of the blocks which are not written yet is held in a {@link PendingWriteQueue}, so it counts toward
+ * the {@linkplain io.netty.channel.Channel#isWritable() writability} of the channel and writers which respect it
+ * are slowed down when the compression can not keep up.
+ * <p>
+ * All methods must be called from the {@link io.netty.channel.EventLoop} of the channel.
+ */
+final class ParallelBlockCompressor {
+
+    /**
+     * A block which waits until all the blocks submitted before it have been written.
+     */
+    static class PendingBlock {
+        final ByteBuf input;
+        ByteBuf output;
+        Throwable cause;
+        volatile boolean done;
+        boolean discarded;
+
+        /**
+         * Creates a new block which takes the ownership of the given input.
+         */
+        PendingBlock(ByteBuf input) {
+            this.input = input;
+        }
+
+        /**
+         * Called from the {@link io.netty.channel.EventLoop} once all the blocks submitted before this one have been
+         * written, returns the bytes to write.
+         */
+        ByteBuf complete(ByteBufAllocator alloc, ByteBuf compressed) {
+            return compressed;
+        }
+    }
+
+    /**
+     * A block whose {@link #compress(ByteBufAllocator)} is called from the {@link Executor}.
+     */
+    abstract static class Block extends PendingBlock implements Runnable {
+        private ParallelBlockCompressor owner;
+
+        /**
+         * Creates a new block which takes the ownership of the given input.
+         */
+        Block(ByteBuf input) {
+            super(input);
+        }
+
+        /**
+         * Compresses {@link #input}, called from the {@link Executor}.
+         */
+        abstract ByteBuf compress(ByteBufAllocator alloc) throws Exception;
+
+        @Override
+        public final void run() {
+            final ParallelBlockCompressor owner = this.owner;
+            try {
+                output = compress(owner.ctx.alloc());
+            } catch (Throwable t) {
+                cause = t;
+            } finally {
+                input.release();
+            }
+            done = true;
+            try {
+                owner.ctx.executor().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (discarded) {
+                            ReferenceCountUtil.safeRelease(output);
+                        } else {
+                            owner.writeCompletedAndFlush();
+                        }
+                    }
+                });
+            } catch (Throwable t) {
+                // The event loop has been shut down, nothing will be written anymore.
+                ReferenceCountUtil.safeRelease(output);
+            }
+        }
+    }
+
+    private final ChannelHandlerContext ctx;
+    private final Executor executor;
+    private final PendingWriteQueue pendingWrites;
+    private final ArrayDeque<PendingBlock> blocks = new ArrayDeque<PendingBlock>();
+    private Throwable failure;
+    private boolean flushPending;
+
+    ParallelBlockCompressor(ChannelHandlerContext ctx, Executor executor) {
+        this.ctx = ctx;
+        this.executor = executor;
+        pendingWrites = new PendingWriteQueue(ctx);
+    }
+
+    /**
+     * Returns {@code true} if no block is waiting to be written.
+     */
+    boolean isEmpty() {
+        return blocks.isEmpty();
+    }
+
+    /**
+     * Compresses the given {@link Block} on the {@link Executor} and writes it once all the blocks submitted before
+     * are written. The given {@link ChannelPromise} is notified once it is written.
+     */
+    void submit(Block block, ChannelPromise promise) {
+        block.owner = this;
+        enqueue(block, promise);
+        if (!block.input.isReadable()) {
+            block.input.release();
+            block.output = Unpooled.EMPTY_BUFFER;
+            block.done = true;
+            writeCompleted();
+            return;
+        }
+        block.input.retain();
+        try {
+            executor.execute(block);
+        } catch (Throwable t) {
+            block.input.release();
+            block.cause = t;
+            block.done = true;
+            writeCompleted();
+        }
+    }
+
+    /**
+     * Writes bytes which have already been encoded once all the blocks submitted before are written.
+     */
+    void write(ByteBuf encoded, ChannelPromise promise) {
+        PendingBlock block = new PendingBlock(encoded);
+        enqueue(block, promise);
+        block.output = encoded.retain();
+        block.done = true;
+        writeCompleted();
+    }
+
+    private void enqueue(PendingBlock block, ChannelPromise promise) {
+        blocks.add(block);
+        // The queue owns the input until the block is written, it is only used to update the writability.
+        pendingWrites.add(block.input, promise);
+    }
+
+    /**
+     * Flushes the blocks which are already written, and those which will be written until none is pending.
+     */
+    void flush() {
+        writeCompleted();
+        flushPending = !blocks.isEmpty();
+        ctx.flush();
+    }
+
+    private void writeCompletedAndFlush() {
+        if (writeCompleted() && flushPending) {
+            ctx.flush();
+        }
+        if (blocks.isEmpty()) {
+            flushPending = false;
+        }
+    }
+
+    private boolean writeCompleted() {
+        boolean written = false;
+        PendingBlock block;
+        while ((block = blocks.peek()) != null && block.done) {
+            blocks.poll();
+            ChannelPromise promise = pendingWrites.remove();
+            ByteBuf output = block.output;
+            block.output = null;
+            if (failure == null && block.cause != null) {
+                failure = block.cause instanceof CompressionException ?
+                        block.cause : new CompressionException(block.cause);
+            }
+            if (failure == null) {
+                try {
+                    output = block.complete(ctx.alloc(), output);
+                } catch (Throwable t) {
+                    failure = t instanceof CompressionException ? t : new CompressionException(t);
+                }
+            }
+            if (failure != null) {
+                // The stream is corrupted, so fail this block and all the following ones.
+                ReferenceCountUtil.safeRelease(output);
+                promise.tryFailure(failure);
+                continue;
+            }
+            ctx.write(output, promise);
+            written = true;
+        }
+        return written;
+    }
+
+    /**
+     * Fails all the blocks which are not written yet and releases their input and output.
+     */
+    void release(Throwable cause) {
+        PendingBlock block;
+        while ((block = blocks.poll()) != null) {
+            if (block.done) {
+                ReferenceCountUtil.safeRelease(block.output);
+                block.output = null;
+            } else {
+                block.discarded = true;
+            }
+        }
+        pendingWrites.removeAndFailAll(cause);
+    }
+}
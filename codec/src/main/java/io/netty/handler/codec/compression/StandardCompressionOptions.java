@@ -0,0 +1,81 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+/**
+ * Factory methods for the {@link CompressionOptions} of the standard compression algorithms.
+ */
+public final class StandardCompressionOptions {
+
+    private StandardCompressionOptions() {
+    }
+
+    /**
+     * Default Brotli options: quality {@code 4} and window {@code 22}.
+     */
+    public static BrotliOptions brotli() {
+        return BrotliOptions.DEFAULT;
+    }
+
+    /**
+     * Brotli options with the given quality ({@code 0-11}) and window ({@code 10-24}).
+     */
+    public static BrotliOptions brotli(int quality, int window) {
+        return new BrotliOptions(quality, window);
+    }
+
+    /**
+     * Default Zstandard options: level {@code 3}, {@code 64 KiB} blocks and {@code 32 MiB} maximum encode size.
+     */
+    public static ZstdOptions zstd() {
+        return ZstdOptions.DEFAULT;
+    }
+
+    /**
+     * Zstandard options with the given compression level ({@code 0-22}), block size and maximum encode size.
+     */
+    public static ZstdOptions zstd(int compressionLevel, int blockSize, int maxEncodeSize) {
+        return new ZstdOptions(compressionLevel, blockSize, maxEncodeSize);
+    }
+
+    /**
+     * Default Gzip options: level {@code 6}, window bits {@code 15} and memory level {@code 8}.
+     */
+    public static GzipOptions gzip() {
+        return GzipOptions.DEFAULT;
+    }
+
+    /**
+     * Gzip options with the given compression level, window bits and memory level.
+     */
+    public static GzipOptions gzip(int compressionLevel, int windowBits, int memLevel) {
+        return new GzipOptions(compressionLevel, windowBits, memLevel);
+    }
+
+    /**
+     * Default Deflate options: level {@code 6}, window bits {@code 15} and memory level {@code 8}.
+     */
+    public static DeflateOptions deflate() {
+        return DeflateOptions.DEFAULT;
+    }
+
+    /**
+     * Deflate options with the given compression level, window bits and memory level.
+     */
+    public static DeflateOptions deflate(int compressionLevel, int windowBits, int memLevel) {
+        return new DeflateOptions(compressionLevel, windowBits, memLevel);
+    }
+}
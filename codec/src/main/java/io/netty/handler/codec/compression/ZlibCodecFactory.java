@@ -84,6 +84,20 @@ public final class ZlibCodecFactory {
         }
     }
 
+    /**
+     * Creates a new {@link ZlibEncoder} which borrows its compression state from the given {@link JdkZlibPool}
+     * if the JDK implementation is used. The pool is ignored otherwise.
+     */
+    public static ZlibEncoder newZlibEncoder(ZlibWrapper wrapper, int compressionLevel, int windowBits, int memLevel,
+                                             JdkZlibPool pool) {
+        if (PlatformDependent.javaVersion() < 7 || noJdkZlibEncoder ||
+                windowBits != DEFAULT_JDK_WINDOW_SIZE || memLevel != DEFAULT_JDK_MEM_LEVEL) {
+            return new JZlibEncoder(wrapper, compressionLevel, windowBits, memLevel);
+        } else {
+            return new JdkZlibEncoder(wrapper, compressionLevel, pool);
+        }
+    }
+
     public static ZlibEncoder newZlibEncoder(byte[] dictionary) {
         if (PlatformDependent.javaVersion() < 7 || noJdkZlibEncoder) {
             return new JZlibEncoder(dictionary);
@@ -125,6 +139,18 @@ public final class ZlibCodecFactory {
         }
     }
 
+    /**
+     * Creates a new {@link ZlibDecoder} which borrows its decompression state from the given {@link JdkZlibPool}
+     * if the JDK implementation is used. The pool is ignored otherwise.
+     */
+    public static ZlibDecoder newZlibDecoder(ZlibWrapper wrapper, JdkZlibPool pool) {
+        if (PlatformDependent.javaVersion() < 7 || noJdkZlibDecoder) {
+            return new JZlibDecoder(wrapper);
+        } else {
+            return new JdkZlibDecoder(wrapper, true, 0, pool);
+        }
+    }
+
     public static ZlibDecoder newZlibDecoder(byte[] dictionary) {
         if (PlatformDependent.javaVersion() < 7 || noJdkZlibDecoder) {
             return new JZlibDecoder(dictionary);
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.github.luben.zstd.util.Native;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+/**
+ * Tells if the <a href="https://github.com/luben/zstd-jni">zstd-jni</a> library and its native binaries
+ * are available, which is required by {@link ZstdEncoder} and {@link ZstdDecoder}.
+ */
+public final class Zstd {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(Zstd.class);
+    private static final Throwable UNAVAILABILITY_CAUSE;
+
+    static {
+        Throwable cause = null;
+        try {
+            Class.forName("com.github.luben.zstd.Zstd", false, Zstd.class.getClassLoader());
+            Native.load();
+        } catch (Throwable t) {
+            cause = t;
+            logger.debug("Failed to load zstd-jni; Zstandard support will be unavailable.", t);
+        }
+        UNAVAILABILITY_CAUSE = cause;
+    }
+
+    /**
+     * Returns {@code true} if and only if Zstandard compression and decompression are available.
+     */
+    public static boolean isAvailable() {
+        return UNAVAILABILITY_CAUSE == null;
+    }
+
+    /**
+     * Ensures that Zstandard is available.
+     *
+     * @throws Throwable the cause of unavailability
+     */
+    public static void ensureAvailability() throws Throwable {
+        if (UNAVAILABILITY_CAUSE != null) {
+            throw UNAVAILABILITY_CAUSE;
+        }
+    }
+
+    /**
+     * Returns the cause of unavailability, or {@code null} if Zstandard is available.
+     */
+    public static Throwable cause() {
+        return UNAVAILABILITY_CAUSE;
+    }
+
+    private Zstd() {
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.util.internal.ObjectUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Uncompresses a {@link ByteBuf} encoded with the <a href="https://tools.ietf.org/html/rfc8878">Zstandard</a>
+ * format.
+ *
+ * See <a href="https://github.com/luben/zstd-jni">zstd-jni</a>.
+ */
+public final class ZstdDecoder extends ByteToMessageDecoder {
+
+    private final MutableByteBufInputStream inputStream = new MutableByteBufInputStream();
+    private final ZstdDictionary[] dictionaries;
+    private ZstdInputStreamNoFinalizer zstdIs;
+    private boolean dictionarySelected;
+    private boolean corrupted;
+
+    /**
+     * Creates a new decoder which does not use any dictionary.
+     */
+    public ZstdDecoder() {
+        dictionaries = null;
+    }
+
+    /**
+     * Creates a new decoder which uncompresses the stream with the one of the given {@link ZstdDictionary}s
+     * whose ID is declared in the header of the first frame. Frames which do not declare an ID use the raw
+     * content dictionary, if any, and a stream which declares an unknown ID is treated as corrupted.
+     * All the frames of a stream must use the same dictionary.
+     */
+    public ZstdDecoder(ZstdDictionary... dictionaries) {
+        ObjectUtil.checkNonEmpty(dictionaries, "dictionaries");
+        for (ZstdDictionary dictionary : dictionaries) {
+            ObjectUtil.checkNotNull(dictionary, "dictionary");
+        }
+        this.dictionaries = dictionaries.clone();
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        zstdIs = new ZstdInputStreamNoFinalizer(inputStream);
+        // Return what has been decompressed so far instead of failing when a frame spans several reads.
+        zstdIs.setContinuous(true);
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        if (corrupted) {
+            in.skipBytes(in.readableBytes());
+            return;
+        }
+        final int compressedLength = in.readableBytes();
+        if (compressedLength == 0) {
+            return;
+        }
+        if (dictionaries != null && !dictionarySelected) {
+            long dictionaryId = ZstdDictionary.frameDictionaryId(in);
+            if (dictionaryId < 0) {
+                // Wait until the header of the first frame has been received.
+                return;
+            }
+            ZstdDictionary dictionary = dictionary(dictionaryId);
+            if (dictionary != null) {
+                zstdIs.setDict(dictionary.decompressDictionary());
+            }
+            dictionarySelected = true;
+        }
+
+        inputStream.current = in;
+        ByteBuf outBuffer = null;
+        try {
+            int w;
+            do {
+                if (outBuffer == null) {
+                    // Start with twice the compressed length, most reads will not contain a full frame.
+                    outBuffer = ctx.alloc().buffer(compressedLength << 1);
+                }
+                do {
+                    w = outBuffer.writeBytes(zstdIs, outBuffer.writableBytes());
+                } while (w > 0 && outBuffer.isWritable());
+                if (outBuffer.isReadable()) {
+                    out.add(outBuffer);
+                    outBuffer = null;
+                }
+            } while (w > 0);
+        } catch (IOException e) {
+            corrupted = true;
+            throw new DecompressionException(e);
+        } finally {
+            inputStream.current = null;
+            if (outBuffer != null) {
+                outBuffer.release();
+            }
+        }
+    }
+
+    private ZstdDictionary dictionary(long dictionaryId) {
+        for (ZstdDictionary dictionary : dictionaries) {
+            if (dictionary.id() == dictionaryId) {
+                return dictionary;
+            }
+        }
+        if (dictionaryId != 0) {
+            corrupted = true;
+            throw new DecompressionException("unknown dictionary id: " + dictionaryId);
+        }
+        return null;
+    }
+
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+        try {
+            if (zstdIs != null) {
+                zstdIs.close();
+            }
+        } finally {
+            super.handlerRemoved0(ctx);
+        }
+    }
+
+    /**
+     * {@link InputStream} view of the {@link ByteBuf} currently being decoded.
+     */
+    private static final class MutableByteBufInputStream extends InputStream {
+        ByteBuf current;
+
+        @Override
+        public int read() {
+            if (current == null || !current.isReadable()) {
+                return -1;
+            }
+            return current.readByte() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            int available = available();
+            if (available == 0) {
+                return -1;
+            }
+            len = Math.min(available, len);
+            current.readBytes(b, off, len);
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return current == null ? 0 : current.readableBytes();
+        }
+    }
+}
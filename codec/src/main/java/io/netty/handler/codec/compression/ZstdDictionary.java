@@ -0,0 +1,117 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.internal.ObjectUtil;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A Zstandard dictionary shared by the {@link ZstdEncoder}s and {@link ZstdDecoder}s of many channels.
+ * <p>
+ * Dictionaries produced by the Zstandard trainer, see {@link CompressionDictionaryTrainer#trainZstdDictionary(int)},
+ * carry an ID which the encoder writes in the header of every frame, so that the decoder can pick the right one
+ * among several dictionaries. Any other content is used as a raw content dictionary whose ID is {@code 0}.
+ * <p>
+ * The native digested forms of the dictionary are created lazily and cached, so an instance should be reused
+ * instead of creating one per channel.
+ */
+public final class ZstdDictionary {
+
+    private static final int DICTIONARY_MAGIC = 0xEC30A437;
+
+    private final byte[] content;
+    private final long id;
+    private final AtomicReferenceArray<ZstdDictCompress> compressDictionaries =
+            new AtomicReferenceArray<ZstdDictCompress>(ZstdOptions.MAX_COMPRESSION_LEVEL + 1);
+    private volatile ZstdDictDecompress decompressDictionary;
+
+    /**
+     * Creates a new dictionary with the given content.
+     */
+    public ZstdDictionary(byte[] content) {
+        ObjectUtil.checkPositive(ObjectUtil.checkNotNull(content, "content").length, "content.length");
+        this.content = content.clone();
+        id = content.length >= 8 && readIntLE(content, 0) == DICTIONARY_MAGIC ?
+                readIntLE(content, 4) & 0xFFFFFFFFL : 0;
+    }
+
+    /**
+     * Returns the ID of this dictionary, or {@code 0} if it is a raw content dictionary.
+     */
+    public long id() {
+        return id;
+    }
+
+    /**
+     * Returns a copy of the content of this dictionary.
+     */
+    public byte[] content() {
+        return content.clone();
+    }
+
+    ZstdDictCompress compressDictionary(int compressionLevel) {
+        ZstdDictCompress dictionary = compressDictionaries.get(compressionLevel);
+        if (dictionary == null) {
+            dictionary = new ZstdDictCompress(content, compressionLevel);
+            if (!compressDictionaries.compareAndSet(compressionLevel, null, dictionary)) {
+                dictionary = compressDictionaries.get(compressionLevel);
+            }
+        }
+        return dictionary;
+    }
+
+    ZstdDictDecompress decompressDictionary() {
+        ZstdDictDecompress dictionary = decompressDictionary;
+        if (dictionary == null) {
+            // Racing threads may both create one, which is harmless.
+            decompressDictionary = dictionary = new ZstdDictDecompress(content);
+        }
+        return dictionary;
+    }
+
+    /**
+     * Returns the dictionary ID declared in the header of the Zstandard frame starting at the reader index of
+     * the given buffer, {@code 0} if the frame does not declare one, or {@code -1} if the header is incomplete.
+     */
+    static long frameDictionaryId(ByteBuf in) {
+        int index = in.readerIndex();
+        if (in.readableBytes() < 5) {
+            return -1;
+        }
+        int descriptor = in.getUnsignedByte(index + 4);
+        boolean singleSegment = (descriptor & 0x20) != 0;
+        int idOffset = index + 5 + (singleSegment ? 0 : 1);
+        switch (descriptor & 0x03) {
+            case 0:
+                return 0;
+            case 1:
+                return in.writerIndex() >= idOffset + 1 ? in.getUnsignedByte(idOffset) : -1;
+            case 2:
+                return in.writerIndex() >= idOffset + 2 ? in.getUnsignedShortLE(idOffset) : -1;
+            default:
+                return in.writerIndex() >= idOffset + 4 ? in.getUnsignedIntLE(idOffset) : -1;
+        }
+    }
+
+    private static int readIntLE(byte[] bytes, int index) {
+        return bytes[index] & 0xff | (bytes[index + 1] & 0xff) << 8 |
+                (bytes[index + 2] & 0xff) << 16 | (bytes[index + 3] & 0xff) << 24;
+    }
+}
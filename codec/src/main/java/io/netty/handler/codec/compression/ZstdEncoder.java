@@ -0,0 +1,158 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.EncoderException;
+import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.internal.ObjectUtil;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compresses a {@link ByteBuf} using the <a href="https://tools.ietf.org/html/rfc8878">Zstandard</a> format.
+ *
+ * Written data is buffered in a direct block of {@link ZstdOptions#blockSize()} bytes which is compressed
+ * into a self contained Zstandard frame once it is full or when the channel is flushed. A sequence of
+ * frames is itself a valid Zstandard stream, so no trailer has to be written when the channel is closed.
+ *
+ * See <a href="https://github.com/luben/zstd-jni">zstd-jni</a>.
+ */
+public final class ZstdEncoder extends MessageToByteEncoder<ByteBuf> {
+
+    private final int compressionLevel;
+    private final int blockSize;
+    private final int maxEncodeSize;
+    private final ZstdDictionary dictionary;
+    private ByteBuf buffer;
+
+    /**
+     * Creates a new encoder with the default {@link ZstdOptions}.
+     */
+    public ZstdEncoder() {
+        this(StandardCompressionOptions.zstd());
+    }
+
+    /**
+     * Creates a new encoder with the given {@link ZstdOptions}.
+     */
+    public ZstdEncoder(ZstdOptions options) {
+        this(options, null);
+    }
+
+    /**
+     * Creates a new encoder with the given {@link ZstdOptions} which compresses every frame with the given
+     * {@link ZstdDictionary}, or without a dictionary if {@code null}. The ID of the dictionary is written in
+     * the frame headers, so the peer needs a {@link ZstdDecoder} which knows the same dictionary.
+     */
+    public ZstdEncoder(ZstdOptions options, ZstdDictionary dictionary) {
+        super(true);
+        ObjectUtil.checkNotNull(options, "options");
+        compressionLevel = options.compressionLevel();
+        blockSize = options.blockSize();
+        maxEncodeSize = options.maxEncodeSize();
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, ByteBuf msg, boolean preferDirect) {
+        if (buffer == null) {
+            throw new IllegalStateException("not added to a pipeline, or has been removed");
+        }
+        // Only whole blocks are compressed by encode(...), the remainder stays buffered until the next flush.
+        int remaining = msg.readableBytes() + buffer.readableBytes();
+        if (remaining < 0) {
+            throw new EncoderException("too much data to allocate a buffer for compression");
+        }
+        return allocateBuffer(ctx, remaining - remaining % blockSize);
+    }
+
+    private ByteBuf allocateBuffer(ChannelHandlerContext ctx, int length) {
+        long bufferSize = 0;
+        while (length > 0) {
+            int curSize = Math.min(blockSize, length);
+            length -= curSize;
+            bufferSize += com.github.luben.zstd.Zstd.compressBound(curSize);
+        }
+        if (bufferSize > maxEncodeSize) {
+            throw new EncoderException("requested encode buffer size (" + bufferSize +
+                    " bytes) exceeds the maximum allowable size (" + maxEncodeSize + " bytes)");
+        }
+        // Zstd-jni only compresses between direct buffers.
+        return ctx.alloc().directBuffer((int) bufferSize);
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out) {
+        final ByteBuf buffer = this.buffer;
+        int length;
+        while ((length = in.readableBytes()) > 0) {
+            in.readBytes(buffer, Math.min(length, buffer.writableBytes()));
+            if (!buffer.isWritable()) {
+                flushBufferedData(out);
+            }
+        }
+    }
+
+    private void flushBufferedData(ByteBuf out) {
+        final int flushableBytes = buffer.readableBytes();
+        if (flushableBytes == 0) {
+            return;
+        }
+        out.ensureWritable((int) com.github.luben.zstd.Zstd.compressBound(flushableBytes));
+        final int idx = out.writerIndex();
+        final int compressedLength;
+        try {
+            ByteBuffer outNioBuffer = out.internalNioBuffer(idx, out.writableBytes());
+            ByteBuffer inNioBuffer = buffer.internalNioBuffer(buffer.readerIndex(), flushableBytes);
+            compressedLength = dictionary == null ?
+                    com.github.luben.zstd.Zstd.compress(outNioBuffer, inNioBuffer, compressionLevel) :
+                    com.github.luben.zstd.Zstd.compress(outNioBuffer, inNioBuffer,
+                            dictionary.compressDictionary(compressionLevel));
+        } catch (Exception e) {
+            throw new CompressionException(e);
+        }
+        out.writerIndex(idx + compressedLength);
+        buffer.clear();
+    }
+
+    @Override
+    public void flush(final ChannelHandlerContext ctx) {
+        if (buffer != null && buffer.isReadable()) {
+            final ByteBuf buf = allocateBuffer(ctx, Unpooled.EMPTY_BUFFER, isPreferDirect());
+            flushBufferedData(buf);
+            ctx.write(buf);
+        }
+        ctx.flush();
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        buffer = ctx.alloc().directBuffer(blockSize);
+        buffer.clear();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        super.handlerRemoved(ctx);
+        if (buffer != null) {
+            buffer.release();
+            buffer = null;
+        }
+    }
+}
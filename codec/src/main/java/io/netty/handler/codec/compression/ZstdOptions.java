@@ -0,0 +1,63 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import static io.netty.util.internal.ObjectUtil.checkInRange;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+
+/**
+ * {@link CompressionOptions} for the Zstandard compression algorithm.
+ */
+public final class ZstdOptions implements CompressionOptions {
+
+    static final int DEFAULT_COMPRESSION_LEVEL = 3;
+    static final int MAX_COMPRESSION_LEVEL = 22;
+    static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+    static final int MAX_BLOCK_SIZE = 1 << 25;
+
+    static final ZstdOptions DEFAULT = new ZstdOptions(DEFAULT_COMPRESSION_LEVEL, DEFAULT_BLOCK_SIZE, MAX_BLOCK_SIZE);
+
+    private final int compressionLevel;
+    private final int blockSize;
+    private final int maxEncodeSize;
+
+    ZstdOptions(int compressionLevel, int blockSize, int maxEncodeSize) {
+        this.compressionLevel = checkInRange(compressionLevel, 0, MAX_COMPRESSION_LEVEL, "compressionLevel");
+        this.blockSize = checkPositive(blockSize, "blockSize");
+        this.maxEncodeSize = checkPositive(maxEncodeSize, "maxEncodeSize");
+    }
+
+    /**
+     * Returns the compression level, from {@code 0} (library default) to {@code 22} (best compression).
+     */
+    public int compressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Returns the number of bytes buffered before a Zstandard frame is emitted.
+     */
+    public int blockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Returns the maximum size of a single output buffer produced by the encoder.
+     */
+    public int maxEncodeSize() {
+        return maxEncodeSize;
+    }
+}
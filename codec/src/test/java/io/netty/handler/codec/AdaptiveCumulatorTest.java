@@ -0,0 +1,173 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveCumulatorTest {
+
+    private static final int THRESHOLD = 1024;
+
+    @Test
+    public void testSmallFramesAreMerged() {
+        LengthFieldBasedFrameDecoder decoder = newDecoder(new AdaptiveCumulator(THRESHOLD));
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+        ByteBuf frames = frames(64, 100);
+        while (frames.isReadable()) {
+            channel.writeInbound(frames.readRetainedSlice(Math.min(frames.readableBytes(), 150)));
+            assertFalse(decoder.internalBuffer() instanceof CompositeByteBuf);
+        }
+        frames.release();
+        assertFrames(channel, 64, 100);
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testLargeFramesAreComposite() {
+        AdaptiveCumulator cumulator = new AdaptiveCumulator(THRESHOLD);
+        LengthFieldBasedFrameDecoder decoder = newDecoder(cumulator);
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+
+        writeInChunks(channel, frames(1, 4096), 256);
+        assertFrames(channel, 1, 4096);
+
+        // As the decoder has seen a large frame the next one is cumulated without copies right away.
+        ByteBuf frame = frames(1, 4096);
+        channel.writeInbound(frame.readRetainedSlice(256));
+        assertTrue(cumulator.frameLengthEstimate() >= THRESHOLD);
+        channel.writeInbound(frame.readRetainedSlice(256));
+        assertTrue(decoder.internalBuffer() instanceof CompositeByteBuf);
+        writeInChunks(channel, frame, 256);
+        assertFrames(channel, 1, 4096);
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testSwitchesToCompositeWhileCumulating() {
+        LengthFieldBasedFrameDecoder decoder = newDecoder(new AdaptiveCumulator(THRESHOLD));
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+        ByteBuf frame = frames(1, 4096);
+        channel.writeInbound(frame.readRetainedSlice(512));
+        channel.writeInbound(frame.readRetainedSlice(256));
+        assertFalse(decoder.internalBuffer() instanceof CompositeByteBuf);
+        channel.writeInbound(frame.readRetainedSlice(256));
+        assertTrue(decoder.internalBuffer() instanceof CompositeByteBuf);
+        writeInChunks(channel, frame, 256);
+        assertFrames(channel, 1, 4096);
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testSwitchesBackToMerge() {
+        AdaptiveCumulator cumulator = new AdaptiveCumulator(THRESHOLD);
+        LengthFieldBasedFrameDecoder decoder = newDecoder(cumulator);
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+        writeInChunks(channel, frames(2, 4096), 256);
+        assertFrames(channel, 2, 4096);
+
+        writeInChunks(channel, frames(200, 10), 50);
+        assertFrames(channel, 200, 10);
+        assertTrue(cumulator.frameLengthEstimate() < THRESHOLD);
+
+        ByteBuf frames = frames(2, 10);
+        channel.writeInbound(frames.readRetainedSlice(5));
+        channel.writeInbound(frames.readRetainedSlice(5));
+        assertFalse(decoder.internalBuffer() instanceof CompositeByteBuf);
+        writeInChunks(channel, frames, 5);
+        assertFrames(channel, 2, 10);
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testDiscardsReadBytesInsteadOfExpanding() {
+        AdaptiveCumulator cumulator = new AdaptiveCumulator(THRESHOLD);
+        ByteBuf cumulation = Unpooled.buffer(16, 16).writeZero(16);
+        cumulation.skipBytes(14);
+        ByteBuf in = Unpooled.buffer(8).writeZero(8);
+        ByteBuf newCumulation = cumulator.cumulate(UnpooledByteBufAllocator.DEFAULT, cumulation, in);
+        assertSame(cumulation, newCumulation);
+        assertEquals(0, newCumulation.readerIndex());
+        assertEquals(10, newCumulation.readableBytes());
+        assertEquals(0, in.refCnt());
+        newCumulation.release();
+    }
+
+    @Test
+    public void testExpandsToFrameLengthEstimate() {
+        AdaptiveCumulator cumulator = new AdaptiveCumulator(THRESHOLD);
+        ByteBuf cumulation = cumulator.cumulate(UnpooledByteBufAllocator.DEFAULT, Unpooled.EMPTY_BUFFER,
+                Unpooled.buffer(600).writeZero(600));
+        // The decoder consumes a frame of 500 bytes.
+        cumulation.skipBytes(500);
+        cumulation = cumulator.cumulate(UnpooledByteBufAllocator.DEFAULT, cumulation,
+                Unpooled.buffer(100).writeZero(100));
+        assertEquals(500, cumulator.frameLengthEstimate());
+
+        ByteBuf in = Unpooled.buffer(100).writeZero(100);
+        // Make sure the received bytes do not fit into the cumulation.
+        cumulation = cumulation.capacity(cumulation.writerIndex());
+        ByteBuf newCumulation = cumulator.cumulate(UnpooledByteBufAllocator.DEFAULT, cumulation, in);
+        assertEquals(300, newCumulation.readableBytes());
+        assertTrue(newCumulation.capacity() >= 500);
+        assertEquals(0, in.refCnt());
+        newCumulation.release();
+    }
+
+    private static LengthFieldBasedFrameDecoder newDecoder(AdaptiveCumulator cumulator) {
+        LengthFieldBasedFrameDecoder decoder = new LengthFieldBasedFrameDecoder(Integer.MAX_VALUE, 0, 4, 0, 4);
+        decoder.setCumulator(cumulator);
+        return decoder;
+    }
+
+    private static ByteBuf frames(int count, int length) {
+        ByteBuf buf = Unpooled.buffer(count * (length + 4));
+        for (int i = 0; i < count; i++) {
+            buf.writeInt(length);
+            for (int j = 0; j < length; j++) {
+                buf.writeByte(i + j);
+            }
+        }
+        return buf;
+    }
+
+    private static void writeInChunks(EmbeddedChannel channel, ByteBuf buf, int chunkSize) {
+        while (buf.isReadable()) {
+            channel.writeInbound(buf.readRetainedSlice(Math.min(buf.readableBytes(), chunkSize)));
+        }
+        buf.release();
+    }
+
+    private static void assertFrames(EmbeddedChannel channel, int count, int length) {
+        for (int i = 0; i < count; i++) {
+            ByteBuf frame = channel.readInbound();
+            assertEquals(length, frame.readableBytes());
+            for (int j = 0; j < length; j++) {
+                assertEquals((byte) (i + j), frame.readByte());
+            }
+            frame.release();
+        }
+    }
+}
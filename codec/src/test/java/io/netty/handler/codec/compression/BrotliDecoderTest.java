@@ -0,0 +1,105 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+public class BrotliDecoderTest extends AbstractDecoderTest {
+
+    public BrotliDecoderTest() throws Exception {
+    }
+
+    @BeforeClass
+    public static void checkBrotli() {
+        assumeTrue(Brotli.isAvailable());
+    }
+
+    @Override
+    public void initChannel() {
+        channel = new EmbeddedChannel(new BrotliDecoder());
+    }
+
+    @Override
+    protected byte[] compress(byte[] data) throws Exception {
+        return Encoder.compress(data);
+    }
+
+    @Test
+    public void testDecompressionOfStreamSpanningSeveralReads() throws Exception {
+        channel.finishAndReleaseAll();
+        // Tiny input buffer, so every read is pushed to the native decoder in several steps.
+        channel = new EmbeddedChannel(new BrotliDecoder(16));
+        for (byte b : compressedBytesLarge) {
+            channel.writeInbound(Unpooled.wrappedBuffer(new byte[] { b }));
+        }
+        ByteBuf decompressed = readDecompressed(channel);
+        assertEquals(WRAPPED_BYTES_LARGE, decompressed);
+        decompressed.release();
+    }
+
+    @Test
+    public void testCorruptedInput() throws Exception {
+        // 0x11 is a reserved window size.
+        ByteBuf corrupted = Unpooled.wrappedBuffer(new byte[] { 0x11, 0, 0, 0, 0, 0, 0, 0 });
+        try {
+            channel.writeInbound(corrupted);
+            fail();
+        } catch (DecompressionException expected) {
+            // expected
+        }
+
+        // Everything received after the corruption is discarded.
+        ByteBuf valid = Unpooled.wrappedBuffer(compressedBytesSmall);
+        assertFalse(channel.writeInbound(valid));
+        assertEquals(0, valid.refCnt());
+        assertNull(channel.readInbound());
+    }
+
+    @Test
+    public void testDataAfterEndOfStreamIsDiscarded() throws Exception {
+        ByteBuf trailing = Unpooled.wrappedBuffer(BYTES_SMALL);
+        channel.writeInbound(Unpooled.wrappedBuffer(compressedBytesSmall), trailing);
+        assertEquals(0, trailing.refCnt());
+
+        ByteBuf decompressed = readDecompressed(channel);
+        assertEquals(WRAPPED_BYTES_SMALL, decompressed);
+        decompressed.release();
+    }
+
+    @Test
+    public void testHandlerRemovedAfterChannelInactive() throws Exception {
+        BrotliDecoder decoder = new BrotliDecoder();
+        EmbeddedChannel ch = new EmbeddedChannel(decoder);
+        ByteBuf partial = Unpooled.wrappedBuffer(compressedBytesLarge, 0, compressedBytesLarge.length / 2);
+        ch.writeInbound(partial);
+        assertEquals(0, partial.refCnt());
+        ch.releaseInbound();
+
+        // channelInactive and handlerRemoved both release the native decoder, which must only be destroyed once.
+        assertFalse(ch.finish());
+    }
+}
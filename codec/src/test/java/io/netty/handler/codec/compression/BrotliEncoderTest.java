@@ -0,0 +1,122 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.aayushatharva.brotli4j.decoder.BrotliInputStream;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class BrotliEncoderTest extends AbstractEncoderTest {
+
+    @BeforeClass
+    public static void checkBrotli() {
+        assumeTrue(Brotli.isAvailable());
+    }
+
+    @Override
+    public void initChannel() {
+        channel = new EmbeddedChannel(new BrotliEncoder());
+    }
+
+    @Override
+    protected ByteBuf decompress(ByteBuf compressed, int originalLength) throws Exception {
+        InputStream is = new ByteBufInputStream(compressed, true);
+        BrotliInputStream brotliIs = null;
+        byte[] decompressed = new byte[originalLength];
+        try {
+            brotliIs = new BrotliInputStream(is);
+            int remaining = originalLength;
+            while (remaining > 0) {
+                int read = brotliIs.read(decompressed, originalLength - remaining, remaining);
+                if (read > 0) {
+                    remaining -= read;
+                } else {
+                    break;
+                }
+            }
+            assertEquals(-1, brotliIs.read());
+        } finally {
+            if (brotliIs != null) {
+                brotliIs.close();
+            } else {
+                is.close();
+            }
+        }
+
+        return Unpooled.wrappedBuffer(decompressed);
+    }
+
+    @Test
+    public void testDataWrittenAfterCloseIsNotCompressed() throws Exception {
+        BrotliEncoder encoder = channel.pipeline().get(BrotliEncoder.class);
+        assertTrue(channel.writeOutbound(Unpooled.wrappedBuffer(BYTES_SMALL)));
+        assertTrue(encoder.close().isSuccess());
+        assertTrue(encoder.isClosed());
+
+        ByteBuf decompressed = readDecompressed(BYTES_SMALL.length);
+        assertEquals(Unpooled.wrappedBuffer(BYTES_SMALL), decompressed);
+        decompressed.release();
+
+        ByteBuf raw = Unpooled.wrappedBuffer(BYTES_SMALL);
+        assertTrue(channel.writeOutbound(raw.retain()));
+        ByteBuf passedThrough = channel.readOutbound();
+        assertEquals(raw, passedThrough);
+        passedThrough.release();
+        raw.release();
+    }
+
+    @Test
+    public void testHandlerRemovedClosesEncoder() {
+        BrotliEncoder encoder = new BrotliEncoder();
+        EmbeddedChannel ch = new EmbeddedChannel(encoder);
+        assertTrue(ch.writeOutbound(Unpooled.wrappedBuffer(BYTES_SMALL)));
+        ch.releaseOutbound();
+
+        ch.pipeline().remove(encoder);
+        assertTrue(encoder.isClosed());
+        // The stream is not finished, no footer is written.
+        assertFalse(ch.finish());
+        assertNull(ch.readOutbound());
+    }
+
+    @Test
+    public void testCloseTimeout() {
+        BrotliEncoder encoder = new BrotliEncoder();
+        assertEquals(10000, encoder.getCloseTimeoutMillis());
+        encoder.setCloseTimeout(1, TimeUnit.SECONDS);
+        assertEquals(1000, encoder.getCloseTimeoutMillis());
+        encoder.setCloseTimeoutMillis(0);
+        assertEquals(0, encoder.getCloseTimeoutMillis());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeCloseTimeout() {
+        new BrotliEncoder().setCloseTimeoutMillis(-1);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CompressionDictionaryTrainerTest {
+
+    private static final Random RANDOM = new Random(42);
+
+    private static ByteBuf message(String service) {
+        return Unpooled.copiedBuffer("{\"jsonrpc\":\"2.0\",\"method\":\"" + service + ".getAccount\",\"params\":" +
+                "{\"accountId\":" + RANDOM.nextInt(1000000) + ",\"includeBalances\":true,\"currency\":\"EUR\"}," +
+                "\"id\":" + RANDOM.nextInt(1000) + '}', CharsetUtil.US_ASCII);
+    }
+
+    @Test
+    public void testSampleIsBounded() {
+        CompressionDictionaryTrainer trainer = new CompressionDictionaryTrainer(1024, 64);
+        for (int i = 0; i < 1000; i++) {
+            ByteBuf msg = message("accounts");
+            int readerIndex = msg.readerIndex();
+            trainer.addSample(msg);
+            assertEquals(readerIndex, msg.readerIndex());
+            msg.release();
+        }
+        assertEquals(16, trainer.sampleCount());
+        assertEquals(1024, trainer.sampleBytes());
+
+        trainer.clear();
+        assertEquals(0, trainer.sampleCount());
+        assertEquals(0, trainer.sampleBytes());
+    }
+
+    @Test
+    public void testEmptySampleIsIgnored() {
+        CompressionDictionaryTrainer trainer = new CompressionDictionaryTrainer(1024);
+        assertFalse(trainer.addSample(Unpooled.EMPTY_BUFFER));
+        assertEquals(0, trainer.sampleCount());
+    }
+
+    @Test
+    public void testZlibDictionary() {
+        CompressionDictionaryTrainer trainer = new CompressionDictionaryTrainer(64 * 1024);
+        for (int i = 0; i < 500; i++) {
+            ByteBuf msg = message("accounts");
+            trainer.addSample(msg);
+            msg.release();
+        }
+        byte[] dictionary = trainer.trainZlibDictionary(1024);
+        assertTrue(dictionary.length > 0);
+        assertTrue(dictionary.length <= 1024);
+        assertTrue(new String(dictionary, CharsetUtil.US_ASCII).contains("includeBalances"));
+
+        ByteBuf msg = message("accounts");
+        int withoutDictionary = compressedSize(new JdkZlibEncoder(), msg.retainedDuplicate());
+        int withDictionary = compressedSize(new JdkZlibEncoder(dictionary), msg);
+        assertTrue(withDictionary + " >= " + withoutDictionary, withDictionary < withoutDictionary);
+    }
+
+    @Test
+    public void testZlibDictionaryIsCapped() {
+        CompressionDictionaryTrainer trainer = new CompressionDictionaryTrainer(1024 * 1024);
+        for (int i = 0; i < 5000; i++) {
+            ByteBuf msg = message("service" + i);
+            trainer.addSample(msg);
+            msg.release();
+        }
+        assertTrue(trainer.trainZlibDictionary(Integer.MAX_VALUE).length <=
+                CompressionDictionaryTrainer.MAX_ZLIB_DICTIONARY_SIZE);
+    }
+
+    @Test
+    public void testZlibDecoderSelectsDictionary() {
+        byte[] accounts =
+                "\"method\":\"accounts.getAccount\",\"params\":{\"accountId\":".getBytes(CharsetUtil.US_ASCII);
+        byte[] orders = "\"method\":\"orders.getOrder\",\"params\":{\"orderId\":".getBytes(CharsetUtil.US_ASCII);
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new JdkZlibDecoder(0, accounts, orders));
+        assertRoundTrip(new JdkZlibEncoder(orders), decoder, message("orders"));
+        assertFalse(decoder.finish());
+
+        decoder = new EmbeddedChannel(new JdkZlibDecoder(0, accounts, orders));
+        assertRoundTrip(new JdkZlibEncoder(accounts), decoder, message("accounts"));
+        assertFalse(decoder.finish());
+    }
+
+    @Test(expected = DecompressionException.class)
+    public void testZlibDecoderUnknownDictionary() {
+        EmbeddedChannel encoder = new EmbeddedChannel(new JdkZlibEncoder(new byte[] { 1, 2, 3 }));
+        assertTrue(encoder.writeOutbound(message("accounts")));
+        assertTrue(encoder.finish());
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new JdkZlibDecoder(0, new byte[] { 4, 5, 6 }));
+        try {
+            ByteBuf compressed;
+            while ((compressed = encoder.readOutbound()) != null) {
+                decoder.writeInbound(compressed);
+            }
+        } finally {
+            encoder.finishAndReleaseAll();
+            decoder.finishAndReleaseAll();
+        }
+    }
+
+    private static void assertRoundTrip(ZlibEncoder zlibEncoder, EmbeddedChannel decoder, ByteBuf msg) {
+        EmbeddedChannel encoder = new EmbeddedChannel(zlibEncoder);
+        assertTrue(encoder.writeOutbound(msg.retainedDuplicate()));
+        assertTrue(encoder.finish());
+        ByteBuf compressed;
+        while ((compressed = encoder.readOutbound()) != null) {
+            decoder.writeInbound(compressed);
+        }
+        ByteBuf decompressed = Unpooled.buffer();
+        ByteBuf buf;
+        while ((buf = decoder.readInbound()) != null) {
+            decompressed.writeBytes(buf);
+            buf.release();
+        }
+        assertEquals(msg, decompressed);
+        msg.release();
+        decompressed.release();
+    }
+
+    private static int compressedSize(ZlibEncoder zlibEncoder, ByteBuf msg) {
+        EmbeddedChannel encoder = new EmbeddedChannel(zlibEncoder);
+        assertTrue(encoder.writeOutbound(msg));
+        assertTrue(encoder.finish());
+        int size = 0;
+        ByteBuf compressed;
+        while ((compressed = encoder.readOutbound()) != null) {
+            size += compressed.readableBytes();
+            compressed.release();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static org.junit.Assert.*;
+
+public class JdkZlibPoolTest extends ZlibTest {
+
+    private final JdkZlibPool pool = new JdkZlibPool(2);
+
+    @Override
+    protected ZlibEncoder createEncoder(ZlibWrapper wrapper) {
+        return new JdkZlibEncoder(wrapper, 6, pool);
+    }
+
+    @Override
+    protected ZlibDecoder createDecoder(ZlibWrapper wrapper, int maxAllocation) {
+        return new JdkZlibDecoder(wrapper, false, maxAllocation, pool);
+    }
+
+    @Test(expected = DecompressionException.class)
+    @Override
+    public void testZLIB_OR_NONE3() throws Exception {
+        super.testZLIB_OR_NONE3();
+    }
+
+    @Test
+    public void testStreamsReuseContexts() {
+        for (int i = 0; i < 3; i++) {
+            EmbeddedChannel encoder = new EmbeddedChannel(createEncoder(ZlibWrapper.GZIP));
+            EmbeddedChannel decoder = new EmbeddedChannel(createDecoder(ZlibWrapper.GZIP, 0));
+            try {
+                assertTrue(encoder.writeOutbound(Unpooled.copiedBuffer("netty " + i, CharsetUtil.US_ASCII)));
+                assertTrue(encoder.finish());
+                for (;;) {
+                    ByteBuf compressed = encoder.readOutbound();
+                    if (compressed == null) {
+                        break;
+                    }
+                    decoder.writeInbound(compressed);
+                }
+                ByteBuf decompressed = decoder.readInbound();
+                assertEquals("netty " + i, decompressed.toString(CharsetUtil.US_ASCII));
+                decompressed.release();
+                assertFalse(decoder.finish());
+            } finally {
+                encoder.finishAndReleaseAll();
+                decoder.finishAndReleaseAll();
+            }
+        }
+
+        assertEquals(3, pool.numAcquiredDeflaters());
+        assertEquals(1, pool.numAllocatedDeflaters());
+        assertEquals(1, pool.numPooledDeflaters());
+        assertEquals(3, pool.numAcquiredInflaters());
+        assertEquals(1, pool.numAllocatedInflaters());
+        assertEquals(1, pool.numPooledInflaters());
+    }
+
+    @Test
+    public void testRemovedEncoderReleasesContext() {
+        EmbeddedChannel encoder = new EmbeddedChannel(createEncoder(ZlibWrapper.ZLIB));
+        assertTrue(encoder.writeOutbound(Unpooled.copiedBuffer("netty", CharsetUtil.US_ASCII)));
+        assertEquals(0, pool.numPooledDeflaters());
+
+        encoder.pipeline().removeFirst();
+        assertEquals(1, pool.numPooledDeflaters());
+        assertTrue(encoder.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testContextsAreKeyedByConfiguration() {
+        Deflater deflater = pool.acquireDeflater(6, true);
+        pool.releaseDeflater(deflater, 6, true);
+
+        assertNotSame(deflater, pool.acquireDeflater(6, false));
+        assertNotSame(deflater, pool.acquireDeflater(1, true));
+        assertSame(deflater, pool.acquireDeflater(6, true));
+
+        Inflater inflater = pool.acquireInflater(false);
+        pool.releaseInflater(inflater, false);
+        assertNotSame(inflater, pool.acquireInflater(true));
+        assertSame(inflater, pool.acquireInflater(false));
+    }
+
+    @Test
+    public void testPoolIsBounded() {
+        Deflater[] deflaters = new Deflater[3];
+        for (int i = 0; i < deflaters.length; i++) {
+            deflaters[i] = pool.acquireDeflater(6, false);
+        }
+        for (Deflater deflater : deflaters) {
+            pool.releaseDeflater(deflater, 6, false);
+        }
+        assertEquals(pool.maxPooledPerThread(), pool.numPooledDeflaters());
+        assertEquals(3, pool.numAllocatedDeflaters());
+    }
+
+    @Test
+    public void testDisabledPool() {
+        JdkZlibPool pool = new JdkZlibPool(0);
+        Inflater inflater = pool.acquireInflater(true);
+        pool.releaseInflater(inflater, true);
+        assertNotSame(inflater, pool.acquireInflater(true));
+        assertEquals(0, pool.numPooledInflaters());
+        assertEquals(2, pool.numAllocatedInflaters());
+    }
+}
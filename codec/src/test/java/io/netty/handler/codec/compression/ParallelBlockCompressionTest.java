@@ -0,0 +1,192 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.ning.compress.lzf.LZFChunk;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import net.jpountz.lz4.LZ4Factory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static io.netty.handler.codec.compression.Lz4Constants.DEFAULT_SEED;
+import static org.junit.Assert.*;
+
+public class ParallelBlockCompressionTest {
+
+    /**
+     * Runs the submitted tasks on demand, the most recent first.
+     */
+    private static final class ReversedExecutor implements Executor {
+        private final List<Runnable> tasks = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        int runAll(EmbeddedChannel channel) {
+            int ran = 0;
+            while (!tasks.isEmpty()) {
+                tasks.remove(tasks.size() - 1).run();
+                ran++;
+            }
+            channel.runPendingTasks();
+            return ran;
+        }
+    }
+
+    private static byte[] data(int length) {
+        Random random = new Random(length);
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            // Compressible, with some runs.
+            data[i] = (byte) ('a' + (random.nextInt(8) == 0 ? 0 : random.nextInt(16)));
+        }
+        return data;
+    }
+
+    private static Lz4FrameEncoder newLz4FrameEncoder(int blockSize, Executor executor) {
+        return new Lz4FrameEncoder(LZ4Factory.fastestInstance(), false, blockSize, new Lz4XXHash32(DEFAULT_SEED),
+                Lz4FrameEncoder.DEFAULT_MAX_ENCODE_SIZE, executor);
+    }
+
+    @Test
+    public void testBzip2OutOfOrderCompletion() {
+        ReversedExecutor executor = new ReversedExecutor();
+        testOutOfOrderCompletion(new Bzip2Encoder(1, executor), executor, new Bzip2Decoder(), 350000);
+    }
+
+    @Test
+    public void testLz4OutOfOrderCompletion() {
+        ReversedExecutor executor = new ReversedExecutor();
+        testOutOfOrderCompletion(newLz4FrameEncoder(1 << 12, executor), executor, new Lz4FrameDecoder(true),
+                100000);
+    }
+
+    @Test
+    public void testLzfOutOfOrderCompletion() {
+        ReversedExecutor executor = new ReversedExecutor();
+        testOutOfOrderCompletion(new LzfEncoder(false, LZFChunk.MAX_CHUNK_LEN, 16, executor), executor,
+                new LzfDecoder(), 3000000);
+    }
+
+    private static void testOutOfOrderCompletion(ChannelHandler encoder, ReversedExecutor executor,
+                                                 ChannelHandler decoder, int length) {
+        byte[] data = data(length);
+        EmbeddedChannel channel = new EmbeddedChannel(encoder);
+        for (int offset = 0; offset < length; offset += 30000) {
+            channel.writeOutbound(Unpooled.wrappedBuffer(data, offset, Math.min(30000, length - offset)));
+        }
+        channel.close();
+        // Closing waits for the blocks which are not compressed yet.
+        assertTrue(channel.isOpen());
+        assertTrue(executor.runAll(channel) > 1);
+        assertFalse(channel.isOpen());
+
+        assertArrayEquals(data, decompress(channel, decoder));
+    }
+
+    @Test
+    public void testBzip2WithThreadPool() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            byte[] data = data(1000000);
+            EmbeddedChannel channel = new EmbeddedChannel(new Bzip2Encoder(1, executor));
+            channel.writeOutbound(Unpooled.wrappedBuffer(data));
+            ChannelFuture closeFuture = channel.close();
+            while (!closeFuture.isDone()) {
+                Thread.sleep(1);
+                channel.runPendingTasks();
+            }
+            assertTrue(closeFuture.isSuccess());
+
+            assertArrayEquals(data, decompress(channel, new Bzip2Decoder()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPendingBlocksUpdateWritability() {
+        ReversedExecutor executor = new ReversedExecutor();
+        EmbeddedChannel channel = new EmbeddedChannel(newLz4FrameEncoder(1 << 16, executor));
+        int highWaterMark = channel.config().getWriteBufferHighWaterMark();
+        byte[] data = data(highWaterMark * 2);
+        channel.writeOutbound(Unpooled.wrappedBuffer(data));
+        assertFalse(channel.isWritable());
+        assertEquals(0, readOutboundBytes(channel));
+
+        executor.runAll(channel);
+        assertTrue(channel.isWritable());
+        assertTrue(readOutboundBytes(channel) > 0);
+        channel.finishAndReleaseAll();
+    }
+
+    private static int readOutboundBytes(EmbeddedChannel channel) {
+        int bytes = 0;
+        ByteBuf buf;
+        while ((buf = channel.readOutbound()) != null) {
+            bytes += buf.readableBytes();
+            buf.release();
+        }
+        return bytes;
+    }
+
+    @Test(expected = CompressionException.class)
+    public void testRejectedExecution() {
+        EmbeddedChannel channel = new EmbeddedChannel(newLz4FrameEncoder(1 << 12, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        }));
+        try {
+            channel.writeOutbound(Unpooled.wrappedBuffer(data(1 << 12)));
+        } finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    private static byte[] decompress(EmbeddedChannel channel, ChannelHandler decoder) {
+        EmbeddedChannel decoderChannel = new EmbeddedChannel(decoder);
+        ByteBuf compressed;
+        while ((compressed = channel.readOutbound()) != null) {
+            decoderChannel.writeInbound(compressed);
+        }
+        CompositeByteBuf decompressed = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+        ByteBuf msg;
+        while ((msg = decoderChannel.readInbound()) != null) {
+            decompressed.addComponent(true, msg);
+        }
+        assertFalse(decoderChannel.finish());
+        byte[] bytes = new byte[decompressed.readableBytes()];
+        decompressed.readBytes(bytes);
+        decompressed.release();
+        return bytes;
+    }
+}
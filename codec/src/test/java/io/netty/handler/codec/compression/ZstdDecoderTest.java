@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+public class ZstdDecoderTest extends AbstractDecoderTest {
+
+    public ZstdDecoderTest() throws Exception {
+    }
+
+    @BeforeClass
+    public static void checkZstd() {
+        assumeTrue(Zstd.isAvailable());
+    }
+
+    @Override
+    public void initChannel() {
+        channel = new EmbeddedChannel(new ZstdDecoder());
+    }
+
+    @Override
+    protected byte[] compress(byte[] data) throws Exception {
+        return com.github.luben.zstd.Zstd.compress(data);
+    }
+
+    @Test
+    public void testDecompressionOfFramesSpanningSeveralReads() throws Exception {
+        // Two frames written one byte at a time.
+        byte[] compressed = concat(compressedBytesSmall, compressedBytesSmall);
+        for (byte b : compressed) {
+            channel.writeInbound(Unpooled.wrappedBuffer(new byte[] { b }));
+        }
+        ByteBuf decompressed = readDecompressed(channel);
+        assertEquals(Unpooled.wrappedBuffer(concat(BYTES_SMALL, BYTES_SMALL)), decompressed);
+        decompressed.release();
+    }
+
+    @Test
+    public void testCorruptedInput() throws Exception {
+        ByteBuf corrupted = Unpooled.copiedBuffer("not a zstandard frame", CharsetUtil.US_ASCII);
+        try {
+            channel.writeInbound(corrupted);
+            fail();
+        } catch (DecompressionException expected) {
+            // expected
+        }
+
+        // Everything received after the corruption is discarded.
+        ByteBuf valid = Unpooled.wrappedBuffer(compressedBytesSmall);
+        assertFalse(channel.writeInbound(valid));
+        assertEquals(0, valid.refCnt());
+        assertNull(channel.readInbound());
+    }
+
+    @Test
+    public void testHandlerRemovedInTheMiddleOfAFrame() throws Exception {
+        ZstdDecoder decoder = new ZstdDecoder();
+        EmbeddedChannel ch = new EmbeddedChannel(decoder);
+        ByteBuf partial = Unpooled.wrappedBuffer(compressedBytesLarge, 0, compressedBytesLarge.length / 2);
+        ch.writeInbound(partial);
+        assertEquals(0, partial.refCnt());
+
+        // The native stream is closed and the channel can still be used without the decoder.
+        ch.pipeline().remove(decoder);
+        ch.releaseInbound();
+        ByteBuf next = Unpooled.wrappedBuffer(BYTES_SMALL);
+        assertTrue(ch.writeInbound(next));
+        assertSame(next, ch.readInbound());
+        next.release();
+        assertFalse(ch.finish());
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ZstdDictionaryTest {
+
+    @Test
+    public void testRawContentDictionaryId() {
+        assertEquals(0, new ZstdDictionary(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }).id());
+    }
+
+    @Test
+    public void testTrainedDictionaryId() {
+        byte[] content = { 0x37, (byte) 0xA4, 0x30, (byte) 0xEC, 0x78, 0x56, 0x34, (byte) 0xF2, 1, 2, 3 };
+        ZstdDictionary dictionary = new ZstdDictionary(content);
+        assertEquals(0xF2345678L, dictionary.id());
+        assertArrayEquals(content, dictionary.content());
+        assertNotSame(content, dictionary.content());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyDictionary() {
+        new ZstdDictionary(new byte[0]);
+    }
+
+    @Test
+    public void testFrameWithoutDictionaryId() {
+        // Single segment, no dictionary ID.
+        assertFrameDictionaryId(0, 0x28, 0xB5, 0x2F, 0xFD, 0x20, 0x05);
+    }
+
+    @Test
+    public void testFrameDictionaryId() {
+        // Window descriptor followed by a 1, 2 and 4 bytes dictionary ID.
+        assertFrameDictionaryId(0x12, 0x28, 0xB5, 0x2F, 0xFD, 0x01, 0x58, 0x12);
+        assertFrameDictionaryId(0x1234, 0x28, 0xB5, 0x2F, 0xFD, 0x02, 0x58, 0x34, 0x12);
+        assertFrameDictionaryId(0xF2345678L, 0x28, 0xB5, 0x2F, 0xFD, 0x03, 0x58, 0x78, 0x56, 0x34, 0xF2);
+        // Single segment, no window descriptor.
+        assertFrameDictionaryId(0xF2345678L, 0x28, 0xB5, 0x2F, 0xFD, 0x23, 0x78, 0x56, 0x34, 0xF2);
+    }
+
+    @Test
+    public void testIncompleteFrameHeader() {
+        assertFrameDictionaryId(-1, 0x28, 0xB5, 0x2F, 0xFD);
+        assertFrameDictionaryId(-1, 0x28, 0xB5, 0x2F, 0xFD, 0x03, 0x58, 0x78, 0x56, 0x34);
+    }
+
+    private static void assertFrameDictionaryId(long expected, int... header) {
+        ByteBuf in = Unpooled.buffer();
+        in.writeZero(3).skipBytes(3);
+        for (int b : header) {
+            in.writeByte(b);
+        }
+        assertEquals(expected, ZstdDictionary.frameDictionaryId(in));
+        assertEquals(3, in.readerIndex());
+        in.release();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.github.luben.zstd.ZstdInputStream;
+import io.netty.buffer.AbstractByteBufAllocator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assume.assumeTrue;
+
+public class ZstdEncoderTest extends AbstractEncoderTest {
+
+    @BeforeClass
+    public static void checkZstd() {
+        assumeTrue(Zstd.isAvailable());
+    }
+
+    @Override
+    public void initChannel() {
+        channel = new EmbeddedChannel(new ZstdEncoder());
+    }
+
+    @Override
+    protected ByteBuf decompress(ByteBuf compressed, int originalLength) throws Exception {
+        InputStream is = new ByteBufInputStream(compressed, true);
+        ZstdInputStream zstdIs = null;
+        byte[] decompressed = new byte[originalLength];
+        try {
+            zstdIs = new ZstdInputStream(is);
+            int remaining = originalLength;
+            while (remaining > 0) {
+                int read = zstdIs.read(decompressed, originalLength - remaining, remaining);
+                if (read > 0) {
+                    remaining -= read;
+                } else {
+                    break;
+                }
+            }
+            assertEquals(-1, zstdIs.read());
+        } finally {
+            if (zstdIs != null) {
+                zstdIs.close();
+            } else {
+                is.close();
+            }
+        }
+
+        return Unpooled.wrappedBuffer(decompressed);
+    }
+
+    @Test
+    public void testBlocksSpanningSeveralWrites() throws Exception {
+        // Every block is filled by several writes and compressed into its own frame.
+        channel.finishAndReleaseAll();
+        channel = new EmbeddedChannel(new ZstdEncoder(StandardCompressionOptions.zstd(3, 1024, 1024 * 1024)));
+        testCompressionOfBatchedFlow(Unpooled.wrappedBuffer(BYTES_LARGE));
+    }
+
+    @Test
+    public void testUnflushedDataIsReleasedOnHandlerRemoved() {
+        final List<ByteBuf> allocated = new ArrayList<ByteBuf>();
+        EmbeddedChannel ch = new EmbeddedChannel();
+        ch.config().setAllocator(new AbstractByteBufAllocator(false) {
+            @Override
+            public boolean isDirectBufferPooled() {
+                return false;
+            }
+
+            @Override
+            protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+                return record(Unpooled.buffer(initialCapacity, maxCapacity));
+            }
+
+            @Override
+            protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+                return record(Unpooled.directBuffer(initialCapacity, maxCapacity));
+            }
+
+            private ByteBuf record(ByteBuf buf) {
+                allocated.add(buf);
+                return buf;
+            }
+        });
+        ZstdEncoder encoder = new ZstdEncoder();
+        ch.pipeline().addLast(encoder);
+
+        // Less than a block, so the data stays buffered until the next flush.
+        ch.write(Unpooled.wrappedBuffer(BYTES_SMALL));
+        ch.pipeline().remove(encoder);
+        ch.finishAndReleaseAll();
+
+        assertFalse(allocated.isEmpty());
+        for (ByteBuf buf : allocated) {
+            assertEquals(0, buf.refCnt());
+        }
+    }
+}
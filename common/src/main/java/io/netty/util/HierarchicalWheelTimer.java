@@ -0,0 +1,528 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util;
+
+import io.netty.util.internal.DefaultPriorityQueue;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.TimerWheel;
+import io.netty.util.internal.TimerWheelNode;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static io.netty.util.internal.StringUtil.simpleClassName;
+
+/**
+ * A {@link Timer} which is based on a hierarchical timing wheel.
+ * <p>
+ * In contrast to {@link HashedWheelTimer} adding and removing a {@link Timeout} is {@code O(1)} independent of its
+ * delay, as timeouts with a long delay are placed in a coarser level of the wheel instead of being visited once per
+ * round. The worker thread does not wake up on every tick but sleeps until the next timeout is due, so timeouts are
+ * also executed on time and not only with the accuracy of the tick duration.
+ *
+ * <h3>Tick Duration</h3>
+ *
+ * The tick duration is the resolution of the lowest level of the wheel. It does not affect when a {@link TimerTask}
+ * is executed but only how often timeouts are moved between the levels of the wheel and how early the worker thread
+ * may wake up before a timeout is due. The default of one millisecond is fine for most applications.
+ *
+ * <h3>Do not create many instances.</h3>
+ *
+ * {@link HierarchicalWheelTimer} creates a new thread whenever it is instantiated and started. Therefore, you should
+ * make sure to create only one instance and share it across your application.
+ */
+public class HierarchicalWheelTimer implements Timer {
+
+    static final InternalLogger logger = InternalLoggerFactory.getInstance(HierarchicalWheelTimer.class);
+
+    private static final ResourceLeakDetector<HierarchicalWheelTimer> leakDetector =
+            ResourceLeakDetectorFactory.instance().newResourceLeakDetector(HierarchicalWheelTimer.class, 1);
+
+    private static final AtomicIntegerFieldUpdater<HierarchicalWheelTimer> WORKER_STATE_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(HierarchicalWheelTimer.class, "workerState");
+
+    private static final Comparator<HierarchicalWheelTimeout> TIMEOUT_COMPARATOR =
+            new Comparator<HierarchicalWheelTimeout>() {
+                @Override
+                public int compare(HierarchicalWheelTimeout o1, HierarchicalWheelTimeout o2) {
+                    if (o1.deadline < o2.deadline) {
+                        return -1;
+                    }
+                    if (o1.deadline > o2.deadline) {
+                        return 1;
+                    }
+                    return o1.id < o2.id ? -1 : o1.id == o2.id ? 0 : 1;
+                }
+            };
+
+    private static final int WORKER_STATE_INIT = 0;
+    private static final int WORKER_STATE_STARTED = 1;
+    private static final int WORKER_STATE_SHUTDOWN = 2;
+
+    // Used by the worker to signal that it is not sleeping.
+    private static final long WORKER_AWAKE = Long.MIN_VALUE;
+    // Cancelled timeouts are only removed when the worker wakes up, so do not sleep for too long.
+    private static final long MAX_SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final ResourceLeakTracker<HierarchicalWheelTimer> leak;
+    private final Worker worker = new Worker();
+    private final Thread workerThread;
+
+    @SuppressWarnings({ "unused", "FieldMayBeFinal" })
+    private volatile int workerState; // 0 - init, 1 - started, 2 - shut down
+
+    private final TimerWheel<HierarchicalWheelTimeout> wheel;
+    private final CountDownLatch startTimeInitialized = new CountDownLatch(1);
+    private final Queue<HierarchicalWheelTimeout> timeouts = PlatformDependent.newMpscQueue();
+    private final Queue<HierarchicalWheelTimeout> cancelledTimeouts = PlatformDependent.newMpscQueue();
+    private final AtomicLong pendingTimeouts = new AtomicLong(0);
+    private final long maxPendingTimeouts;
+
+    private volatile long startTime;
+    // The deadline until which the worker sleeps or WORKER_AWAKE.
+    private volatile long workerWakeupDeadline = WORKER_AWAKE;
+
+    /**
+     * Creates a new timer with the default thread factory ({@link Executors#defaultThreadFactory()}) and the default
+     * tick duration.
+     */
+    public HierarchicalWheelTimer() {
+        this(Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Creates a new timer with the default tick duration.
+     *
+     * @param threadFactory  a {@link ThreadFactory} that creates a
+     *                       background {@link Thread} which is dedicated to
+     *                       {@link TimerTask} execution.
+     * @throws NullPointerException if {@code threadFactory} is {@code null}
+     */
+    public HierarchicalWheelTimer(ThreadFactory threadFactory) {
+        this(threadFactory, 1, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new timer.
+     *
+     * @param threadFactory  a {@link ThreadFactory} that creates a
+     *                       background {@link Thread} which is dedicated to
+     *                       {@link TimerTask} execution.
+     * @param tickDuration   the resolution of the lowest level of the wheel
+     * @param unit           the time unit of the {@code tickDuration}
+     * @throws NullPointerException     if either of {@code threadFactory} and {@code unit} is {@code null}
+     * @throws IllegalArgumentException if {@code tickDuration} is &lt;= 0
+     */
+    public HierarchicalWheelTimer(ThreadFactory threadFactory, long tickDuration, TimeUnit unit) {
+        this(threadFactory, tickDuration, unit, true, -1);
+    }
+
+    /**
+     * Creates a new timer.
+     *
+     * @param threadFactory        a {@link ThreadFactory} that creates a
+     *                             background {@link Thread} which is dedicated to
+     *                             {@link TimerTask} execution.
+     * @param tickDuration         the resolution of the lowest level of the wheel
+     * @param unit                 the time unit of the {@code tickDuration}
+     * @param leakDetection        {@code true} if leak detection should be enabled always,
+     *                             if false it will only be enabled if the worker thread is not
+     *                             a daemon thread.
+     * @param  maxPendingTimeouts  The maximum number of pending timeouts after which call to
+     *                             {@code newTimeout} will result in
+     *                             {@link java.util.concurrent.RejectedExecutionException}
+     *                             being thrown. No maximum pending timeouts limit is assumed if
+     *                             this value is 0 or negative.
+     * @throws NullPointerException     if either of {@code threadFactory} and {@code unit} is {@code null}
+     * @throws IllegalArgumentException if {@code tickDuration} is &lt;= 0
+     */
+    public HierarchicalWheelTimer(ThreadFactory threadFactory, long tickDuration, TimeUnit unit,
+                                  boolean leakDetection, long maxPendingTimeouts) {
+        ObjectUtil.checkNotNull(threadFactory, "threadFactory");
+        ObjectUtil.checkNotNull(unit, "unit");
+        ObjectUtil.checkPositive(tickDuration, "tickDuration");
+
+        wheel = new TimerWheel<HierarchicalWheelTimeout>(TIMEOUT_COMPARATOR, unit.toNanos(tickDuration));
+        workerThread = threadFactory.newThread(worker);
+        leak = leakDetection || !workerThread.isDaemon() ? leakDetector.track(this) : null;
+        this.maxPendingTimeouts = maxPendingTimeouts;
+    }
+
+    /**
+     * Starts the background thread explicitly.  The background thread will
+     * start automatically on demand even if you did not call this method.
+     *
+     * @throws IllegalStateException if this timer has been
+     *                               {@linkplain #stop() stopped} already
+     */
+    public void start() {
+        switch (WORKER_STATE_UPDATER.get(this)) {
+            case WORKER_STATE_INIT:
+                if (WORKER_STATE_UPDATER.compareAndSet(this, WORKER_STATE_INIT, WORKER_STATE_STARTED)) {
+                    workerThread.start();
+                }
+                break;
+            case WORKER_STATE_STARTED:
+                break;
+            case WORKER_STATE_SHUTDOWN:
+                throw new IllegalStateException("cannot be started once stopped");
+            default:
+                throw new Error("Invalid WorkerState");
+        }
+
+        // Wait until the startTime is initialized by the worker.
+        while (startTime == 0) {
+            try {
+                startTimeInitialized.await();
+            } catch (InterruptedException ignore) {
+                // Ignore - it will be ready very soon.
+            }
+        }
+    }
+
+    @Override
+    public Set<Timeout> stop() {
+        if (Thread.currentThread() == workerThread) {
+            throw new IllegalStateException(
+                    HierarchicalWheelTimer.class.getSimpleName() +
+                            ".stop() cannot be called from " +
+                            TimerTask.class.getSimpleName());
+        }
+
+        if (!WORKER_STATE_UPDATER.compareAndSet(this, WORKER_STATE_STARTED, WORKER_STATE_SHUTDOWN)) {
+            // workerState can be 0 or 2 at this moment - let it always be 2.
+            if (WORKER_STATE_UPDATER.getAndSet(this, WORKER_STATE_SHUTDOWN) != WORKER_STATE_SHUTDOWN) {
+                if (leak != null) {
+                    boolean closed = leak.close(this);
+                    assert closed;
+                }
+            }
+
+            return Collections.emptySet();
+        }
+
+        try {
+            boolean interrupted = false;
+            while (workerThread.isAlive()) {
+                workerThread.interrupt();
+                try {
+                    workerThread.join(100);
+                } catch (InterruptedException ignored) {
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            if (leak != null) {
+                boolean closed = leak.close(this);
+                assert closed;
+            }
+        }
+        return worker.unprocessedTimeouts();
+    }
+
+    @Override
+    public Timeout newTimeout(TimerTask task, long delay, TimeUnit unit) {
+        ObjectUtil.checkNotNull(task, "task");
+        ObjectUtil.checkNotNull(unit, "unit");
+
+        long pendingTimeoutsCount = pendingTimeouts.incrementAndGet();
+
+        if (maxPendingTimeouts > 0 && pendingTimeoutsCount > maxPendingTimeouts) {
+            pendingTimeouts.decrementAndGet();
+            throw new RejectedExecutionException("Number of pending timeouts ("
+                + pendingTimeoutsCount + ") is greater than or equal to maximum allowed pending "
+                + "timeouts (" + maxPendingTimeouts + ")");
+        }
+
+        start();
+
+        long deadline = System.nanoTime() + unit.toNanos(delay) - startTime;
+
+        // Guard against overflow.
+        if (delay > 0 && deadline < 0) {
+            deadline = Long.MAX_VALUE;
+        }
+        HierarchicalWheelTimeout timeout = new HierarchicalWheelTimeout(this, task, deadline);
+        timeouts.add(timeout);
+        if (deadline < workerWakeupDeadline) {
+            // The worker sleeps past the deadline of the new timeout.
+            LockSupport.unpark(workerThread);
+        }
+        return timeout;
+    }
+
+    /**
+     * Returns the number of pending timeouts of this {@link Timer}.
+     */
+    public long pendingTimeouts() {
+        return pendingTimeouts.get();
+    }
+
+    private final class Worker implements Runnable {
+        private final Set<Timeout> unprocessedTimeouts = new HashSet<Timeout>();
+
+        private long nextId;
+
+        @Override
+        public void run() {
+            // Initialize the startTime.
+            startTime = System.nanoTime();
+            if (startTime == 0) {
+                // We use 0 as an indicator for the uninitialized value here, so make sure it's not 0 when initialized.
+                startTime = 1;
+            }
+
+            // Notify the other threads waiting for the initialization at start().
+            startTimeInitialized.countDown();
+
+            do {
+                processCancelledTasks();
+                transferTimeoutsToWheel();
+                expireTimeouts();
+                waitForNextDeadline();
+            } while (WORKER_STATE_UPDATER.get(HierarchicalWheelTimer.this) == WORKER_STATE_STARTED);
+
+            // Fill the unprocessedTimeouts so we can return them from stop() method.
+            List<HierarchicalWheelTimeout> remaining = new ArrayList<HierarchicalWheelTimeout>(wheel.size());
+            wheel.drainTo(remaining);
+            for (HierarchicalWheelTimeout timeout : remaining) {
+                if (!timeout.isCancelled()) {
+                    unprocessedTimeouts.add(timeout);
+                }
+            }
+            for (;;) {
+                HierarchicalWheelTimeout timeout = timeouts.poll();
+                if (timeout == null) {
+                    break;
+                }
+                if (!timeout.isCancelled()) {
+                    unprocessedTimeouts.add(timeout);
+                }
+            }
+            processCancelledTasks();
+        }
+
+        private void transferTimeoutsToWheel() {
+            // transfer only max. 100000 timeouts per run to prevent a thread to stale the workerThread when it just
+            // adds new timeouts in a loop.
+            for (int i = 0; i < 100000; i++) {
+                HierarchicalWheelTimeout timeout = timeouts.poll();
+                if (timeout == null) {
+                    // all processed
+                    break;
+                }
+                if (timeout.isCancelled()) {
+                    // Was cancelled in the meantime.
+                    continue;
+                }
+                timeout.id = nextId++;
+                wheel.add(timeout);
+            }
+        }
+
+        private void processCancelledTasks() {
+            for (;;) {
+                HierarchicalWheelTimeout timeout = cancelledTimeouts.poll();
+                if (timeout == null) {
+                    // all processed
+                    break;
+                }
+                wheel.remove(timeout);
+                pendingTimeouts.decrementAndGet();
+            }
+        }
+
+        private void expireTimeouts() {
+            long currentTime = System.nanoTime() - startTime;
+            for (;;) {
+                HierarchicalWheelTimeout timeout = wheel.poll(currentTime);
+                if (timeout == null) {
+                    break;
+                }
+                timeout.expire();
+            }
+        }
+
+        private void waitForNextDeadline() {
+            long deadline = wheel.nextDeadlineNanos();
+            long maxDeadline = System.nanoTime() - startTime + MAX_SLEEP_NANOS;
+            if (deadline == -1 || deadline > maxDeadline) {
+                deadline = maxDeadline;
+            }
+            workerWakeupDeadline = deadline;
+            // Check again after publishing the deadline, newTimeout(...) will wake us up for anything added later.
+            if (timeouts.isEmpty()) {
+                long sleepNanos = deadline - (System.nanoTime() - startTime);
+                if (sleepNanos > 0) {
+                    // Returns early when interrupted by stop().
+                    LockSupport.parkNanos(this, sleepNanos);
+                }
+            }
+            workerWakeupDeadline = WORKER_AWAKE;
+        }
+
+        Set<Timeout> unprocessedTimeouts() {
+            return Collections.unmodifiableSet(unprocessedTimeouts);
+        }
+    }
+
+    private static final class HierarchicalWheelTimeout implements Timeout, TimerWheelNode {
+
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<HierarchicalWheelTimeout> STATE_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(HierarchicalWheelTimeout.class, "state");
+
+        private final HierarchicalWheelTimer timer;
+        private final TimerTask task;
+        private final long deadline;
+
+        @SuppressWarnings({"unused", "FieldMayBeFinal", "RedundantFieldInitialization" })
+        private volatile int state = ST_INIT;
+
+        // Only accessed by the worker thread.
+        long id;
+        private int queueIndex = INDEX_NOT_IN_QUEUE;
+        private long wheelPosition = POSITION_NOT_IN_WHEEL;
+
+        HierarchicalWheelTimeout(HierarchicalWheelTimer timer, TimerTask task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public Timer timer() {
+            return timer;
+        }
+
+        @Override
+        public TimerTask task() {
+            return task;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_CANCELLED)) {
+                return false;
+            }
+            // The worker removes the timeout from the wheel the next time it wakes up.
+            timer.cancelledTimeouts.add(this);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state == ST_CANCELLED;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state == ST_EXPIRED;
+        }
+
+        void expire() {
+            if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_EXPIRED)) {
+                // Cancelled concurrently, the pending count is updated when the cancellation is processed.
+                return;
+            }
+            timer.pendingTimeouts.decrementAndGet();
+
+            try {
+                task.run(this);
+            } catch (Throwable t) {
+                if (logger.isWarnEnabled()) {
+                    logger.warn("An exception was thrown by " + TimerTask.class.getSimpleName() + '.', t);
+                }
+            }
+        }
+
+        @Override
+        public long deadlineNanos() {
+            return deadline;
+        }
+
+        @Override
+        public long timerWheelPosition(TimerWheel<?> wheel) {
+            return wheelPosition;
+        }
+
+        @Override
+        public void timerWheelPosition(TimerWheel<?> wheel, long position) {
+            wheelPosition = position;
+        }
+
+        @Override
+        public int priorityQueueIndex(DefaultPriorityQueue<?> queue) {
+            return queueIndex;
+        }
+
+        @Override
+        public void priorityQueueIndex(DefaultPriorityQueue<?> queue, int i) {
+            queueIndex = i;
+        }
+
+        @Override
+        public String toString() {
+            final long currentTime = System.nanoTime();
+            long remaining = deadline - currentTime + timer.startTime;
+
+            StringBuilder buf = new StringBuilder(192)
+               .append(simpleClassName(this))
+               .append('(')
+               .append("deadline: ");
+            if (remaining > 0) {
+                buf.append(remaining)
+                   .append(" ns later");
+            } else if (remaining < 0) {
+                buf.append(-remaining)
+                   .append(" ns ago");
+            } else {
+                buf.append("now");
+            }
+
+            if (isCancelled()) {
+                buf.append(", cancelled");
+            }
+
+            return buf.append(", task: ")
+                      .append(task())
+                      .append(')')
+                      .toString();
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package io.netty.util.concurrent;
 
+import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.UnstableApi;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
@@ -181,6 +182,21 @@ public abstract class AbstractEventExecutor extends AbstractExecutorService impl
         execute(task);
     }
 
+    /**
+     * Executes all of the given tasks in order. This has the same semantics as calling {@link #execute(Runnable)}
+     * for each task, but implementations may add the tasks in one batch and wake up the executor at most once.
+     * The executor is not woken up at all if every task is a {@link LazyRunnable}.
+     *
+     * The default implementation just delegates to {@link #execute(Runnable)}.
+     */
+    @UnstableApi
+    public void executeAll(Runnable... tasks) {
+        ObjectUtil.checkNotNull(tasks, "tasks");
+        for (Runnable task : tasks) {
+            execute(task);
+        }
+    }
+
     /**
      * Marker interface for {@link Runnable} to indicate that it should be queued for execution
      * but does not need to run immediately.
@@ -15,14 +15,15 @@
  */
 package io.netty.util.concurrent;
 
-import io.netty.util.internal.DefaultPriorityQueue;
 import io.netty.util.internal.ObjectUtil;
-import io.netty.util.internal.PriorityQueue;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.TimerWheel;
 
 import static io.netty.util.concurrent.ScheduledFutureTask.deadlineNanos;
 
+import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.Queue;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
@@ -30,6 +31,11 @@ import java.util.concurrent.TimeUnit;
  * Abstract base class for {@link EventExecutor}s that want to support scheduling.
  */
 public abstract class AbstractScheduledEventExecutor extends AbstractEventExecutor {
+    // The tick of the timer wheel does not affect when tasks are run, only how often they are moved between the
+    // levels of the wheel and how early the executor may wake up before the next task is due.
+    private static final long TIMER_WHEEL_TICK_NANOS = Math.max(1, SystemPropertyUtil.getLong(
+            "io.netty.eventexecutor.timerWheelTickNanos", TimeUnit.MILLISECONDS.toNanos(1)));
+
     private static final Comparator<ScheduledFutureTask<?>> SCHEDULED_FUTURE_TASK_COMPARATOR =
             new Comparator<ScheduledFutureTask<?>>() {
                 @Override
@@ -43,7 +49,7 @@ public abstract class AbstractScheduledEventExecutor extends AbstractEventExecut
        public void run() { } // Do nothing
     };
 
-    PriorityQueue<ScheduledFutureTask<?>> scheduledTaskQueue;
+    TimerWheel<ScheduledFutureTask<?>> scheduledTaskQueue;
 
     long nextTaskId;
 
@@ -76,17 +82,15 @@ public abstract class AbstractScheduledEventExecutor extends AbstractEventExecut
         return ScheduledFutureTask.initialNanoTime();
     }
 
-    PriorityQueue<ScheduledFutureTask<?>> scheduledTaskQueue() {
+    TimerWheel<ScheduledFutureTask<?>> scheduledTaskQueue() {
         if (scheduledTaskQueue == null) {
-            scheduledTaskQueue = new DefaultPriorityQueue<ScheduledFutureTask<?>>(
-                    SCHEDULED_FUTURE_TASK_COMPARATOR,
-                    // Use same initial capacity as java.util.PriorityQueue
-                    11);
+            scheduledTaskQueue = new TimerWheel<ScheduledFutureTask<?>>(
+                    SCHEDULED_FUTURE_TASK_COMPARATOR, TIMER_WHEEL_TICK_NANOS);
         }
         return scheduledTaskQueue;
     }
 
-    private static boolean isNullOrEmpty(Queue<ScheduledFutureTask<?>> queue) {
+    private static boolean isNullOrEmpty(TimerWheel<ScheduledFutureTask<?>> queue) {
         return queue == null || queue.isEmpty();
     }
 
@@ -97,19 +101,18 @@ public abstract class AbstractScheduledEventExecutor extends AbstractEventExecut
      */
     protected void cancelScheduledTasks() {
         assert inEventLoop();
-        PriorityQueue<ScheduledFutureTask<?>> scheduledTaskQueue = this.scheduledTaskQueue;
+        TimerWheel<ScheduledFutureTask<?>> scheduledTaskQueue = this.scheduledTaskQueue;
         if (isNullOrEmpty(scheduledTaskQueue)) {
             return;
         }
 
-        final ScheduledFutureTask<?>[] scheduledTasks =
-                scheduledTaskQueue.toArray(new ScheduledFutureTask<?>[0]);
+        final List<ScheduledFutureTask<?>> scheduledTasks =
+                new ArrayList<ScheduledFutureTask<?>>(scheduledTaskQueue.size());
+        scheduledTaskQueue.drainTo(scheduledTasks);
 
         for (ScheduledFutureTask<?> task: scheduledTasks) {
             task.cancelWithoutRemove(false);
         }
-
-        scheduledTaskQueue.clearIgnoringIndexes();
     }
 
     /**
@@ -126,43 +129,45 @@ public abstract class AbstractScheduledEventExecutor extends AbstractEventExecut
     protected final Runnable pollScheduledTask(long nanoTime) {
         assert inEventLoop();
 
-        ScheduledFutureTask<?> scheduledTask = peekScheduledTask();
-        if (scheduledTask == null || scheduledTask.deadlineNanos() - nanoTime > 0) {
+        TimerWheel<ScheduledFutureTask<?>> scheduledTaskQueue = this.scheduledTaskQueue;
+        if (scheduledTaskQueue == null) {
+            return null;
+        }
+        ScheduledFutureTask<?> scheduledTask = scheduledTaskQueue.poll(nanoTime);
+        if (scheduledTask == null) {
             return null;
         }
-        scheduledTaskQueue.remove();
         scheduledTask.setConsumed();
         return scheduledTask;
     }
 
     /**
      * Return the nanoseconds until the next scheduled task is ready to be run or {@code -1} if no task is scheduled.
+     * <p>
+     * The returned value may be smaller than the actual delay of the next task, but it is never bigger.
      */
     protected final long nextScheduledTaskNano() {
-        ScheduledFutureTask<?> scheduledTask = peekScheduledTask();
-        return scheduledTask != null ? scheduledTask.delayNanos() : -1;
+        long deadlineNanos = nextScheduledTaskDeadlineNanos();
+        return deadlineNanos != -1 ? deadlineToDelayNanos(deadlineNanos) : -1;
     }
 
     /**
      * Return the deadline (in nanoseconds) when the next scheduled task is ready to be run or {@code -1}
      * if no task is scheduled.
+     * <p>
+     * The returned value may be before the actual deadline of the next task, but it is never after it.
      */
     protected final long nextScheduledTaskDeadlineNanos() {
-        ScheduledFutureTask<?> scheduledTask = peekScheduledTask();
-        return scheduledTask != null ? scheduledTask.deadlineNanos() : -1;
-    }
-
-    final ScheduledFutureTask<?> peekScheduledTask() {
-        Queue<ScheduledFutureTask<?>> scheduledTaskQueue = this.scheduledTaskQueue;
-        return scheduledTaskQueue != null ? scheduledTaskQueue.peek() : null;
+        TimerWheel<ScheduledFutureTask<?>> scheduledTaskQueue = this.scheduledTaskQueue;
+        return scheduledTaskQueue != null ? scheduledTaskQueue.nextDeadlineNanos() : -1;
     }
 
     /**
-     * Returns {@code true} if a scheduled task is ready for processing.
+     * Returns {@code true} if a scheduled task may be ready for processing.
      */
     protected final boolean hasScheduledTasks() {
-        ScheduledFutureTask<?> scheduledTask = peekScheduledTask();
-        return scheduledTask != null && scheduledTask.deadlineNanos() <= nanoTime();
+        long deadlineNanos = nextScheduledTaskDeadlineNanos();
+        return deadlineNanos != -1 && deadlineNanos <= nanoTime();
     }
 
     @Override
@@ -274,7 +279,7 @@ public abstract class AbstractScheduledEventExecutor extends AbstractEventExecut
     final void removeScheduled(final ScheduledFutureTask<?> task) {
         assert task.isCancelled();
         if (inEventLoop()) {
-            scheduledTaskQueue().removeTyped(task);
+            scheduledTaskQueue().remove(task);
         } else {
             // task will remove itself from scheduled task queue when it runs
             lazyExecute(task);
@@ -17,12 +17,12 @@ package io.netty.util.concurrent;
 
 import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.ThreadExecutorMap;
+import io.netty.util.internal.TimerWheel;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.security.AccessController;
 import java.security.PrivilegedAction;
-import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -78,8 +78,8 @@ public final class GlobalEventExecutor extends AbstractScheduledEventExecutor im
     Runnable takeTask() {
         BlockingQueue<Runnable> taskQueue = this.taskQueue;
         for (;;) {
-            ScheduledFutureTask<?> scheduledTask = peekScheduledTask();
-            if (scheduledTask == null) {
+            long deadlineNanos = nextScheduledTaskDeadlineNanos();
+            if (deadlineNanos == -1) {
                 Runnable task = null;
                 try {
                     task = taskQueue.take();
@@ -88,7 +88,7 @@ public final class GlobalEventExecutor extends AbstractScheduledEventExecutor im
                 }
                 return task;
             } else {
-                long delayNanos = scheduledTask.delayNanos();
+                long delayNanos = deadlineToDelayNanos(deadlineNanos);
                 Runnable task = null;
                 if (delayNanos > 0) {
                     try {
@@ -250,7 +250,7 @@ public final class GlobalEventExecutor extends AbstractScheduledEventExecutor im
                     }
                 }
 
-                Queue<ScheduledFutureTask<?>> scheduledTaskQueue = GlobalEventExecutor.this.scheduledTaskQueue;
+                TimerWheel<ScheduledFutureTask<?>> scheduledTaskQueue = GlobalEventExecutor.this.scheduledTaskQueue;
                 // Terminate if there is no task in the queue (except the noop task).
                 if (taskQueue.isEmpty() && (scheduledTaskQueue == null || scheduledTaskQueue.size() == 1)) {
                     // Mark the current thread as stopped.
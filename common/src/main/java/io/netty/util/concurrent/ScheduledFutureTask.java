@@ -17,14 +17,15 @@
 package io.netty.util.concurrent;
 
 import io.netty.util.internal.DefaultPriorityQueue;
-import io.netty.util.internal.PriorityQueueNode;
+import io.netty.util.internal.TimerWheel;
+import io.netty.util.internal.TimerWheelNode;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.Delayed;
 import java.util.concurrent.TimeUnit;
 
 @SuppressWarnings("ComparableImplementedButEqualsNotOverridden")
-final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFuture<V>, PriorityQueueNode {
+final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFuture<V>, TimerWheelNode {
     private static final long START_TIME = System.nanoTime();
 
     static long nanoTime() {
@@ -49,6 +50,7 @@ final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFu
     private final long periodNanos;
 
     private int queueIndex = INDEX_NOT_IN_QUEUE;
+    private long wheelPosition = POSITION_NOT_IN_WHEEL;
 
     ScheduledFutureTask(AbstractScheduledEventExecutor executor,
             Runnable runnable, long nanoTime) {
@@ -101,6 +103,7 @@ final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFu
         return super.executor();
     }
 
+    @Override
     public long deadlineNanos() {
         return deadlineNanos;
     }
@@ -123,8 +126,11 @@ final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFu
     }
 
     public long delayNanos(long currentTimeNanos) {
-        return deadlineNanos == 0L ? 0L
-                : Math.max(0L, deadlineNanos() - (currentTimeNanos - START_TIME));
+        return deadlineToDelayNanos(currentTimeNanos, deadlineNanos);
+    }
+
+    static long deadlineToDelayNanos(long currentTimeNanos, long deadlineNanos) {
+        return deadlineNanos == 0L ? 0L : Math.max(0L, deadlineNanos - (currentTimeNanos - START_TIME));
     }
 
     @Override
@@ -159,7 +165,7 @@ final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFu
             if (delayNanos() > 0L) {
                 // Not yet expired, need to add or remove from queue
                 if (isCancelled()) {
-                    scheduledExecutor().scheduledTaskQueue().removeTyped(this);
+                    scheduledExecutor().scheduledTaskQueue().remove(this);
                 } else {
                     scheduledExecutor().scheduleFromEventLoop(this);
                 }
@@ -234,4 +240,14 @@ final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFu
     public void priorityQueueIndex(DefaultPriorityQueue<?> queue, int i) {
         queueIndex = i;
     }
+
+    @Override
+    public long timerWheelPosition(TimerWheel<?> wheel) {
+        return wheelPosition;
+    }
+
+    @Override
+    public void timerWheelPosition(TimerWheel<?> wheel, long position) {
+        wheelPosition = position;
+    }
 }
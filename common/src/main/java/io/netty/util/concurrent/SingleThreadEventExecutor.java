@@ -89,6 +89,8 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
     private final RejectedExecutionHandler rejectedExecutionHandler;
 
     private long lastExecutionTime;
+    // Only accessed from the event loop.
+    private long completedTasks;
 
     @SuppressWarnings({ "FieldMayBeFinal", "unused" })
     private volatile int state = ST_NOT_STARTED;
@@ -236,8 +238,8 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
 
         BlockingQueue<Runnable> taskQueue = (BlockingQueue<Runnable>) this.taskQueue;
         for (;;) {
-            ScheduledFutureTask<?> scheduledTask = peekScheduledTask();
-            if (scheduledTask == null) {
+            long deadlineNanos = nextScheduledTaskDeadlineNanos();
+            if (deadlineNanos == -1) {
                 Runnable task = null;
                 try {
                     task = taskQueue.take();
@@ -249,7 +251,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
                 }
                 return task;
             } else {
-                long delayNanos = scheduledTask.delayNanos();
+                long delayNanos = deadlineToDelayNanos(deadlineNanos);
                 Runnable task = null;
                 if (delayNanos > 0) {
                     try {
@@ -305,9 +307,12 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         if (scheduledTask == null) {
             return false;
         }
+        int runTasks = 0;
         do {
             safeExecute(scheduledTask);
+            runTasks++;
         } while ((scheduledTask = pollScheduledTask(nanoTime)) != null);
+        completedTasks += runTasks;
         return true;
     }
 
@@ -355,6 +360,21 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         return taskQueue.offer(task);
     }
 
+    /**
+     * Add all tasks to the task queue at once, or throws a {@link RejectedExecutionException} if this instance was
+     * shutdown before. Tasks which do not fit into the task queue anymore are offered to the
+     * {@link RejectedExecutionHandler}.
+     */
+    private void addTasks(Runnable[] tasks) {
+        if (isShutdown()) {
+            reject();
+        }
+        int added = PlatformDependent.offerAll(taskQueue, tasks, 0, tasks.length);
+        for (int i = added; i < tasks.length; i++) {
+            reject(tasks[i]);
+        }
+    }
+
     /**
      * @see Queue#remove(Object)
      */
@@ -424,10 +444,13 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         if (task == null) {
             return false;
         }
+        int runTasks = 0;
         for (;;) {
             safeExecute(task);
+            runTasks++;
             task = pollTaskFrom(taskQueue);
             if (task == null) {
+                completedTasks += runTasks;
                 return true;
             }
         }
@@ -444,12 +467,15 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
             return false;
         }
         int remaining = Math.min(maxPendingTasks, taskQueue.size());
+        int runTasks = 1;
         safeExecute(task);
         // Use taskQueue.poll() directly rather than pollTaskFrom() since the latter may
         // silently consume more than one item from the queue (skips over WAKEUP_TASK instances)
         while (remaining-- > 0 && (task = taskQueue.poll()) != null) {
             safeExecute(task);
+            runTasks++;
         }
+        completedTasks += runTasks;
         return true;
     }
 
@@ -489,11 +515,24 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
             }
         }
 
+        completedTasks += runTasks;
         afterRunningAllTasks();
         this.lastExecutionTime = lastExecutionTime;
         return true;
     }
 
+    /**
+     * Returns the number of tasks that were run by {@link #runAllTasks()}, {@link #runAllTasks(long)},
+     * {@link #runAllTasksFrom(Queue)} and {@link #runScheduledAndExecutorTasks(int)} so far. Tasks that are taken
+     * and run manually via {@link #takeTask()} or {@link #pollTask()} are not counted.
+     * This method must only be called from the event loop.
+     */
+    @UnstableApi
+    protected final long completedTasks() {
+        assert inEventLoop();
+        return completedTasks;
+    }
+
     /**
      * Invoked before returning from {@link #runAllTasks()} and {@link #runAllTasks(long)}.
      */
@@ -504,12 +543,12 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
      * Returns the amount of time left until the scheduled task with the closest dead line is executed.
      */
     protected long delayNanos(long currentTimeNanos) {
-        ScheduledFutureTask<?> scheduledTask = peekScheduledTask();
-        if (scheduledTask == null) {
+        long deadlineNanos = nextScheduledTaskDeadlineNanos();
+        if (deadlineNanos == -1) {
             return SCHEDULE_PURGE_INTERVAL;
         }
 
-        return scheduledTask.delayNanos(currentTimeNanos);
+        return ScheduledFutureTask.deadlineToDelayNanos(currentTimeNanos, deadlineNanos);
     }
 
     /**
@@ -518,11 +557,11 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
      */
     @UnstableApi
     protected long deadlineNanos() {
-        ScheduledFutureTask<?> scheduledTask = peekScheduledTask();
-        if (scheduledTask == null) {
+        long deadlineNanos = nextScheduledTaskDeadlineNanos();
+        if (deadlineNanos == -1) {
             return nanoTime() + SCHEDULE_PURGE_INTERVAL;
         }
-        return scheduledTask.deadlineNanos();
+        return deadlineNanos;
     }
 
     /**
@@ -850,6 +889,52 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         }
     }
 
+    /**
+     * Adds all tasks to the task queue with a single batched offer and wakes up the event loop at most once, and only
+     * if at least one of the tasks is not a {@link LazyRunnable}.
+     */
+    @Override
+    public void executeAll(Runnable... tasks) {
+        ObjectUtil.checkNotNull(tasks, "tasks");
+        if (tasks.length == 0) {
+            return;
+        }
+        boolean immediate = false;
+        for (Runnable task : tasks) {
+            ObjectUtil.checkNotNull(task, "task");
+            if (!immediate && !(task instanceof LazyRunnable) && wakesUpForTask(task)) {
+                immediate = true;
+            }
+        }
+
+        boolean inEventLoop = inEventLoop();
+        addTasks(tasks);
+        if (!inEventLoop) {
+            startThread();
+            if (isShutdown()) {
+                boolean reject = false;
+                try {
+                    for (Runnable task : tasks) {
+                        if (removeTask(task)) {
+                            reject = true;
+                        }
+                    }
+                } catch (UnsupportedOperationException e) {
+                    // The task queue does not support removal so the best thing we can do is to just move on and
+                    // hope we will be able to pick-up the tasks before its completely terminated.
+                    // In worst case we will log on termination.
+                }
+                if (reject) {
+                    reject();
+                }
+            }
+        }
+
+        if (!addTaskWakesUp && immediate) {
+            wakeup(inEventLoop);
+        }
+    }
+
     @Override
     public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
         throwIfInEventLoop("invokeAny");
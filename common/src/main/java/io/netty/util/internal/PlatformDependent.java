@@ -16,12 +16,16 @@
 package io.netty.util.internal;
 
 import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.FastThreadLocal;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MpmcArrayQueue;
 import org.jctools.queues.MpscArrayQueue;
 import org.jctools.queues.MpscChunkedArrayQueue;
 import org.jctools.queues.MpscUnboundedArrayQueue;
 import org.jctools.queues.SpscLinkedQueue;
+import org.jctools.queues.atomic.MpmcAtomicArrayQueue;
 import org.jctools.queues.atomic.MpscAtomicArrayQueue;
 import org.jctools.queues.atomic.MpscChunkedAtomicArrayQueue;
 import org.jctools.queues.atomic.MpscUnboundedAtomicArrayQueue;
@@ -951,6 +955,14 @@ public final class PlatformDependent {
                                                 : new MpscChunkedAtomicArrayQueue<T>(MPSC_CHUNK_SIZE, capacity);
         }
 
+        static <T> Queue<T> newMpscQueue(final int chunkSize, final int maxCapacity) {
+            // Same restriction as above, in addition the chunk must be smaller than the capacity.
+            final int capacity = max(min(maxCapacity, MAX_ALLOWED_MPSC_CAPACITY), 4);
+            final int initialCapacity = max(2, min(chunkSize, capacity >> 1));
+            return USE_MPSC_CHUNKED_ARRAY_QUEUE ? new MpscChunkedArrayQueue<T>(initialCapacity, capacity)
+                                                : new MpscChunkedAtomicArrayQueue<T>(initialCapacity, capacity);
+        }
+
         static <T> Queue<T> newMpscQueue() {
             return USE_MPSC_CHUNKED_ARRAY_QUEUE ? new MpscUnboundedArrayQueue<T>(MPSC_CHUNK_SIZE)
                                                 : new MpscUnboundedAtomicArrayQueue<T>(MPSC_CHUNK_SIZE);
@@ -974,6 +986,86 @@ public final class PlatformDependent {
         return Mpsc.newMpscQueue(maxCapacity);
     }
 
+    /**
+     * Create a new {@link Queue} which is safe to use for multiple producers (different threads) and a single
+     * consumer (one thread!). The queue grows in chunks of {@code chunkSize} elements, so unlike
+     * {@link #newMpscQueue(int)} it only allocates the memory it actually needs for small capacities.
+     */
+    public static <T> Queue<T> newMpscQueue(final int chunkSize, final int maxCapacity) {
+        return Mpsc.newMpscQueue(chunkSize, maxCapacity);
+    }
+
+    /**
+     * Adds {@code length} elements of {@code elements}, starting at {@code offset}, to the given {@link Queue}.
+     * If the {@link Queue} was created by one of the {@code newMpscQueue(...)} methods the slots for the
+     * elements are claimed in batches instead of one by one, which is considerably cheaper when the queue
+     * is contended.
+     *
+     * @return the number of elements that were added, this is less than {@code length} only if the
+     *         {@link Queue} is bounded and full.
+     */
+    public static <T> int offerAll(Queue<T> queue, T[] elements, int offset, int length) {
+        ObjectUtil.checkNotNull(queue, "queue");
+        ObjectUtil.checkNotNull(elements, "elements");
+        if (MathUtil.isOutOfBounds(offset, length, elements.length)) {
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length +
+                    " (expected: range(0, " + elements.length + "))");
+        }
+        for (int i = offset; i < offset + length; i++) {
+            ObjectUtil.checkNotNull(elements[i], "elements[i]");
+        }
+        if (queue instanceof MessagePassingQueue) {
+            return ArraySupplier.fill((MessagePassingQueue<T>) queue, elements, offset, length);
+        }
+        int added = 0;
+        while (added < length && queue.offer(elements[offset + added])) {
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * A reusable {@link MessagePassingQueue.Supplier} so {@link #offerAll(Queue, Object[], int, int)} does not
+     * need to allocate.
+     */
+    private static final class ArraySupplier implements MessagePassingQueue.Supplier<Object> {
+        private static final FastThreadLocal<ArraySupplier> SUPPLIER = new FastThreadLocal<ArraySupplier>() {
+            @Override
+            protected ArraySupplier initialValue() {
+                return new ArraySupplier();
+            }
+        };
+
+        private Object[] elements;
+        private int index;
+
+        @SuppressWarnings("unchecked")
+        static <T> int fill(MessagePassingQueue<T> queue, T[] elements, int offset, int length) {
+            ArraySupplier supplier = SUPPLIER.get();
+            supplier.elements = elements;
+            supplier.index = offset;
+            try {
+                int added = 0;
+                while (added < length) {
+                    // The queue may fill less than requested if a chunk boundary is reached.
+                    int filled = queue.fill((MessagePassingQueue.Supplier<T>) supplier, length - added);
+                    if (filled == 0) {
+                        break;
+                    }
+                    added += filled;
+                }
+                return added;
+            } finally {
+                supplier.elements = null;
+            }
+        }
+
+        @Override
+        public Object get() {
+            return elements[index++];
+        }
+    }
+
     /**
      * Create a new {@link Queue} which is safe to use for single producer (one thread!) and a single
      * consumer (one thread!).
@@ -990,6 +1082,14 @@ public final class PlatformDependent {
         return hasUnsafe() ? new MpscArrayQueue<T>(capacity) : new MpscAtomicArrayQueue<T>(capacity);
     }
 
+    /**
+     * Create a new {@link Queue} which is safe to use for multiple producers (different threads) and multiple
+     * consumers (different threads) with the given fixes {@code capacity}.
+     */
+    public static <T> Queue<T> newFixedMpmcQueue(int capacity) {
+        return hasUnsafe() ? new MpmcArrayQueue<T>(capacity) : new MpmcAtomicArrayQueue<T>(capacity);
+    }
+
     /**
      * Return the {@link ClassLoader} for the given {@link Class}.
      */
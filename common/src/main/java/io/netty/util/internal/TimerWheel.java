@@ -0,0 +1,300 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+import static io.netty.util.internal.TimerWheelNode.POSITION_NOT_IN_WHEEL;
+
+/**
+ * A hierarchical timing wheel which keeps {@link TimerWheelNode}s ordered by their deadline.
+ * <p>
+ * Time is split into ticks of a fixed (power of two) number of nanoseconds. Each level of the wheel has 64 slots and
+ * every slot of a level covers 64 slots of the level below, so adding and removing a node is {@code O(1)} no matter
+ * how far its deadline is in the future. A node is placed in the level that corresponds to the highest tick bits in
+ * which its deadline differs from the current tick and moves down one or more levels each time the wheel advances
+ * into its slot, so it is moved at most once per level. Nodes whose deadline is within the current tick are kept in
+ * a {@link DefaultPriorityQueue} which orders them exactly, so nodes are always returned in the order defined by the
+ * {@link Comparator} and never before their deadline.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <T> the type of the nodes
+ */
+public final class TimerWheel<T extends TimerWheelNode> {
+    private static final int LEVEL_BITS = 6;
+    private static final int SLOTS_PER_LEVEL = 1 << LEVEL_BITS;
+    private static final int SLOT_MASK = SLOTS_PER_LEVEL - 1;
+    private static final int INITIAL_BUCKET_CAPACITY = 8;
+    // Buckets which grew bigger than this are released once they are drained so a burst does not pin memory.
+    private static final int MAX_RETAINED_BUCKET_CAPACITY = 256;
+
+    private final int tickShift;
+    private final int levels;
+    private final DefaultPriorityQueue<T> current;
+    private final long[] occupiedSlots;
+    private final TimerWheelNode[][] buckets;
+    private final int[] bucketSizes;
+    // A lower bound of the deadlines in each bucket. It is not updated on removal, which keeps it a lower bound.
+    private final long[] bucketMinDeadlines;
+    private long currentTick;
+    private int wheelSize;
+
+    /**
+     * Create a new instance.
+     *
+     * @param comparator the {@link Comparator} which is used to order nodes whose deadlines fall into the same tick.
+     * @param tickNanos the length of a tick in nanoseconds, rounded down to a power of two.
+     */
+    public TimerWheel(Comparator<T> comparator, long tickNanos) {
+        ObjectUtil.checkPositive(tickNanos, "tickNanos");
+        tickShift = 63 - Long.numberOfLeadingZeros(tickNanos);
+        // Enough levels to cover all positive deadlines.
+        levels = (63 - tickShift + LEVEL_BITS - 1) / LEVEL_BITS;
+        current = new DefaultPriorityQueue<T>(comparator, 11);
+        occupiedSlots = new long[levels];
+        buckets = new TimerWheelNode[levels * SLOTS_PER_LEVEL][];
+        bucketSizes = new int[buckets.length];
+        bucketMinDeadlines = new long[buckets.length];
+    }
+
+    /**
+     * Returns the number of nodes in the wheel.
+     */
+    public int size() {
+        return wheelSize + current.size();
+    }
+
+    /**
+     * Returns {@code true} if the wheel contains no nodes.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Adds the node to the wheel.
+     */
+    public void add(T node) {
+        long tick = tickOf(node.deadlineNanos());
+        if (tick <= currentTick) {
+            node.timerWheelPosition(this, POSITION_NOT_IN_WHEEL);
+            current.add(node);
+        } else {
+            insert(node, tick);
+        }
+    }
+
+    /**
+     * Removes the node from the wheel.
+     *
+     * @return {@code true} if the node was contained in the wheel.
+     */
+    public boolean remove(T node) {
+        long position = node.timerWheelPosition(this);
+        if (position == POSITION_NOT_IN_WHEEL) {
+            return current.removeTyped(node);
+        }
+        int bucket = (int) (position >>> 32);
+        int index = (int) position;
+        TimerWheelNode[] nodes = buckets[bucket];
+        if (nodes == null || index >= bucketSizes[bucket] || nodes[index] != node) {
+            return false;
+        }
+        int last = --bucketSizes[bucket];
+        if (index != last) {
+            TimerWheelNode moved = nodes[last];
+            nodes[index] = moved;
+            moved.timerWheelPosition(this, position(bucket, index));
+        }
+        nodes[last] = null;
+        if (last == 0) {
+            occupiedSlots[bucket >>> LEVEL_BITS] &= ~(1L << (bucket & SLOT_MASK));
+            if (nodes.length > MAX_RETAINED_BUCKET_CAPACITY) {
+                buckets[bucket] = null;
+            }
+        }
+        wheelSize--;
+        node.timerWheelPosition(this, POSITION_NOT_IN_WHEEL);
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if the node is contained in the wheel.
+     */
+    public boolean contains(T node) {
+        long position = node.timerWheelPosition(this);
+        if (position == POSITION_NOT_IN_WHEEL) {
+            return current.containsTyped(node);
+        }
+        int bucket = (int) (position >>> 32);
+        int index = (int) position;
+        TimerWheelNode[] nodes = buckets[bucket];
+        return nodes != null && index < bucketSizes[bucket] && nodes[index] == node;
+    }
+
+    /**
+     * Removes and returns the node with the earliest deadline if that deadline is not after {@code nowNanos}.
+     *
+     * @param nowNanos the current time, on the same time scale as the deadlines of the nodes.
+     * @return the node or {@code null} if no node is expired.
+     */
+    public T poll(long nowNanos) {
+        advance(tickOf(nowNanos));
+        T node = current.peek();
+        if (node == null || node.deadlineNanos() > nowNanos) {
+            return null;
+        }
+        return current.poll();
+    }
+
+    /**
+     * Returns the deadline in nanoseconds at which {@link #poll(long)} should be called next, or {@code -1} if the
+     * wheel is empty.
+     * <p>
+     * The returned value may be earlier than the actual earliest deadline of all nodes, but it is never later.
+     */
+    public long nextDeadlineNanos() {
+        T node = current.peek();
+        if (node != null) {
+            return node.deadlineNanos();
+        }
+        if (wheelSize == 0) {
+            return -1;
+        }
+        // The lowest occupied level always contains the earliest deadlines.
+        int level = lowestOccupiedLevel();
+        int slot = Long.numberOfTrailingZeros(occupiedSlots[level]);
+        return bucketMinDeadlines[level << LEVEL_BITS | slot];
+    }
+
+    /**
+     * Removes all nodes from the wheel and adds them to {@code collection}.
+     */
+    public void drainTo(Collection<? super T> collection) {
+        if (wheelSize != 0) {
+            for (int bucket = 0; bucket < buckets.length; bucket++) {
+                TimerWheelNode[] nodes = buckets[bucket];
+                int size = bucketSizes[bucket];
+                for (int i = 0; i < size; i++) {
+                    @SuppressWarnings("unchecked")
+                    T node = (T) nodes[i];
+                    nodes[i] = null;
+                    node.timerWheelPosition(this, POSITION_NOT_IN_WHEEL);
+                    collection.add(node);
+                }
+                bucketSizes[bucket] = 0;
+            }
+            Arrays.fill(occupiedSlots, 0);
+            wheelSize = 0;
+        }
+        collection.addAll(current);
+        current.clear();
+    }
+
+    private long tickOf(long nanos) {
+        return nanos <= 0 ? 0 : nanos >>> tickShift;
+    }
+
+    private static long position(int bucket, int index) {
+        return (long) bucket << 32 | index;
+    }
+
+    private int lowestOccupiedLevel() {
+        int level = 0;
+        while (occupiedSlots[level] == 0) {
+            level++;
+        }
+        return level;
+    }
+
+    private long slotStartTick(int level, int slot) {
+        int shift = level * LEVEL_BITS;
+        int upperShift = shift + LEVEL_BITS;
+        long upper = upperShift >= 64 ? 0 : currentTick >>> upperShift << upperShift;
+        return upper | (long) slot << shift;
+    }
+
+    private void insert(T node, long tick) {
+        // The level is given by the highest bits in which the tick differs from the current tick.
+        int level = (63 - Long.numberOfLeadingZeros(tick ^ currentTick)) / LEVEL_BITS;
+        int slot = (int) (tick >>> level * LEVEL_BITS) & SLOT_MASK;
+        int bucket = level << LEVEL_BITS | slot;
+        TimerWheelNode[] nodes = buckets[bucket];
+        int size = bucketSizes[bucket];
+        if (nodes == null) {
+            buckets[bucket] = nodes = new TimerWheelNode[INITIAL_BUCKET_CAPACITY];
+        } else if (size == nodes.length) {
+            buckets[bucket] = nodes = Arrays.copyOf(nodes, size << 1);
+        }
+        long deadlineNanos = node.deadlineNanos();
+        if (size == 0) {
+            occupiedSlots[level] |= 1L << slot;
+            bucketMinDeadlines[bucket] = deadlineNanos;
+        } else if (deadlineNanos < bucketMinDeadlines[bucket]) {
+            bucketMinDeadlines[bucket] = deadlineNanos;
+        }
+        nodes[size] = node;
+        bucketSizes[bucket] = size + 1;
+        node.timerWheelPosition(this, position(bucket, size));
+        wheelSize++;
+    }
+
+    private void advance(long nowTick) {
+        if (nowTick <= currentTick) {
+            return;
+        }
+        while (wheelSize != 0) {
+            int level = lowestOccupiedLevel();
+            int slot = Long.numberOfTrailingZeros(occupiedSlots[level]);
+            long startTick = slotStartTick(level, slot);
+            if (startTick > nowTick) {
+                break;
+            }
+            currentTick = startTick;
+            cascade(level, slot);
+        }
+        // All remaining slots start after nowTick and so they are still placed correctly relative to it.
+        currentTick = nowTick;
+    }
+
+    private void cascade(int level, int slot) {
+        int bucket = level << LEVEL_BITS | slot;
+        TimerWheelNode[] nodes = buckets[bucket];
+        int size = bucketSizes[bucket];
+        bucketSizes[bucket] = 0;
+        occupiedSlots[level] &= ~(1L << slot);
+        wheelSize -= size;
+        if (nodes.length > MAX_RETAINED_BUCKET_CAPACITY) {
+            buckets[bucket] = null;
+        }
+        for (int i = 0; i < size; i++) {
+            @SuppressWarnings("unchecked")
+            T node = (T) nodes[i];
+            nodes[i] = null;
+            // Nodes either expire in the current tick or move to a lower level, never back into this bucket.
+            long tick = tickOf(node.deadlineNanos());
+            if (tick <= currentTick) {
+                node.timerWheelPosition(this, POSITION_NOT_IN_WHEEL);
+                current.add(node);
+            } else {
+                insert(node, tick);
+            }
+        }
+    }
+}
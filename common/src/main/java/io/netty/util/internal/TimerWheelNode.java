@@ -0,0 +1,50 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+/**
+ * Provides methods for {@link TimerWheel} to maintain internal state. These methods should generally not be used
+ * outside the scope of {@link TimerWheel}.
+ */
+public interface TimerWheelNode extends PriorityQueueNode {
+    /**
+     * This should be used to initialize the storage returned by {@link #timerWheelPosition(TimerWheel)}.
+     */
+    long POSITION_NOT_IN_WHEEL = -1;
+
+    /**
+     * The deadline of this node in nanoseconds, must not be negative and must not change while the node is contained
+     * in a {@link TimerWheel}.
+     */
+    long deadlineNanos();
+
+    /**
+     * Get the last value set by {@link #timerWheelPosition(TimerWheel, long)} for the value corresponding to
+     * {@code wheel}.
+     * <p>
+     * Throwing exceptions from this method will result in undefined behavior.
+     */
+    long timerWheelPosition(TimerWheel<?> wheel);
+
+    /**
+     * Used by {@link TimerWheel} to maintain state for an element in the wheel.
+     * <p>
+     * Throwing exceptions from this method will result in undefined behavior.
+     * @param wheel The wheel for which the position is being set.
+     * @param position The position as used by {@link TimerWheel}.
+     */
+    void timerWheelPosition(TimerWheel<?> wheel, long position);
+}
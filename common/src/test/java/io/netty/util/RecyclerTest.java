@@ -15,6 +15,7 @@
 */
 package io.netty.util;
 
+import io.netty.util.concurrent.FastThreadLocalThread;
 import org.junit.Test;
 
 import java.util.Random;
@@ -169,9 +170,10 @@ public class RecyclerTest {
         };
         thread.start();
         thread.join();
-        // In reverse order
-        assertSame(o3, recycler.get());
+        // In the order they were recycled
         assertSame(o, recycler.get());
+        assertSame(o2, recycler.get());
+        assertSame(o3, recycler.get());
     }
 
     /**
@@ -253,8 +255,9 @@ public class RecyclerTest {
         thread.start();
         thread.join();
 
+        // Only every 8th object got a handle, array[0] and array[maxCapacity * 2].
         assertEquals(maxCapacity, recycler.threadLocalCapacity());
-        assertEquals(1, recycler.threadLocalSize());
+        assertEquals(2, recycler.threadLocalSize());
 
         for (int i = 0; i < array.length; i ++) {
             recycler.get();
@@ -307,12 +310,87 @@ public class RecyclerTest {
             recycler.get();
         }
 
-        // The implementation uses maxCapacity / 2 as limit per WeakOrderQueue
         assertTrue("The instances count (" +  instancesCount.get() + ") must be <= array.length (" + array.length
                 + ") - maxCapacity (" + maxCapacity + ") / 2 as we not pool all new handles" +
                 " internally", array.length - maxCapacity / 2 <= instancesCount.get());
     }
 
+    @Test
+    public void testRecycleAtDifferentThreadDisabled() throws Exception {
+        final Recycler<HandledObject> recycler = newRecycler(256, 2, 0, 0, 0);
+        final HandledObject o = recycler.get();
+
+        final Thread thread = new Thread() {
+            @Override
+            public void run() {
+                o.recycle();
+            }
+        };
+        thread.start();
+        thread.join();
+
+        assertEquals(0, recycler.threadLocalSize());
+        assertNotSame(o, recycler.get());
+    }
+
+    @Test
+    public void testMaxCapacityWithRecycleAtMultipleThreads() throws Exception {
+        final int maxCapacity = 16;
+        final Recycler<HandledObject> recycler = newRecycler(maxCapacity, 2, 0, 2, 0);
+        final HandledObject[] array = new HandledObject[maxCapacity * 4];
+        for (int i = 0; i < array.length; i ++) {
+            array[i] = recycler.get();
+        }
+
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i ++) {
+            final int offset = i * maxCapacity;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = offset; j < offset + maxCapacity; j ++) {
+                        array[j].recycle();
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(recycler.threadLocalSize() <= maxCapacity);
+    }
+
+    @Test
+    public void testRecycleAtFastThreadLocalThread() throws Exception {
+        final Recycler<HandledObject> recycler = newRecycler(256, 2, 0, 2, 0);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread thread = new FastThreadLocalThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    HandledObject o = recycler.get();
+                    HandledObject o2 = recycler.get();
+                    o.recycle();
+                    o2.recycle();
+                    assertEquals(2, recycler.threadLocalSize());
+                    // Objects recycled by the owner are reused last in, first out.
+                    assertSame(o2, recycler.get());
+                    assertSame(o, recycler.get());
+                    assertEquals(0, recycler.threadLocalSize());
+                } catch (Throwable cause) {
+                    error.set(cause);
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+        if (error.get() != null) {
+            throw new AssertionError(error.get());
+        }
+    }
+
     static final class HandledObject {
         Recycler.Handle<HandledObject> handle;
 
@@ -253,6 +253,103 @@ public class SingleThreadEventExecutorTest {
         assertEquals(0, latch2.getCount());
     }
 
+    @Test
+    public void testExecuteAll() throws Exception {
+        final AtomicInteger wakeups = new AtomicInteger();
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final SingleThreadEventExecutor executor = new SingleThreadEventExecutor(null,
+                Executors.defaultThreadFactory(), false) {
+            @Override
+            protected void run() {
+                while (!confirmShutdown()) {
+                    try {
+                        synchronized (this) {
+                            if (!hasTasks()) {
+                                wait();
+                            }
+                        }
+                        runAllTasks();
+                    } catch (Throwable t) {
+                        error.set(t);
+                        return;
+                    }
+                }
+            }
+
+            @Override
+            protected void wakeup(boolean inEventLoop) {
+                if (!inEventLoop) {
+                    wakeups.incrementAndGet();
+                    synchronized (this) {
+                        notifyAll();
+                    }
+                }
+            }
+        };
+
+        try {
+            // Ensure event loop is started
+            LatchTask latch0 = new LatchTask();
+            executor.execute(latch0);
+            assertTrue(latch0.await(100, TimeUnit.MILLISECONDS));
+            // Pause to ensure it enters waiting state
+            Thread.sleep(100L);
+            wakeups.set(0);
+
+            // A batch of lazy tasks must not wake up the executor.
+            LatchTask latch1 = new LazyLatchTask();
+            LatchTask latch2 = new LazyLatchTask();
+            executor.executeAll(latch1, latch2);
+            assertFalse(latch1.await(100, TimeUnit.MILLISECONDS));
+            assertEquals(0, wakeups.get());
+
+            // A batch with at least one regular task wakes up the executor exactly once.
+            final StringBuffer order = new StringBuffer();
+            Runnable[] tasks = new Runnable[8];
+            for (int i = 0; i < tasks.length; i++) {
+                final int index = i;
+                tasks[i] = new Runnable() {
+                    @Override
+                    public void run() {
+                        order.append(index);
+                    }
+                };
+            }
+            LatchTask latch3 = new LatchTask();
+            tasks[tasks.length - 1] = latch3;
+            executor.executeAll(tasks);
+            assertTrue(latch3.await(100, TimeUnit.MILLISECONDS));
+            assertEquals(0, latch1.getCount());
+            assertEquals(0, latch2.getCount());
+            assertEquals("0123456", order.toString());
+            assertEquals(1, wakeups.get());
+        } finally {
+            executor.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+            Throwable cause = error.get();
+            if (cause != null) {
+                throw new AssertionError(cause);
+            }
+        }
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testExecuteAllAfterShutdown() {
+        SingleThreadEventExecutor executor = new SingleThreadEventExecutor(null,
+                Executors.defaultThreadFactory(), false) {
+            @Override
+            protected void run() {
+                while (!confirmShutdown()) {
+                    Runnable task = takeTask();
+                    if (task != null) {
+                        task.run();
+                    }
+                }
+            }
+        };
+        executor.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+        executor.executeAll(new LatchTask(), new LatchTask());
+    }
+
     @Test
     public void testTaskAddedAfterShutdownNotAbandoned() throws Exception {
 
@@ -18,6 +18,8 @@ package io.netty.util.internal;
 import org.junit.Test;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
 import java.util.Random;
 
 import static io.netty.util.internal.PlatformDependent.hashCodeAscii;
@@ -154,4 +156,37 @@ public class PlatformDependentTest {
         assertEquals(0, buffer.capacity());
         PlatformDependent.freeDirectNoCleaner(buffer);
     }
+
+    @Test
+    public void testOfferAll() {
+        testOfferAll(PlatformDependent.<Integer>newMpscQueue());
+        testOfferAll(new ArrayDeque<Integer>());
+    }
+
+    private static void testOfferAll(Queue<Integer> queue) {
+        Integer[] elements = new Integer[1000];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = i;
+        }
+        assertEquals(0, PlatformDependent.offerAll(queue, elements, 0, 0));
+        assertEquals(998, PlatformDependent.offerAll(queue, elements, 1, 998));
+        for (int i = 1; i < 999; i++) {
+            assertEquals(elements[i], queue.poll());
+        }
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testOfferAllBounded() {
+        Queue<Integer> queue = PlatformDependent.newMpscQueue(16, 64);
+        Integer[] elements = new Integer[100];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = i;
+        }
+        assertEquals(64, PlatformDependent.offerAll(queue, elements, 0, elements.length));
+        for (int i = 0; i < 64; i++) {
+            assertEquals(elements[i], queue.poll());
+        }
+        assertNull(queue.poll());
+    }
 }
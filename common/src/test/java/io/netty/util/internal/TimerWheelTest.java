@@ -0,0 +1,209 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TimerWheelTest {
+
+    @Test
+    public void testEmpty() {
+        TimerWheel<TestNode> wheel = new TimerWheel<TestNode>(TestNodeComparator.INSTANCE, 1);
+        assertTrue(wheel.isEmpty());
+        assertEquals(0, wheel.size());
+        assertEquals(-1, wheel.nextDeadlineNanos());
+        assertNull(wheel.poll(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testPollInDeadlineOrder() {
+        TimerWheel<TestNode> wheel = new TimerWheel<TestNode>(TestNodeComparator.INSTANCE, 1024);
+        TestNode a = new TestNode(100000, 0);
+        TestNode b = new TestNode(10, 1);
+        TestNode c = new TestNode(Long.MAX_VALUE, 2);
+        TestNode d = new TestNode(10, 3);
+        wheel.add(a);
+        wheel.add(b);
+        wheel.add(c);
+        wheel.add(d);
+        assertEquals(4, wheel.size());
+        assertTrue(wheel.nextDeadlineNanos() <= 10);
+
+        assertNull(wheel.poll(9));
+        assertSame(b, wheel.poll(10));
+        assertSame(d, wheel.poll(10));
+        assertNull(wheel.poll(99999));
+        assertSame(a, wheel.poll(200000));
+        assertNull(wheel.poll(Long.MAX_VALUE - 1));
+        assertEquals(1, wheel.size());
+        assertSame(c, wheel.poll(Long.MAX_VALUE));
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void testRemove() {
+        TimerWheel<TestNode> wheel = new TimerWheel<TestNode>(TestNodeComparator.INSTANCE, 1);
+        TestNode a = new TestNode(5, 0);
+        TestNode b = new TestNode(1L << 40, 1);
+        wheel.add(a);
+        wheel.add(b);
+        assertTrue(wheel.contains(b));
+        assertTrue(wheel.remove(b));
+        assertFalse(wheel.contains(b));
+        assertFalse(wheel.remove(b));
+        assertEquals(1, wheel.size());
+
+        // A node which is not part of the wheel must not affect it.
+        assertFalse(wheel.remove(new TestNode(5, 2)));
+        assertEquals(1, wheel.size());
+        assertSame(a, wheel.poll(5));
+        assertFalse(wheel.contains(a));
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void testDrainTo() {
+        TimerWheel<TestNode> wheel = new TimerWheel<TestNode>(TestNodeComparator.INSTANCE, 1);
+        List<TestNode> nodes = new ArrayList<TestNode>();
+        for (int i = 0; i < 100; i++) {
+            TestNode node = new TestNode(1L << (i % 60), i);
+            nodes.add(node);
+            wheel.add(node);
+        }
+        List<TestNode> drained = new ArrayList<TestNode>();
+        wheel.drainTo(drained);
+        assertEquals(new HashSet<TestNode>(nodes), new HashSet<TestNode>(drained));
+        assertTrue(wheel.isEmpty());
+        for (TestNode node : nodes) {
+            assertFalse(wheel.contains(node));
+        }
+    }
+
+    @Test
+    public void testMatchesSortedSet() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            TimerWheel<TestNode> wheel = new TimerWheel<TestNode>(
+                    TestNodeComparator.INSTANCE, 1L << random.nextInt(25));
+            TreeSet<TestNode> expected = new TreeSet<TestNode>(TestNodeComparator.INSTANCE);
+            List<TestNode> live = new ArrayList<TestNode>();
+            long now = random.nextInt(1000);
+            long id = 0;
+            for (int op = 0; op < 10000; op++) {
+                int action = random.nextInt(10);
+                if (action < 4) {
+                    long delay = random.nextInt(3) == 0 ? (long) (random.nextDouble() * (1L << random.nextInt(62)))
+                            : random.nextInt(1 << random.nextInt(30) + 1);
+                    long deadline = now + delay;
+                    if (deadline < 0) {
+                        deadline = Long.MAX_VALUE;
+                    }
+                    TestNode node = new TestNode(deadline, id++);
+                    wheel.add(node);
+                    expected.add(node);
+                    live.add(node);
+                } else if (action < 6 && !live.isEmpty()) {
+                    TestNode node = live.remove(random.nextInt(live.size()));
+                    assertEquals(expected.remove(node), wheel.remove(node));
+                    assertFalse(wheel.contains(node));
+                } else if (action < 8) {
+                    now += random.nextInt(3) == 0 ? random.nextInt(1 << random.nextInt(31)) : random.nextInt(100);
+                    for (;;) {
+                        TestNode node = wheel.poll(now);
+                        TestNode expectedNode = expected.isEmpty() || expected.first().deadline > now ?
+                                null : expected.pollFirst();
+                        assertSame(expectedNode, node);
+                        if (node == null) {
+                            break;
+                        }
+                        live.remove(node);
+                    }
+                } else {
+                    long nextDeadline = wheel.nextDeadlineNanos();
+                    if (expected.isEmpty()) {
+                        assertEquals(-1, nextDeadline);
+                    } else {
+                        // The next deadline may be early but must never be late.
+                        assertTrue(nextDeadline <= expected.first().deadline);
+                    }
+                }
+                assertEquals(expected.size(), wheel.size());
+            }
+        }
+    }
+
+    private static final class TestNode implements TimerWheelNode {
+        final long deadline;
+        final long id;
+        private long position = POSITION_NOT_IN_WHEEL;
+        private int queueIndex = INDEX_NOT_IN_QUEUE;
+
+        TestNode(long deadline, long id) {
+            this.deadline = deadline;
+            this.id = id;
+        }
+
+        @Override
+        public long deadlineNanos() {
+            return deadline;
+        }
+
+        @Override
+        public long timerWheelPosition(TimerWheel<?> wheel) {
+            return position;
+        }
+
+        @Override
+        public void timerWheelPosition(TimerWheel<?> wheel, long position) {
+            this.position = position;
+        }
+
+        @Override
+        public int priorityQueueIndex(DefaultPriorityQueue<?> queue) {
+            return queueIndex;
+        }
+
+        @Override
+        public void priorityQueueIndex(DefaultPriorityQueue<?> queue, int i) {
+            queueIndex = i;
+        }
+    }
+
+    private static final class TestNodeComparator implements Comparator<TestNode> {
+        static final TestNodeComparator INSTANCE = new TestNodeComparator();
+
+        @Override
+        public int compare(TestNode o1, TestNode o2) {
+            if (o1.deadline != o2.deadline) {
+                return o1.deadline < o2.deadline ? -1 : 1;
+            }
+            return o1.id < o2.id ? -1 : o1.id == o2.id ? 0 : 1;
+        }
+    }
+}
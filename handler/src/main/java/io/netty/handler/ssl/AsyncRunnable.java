@@ -0,0 +1,29 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.ssl;
+
+/**
+ * A delegated task returned by {@link javax.net.ssl.SSLEngine#getDelegatedTask()} which may complete
+ * asynchronously. The {@link SslHandler} will resume processing once the completion callback is called.
+ */
+interface AsyncRunnable extends Runnable {
+
+    /**
+     * Start the task and call {@code completionCallback} once it is complete. The callback may be called from any
+     * thread, including the calling one before this method returns.
+     */
+    void run(Runnable completionCallback);
+}
@@ -107,6 +107,11 @@ public abstract class DelegatingSslContext extends SslContext {
         return ctx.sessionContext();
     }
 
+    @Override
+    SslHandshakeAdmissionController handshakeAdmissionController() {
+        return ctx.handshakeAdmissionController();
+    }
+
     /**
      * Init the {@link SSLEngine}.
      */
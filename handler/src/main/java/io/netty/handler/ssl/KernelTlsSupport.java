@@ -0,0 +1,88 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.ssl;
+
+import io.netty.channel.socket.KernelTlsCryptoInfo;
+import io.netty.util.CharsetUtil;
+
+import java.util.Arrays;
+
+/**
+ * Derives the crypto state which is needed to hand the record layer of an established TLS connection over to the
+ * kernel. Only TLSv1.2 with AES-GCM is supported as these are the only ciphers for which the kernel does not need
+ * any state besides the keys, and TLSv1.3 traffic secrets are not exposed by the native library.
+ */
+final class KernelTlsSupport {
+
+    private static final byte[] KEY_EXPANSION_LABEL = "key expansion".getBytes(CharsetUtil.US_ASCII);
+    private static final int FIXED_IV_LENGTH = 4;
+
+    private KernelTlsSupport() { }
+
+    /**
+     * Returns an array which holds the transmit crypto state at index {@code 0} and the receive crypto state at
+     * index {@code 1}, or {@code null} if the negotiated protocol or cipher suite is not supported.
+     *
+     * The returned state is only correct if no application data was exchanged yet, as the record sequence number
+     * of both directions is {@code 1} directly after the {@code Finished} messages.
+     */
+    static KernelTlsCryptoInfo[] cryptoInfo(boolean client, String protocol, String cipherSuite, byte[] masterKey,
+                                            byte[] clientRandom, byte[] serverRandom) {
+        if (!SslUtils.PROTOCOL_TLS_V1_2.equals(protocol) || cipherSuite == null || masterKey == null ||
+                clientRandom == null || serverRandom == null) {
+            return null;
+        }
+        final int cipherType;
+        final int keyLength;
+        final String prfAlgorithm;
+        if (cipherSuite.endsWith("_WITH_AES_128_GCM_SHA256")) {
+            cipherType = KernelTlsCryptoInfo.CIPHER_AES_GCM_128;
+            keyLength = 16;
+            prfAlgorithm = "HmacSHA256";
+        } else if (cipherSuite.endsWith("_WITH_AES_256_GCM_SHA384")) {
+            cipherType = KernelTlsCryptoInfo.CIPHER_AES_GCM_256;
+            keyLength = 32;
+            prfAlgorithm = "HmacSHA384";
+        } else {
+            return null;
+        }
+
+        // See https://tools.ietf.org/html/rfc5246#section-6.3, AEAD ciphers do not use a MAC key.
+        byte[] seed = Arrays.copyOf(serverRandom, serverRandom.length + clientRandom.length);
+        System.arraycopy(clientRandom, 0, seed, serverRandom.length, clientRandom.length);
+        byte[] keyBlock = PseudoRandomFunction.hash(
+                masterKey, KEY_EXPANSION_LABEL, seed, 2 * (keyLength + FIXED_IV_LENGTH), prfAlgorithm);
+
+        int offset = 0;
+        byte[] clientKey = Arrays.copyOfRange(keyBlock, offset, offset += keyLength);
+        byte[] serverKey = Arrays.copyOfRange(keyBlock, offset, offset += keyLength);
+        byte[] clientIv = Arrays.copyOfRange(keyBlock, offset, offset += FIXED_IV_LENGTH);
+        byte[] serverIv = Arrays.copyOfRange(keyBlock, offset, offset + FIXED_IV_LENGTH);
+        Arrays.fill(keyBlock, (byte) 0);
+
+        // The Finished message was sent with sequence number 0 in both directions.
+        byte[] sequence = { 0, 0, 0, 0, 0, 0, 0, 1 };
+        // Like OpenSSL we use the record sequence number as the explicit part of the nonce.
+        KernelTlsCryptoInfo clientInfo = new KernelTlsCryptoInfo(
+                KernelTlsCryptoInfo.TLS_1_2_VERSION, cipherType, clientKey, sequence, clientIv, sequence);
+        KernelTlsCryptoInfo serverInfo = new KernelTlsCryptoInfo(
+                KernelTlsCryptoInfo.TLS_1_2_VERSION, cipherType, serverKey, sequence, serverIv, sequence);
+        Arrays.fill(clientKey, (byte) 0);
+        Arrays.fill(serverKey, (byte) 0);
+        return client ? new KernelTlsCryptoInfo[] { clientInfo, serverInfo } :
+                new KernelTlsCryptoInfo[] { serverInfo, clientInfo };
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.ssl;
+
+import io.netty.internal.tcnative.SSL;
+import io.netty.internal.tcnative.SSLSession;
+import io.netty.internal.tcnative.SSLSessionCache;
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Client-side session cache which stores the native {@code SSL_SESSION}s handed out by OpenSSL keyed by the host and
+ * port of the peer, so a new {@link ReferenceCountedOpenSslEngine} for the same peer can resume the session instead of
+ * doing a full handshake.
+ * <p>
+ * The cache is bounded and evicts the least recently used session first. Sessions are also dropped once they expired.
+ * TLS 1.3 sessions (tickets) which must only be used once are removed from the cache when they are handed out, the
+ * server will usually send a new ticket on the resumed connection which then replaces it.
+ */
+final class OpenSslClientSessionCache implements SSLSessionCache {
+    // Sweep expired sessions every so many inserts so we do not need a timer.
+    private static final int EXPIRE_SWEEP_INTERVAL = 255;
+
+    private final OpenSslEngineMap engineMap;
+    // Access ordered so iteration starts with the least recently used session.
+    private final Map<HostPort, NativeSslSession> sessions =
+            new LinkedHashMap<HostPort, NativeSslSession>(16, 0.75f, true);
+    private final LongCounter hits = PlatformDependent.newLongCounter();
+    private final LongCounter misses = PlatformDependent.newLongCounter();
+    private final LongCounter evictions = PlatformDependent.newLongCounter();
+
+    private volatile boolean enabled = true;
+    // 0 means no limit, like for SSLSessionContext.setSessionCacheSize(int).
+    private volatile int maximumCacheSize;
+    private volatile int sessionTimeout;
+    private int insertsSinceSweep;
+
+    OpenSslClientSessionCache(OpenSslEngineMap engineMap, int maximumCacheSize, int sessionTimeout) {
+        this.engineMap = engineMap;
+        this.maximumCacheSize = maximumCacheSize;
+        this.sessionTimeout = sessionTimeout;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void setSessionTimeout(int seconds) {
+        sessionTimeout = seconds;
+        synchronized (this) {
+            expire(System.currentTimeMillis());
+        }
+    }
+
+    int getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    void setSessionCacheSize(int size) {
+        maximumCacheSize = size;
+        synchronized (this) {
+            evictIfNeeded();
+        }
+    }
+
+    int getSessionCacheSize() {
+        return maximumCacheSize;
+    }
+
+    synchronized int size() {
+        return sessions.size();
+    }
+
+    long hits() {
+        return hits.value();
+    }
+
+    long misses() {
+        return misses.value();
+    }
+
+    long evictions() {
+        return evictions.value();
+    }
+
+    @Override
+    public boolean sessionCreated(long ssl, long sslSession) {
+        if (!enabled) {
+            return false;
+        }
+        ReferenceCountedOpenSslEngine engine = engineMap.get(ssl);
+        if (engine == null) {
+            return false;
+        }
+        HostPort key = HostPort.of(engine.getPeerHost(), engine.getPeerPort());
+        if (key == null) {
+            // We can not look the session up again without knowing the peer.
+            return false;
+        }
+        NativeSslSession session = new NativeSslSession(sslSession);
+        final NativeSslSession old;
+        synchronized (this) {
+            if (++insertsSinceSweep == EXPIRE_SWEEP_INTERVAL) {
+                insertsSinceSweep = 0;
+                expire(System.currentTimeMillis());
+            }
+            old = sessions.put(key, session);
+            evictIfNeeded();
+        }
+        if (old != null) {
+            old.free();
+        }
+        // We hold on to the reference OpenSSL passed to us now.
+        return true;
+    }
+
+    @Override
+    public long getSession(long ssl, byte[] sessionId) {
+        // Only used by OpenSSL for server-side lookups.
+        return -1;
+    }
+
+    /**
+     * Offers a cached session for the given peer to the {@code SSL} instance before the handshake starts.
+     */
+    void setSession(long ssl, String host, int port) {
+        if (!enabled) {
+            return;
+        }
+        HostPort key = HostPort.of(host, port);
+        if (key == null) {
+            return;
+        }
+        NativeSslSession session;
+        boolean singleUse;
+        synchronized (this) {
+            session = sessions.get(key);
+            if (session == null) {
+                misses.increment();
+                return;
+            }
+            if (session.isExpired(System.currentTimeMillis(), sessionTimeout)) {
+                sessions.remove(key);
+                misses.increment();
+                session.free();
+                return;
+            }
+            singleUse = session.shouldBeSingleUse();
+            if (singleUse) {
+                sessions.remove(key);
+            }
+            // SSL_set_session takes its own reference, so this is safe even if the session is evicted concurrently.
+            SSL.setSession(ssl, session.address);
+        }
+        hits.increment();
+        if (singleUse) {
+            session.free();
+        }
+    }
+
+    synchronized void clear() {
+        Iterator<NativeSslSession> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            NativeSslSession session = iterator.next();
+            iterator.remove();
+            session.free();
+        }
+    }
+
+    // Must be called while holding the lock.
+    private void expire(long now) {
+        int timeout = sessionTimeout;
+        Iterator<NativeSslSession> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            NativeSslSession session = iterator.next();
+            if (session.isExpired(now, timeout)) {
+                iterator.remove();
+                session.free();
+            }
+        }
+    }
+
+    // Must be called while holding the lock.
+    private void evictIfNeeded() {
+        int max = maximumCacheSize;
+        if (max <= 0) {
+            return;
+        }
+        Iterator<NativeSslSession> iterator = sessions.values().iterator();
+        while (sessions.size() > max && iterator.hasNext()) {
+            NativeSslSession session = iterator.next();
+            iterator.remove();
+            session.free();
+            evictions.increment();
+        }
+    }
+
+    private static final class NativeSslSession {
+        final long address;
+        private final long creationTime;
+
+        NativeSslSession(long address) {
+            this.address = address;
+            creationTime = SSLSession.getTime(address) * 1000L;
+        }
+
+        boolean isExpired(long now, int timeoutSeconds) {
+            return timeoutSeconds > 0 && now - creationTime > timeoutSeconds * 1000L;
+        }
+
+        boolean shouldBeSingleUse() {
+            return SSLSession.shouldBeSingleUse(address);
+        }
+
+        void free() {
+            SSLSession.free(address);
+        }
+    }
+
+    private static final class HostPort {
+        private final String host;
+        private final int port;
+        private final int hash;
+
+        private HostPort(String host, int port) {
+            this.host = host;
+            this.port = port;
+            hash = 31 * host.hashCode() + port;
+        }
+
+        static HostPort of(String host, int port) {
+            if (host == null || port < 1) {
+                return null;
+            }
+            // Host names are case-insensitive.
+            return new HostPort(host.toLowerCase(Locale.US), port);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof HostPort)) {
+                return false;
+            }
+            HostPort other = (HostPort) obj;
+            return port == other.port && host.equals(other.host);
+        }
+
+        @Override
+        public String toString() {
+            return host + ':' + port;
+        }
+    }
+}
@@ -47,9 +47,14 @@ public abstract class OpenSslSessionContext implements SSLSessionContext {
     //            segfault when the user calls any of the methods here that try to pass the pointer down to the native
     //            level.
     OpenSslSessionContext(ReferenceCountedOpenSslContext context, OpenSslKeyMaterialProvider provider) {
+        this(context, provider, null);
+    }
+
+    OpenSslSessionContext(ReferenceCountedOpenSslContext context, OpenSslKeyMaterialProvider provider,
+                          OpenSslClientSessionCache clientSessionCache) {
         this.context = context;
         this.provider = provider;
-        stats = new OpenSslSessionStats(context);
+        stats = new OpenSslSessionStats(context, clientSessionCache);
     }
 
     final boolean useKeyManager() {
@@ -138,7 +143,14 @@ public abstract class OpenSslSessionContext implements SSLSessionContext {
         return stats;
     }
 
-    final void destroy() {
+    /**
+     * Offers a previously cached session for the given peer to the {@code SSL} instance of a client-side engine.
+     */
+    void setSessionFromCache(String host, int port, long ssl) {
+        // NOOP by default, only the client-side keeps a cache of its own.
+    }
+
+    void destroy() {
         if (provider != null) {
             provider.destroy();
         }
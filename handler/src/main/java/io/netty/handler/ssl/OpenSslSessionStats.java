@@ -28,13 +28,15 @@ import java.util.concurrent.locks.Lock;
 public final class OpenSslSessionStats {
 
     private final ReferenceCountedOpenSslContext context;
+    private final OpenSslClientSessionCache clientSessionCache;
 
     // IMPORTANT: We take the OpenSslContext and not just the long (which points the native instance) to prevent
     //            the GC to collect OpenSslContext as this would also free the pointer and so could result in a
     //            segfault when the user calls any of the methods here that try to pass the pointer down to the native
     //            level.
-    OpenSslSessionStats(ReferenceCountedOpenSslContext context) {
+    OpenSslSessionStats(ReferenceCountedOpenSslContext context, OpenSslClientSessionCache clientSessionCache) {
         this.context = context;
+        this.clientSessionCache = clientSessionCache;
     }
 
     /**
@@ -250,4 +252,37 @@ public final class OpenSslSessionStats {
             readerLock.unlock();
         }
     }
+
+    /**
+     * Returns the number of sessions in the client-side session cache, which is keyed by the peer host and port.
+     * This is always {@code 0} on the server-side.
+     */
+    public long clientCacheNumber() {
+        return clientSessionCache == null ? 0 : clientSessionCache.size();
+    }
+
+    /**
+     * Returns the number of client-side engines which were offered a cached session to resume.
+     * This is always {@code 0} on the server-side.
+     */
+    public long clientCacheHits() {
+        return clientSessionCache == null ? 0 : clientSessionCache.hits();
+    }
+
+    /**
+     * Returns the number of client-side engines which could not be offered a cached session for their peer, either
+     * because there was none or because it expired.
+     * This is always {@code 0} on the server-side.
+     */
+    public long clientCacheMisses() {
+        return clientSessionCache == null ? 0 : clientSessionCache.misses();
+    }
+
+    /**
+     * Returns the number of sessions which were evicted from the client-side session cache because it was full.
+     * This is always {@code 0} on the server-side.
+     */
+    public long clientCacheEvictions() {
+        return clientSessionCache == null ? 0 : clientSessionCache.evictions();
+    }
 }
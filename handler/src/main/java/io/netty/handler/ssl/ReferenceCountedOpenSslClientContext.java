@@ -32,6 +32,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
 
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLException;
@@ -59,6 +60,8 @@ public final class ReferenceCountedOpenSslClientContext extends ReferenceCounted
                           OpenSslKeyMaterialManager.KEY_TYPE_EC_EC)));
     private static final boolean ENABLE_SESSION_TICKET =
             SystemPropertyUtil.getBoolean("jdk.tls.client.enableSessionTicketExtension", false);
+    private static final boolean ENABLE_SESSION_CACHE =
+            SystemPropertyUtil.getBoolean("io.netty.handler.ssl.openssl.sessionCacheClient", true);
     private final OpenSslSessionContext sessionContext;
 
     ReferenceCountedOpenSslClientContext(X509Certificate[] trustCertCollection, TrustManagerFactory trustManagerFactory,
@@ -166,7 +169,12 @@ public final class ReferenceCountedOpenSslClientContext extends ReferenceCounted
                 }
                 throw new SSLException("unable to setup trustmanager", e);
             }
-            OpenSslClientSessionContext context = new OpenSslClientSessionContext(thiz, keyMaterialProvider);
+            OpenSslClientSessionCache cache = new OpenSslClientSessionCache(
+                    engineMap, (int) thiz.sessionCacheSize(), (int) thiz.sessionTimeout());
+            // IMPORTANT: Like the verify callbacks the cache must not reference the context itself.
+            SSLContext.setSSLSessionCache(ctx, cache);
+            OpenSslClientSessionContext context = new OpenSslClientSessionContext(thiz, keyMaterialProvider, cache);
+            context.setSessionCacheEnabled(ENABLE_SESSION_CACHE);
             if (ENABLE_SESSION_TICKET) {
                 context.setTicketKeys();
             }
@@ -190,10 +198,17 @@ public final class ReferenceCountedOpenSslClientContext extends ReferenceCounted
         }
     }
 
-    // No cache is currently supported for client side mode.
+    /**
+     * Client-side {@link OpenSslSessionContext} which caches sessions keyed by the peer host and port, see
+     * {@link OpenSslClientSessionCache}.
+     */
     static final class OpenSslClientSessionContext extends OpenSslSessionContext {
-        OpenSslClientSessionContext(ReferenceCountedOpenSslContext context, OpenSslKeyMaterialProvider provider) {
-            super(context, provider);
+        private final OpenSslClientSessionCache cache;
+
+        OpenSslClientSessionContext(ReferenceCountedOpenSslContext context, OpenSslKeyMaterialProvider provider,
+                                    OpenSslClientSessionCache cache) {
+            super(context, provider, cache);
+            this.cache = cache;
         }
 
         @Override
@@ -201,11 +216,12 @@ public final class ReferenceCountedOpenSslClientContext extends ReferenceCounted
             if (seconds < 0) {
                 throw new IllegalArgumentException();
             }
+            cache.setSessionTimeout(seconds);
         }
 
         @Override
         public int getSessionTimeout() {
-            return 0;
+            return cache.getSessionTimeout();
         }
 
         @Override
@@ -213,21 +229,43 @@ public final class ReferenceCountedOpenSslClientContext extends ReferenceCounted
             if (size < 0) {
                 throw new IllegalArgumentException();
             }
+            cache.setSessionCacheSize(size);
         }
 
         @Override
         public int getSessionCacheSize() {
-            return 0;
+            return cache.getSessionCacheSize();
         }
 
         @Override
         public void setSessionCacheEnabled(boolean enabled) {
-            // ignored
+            // We only want OpenSSL to hand us the new sessions, the lookup is done by us when the engine is created.
+            long mode = enabled ? SSL.SSL_SESS_CACHE_CLIENT | SSL.SSL_SESS_CACHE_NO_INTERNAL_LOOKUP |
+                    SSL.SSL_SESS_CACHE_NO_INTERNAL_STORE : SSL.SSL_SESS_CACHE_OFF;
+            Lock writerLock = context.ctxLock.writeLock();
+            writerLock.lock();
+            try {
+                SSLContext.setSessionCacheMode(context.ctx, mode);
+            } finally {
+                writerLock.unlock();
+            }
+            cache.setEnabled(enabled);
         }
 
         @Override
         public boolean isSessionCacheEnabled() {
-            return false;
+            return cache.isEnabled();
+        }
+
+        @Override
+        void setSessionFromCache(String host, int port, long ssl) {
+            cache.setSession(ssl, host, port);
+        }
+
+        @Override
+        void destroy() {
+            super.destroy();
+            cache.clear();
         }
     }
 
@@ -17,6 +17,8 @@ package io.netty.handler.ssl;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.socket.KernelTlsCryptoInfo;
+import io.netty.internal.tcnative.AsyncTask;
 import io.netty.internal.tcnative.Buffer;
 import io.netty.internal.tcnative.SSL;
 import io.netty.util.AbstractReferenceCounted;
@@ -351,6 +353,11 @@ public class ReferenceCountedOpenSslEngine extends SSLEngine implements Referenc
                     SSL.enableOcsp(ssl);
                 }
 
+                if (clientMode) {
+                    // Try to resume a previous session with the same peer, if we know one.
+                    context.sessionContext().setSessionFromCache(peerHost, peerPort, ssl);
+                }
+
                 if (!jdkCompatibilityMode) {
                     SSL.setMode(ssl, SSL.getMode(ssl) | SSL.SSL_MODE_ENABLE_PARTIAL_WRITE
                             | SSL.SSL_MODE_ENABLE_FALSE_START);
@@ -402,6 +409,19 @@ public class ReferenceCountedOpenSslEngine extends SSLEngine implements Referenc
         return new SecretKeySpec(SSL.getMasterKey(ssl), "AES");
     }
 
+    /**
+     * Returns the crypto state that is needed to hand the record layer over to the kernel or {@code null} if this
+     * is not supported for the negotiated protocol and cipher suite.
+     */
+    final synchronized KernelTlsCryptoInfo[] kernelTlsCryptoInfo() {
+        if (isDestroyed() || handshakeState != HandshakeState.FINISHED) {
+            return null;
+        }
+        SSLSession session = getSession();
+        return KernelTlsSupport.cryptoInfo(clientMode, session.getProtocol(), session.getCipherSuite(),
+                SSL.getMasterKey(ssl), SSL.getClientRandom(ssl), SSL.getServerRandom(ssl));
+    }
+
     /**
      * Sets the OCSP response.
      */
@@ -1411,21 +1431,56 @@ public class ReferenceCountedOpenSslEngine extends SSLEngine implements Referenc
         if (task == null) {
             return null;
         }
-        return new Runnable() {
-            @Override
-            public void run() {
+        if (task instanceof AsyncTask) {
+            return new AsyncTaskDecorator((AsyncTask) task);
+        }
+        return new TaskDecorator<Runnable>(task);
+    }
+
+    private class TaskDecorator<R extends Runnable> implements Runnable {
+        protected final R task;
+
+        TaskDecorator(R task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            runAndResetNeedTask(task);
+        }
+    }
+
+    private final class AsyncTaskDecorator extends TaskDecorator<AsyncTask> implements AsyncRunnable {
+
+        AsyncTaskDecorator(AsyncTask task) {
+            super(task);
+        }
+
+        @Override
+        public void run(final Runnable runnable) {
+            if (isDestroyed()) {
+                // The engine was destroyed in the meantime, just return.
+                return;
+            }
+            task.runAsync(new TaskDecorator<Runnable>(runnable));
+        }
+    }
+
+    private void runAndResetNeedTask(Runnable task) {
+        // We need to synchronize on the ReferenceCountedOpenSslEngine, we are sure the SSL object
+        // will not be freed by the user calling for example shutdown() concurrently.
+        synchronized (this) {
+            try {
                 if (isDestroyed()) {
                     // The engine was destroyed in the meantime, just return.
                     return;
                 }
-                try {
-                    task.run();
-                } finally {
-                    // The task was run, reset needTask to false so getHandshakeStatus() returns the correct value.
-                    needTask = false;
-                }
+                task.run();
+            } finally {
+                // The task was run, reset needTask to false so getHandshakeStatus() returns the correct value.
+                needTask = false;
             }
-        };
+        }
     }
 
     @Override
@@ -100,6 +100,7 @@ public abstract class SslContext {
 
     private final boolean startTls;
     private final AttributeMap attributes = new DefaultAttributeMap();
+    private SslHandshakeAdmissionController handshakeAdmissionController;
 
     /**
      * Returns the default server-side implementation provider currently in use.
@@ -872,6 +873,29 @@ public abstract class SslContext {
         return attributes;
     }
 
+    /**
+     * Set the {@link SslHandshakeAdmissionController} that is used by all {@link SslHandler}s created by this context.
+     */
+    void handshakeAdmissionController(SslHandshakeAdmissionController handshakeAdmissionController) {
+        this.handshakeAdmissionController = handshakeAdmissionController;
+    }
+
+    /**
+     * Returns the {@link SslHandshakeAdmissionController} that is used by all {@link SslHandler}s created by this
+     * context or {@code null} if none is used.
+     */
+    SslHandshakeAdmissionController handshakeAdmissionController() {
+        return handshakeAdmissionController;
+    }
+
+    private SslHandler initHandshakeAdmission(SslHandler handler) {
+        SslHandshakeAdmissionController controller = handshakeAdmissionController();
+        if (controller != null) {
+            handler.setHandshakeAdmissionController(controller);
+        }
+        return handler;
+    }
+
     /**
      * Returns {@code true} if and only if this context is for server-side.
      */
@@ -942,7 +966,7 @@ public abstract class SslContext {
      * @see #newHandler(ByteBufAllocator, Executor)
      */
     public final SslHandler newHandler(ByteBufAllocator alloc) {
-        return newHandler(alloc, startTls);
+        return initHandshakeAdmission(newHandler(alloc, startTls));
     }
 
     /**
@@ -979,7 +1003,7 @@ public abstract class SslContext {
      * @return a new {@link SslHandler}
      */
     public SslHandler newHandler(ByteBufAllocator alloc, Executor delegatedTaskExecutor) {
-        return newHandler(alloc, startTls, delegatedTaskExecutor);
+        return initHandshakeAdmission(newHandler(alloc, startTls, delegatedTaskExecutor));
     }
 
     /**
@@ -996,7 +1020,7 @@ public abstract class SslContext {
      * @see #newHandler(ByteBufAllocator, String, int, Executor)
      */
     public final SslHandler newHandler(ByteBufAllocator alloc, String peerHost, int peerPort) {
-        return newHandler(alloc, peerHost, peerPort, startTls);
+        return initHandshakeAdmission(newHandler(alloc, peerHost, peerPort, startTls));
     }
 
     /**
@@ -1037,7 +1061,7 @@ public abstract class SslContext {
      */
     public SslHandler newHandler(ByteBufAllocator alloc, String peerHost, int peerPort,
                                  Executor delegatedTaskExecutor) {
-        return newHandler(alloc, peerHost, peerPort, startTls, delegatedTaskExecutor);
+        return initHandshakeAdmission(newHandler(alloc, peerHost, peerPort, startTls, delegatedTaskExecutor));
     }
 
     protected SslHandler newHandler(ByteBufAllocator alloc, String peerHost, int peerPort, boolean startTls,
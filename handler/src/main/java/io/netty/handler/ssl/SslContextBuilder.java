@@ -190,6 +190,7 @@ public final class SslContextBuilder {
     private boolean startTls;
     private boolean enableOcsp;
     private String keyStoreType = KeyStore.getDefaultType();
+    private SslHandshakeAdmissionController handshakeAdmissionController;
 
     private SslContextBuilder(boolean forServer) {
         this.forServer = forServer;
@@ -561,22 +562,36 @@ public final class SslContextBuilder {
         return this;
     }
 
+    /**
+     * Set the {@link SslHandshakeAdmissionController} which limits the number of concurrent handshakes of all the
+     * {@link SslHandler}s created by the {@link SslContext}. The same instance can be shared between multiple
+     * {@link SslContext}s, for example to use one limit per {@link io.netty.channel.EventLoopGroup}.
+     */
+    @UnstableApi
+    public SslContextBuilder handshakeAdmissionController(SslHandshakeAdmissionController controller) {
+        this.handshakeAdmissionController = controller;
+        return this;
+    }
+
     /**
      * Create new {@code SslContext} instance with configured settings.
      * <p>If {@link #sslProvider(SslProvider)} is set to {@link SslProvider#OPENSSL_REFCNT} then the caller is
      * responsible for releasing this object, or else native memory may leak.
      */
     public SslContext build() throws SSLException {
+        final SslContext context;
         if (forServer) {
-            return SslContext.newServerContextInternal(provider, sslContextProvider, trustCertCollection,
+            context = SslContext.newServerContextInternal(provider, sslContextProvider, trustCertCollection,
                 trustManagerFactory, keyCertChain, key, keyPassword, keyManagerFactory,
                 ciphers, cipherFilter, apn, sessionCacheSize, sessionTimeout, clientAuth, protocols, startTls,
                 enableOcsp, keyStoreType);
         } else {
-            return SslContext.newClientContextInternal(provider, sslContextProvider, trustCertCollection,
+            context = SslContext.newClientContextInternal(provider, sslContextProvider, trustCertCollection,
                 trustManagerFactory, keyCertChain, key, keyPassword, keyManagerFactory,
                 ciphers, cipherFilter, apn, protocols, sessionCacheSize, sessionTimeout, enableOcsp, keyStoreType);
         }
+        context.handshakeAdmissionController(handshakeAdmissionController);
+        return context;
     }
 
     private static <T> T[] toArray(Iterable<? extends T> iterable, T[] prototype) {
@@ -28,10 +28,13 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandler;
+import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.ChannelOutboundHandler;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.ChannelPromiseNotifier;
+import io.netty.channel.socket.KernelTlsChannel;
+import io.netty.channel.socket.KernelTlsCryptoInfo;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.DecoderException;
 import io.netty.handler.codec.UnsupportedMessageTypeException;
@@ -61,6 +64,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 
 import javax.net.ssl.SSLEngine;
@@ -180,6 +184,26 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
      */
     private static final int MAX_PLAINTEXT_LENGTH = 16 * 1024;
 
+    /**
+     * Size of the plaintext of a record when {@link #setDynamicRecordSizing(boolean) dynamic record sizing} is used
+     * and the connection is new or was idle. This is chosen so the encrypted record (including the TLS framing and
+     * MAC/padding overhead) fits into a single TCP segment of a typical 1500 byte MTU path, which allows the remote
+     * peer to decrypt the data as soon as the first segment arrives.
+     */
+    private static final int DYNAMIC_RECORD_SMALL_SIZE = 1300;
+
+    /**
+     * Number of bytes after which {@link #setDynamicRecordSizing(boolean) dynamic record sizing} switches to
+     * records of {@link #wrapDataSize}.
+     */
+    private static final int DYNAMIC_RECORD_BOOST_THRESHOLD = 128 * 1024;
+
+    /**
+     * Idle time after which {@link #setDynamicRecordSizing(boolean) dynamic record sizing} falls back to small
+     * records, as the TCP congestion window was most likely reset.
+     */
+    private static final long DYNAMIC_RECORD_IDLE_RESET_NANOS = TimeUnit.SECONDS.toNanos(1);
+
     private enum SslEngineType {
         TCNATIVE(true, COMPOSITE_CUMULATOR) {
             @Override
@@ -382,6 +406,10 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
     private boolean flushedBeforeHandshake;
     private boolean readDuringHandshake;
     private boolean handshakeStarted;
+    private boolean admissionPending;
+    private SslHandshakeAdmissionController handshakeAdmissionController;
+    private boolean kernelTlsPending;
+    private boolean kernelTlsEnabled;
 
     private SslHandlerCoalescingBufferQueue pendingUnencryptedWrites;
     private Promise<Channel> handshakePromise = new LazyChannelPromise();
@@ -409,6 +437,13 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
     private volatile long closeNotifyFlushTimeoutMillis = 3000;
     private volatile long closeNotifyReadTimeoutMillis;
     volatile int wrapDataSize = MAX_PLAINTEXT_LENGTH;
+    private volatile int maxRecordsPerWrite = 1;
+    private volatile boolean dynamicRecordSizing;
+    private volatile boolean kernelTlsOffload;
+
+    // Only accessed from the EventLoop when dynamicRecordSizing is used.
+    private long dynamicRecordBytes;
+    private long lastRecordNanos;
 
     /**
      * Creates a new instance which runs all delegated tasks directly on the {@link EventExecutor}.
@@ -459,6 +494,18 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
         setCumulator(engineType.cumulator);
     }
 
+    /**
+     * Set the {@link SslHandshakeAdmissionController} that is used to limit the number of concurrent handshakes.
+     * This must be called before the {@link SslHandler} is added to the {@link ChannelPipeline}.
+     */
+    @UnstableApi
+    public void setHandshakeAdmissionController(SslHandshakeAdmissionController handshakeAdmissionController) {
+        if (ctx != null) {
+            throw new IllegalStateException("SslHandler was already added to the pipeline");
+        }
+        this.handshakeAdmissionController = handshakeAdmissionController;
+    }
+
     public long getHandshakeTimeoutMillis() {
         return handshakeTimeoutMillis;
     }
@@ -501,6 +548,87 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
         this.wrapDataSize = wrapDataSize;
     }
 
+    /**
+     * Sets the maximum number of TLS records that are produced into a single outbound buffer. When more than one
+     * record worth of data is pending on flush, the records are wrapped back to back into the same buffer and
+     * written to the transport as one message, which reduces the number of buffers and write operations. The default
+     * is {@code 1} which writes every record as its own buffer.
+     * <p>
+     * This has only an effect if {@link #setWrapDataSize(int) wrapDataSize} is {@code > 0}.
+     *
+     * @param maxRecordsPerWrite the maximum number of records per outbound buffer.
+     */
+    @UnstableApi
+    public final void setMaxRecordsPerWrite(int maxRecordsPerWrite) {
+        this.maxRecordsPerWrite = ObjectUtil.checkPositive(maxRecordsPerWrite, "maxRecordsPerWrite");
+    }
+
+    /**
+     * Enables or disables dynamic TLS record sizing. If enabled, small records that fit into a single TCP segment
+     * are used at the start of the connection and after the connection was idle for a while, which reduces the time
+     * until the remote peer can decrypt the first bytes. Once enough data was written the records grow to
+     * {@link #setWrapDataSize(int) wrapDataSize} bytes to reduce the framing overhead and CPU usage for bulk
+     * transfers.
+     * <p>
+     * This has only an effect if {@link #setWrapDataSize(int) wrapDataSize} is {@code > 0}.
+     */
+    @UnstableApi
+    public final void setDynamicRecordSizing(boolean dynamicRecordSizing) {
+        this.dynamicRecordSizing = dynamicRecordSizing;
+    }
+
+    /**
+     * Enables or disables handing the TLS record layer over to the kernel (kTLS) once the handshake completed. This
+     * is only done if the {@link SSLEngine} is provided by {@link SslProvider#OPENSSL} or
+     * {@link SslProvider#OPENSSL_REFCNT}, the {@link Channel} implements {@link KernelTlsChannel}, TLSv1.2 with an
+     * AES-GCM cipher suite was negotiated and the kernel supports it. In all other cases the records are processed
+     * in user space as usual.
+     * <p>
+     * Once offloaded this {@link SslHandler} removes itself from the {@link ChannelPipeline} and the {@link Channel}
+     * reads and writes plaintext, which allows to use zero-copy transfers like {@link io.netty.channel.FileRegion}s
+     * on encrypted connections. As the {@link SSLEngine} is not used anymore no {@code close_notify} is sent when
+     * the {@link Channel} is closed, and received alerts are reported as {@link IOException}s by the
+     * {@link Channel}.
+     * <p>
+     * This must be called before the handshake completes.
+     */
+    @UnstableApi
+    public final void setKernelTlsOffload(boolean kernelTlsOffload) {
+        this.kernelTlsOffload = kernelTlsOffload;
+    }
+
+    /**
+     * Returns {@code true} if the TLS record layer was handed over to the kernel.
+     */
+    @UnstableApi
+    public final boolean isKernelTlsEnabled() {
+        return kernelTlsEnabled;
+    }
+
+    /**
+     * Returns the maximum number of plaintext bytes to wrap into the next TLS record.
+     */
+    private int nextRecordSize(int wrapDataSize) {
+        if (wrapDataSize <= 0) {
+            return Integer.MAX_VALUE;
+        }
+        if (!dynamicRecordSizing) {
+            return wrapDataSize;
+        }
+        if (dynamicRecordBytes != 0 && System.nanoTime() - lastRecordNanos > DYNAMIC_RECORD_IDLE_RESET_NANOS) {
+            dynamicRecordBytes = 0;
+        }
+        return dynamicRecordBytes < DYNAMIC_RECORD_BOOST_THRESHOLD ?
+                Math.min(DYNAMIC_RECORD_SMALL_SIZE, wrapDataSize) : wrapDataSize;
+    }
+
+    private void recordWrapped(int bytesConsumed) {
+        if (dynamicRecordSizing && bytesConsumed > 0) {
+            dynamicRecordBytes += bytesConsumed;
+            lastRecordNanos = System.nanoTime();
+        }
+    }
+
     /**
      * @deprecated use {@link #getCloseNotifyFlushTimeoutMillis()}
      */
@@ -704,10 +832,14 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
             }
         }
         if (!sslClosePromise.isDone()) {
-            if (cause == null) {
-                cause = new SSLHandshakeException("SslHandler removed before handshake completed");
+            if (kernelTlsEnabled) {
+                notifyClosePromise(new SSLException("TLS record layer was handed over to the kernel"));
+            } else {
+                if (cause == null) {
+                    cause = new SSLHandshakeException("SslHandler removed before handshake completed");
+                }
+                notifyClosePromise(cause);
             }
-            notifyClosePromise(cause);
         }
 
         if (engine instanceof ReferenceCounted) {
@@ -784,7 +916,7 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
             return;
         }
 
-        if (processTask) {
+        if (processTask || admissionPending || kernelTlsPending) {
             return;
         }
 
@@ -818,6 +950,10 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
 
     // This method will not call setHandshakeFailure(...) !
     private void wrap(ChannelHandlerContext ctx, boolean inUnwrap) throws SSLException {
+        if (kernelTlsPending) {
+            // The pending writes are either written in plaintext once the kernel took over or wrapped later.
+            return;
+        }
         ByteBuf out = null;
         ChannelPromise promise = null;
         ByteBufAllocator alloc = ctx.alloc();
@@ -828,19 +964,34 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
             // Only continue to loop if the handler was not removed in the meantime.
             // See https://github.com/netty/netty/issues/5860
             outer: while (!ctx.isRemoved()) {
+                final int recordSize = nextRecordSize(wrapDataSize);
+                // Only gather multiple records once the handshake is done, as otherwise we may need to stop
+                // in between to run tasks or unwrap.
+                final int maxRecords = wrapDataSize > 0 && handshakePromise.isDone() ? maxRecordsPerWrite : 1;
                 promise = ctx.newPromise();
                 buf = wrapDataSize > 0 ?
-                        pendingUnencryptedWrites.remove(alloc, wrapDataSize, promise) :
+                        pendingUnencryptedWrites.remove(alloc, (int) Math.min(
+                                (long) recordSize * maxRecords, Integer.MAX_VALUE), promise) :
                         pendingUnencryptedWrites.removeFirst(promise);
                 if (buf == null) {
                     break;
                 }
 
                 if (out == null) {
-                    out = allocateOutNetBuf(ctx, buf.readableBytes(), buf.nioBufferCount());
+                    int readableBytes = buf.readableBytes();
+                    int numRecords = maxRecords == 1 ? 1 : (readableBytes + recordSize - 1) / recordSize;
+                    out = allocateOutNetBuf(ctx, readableBytes, Math.max(numRecords, buf.nioBufferCount()));
                 }
 
-                SSLEngineResult result = wrap(alloc, engine, buf, out);
+                SSLEngineResult result = wrap(alloc, engine, buf, out, recordSize);
+                recordWrapped(result.bytesConsumed());
+                // Wrap the remaining records into the same buffer so we can write all of them at once.
+                while (maxRecords > 1 && buf.isReadable() && result.bytesConsumed() > 0 &&
+                        result.getStatus() == Status.OK &&
+                        result.getHandshakeStatus() == HandshakeStatus.NOT_HANDSHAKING) {
+                    result = wrap(alloc, engine, buf, out, recordSize);
+                    recordWrapped(result.bytesConsumed());
+                }
 
                 if (result.getStatus() == Status.CLOSED) {
                     buf.release();
@@ -1050,10 +1201,18 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
 
     private SSLEngineResult wrap(ByteBufAllocator alloc, SSLEngine engine, ByteBuf in, ByteBuf out)
             throws SSLException {
+        return wrap(alloc, engine, in, out, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Wrap at most {@code maxBytes} of {@code in} into {@code out}.
+     */
+    private SSLEngineResult wrap(ByteBufAllocator alloc, SSLEngine engine, ByteBuf in, ByteBuf out, int maxBytes)
+            throws SSLException {
         ByteBuf newDirectIn = null;
         try {
             int readerIndex = in.readerIndex();
-            int readableBytes = in.readableBytes();
+            int readableBytes = Math.min(in.readableBytes(), maxBytes);
 
             // We will call SslEngine.wrap(ByteBuffer[], ByteBuffer) to allow efficient handling of
             // CompositeByteBuf without force an extra memory copy when CompositeByteBuffer.nioBuffer() is called.
@@ -1069,7 +1228,7 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
                     // to a minimum.
                     in0[0] = in.internalNioBuffer(readerIndex, readableBytes);
                 } else {
-                    in0 = in.nioBuffers();
+                    in0 = in.nioBuffers(readerIndex, readableBytes);
                 }
             } else {
                 // We could even go further here and check if its a CompositeByteBuf and if so try to decompose it and
@@ -1322,7 +1481,7 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
 
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws SSLException {
-        if (processTask) {
+        if (processTask || admissionPending || kernelTlsPending) {
             return;
         }
         if (jdkCompatibilityMode) {
@@ -1390,6 +1549,12 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
                 final int produced = result.bytesProduced();
                 final int consumed = result.bytesConsumed();
 
+                if (produced > 0 && kernelTlsPending) {
+                    // Application data was already decrypted by the SSLEngine, so the record sequence numbers are
+                    // not known anymore and we need to stay in user space.
+                    kernelTlsPending = false;
+                }
+
                 // Update indexes for the next iteration
                 offset += consumed;
                 length -= consumed;
@@ -1548,16 +1713,6 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
         return executor instanceof EventExecutor && ((EventExecutor) executor).inEventLoop();
     }
 
-    private static void runAllDelegatedTasks(SSLEngine engine) {
-        for (;;) {
-            Runnable task = engine.getDelegatedTask();
-            if (task == null) {
-                return;
-            }
-            task.run();
-        }
-    }
-
     /**
      * Will either run the delegated task directly calling {@link Runnable#run()} and return {@code true} or will
      * offload the delegated task using {@link Executor#execute(Runnable)} and return {@code false}.
@@ -1568,8 +1723,25 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
     private boolean runDelegatedTasks(boolean inUnwrap) {
         if (delegatedTaskExecutor == ImmediateExecutor.INSTANCE || inEventLoop(delegatedTaskExecutor)) {
             // We should run the task directly in the EventExecutor thread and not offload at all.
-            runAllDelegatedTasks(engine);
-            return true;
+            for (;;) {
+                Runnable task = engine.getDelegatedTask();
+                if (task == null) {
+                    return true;
+                }
+                if (task instanceof AsyncRunnable) {
+                    processTask = true;
+                    AsyncTaskCompletionHandler completionHandler = new AsyncTaskCompletionHandler(inUnwrap);
+                    ((AsyncRunnable) task).run(completionHandler);
+                    if (completionHandler.resumeLater()) {
+                        // The task did not complete yet, processing is resumed once the completion callback is
+                        // called.
+                        return false;
+                    }
+                    processTask = false;
+                } else {
+                    task.run();
+                }
+            }
         } else {
             executeDelegatedTasks(inUnwrap);
             return false;
@@ -1586,6 +1758,31 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
         }
     }
 
+    /**
+     * Completion callback for an {@link AsyncRunnable} that was started on the {@link EventExecutor}. If the task
+     * completes before {@link #resumeLater()} is called we just continue processing directly, otherwise processing
+     * is resumed on the {@link EventExecutor} once the callback is called.
+     */
+    private final class AsyncTaskCompletionHandler implements Runnable {
+        private final AtomicBoolean done = new AtomicBoolean();
+        private final boolean inUnwrap;
+
+        AsyncTaskCompletionHandler(boolean inUnwrap) {
+            this.inUnwrap = inUnwrap;
+        }
+
+        @Override
+        public void run() {
+            if (!done.compareAndSet(false, true)) {
+                new SslTasksRunner(inUnwrap).runComplete();
+            }
+        }
+
+        boolean resumeLater() {
+            return done.compareAndSet(false, true);
+        }
+    }
+
     /**
      * {@link Runnable} that will be scheduled on the {@code delegatedTaskExecutor} and will take care
      * of resume work on the {@link EventExecutor} once the task was executed.
@@ -1741,20 +1938,50 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
         @Override
         public void run() {
             try {
-                runAllDelegatedTasks(engine);
+                for (;;) {
+                    Runnable task = engine.getDelegatedTask();
+                    if (task == null) {
+                        break;
+                    }
+                    if (task instanceof AsyncRunnable) {
+                        // Resume once the task completes, resumeOnEventExecutor() will take care of offloading
+                        // the remaining tasks.
+                        ((AsyncRunnable) task).run(new Runnable() {
+                            @Override
+                            public void run() {
+                                runComplete();
+                            }
+                        });
+                        return;
+                    }
+                    task.run();
+                }
 
                 // All tasks were processed.
                 assert engine.getHandshakeStatus() != HandshakeStatus.NEED_TASK;
 
+                runComplete();
+            } catch (final Throwable cause) {
+                handleException(cause);
+            }
+        }
+
+        void runComplete() {
+            EventExecutor executor = ctx.executor();
+            if (executor.inEventLoop()) {
+                resumeOnEventExecutor();
+                return;
+            }
+            try {
                 // Jump back on the EventExecutor.
-                ctx.executor().execute(new Runnable() {
+                executor.execute(new Runnable() {
                     @Override
                     public void run() {
                         resumeOnEventExecutor();
                     }
                 });
-            } catch (final Throwable cause) {
-                handleException(cause);
+            } catch (RejectedExecutionException ignore) {
+                // The EventExecutor was shutdown, nothing left to resume.
             }
         }
 
@@ -1800,6 +2027,18 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
      * Notify all the handshake futures about the successfully handshake
      */
     private void setHandshakeSuccess() {
+        if (kernelTlsOffload && !handshakePromise.isDone() && engine instanceof ReferenceCountedOpenSslEngine &&
+                ctx.channel() instanceof KernelTlsChannel) {
+            // Hold back all writes and reads until we know if the kernel takes over the record layer. This is done
+            // once the current wrap / unwrap operation completed and all handshake records were written.
+            kernelTlsPending = true;
+            ctx.executor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    tryEnableKernelTls();
+                }
+            });
+        }
         boolean notified = handshakePromise.trySuccess(ctx.channel());
         SSLSession session = engine.getSession();
 
@@ -1966,16 +2205,121 @@ public class SslHandler extends ByteToMessageDecoder implements ChannelOutboundH
     private void startHandshakeProcessing() {
         if (!handshakeStarted) {
             handshakeStarted = true;
-            if (engine.getUseClientMode()) {
+            SslHandshakeAdmissionController controller = handshakeAdmissionController;
+            if ((controller == null || admitHandshake(controller)) && engine.getUseClientMode()) {
                 // Begin the initial handshake.
                 // channelActive() event has been fired already, which means this.channelActive() will
                 // not be invoked. We have to initialize here instead.
                 handshake();
             }
+            // The timeout also covers the time the handshake may spend waiting for admission.
             applyHandshakeTimeout();
         }
     }
 
+    /**
+     * Request admission for the initial handshake. Returns {@code true} if the handshake can be started directly.
+     */
+    private boolean admitHandshake(final SslHandshakeAdmissionController controller) {
+        final SslHandshakeAdmissionController.Ticket ticket = controller.admit(ctx.executor(), new Runnable() {
+            @Override
+            public void run() {
+                handshakeAdmitted();
+            }
+        });
+        if (ticket == null) {
+            setHandshakeFailure(ctx, new SslHandshakeRejectedException(
+                    "handshake rejected: too many pending handshakes"));
+            return false;
+        }
+        // Release the slot or leave the queue once the handshake is done, no matter if it was successful or not.
+        handshakePromise.addListener(new FutureListener<Channel>() {
+            @Override
+            public void operationComplete(Future<Channel> future) {
+                controller.release(ticket);
+            }
+        });
+        admissionPending = !ticket.admittedDirectly;
+        return !admissionPending;
+    }
+
+    private void tryEnableKernelTls() {
+        if (!kernelTlsPending || ctx.isRemoved()) {
+            return;
+        }
+        kernelTlsPending = false;
+
+        final Channel channel = ctx.channel();
+        // Ensure the handshake records are written before the kernel starts to encrypt everything we write.
+        ctx.flush();
+        ChannelOutboundBuffer outboundBuffer = channel.unsafe().outboundBuffer();
+        if (channel.isActive() && outboundBuffer != null && outboundBuffer.isEmpty() &&
+                !internalBuffer().isReadable() && !engine.isInboundDone() && !engine.isOutboundDone()) {
+            KernelTlsCryptoInfo[] cryptoInfo = ((ReferenceCountedOpenSslEngine) engine).kernelTlsCryptoInfo();
+            if (cryptoInfo != null) {
+                try {
+                    ((KernelTlsChannel) channel).enableKernelTls(cryptoInfo[0], cryptoInfo[1]);
+                    kernelTlsEnabled = true;
+                } catch (IOException e) {
+                    logger.debug("{} Unable to hand the TLS record layer over to the kernel", channel, e);
+                    if (!channel.isActive()) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        if (kernelTlsEnabled) {
+            // Everything from now on is plaintext.
+            pendingUnencryptedWrites.writeAndRemoveAll(ctx);
+            ctx.flush();
+            ctx.pipeline().remove(this);
+            return;
+        }
+
+        // Continue to process the records in user space.
+        try {
+            if (!pendingUnencryptedWrites.isEmpty()) {
+                wrapAndFlush(ctx);
+            }
+        } catch (Throwable cause) {
+            setHandshakeFailure(ctx, cause);
+            ctx.fireExceptionCaught(cause);
+            return;
+        }
+        if (internalBuffer().isReadable()) {
+            try {
+                channelRead(ctx, Unpooled.EMPTY_BUFFER);
+            } catch (Throwable cause) {
+                ctx.fireExceptionCaught(cause);
+            } finally {
+                channelReadComplete0(ctx);
+            }
+        }
+    }
+
+    private void handshakeAdmitted() {
+        if (!admissionPending) {
+            return;
+        }
+        admissionPending = false;
+        if (handshakePromise.isDone()) {
+            return;
+        }
+        if (engine.getUseClientMode()) {
+            handshake();
+        } else {
+            // Process the data that was buffered while we waited for admission.
+            try {
+                channelRead(ctx, Unpooled.EMPTY_BUFFER);
+            } catch (Throwable cause) {
+                ctx.fireExceptionCaught(cause);
+            } finally {
+                channelReadComplete0(ctx);
+            }
+        }
+    }
+
     /**
      * Performs TLS renegotiation.
      */
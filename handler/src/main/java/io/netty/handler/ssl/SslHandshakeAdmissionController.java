@@ -0,0 +1,227 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.ssl;
+
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.UnstableApi;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Limits the number of TLS handshakes that are in flight at the same time for all {@link SslHandler}s sharing an
+ * instance. Usually one instance is shared by all the {@link SslHandler}s of an
+ * {@link io.netty.channel.EventLoopGroup}, either by configuring it via
+ * {@link SslContextBuilder#handshakeAdmissionController(SslHandshakeAdmissionController)} or by calling
+ * {@link SslHandler#setHandshakeAdmissionController(SslHandshakeAdmissionController)}.
+ * <p>
+ * Handshakes that exceed {@code maxConcurrentHandshakes} are queued until another handshake completes. If more than
+ * {@code maxPendingHandshakes} handshakes are queued, new handshakes are rejected with a
+ * {@link SslHandshakeRejectedException} and the connection is closed. The handshake timeout of the
+ * {@link SslHandler} also covers the time spent in the queue.
+ * <p>
+ * This keeps the latency of the {@link io.netty.channel.EventLoop}s stable during reconnect storms, where
+ * otherwise all the expensive private key operations would compete for the same threads.
+ */
+@UnstableApi
+public final class SslHandshakeAdmissionController {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(
+            SslHandshakeAdmissionController.class);
+
+    private final int maxConcurrentHandshakes;
+    private final int maxPendingHandshakes;
+
+    // Guarded by this.
+    private final ArrayDeque<Ticket> pending = new ArrayDeque<Ticket>();
+    private int active;
+
+    private final LongCounter admitted = PlatformDependent.newLongCounter();
+    private final LongCounter queued = PlatformDependent.newLongCounter();
+    private final LongCounter rejected = PlatformDependent.newLongCounter();
+    private final LongCounter totalQueueTimeNanos = PlatformDependent.newLongCounter();
+    private volatile long maxQueueTimeNanos;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxConcurrentHandshakes the maximum number of handshakes that may be in progress at the same time.
+     * @param maxPendingHandshakes the maximum number of handshakes that are queued until they can be started.
+     *                             Use {@code 0} to reject all handshakes that can not be started directly.
+     */
+    public SslHandshakeAdmissionController(int maxConcurrentHandshakes, int maxPendingHandshakes) {
+        this.maxConcurrentHandshakes = ObjectUtil.checkPositive(maxConcurrentHandshakes, "maxConcurrentHandshakes");
+        this.maxPendingHandshakes = ObjectUtil.checkPositiveOrZero(maxPendingHandshakes, "maxPendingHandshakes");
+    }
+
+    /**
+     * Returns the maximum number of handshakes that may be in progress at the same time.
+     */
+    public int maxConcurrentHandshakes() {
+        return maxConcurrentHandshakes;
+    }
+
+    /**
+     * Returns the maximum number of handshakes that may be queued.
+     */
+    public int maxPendingHandshakes() {
+        return maxPendingHandshakes;
+    }
+
+    /**
+     * Returns the number of handshakes that are currently in progress.
+     */
+    public synchronized int activeHandshakes() {
+        return active;
+    }
+
+    /**
+     * Returns the number of handshakes that are currently queued.
+     */
+    public synchronized int pendingHandshakes() {
+        return pending.size();
+    }
+
+    /**
+     * Returns the number of handshakes that were admitted so far, either directly or after being queued.
+     */
+    public long admittedHandshakes() {
+        return admitted.value();
+    }
+
+    /**
+     * Returns the number of handshakes that had to be queued before they could be admitted.
+     */
+    public long queuedHandshakes() {
+        return queued.value();
+    }
+
+    /**
+     * Returns the number of handshakes that were rejected because the queue was full.
+     */
+    public long rejectedHandshakes() {
+        return rejected.value();
+    }
+
+    /**
+     * Returns the accumulated time in nanoseconds that admitted handshakes spent in the queue.
+     */
+    public long totalQueueTimeNanos() {
+        return totalQueueTimeNanos.value();
+    }
+
+    /**
+     * Returns the longest time in nanoseconds that an admitted handshake spent in the queue.
+     */
+    public long maxQueueTimeNanos() {
+        return maxQueueTimeNanos;
+    }
+
+    /**
+     * Request admission for a handshake. Returns {@code null} if the handshake was rejected. Otherwise the returned
+     * {@link Ticket} is either admitted directly or {@code onAdmitted} will be executed on the given
+     * {@link EventExecutor} once it was admitted. In both cases {@link #release(Ticket)} must be called once the
+     * handshake is done.
+     */
+    Ticket admit(EventExecutor executor, Runnable onAdmitted) {
+        Ticket ticket = new Ticket(executor, onAdmitted);
+        synchronized (this) {
+            if (active < maxConcurrentHandshakes) {
+                active++;
+                ticket.state = Ticket.ADMITTED;
+                ticket.admittedDirectly = true;
+            } else if (pending.size() < maxPendingHandshakes) {
+                ticket.queuedNanos = System.nanoTime();
+                pending.add(ticket);
+            } else {
+                ticket = null;
+            }
+        }
+        if (ticket == null) {
+            rejected.increment();
+        } else if (ticket.admittedDirectly) {
+            admitted.increment();
+        } else {
+            queued.increment();
+        }
+        return ticket;
+    }
+
+    /**
+     * Release the given {@link Ticket}, which will either free its slot or remove it from the queue.
+     */
+    void release(Ticket ticket) {
+        Ticket next;
+        synchronized (this) {
+            int state = ticket.state;
+            ticket.state = Ticket.RELEASED;
+            if (state == Ticket.QUEUED) {
+                pending.remove(ticket);
+                return;
+            }
+            if (state != Ticket.ADMITTED) {
+                return;
+            }
+            next = pending.poll();
+            if (next == null) {
+                active--;
+                return;
+            }
+            // Transfer the slot to the next queued handshake.
+            next.state = Ticket.ADMITTED;
+        }
+        admitQueued(next);
+    }
+
+    private void admitQueued(Ticket ticket) {
+        long queueTime = System.nanoTime() - ticket.queuedNanos;
+        admitted.increment();
+        totalQueueTimeNanos.add(queueTime);
+        if (queueTime > maxQueueTimeNanos) {
+            // Racy but good enough for a metric.
+            maxQueueTimeNanos = queueTime;
+        }
+        try {
+            ticket.executor.execute(ticket.onAdmitted);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Failed to notify admitted handshake, releasing its slot.", e);
+            release(ticket);
+        }
+    }
+
+    static final class Ticket {
+        static final int QUEUED = 0;
+        static final int ADMITTED = 1;
+        static final int RELEASED = 2;
+
+        final EventExecutor executor;
+        final Runnable onAdmitted;
+        long queuedNanos;
+        boolean admittedDirectly;
+        // Guarded by the SslHandshakeAdmissionController.
+        int state = QUEUED;
+
+        Ticket(EventExecutor executor, Runnable onAdmitted) {
+            this.executor = executor;
+            this.onAdmitted = onAdmitted;
+        }
+    }
+}
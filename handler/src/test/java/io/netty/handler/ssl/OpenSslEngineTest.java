@@ -280,6 +280,52 @@ public class OpenSslEngineTest extends SSLEngineTest {
         }
     }
 
+    @Test
+    public void testClientSessionCacheResumesSession() throws Exception {
+        clientSslCtx = wrapContext(SslContextBuilder.forClient()
+                                        .trustManager(InsecureTrustManagerFactory.INSTANCE)
+                                        .sslProvider(sslClientProvider())
+                                        .protocols(protocols())
+                                        .ciphers(ciphers())
+                                        .build());
+        SelfSignedCertificate ssc = new SelfSignedCertificate();
+        serverSslCtx = wrapContext(SslContextBuilder.forServer(ssc.certificate(), ssc.privateKey())
+                                        .sslProvider(sslServerProvider())
+                                        .protocols(protocols())
+                                        .ciphers(ciphers())
+                                        .build());
+        assumeTrue(clientSslCtx.sessionContext() instanceof OpenSslSessionContext);
+        OpenSslSessionStats stats = ((OpenSslSessionContext) clientSslCtx.sessionContext()).stats();
+        try {
+            handshakeWithPeer("netty.io", 443);
+            assertEquals(1, stats.clientCacheMisses());
+            assertEquals(0, stats.clientCacheHits());
+
+            handshakeWithPeer("netty.io", 443);
+            assertEquals(1, stats.clientCacheHits());
+
+            // A different peer must not pick up the cached session.
+            handshakeWithPeer("netty.io", 8443);
+            assertEquals(2, stats.clientCacheMisses());
+            assertEquals(1, stats.clientCacheHits());
+        } finally {
+            ssc.delete();
+        }
+    }
+
+    private void handshakeWithPeer(String peerHost, int peerPort) throws Exception {
+        SSLEngine clientEngine = null;
+        SSLEngine serverEngine = null;
+        try {
+            clientEngine = wrapEngine(clientSslCtx.newEngine(UnpooledByteBufAllocator.DEFAULT, peerHost, peerPort));
+            serverEngine = wrapEngine(serverSslCtx.newEngine(UnpooledByteBufAllocator.DEFAULT));
+            handshake(clientEngine, serverEngine);
+        } finally {
+            cleanupClientSslEngine(clientEngine);
+            cleanupServerSslEngine(serverEngine);
+        }
+    }
+
     @Test
     public void testOnlySmallBufferNeededForWrap() throws Exception {
         clientSslCtx = wrapContext(SslContextBuilder.forClient()
@@ -34,6 +34,8 @@ import io.netty.channel.local.LocalServerChannel;
 import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
 import io.netty.handler.ssl.util.SelfSignedCertificate;
 import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
 import io.netty.util.concurrent.Promise;
 import org.hamcrest.Matchers;
 import org.junit.AfterClass;
@@ -79,11 +81,13 @@ public class OpenSslPrivateKeyMethodTest {
     private static SelfSignedCertificate CERT;
     private static ExecutorService EXECUTOR;
 
-    @Parameters(name = "{index}: delegate = {0}")
+    @Parameters(name = "{index}: delegate = {0}, async = {1}")
     public static Collection<Object[]> parameters() {
         List<Object[]> dst = new ArrayList<Object[]>();
-        dst.add(new Object[] { true });
-        dst.add(new Object[] { false });
+        dst.add(new Object[] { true, true });
+        dst.add(new Object[] { false, true });
+        dst.add(new Object[] { true, false });
+        dst.add(new Object[] { false, false });
         return dst;
     }
 
@@ -117,9 +121,11 @@ public class OpenSslPrivateKeyMethodTest {
     }
 
     private final boolean delegate;
+    private final boolean async;
 
-    public OpenSslPrivateKeyMethodTest(boolean delegate) {
+    public OpenSslPrivateKeyMethodTest(boolean delegate, boolean async) {
         this.delegate = delegate;
+        this.async = async;
     }
 
     private static void assumeCipherAvailable(SslProvider provider) throws NoSuchAlgorithmException {
@@ -158,7 +164,11 @@ public class OpenSslPrivateKeyMethodTest {
                 .protocols(SslUtils.PROTOCOL_TLS_V1_2)
                 .build();
 
-        ((OpenSslContext) sslServerContext).setPrivateKeyMethod(method);
+        if (async) {
+            ((OpenSslContext) sslServerContext).setPrivateKeyMethod(new OpenSslPrivateKeyMethodAdapter(method));
+        } else {
+            ((OpenSslContext) sslServerContext).setPrivateKeyMethod(method);
+        }
         return sslServerContext;
     }
 
@@ -177,7 +187,7 @@ public class OpenSslPrivateKeyMethodTest {
     }
 
     private void assertThread() {
-        if (delegate && OpenSslContext.USE_TASKS) {
+        if (async || delegate && OpenSslContext.USE_TASKS) {
             assertEquals(DelegateThread.class, Thread.currentThread().getClass());
         } else {
             assertNotEquals(DelegateThread.class, Thread.currentThread().getClass());
@@ -257,7 +267,7 @@ public class OpenSslPrivateKeyMethodTest {
                 };
 
                 LocalAddress address = new LocalAddress("test-" + SslProvider.OPENSSL
-                        + '-' + SslProvider.JDK + '-' + RFC_CIPHER_NAME + '-' + delegate);
+                        + '-' + SslProvider.JDK + '-' + RFC_CIPHER_NAME + '-' + delegate + '-' + async);
 
                 Channel server = server(address, serverHandler);
                 try {
@@ -350,7 +360,7 @@ public class OpenSslPrivateKeyMethodTest {
         try {
             try {
                 LocalAddress address = new LocalAddress("test-" + SslProvider.OPENSSL
-                        + '-' + SslProvider.JDK + '-' + RFC_CIPHER_NAME + '-' + delegate);
+                        + '-' + SslProvider.JDK + '-' + RFC_CIPHER_NAME + '-' + delegate + '-' + async);
 
                 Channel server = server(address, serverSslHandler);
                 try {
@@ -394,6 +404,50 @@ public class OpenSslPrivateKeyMethodTest {
         return bootstrap.connect(remoteAddress).sync().channel();
     }
 
+    /**
+     * Runs the operations of the wrapped {@link OpenSslPrivateKeyMethod} on the {@code EXECUTOR} and so completes
+     * them asynchronously.
+     */
+    private static final class OpenSslPrivateKeyMethodAdapter implements OpenSslAsyncPrivateKeyMethod {
+        private final OpenSslPrivateKeyMethod keyMethod;
+
+        OpenSslPrivateKeyMethodAdapter(OpenSslPrivateKeyMethod keyMethod) {
+            this.keyMethod = keyMethod;
+        }
+
+        @Override
+        public Future<byte[]> sign(final SSLEngine engine, final int signatureAlgorithm, final byte[] input) {
+            final Promise<byte[]> promise = ImmediateEventExecutor.INSTANCE.newPromise();
+            EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        promise.setSuccess(keyMethod.sign(engine, signatureAlgorithm, input));
+                    } catch (Throwable cause) {
+                        promise.setFailure(cause);
+                    }
+                }
+            });
+            return promise;
+        }
+
+        @Override
+        public Future<byte[]> decrypt(final SSLEngine engine, final byte[] input) {
+            final Promise<byte[]> promise = ImmediateEventExecutor.INSTANCE.newPromise();
+            EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        promise.setSuccess(keyMethod.decrypt(engine, input));
+                    } catch (Throwable cause) {
+                        promise.setFailure(cause);
+                    }
+                }
+            });
+            return promise;
+        }
+    }
+
     private static final class DelegateThread extends Thread {
         DelegateThread(Runnable target) {
             super(target);
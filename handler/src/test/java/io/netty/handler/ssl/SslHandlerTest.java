@@ -1577,6 +1577,110 @@ public class SslHandlerTest {
         }
     }
 
+    @Test(timeout = 10000)
+    public void testMaxRecordsPerWrite() throws Exception {
+        testRecordsWritten(4, false, 4 * 16 * 1024, 1, 4);
+    }
+
+    @Test(timeout = 10000)
+    public void testOneRecordPerWriteByDefault() throws Exception {
+        testRecordsWritten(1, false, 4 * 16 * 1024, 4, 4);
+    }
+
+    @Test(timeout = 10000)
+    public void testDynamicRecordSizing() throws Exception {
+        // Small records are used at the start of the connection.
+        testRecordsWritten(1, true, 4000, 4, 4);
+    }
+
+    @Test(timeout = 10000)
+    public void testDynamicRecordSizingWithMaxRecordsPerWrite() throws Exception {
+        testRecordsWritten(8, true, 4000, 1, 4);
+    }
+
+    private static void testRecordsWritten(int maxRecordsPerWrite, boolean dynamicRecordSizing, int dataSize,
+                                           int expectedBuffers, int expectedRecords) throws Exception {
+        SelfSignedCertificate ssc = new SelfSignedCertificate();
+        SslContext sslServerCtx = SslContextBuilder.forServer(ssc.certificate(), ssc.privateKey())
+                .sslProvider(SslProvider.JDK)
+                .protocols(SslUtils.PROTOCOL_TLS_V1_2)
+                .build();
+        SslContext sslClientCtx = SslContextBuilder.forClient()
+                .trustManager(InsecureTrustManagerFactory.INSTANCE)
+                .sslProvider(SslProvider.JDK)
+                .protocols(SslUtils.PROTOCOL_TLS_V1_2)
+                .build();
+        SslHandler serverHandler = sslServerCtx.newHandler(UnpooledByteBufAllocator.DEFAULT);
+        SslHandler clientHandler = sslClientCtx.newHandler(UnpooledByteBufAllocator.DEFAULT);
+        EmbeddedChannel server = new EmbeddedChannel(serverHandler);
+        EmbeddedChannel client = new EmbeddedChannel(clientHandler);
+        try {
+            for (int i = 0; i < 32 && !(serverHandler.handshakeFuture().isDone() &&
+                    clientHandler.handshakeFuture().isDone()); i++) {
+                forwardOutbound(client, server);
+                forwardOutbound(server, client);
+            }
+            assertTrue(serverHandler.handshakeFuture().isSuccess());
+            assertTrue(clientHandler.handshakeFuture().isSuccess());
+
+            serverHandler.setMaxRecordsPerWrite(maxRecordsPerWrite);
+            serverHandler.setDynamicRecordSizing(dynamicRecordSizing);
+
+            byte[] data = new byte[dataSize];
+            PlatformDependent.threadLocalRandom().nextBytes(data);
+            assertTrue(server.writeOutbound(Unpooled.wrappedBuffer(data)));
+
+            int buffers = 0;
+            int records = 0;
+            for (;;) {
+                ByteBuf buf = server.readOutbound();
+                if (buf == null) {
+                    break;
+                }
+                buffers++;
+                for (int idx = buf.readerIndex(); idx < buf.writerIndex(); records++) {
+                    int recordLength = buf.getUnsignedShort(idx + 3);
+                    if (dynamicRecordSizing) {
+                        // Small records plus the encryption overhead must fit into a single TCP segment.
+                        assertTrue("record length: " + recordLength, recordLength < 1400);
+                    }
+                    idx += SslUtils.SSL_RECORD_HEADER_LENGTH + recordLength;
+                }
+                client.writeInbound(buf);
+            }
+            assertEquals(expectedBuffers, buffers);
+            assertEquals(expectedRecords, records);
+
+            ByteBuf received = Unpooled.buffer(dataSize);
+            for (;;) {
+                ByteBuf buf = client.readInbound();
+                if (buf == null) {
+                    break;
+                }
+                received.writeBytes(buf);
+                buf.release();
+            }
+            assertEquals(Unpooled.wrappedBuffer(data), received);
+            received.release();
+        } finally {
+            server.finishAndReleaseAll();
+            client.finishAndReleaseAll();
+            ReferenceCountUtil.release(sslServerCtx);
+            ReferenceCountUtil.release(sslClientCtx);
+            ssc.delete();
+        }
+    }
+
+    private static void forwardOutbound(EmbeddedChannel from, EmbeddedChannel to) {
+        for (;;) {
+            ByteBuf buf = from.readOutbound();
+            if (buf == null) {
+                return;
+            }
+            to.writeInbound(buf);
+        }
+    }
+
     private static class SslHandshakeCompletionEventHandler extends ChannelInboundHandlerAdapter {
         private final Queue<SslHandshakeCompletionEvent> completionEvents;
 
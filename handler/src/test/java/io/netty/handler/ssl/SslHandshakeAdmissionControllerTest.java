@@ -0,0 +1,175 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.ssl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import org.junit.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SslHandshakeAdmissionControllerTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxConcurrentHandshakes() {
+        new SslHandshakeAdmissionController(0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxPendingHandshakes() {
+        new SslHandshakeAdmissionController(1, -1);
+    }
+
+    @Test
+    public void testAdmitQueueAndReject() {
+        SslHandshakeAdmissionController controller = new SslHandshakeAdmissionController(1, 1);
+        final AtomicInteger notified = new AtomicInteger();
+        Runnable onAdmitted = new Runnable() {
+            @Override
+            public void run() {
+                notified.incrementAndGet();
+            }
+        };
+
+        SslHandshakeAdmissionController.Ticket first = controller.admit(ImmediateEventExecutor.INSTANCE, onAdmitted);
+        assertNotNull(first);
+        assertTrue(first.admittedDirectly);
+
+        SslHandshakeAdmissionController.Ticket second = controller.admit(ImmediateEventExecutor.INSTANCE, onAdmitted);
+        assertNotNull(second);
+        assertFalse(second.admittedDirectly);
+
+        assertNull(controller.admit(ImmediateEventExecutor.INSTANCE, onAdmitted));
+
+        assertEquals(1, controller.activeHandshakes());
+        assertEquals(1, controller.pendingHandshakes());
+        assertEquals(1, controller.admittedHandshakes());
+        assertEquals(1, controller.queuedHandshakes());
+        assertEquals(1, controller.rejectedHandshakes());
+        assertEquals(0, notified.get());
+
+        // Releasing the first ticket must hand over the slot to the queued one.
+        controller.release(first);
+        assertEquals(1, notified.get());
+        assertEquals(1, controller.activeHandshakes());
+        assertEquals(0, controller.pendingHandshakes());
+        assertEquals(2, controller.admittedHandshakes());
+        assertTrue(controller.totalQueueTimeNanos() >= 0);
+        assertTrue(controller.maxQueueTimeNanos() <= controller.totalQueueTimeNanos());
+
+        controller.release(second);
+        // Releasing twice must be a no-op.
+        controller.release(second);
+        assertEquals(0, controller.activeHandshakes());
+        assertEquals(1, notified.get());
+    }
+
+    @Test
+    public void testReleaseQueuedTicket() {
+        SslHandshakeAdmissionController controller = new SslHandshakeAdmissionController(1, 1);
+        final AtomicInteger notified = new AtomicInteger();
+        Runnable onAdmitted = new Runnable() {
+            @Override
+            public void run() {
+                notified.incrementAndGet();
+            }
+        };
+        SslHandshakeAdmissionController.Ticket first = controller.admit(ImmediateEventExecutor.INSTANCE, onAdmitted);
+        SslHandshakeAdmissionController.Ticket second = controller.admit(ImmediateEventExecutor.INSTANCE, onAdmitted);
+
+        // The queued handshake gave up (for example because the channel was closed).
+        controller.release(second);
+        assertEquals(0, controller.pendingHandshakes());
+
+        controller.release(first);
+        assertEquals(0, controller.activeHandshakes());
+        assertEquals(0, notified.get());
+    }
+
+    @Test(timeout = 5000)
+    public void testSslHandlerRejectsHandshake() throws Exception {
+        SslHandshakeAdmissionController controller = new SslHandshakeAdmissionController(1, 0);
+        EmbeddedChannel first = new EmbeddedChannel(newClientHandler(controller));
+        EmbeddedChannel second = new EmbeddedChannel(newClientHandler(controller));
+        try {
+            // The first handshake was admitted and so the ClientHello was written.
+            assertClientHelloWritten(first);
+            assertEquals(1, controller.activeHandshakes());
+
+            Throwable cause = second.pipeline().get(SslHandler.class).handshakeFuture().await().cause();
+            assertThat(cause, instanceOf(SslHandshakeRejectedException.class));
+            assertFalse(second.isActive());
+            assertEquals(1, controller.rejectedHandshakes());
+        } finally {
+            first.finishAndReleaseAll();
+            second.finishAndReleaseAll();
+        }
+        assertEquals(0, controller.activeHandshakes());
+    }
+
+    @Test(timeout = 5000)
+    public void testSslHandlerQueuesHandshake() throws Exception {
+        SslHandshakeAdmissionController controller = new SslHandshakeAdmissionController(1, 1);
+        EmbeddedChannel first = new EmbeddedChannel(newClientHandler(controller));
+        EmbeddedChannel second = new EmbeddedChannel(newClientHandler(controller));
+        try {
+            assertClientHelloWritten(first);
+
+            // The second handshake is queued and so must not produce any ClientHello yet.
+            assertNull(second.readOutbound());
+            assertEquals(1, controller.pendingHandshakes());
+
+            // Closing the first channel fails its handshake and so admits the queued one.
+            first.close().syncUninterruptibly();
+            second.runPendingTasks();
+
+            assertClientHelloWritten(second);
+            assertEquals(0, controller.pendingHandshakes());
+            assertEquals(1, controller.activeHandshakes());
+            assertEquals(1, controller.queuedHandshakes());
+            assertEquals(2, controller.admittedHandshakes());
+        } finally {
+            first.finishAndReleaseAll();
+            second.finishAndReleaseAll();
+        }
+        assertEquals(0, controller.activeHandshakes());
+    }
+
+    private static SslHandler newClientHandler(SslHandshakeAdmissionController controller) throws Exception {
+        SSLEngine engine = SSLContext.getDefault().createSSLEngine();
+        engine.setUseClientMode(true);
+        SslHandler handler = new SslHandler(engine);
+        handler.setHandshakeAdmissionController(controller);
+        return handler;
+    }
+
+    private static void assertClientHelloWritten(EmbeddedChannel channel) {
+        ByteBuf clientHello = channel.readOutbound();
+        assertNotNull(clientHello);
+        clientHello.release();
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Feeds a stream of frames in socket sized reads through a {@link ByteToMessageDecoder} with different
+ * {@link ByteToMessageDecoder.Cumulator}s.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ByteToMessageDecoderCumulatorBenchmark extends AbstractMicrobenchmark {
+
+    public enum CumulatorType {
+        MERGE, COMPOSITE, ADAPTIVE
+    }
+
+    public enum Workload {
+        /**
+         * {@link LengthFieldBasedFrameDecoder} with frames of {@code 128} bytes.
+         */
+        LENGTH_FIELD_SMALL,
+        /**
+         * {@link LengthFieldBasedFrameDecoder} with frames of {@code 4 MiB}, each spanning many reads.
+         */
+        LENGTH_FIELD_LARGE,
+        /**
+         * {@link HttpRequestDecoder} with {@code GET} requests without a body.
+         */
+        HTTP_SMALL,
+        /**
+         * {@link HttpRequestDecoder} with {@code POST} requests with a body of {@code 4 MiB}.
+         */
+        HTTP_LARGE
+    }
+
+    private static final int STREAM_SIZE = 8 * 1024 * 1024;
+
+    @Param
+    public CumulatorType cumulator;
+
+    @Param
+    public Workload workload;
+
+    @Param({ "65536" })
+    public int readSize;
+
+    private ByteBuf stream;
+    private EmbeddedChannel channel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        stream = Unpooled.unreleasableBuffer(newStream(workload));
+        ByteToMessageDecoder decoder = newDecoder(workload);
+        decoder.setCumulator(newCumulator(cumulator));
+        channel = new EmbeddedChannel(decoder, new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                ReferenceCountUtil.release(msg);
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public int decode() {
+        ByteBufAllocator alloc = channel.alloc();
+        int read = 0;
+        int length = stream.readableBytes();
+        while (read < length) {
+            int chunk = Math.min(readSize, length - read);
+            ByteBuf buf = alloc.directBuffer(chunk);
+            buf.writeBytes(stream, read, chunk);
+            channel.writeInbound(buf);
+            read += chunk;
+        }
+        return read;
+    }
+
+    private static ByteToMessageDecoder.Cumulator newCumulator(CumulatorType type) {
+        switch (type) {
+            case MERGE:
+                return ByteToMessageDecoder.MERGE_CUMULATOR;
+            case COMPOSITE:
+                return ByteToMessageDecoder.COMPOSITE_CUMULATOR;
+            case ADAPTIVE:
+                return new AdaptiveCumulator();
+            default:
+                throw new Error();
+        }
+    }
+
+    private static ByteToMessageDecoder newDecoder(Workload workload) {
+        switch (workload) {
+            case LENGTH_FIELD_SMALL:
+            case LENGTH_FIELD_LARGE:
+                return new LengthFieldBasedFrameDecoder(Integer.MAX_VALUE, 0, 4, 0, 4);
+            case HTTP_SMALL:
+            case HTTP_LARGE:
+                return new HttpRequestDecoder();
+            default:
+                throw new Error();
+        }
+    }
+
+    private static ByteBuf newStream(Workload workload) {
+        ByteBuf stream = Unpooled.directBuffer(STREAM_SIZE);
+        switch (workload) {
+            case LENGTH_FIELD_SMALL:
+                writeFrames(stream, 128);
+                break;
+            case LENGTH_FIELD_LARGE:
+                writeFrames(stream, 4 * 1024 * 1024);
+                break;
+            case HTTP_SMALL:
+                writeRequests(stream, 0);
+                break;
+            case HTTP_LARGE:
+                writeRequests(stream, 4 * 1024 * 1024);
+                break;
+            default:
+                throw new Error();
+        }
+        return stream;
+    }
+
+    private static void writeFrames(ByteBuf stream, int frameLength) {
+        while (stream.writerIndex() < STREAM_SIZE) {
+            stream.writeInt(frameLength);
+            stream.writeZero(frameLength);
+        }
+    }
+
+    private static void writeRequests(ByteBuf stream, int contentLength) {
+        byte[] head = (contentLength == 0 ?
+                "GET /some/path?foo=bar HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "User-Agent: netty-microbench\r\n" +
+                "Accept: */*\r\n" +
+                "\r\n" :
+                "POST /some/path?foo=bar HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "User-Agent: netty-microbench\r\n" +
+                "Content-Type: application/octet-stream\r\n" +
+                "Content-Length: " + contentLength + "\r\n" +
+                "\r\n").getBytes(CharsetUtil.US_ASCII);
+        while (stream.writerIndex() < STREAM_SIZE) {
+            stream.writeBytes(head);
+            stream.writeZero(contentLength);
+        }
+    }
+}
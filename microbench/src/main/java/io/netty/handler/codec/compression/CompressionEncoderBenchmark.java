@@ -0,0 +1,178 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+
+/**
+ * Compares the throughput and the compression ratio of the encoders usable as HTTP content encodings on JSON
+ * payloads. {@link Bytes#inputBytes} is the compression speed in bytes per second and the ratio of
+ * {@link Bytes#outputBytes} to {@link Bytes#inputBytes} is the compression ratio.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class CompressionEncoderBenchmark extends AbstractMicrobenchmark {
+
+    public enum Codec {
+        JDK_ZLIB_GZIP_6 {
+            @Override
+            ChannelHandler newEncoder() {
+                return new JdkZlibEncoder(ZlibWrapper.GZIP, 6);
+            }
+        },
+        JDK_ZLIB_GZIP_1 {
+            @Override
+            ChannelHandler newEncoder() {
+                return new JdkZlibEncoder(ZlibWrapper.GZIP, 1);
+            }
+        },
+        BROTLI_4 {
+            @Override
+            ChannelHandler newEncoder() {
+                return new BrotliEncoder(StandardCompressionOptions.brotli(4, 22));
+            }
+        },
+        ZSTD_1 {
+            @Override
+            ChannelHandler newEncoder() {
+                return new ZstdEncoder(StandardCompressionOptions.zstd(1, 1 << 16, 1 << 25));
+            }
+        },
+        ZSTD_3 {
+            @Override
+            ChannelHandler newEncoder() {
+                return new ZstdEncoder(StandardCompressionOptions.zstd());
+            }
+        };
+
+        abstract ChannelHandler newEncoder();
+    }
+
+    @Param
+    public Codec codec;
+
+    @Param({ "1024", "16384", "262144" })
+    public int payloadSize;
+
+    /**
+     * Number of writes the payload is split into, like the chunks of a streamed HTTP response.
+     */
+    @Param({ "1", "8" })
+    public int chunks;
+
+    private ByteBuf payload;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Bytes {
+        public long inputBytes;
+        public long outputBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Throwable {
+        if (codec.name().startsWith("BROTLI")) {
+            Brotli.ensureAvailability();
+        } else if (codec.name().startsWith("ZSTD")) {
+            Zstd.ensureAvailability();
+        }
+        payload = PooledByteBufAllocator.DEFAULT.directBuffer(payloadSize);
+        payload.writeBytes(jsonPayload(payloadSize).getBytes(CharsetUtil.US_ASCII));
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        payload.release();
+    }
+
+    @Benchmark
+    public long encode(Bytes bytes) throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(false, false);
+        channel.config().setOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+        channel.pipeline().addLast(codec.newEncoder());
+        channel.register();
+
+        int chunkSize = payloadSize / chunks;
+        for (int i = 0; i < chunks; i++) {
+            channel.writeOutbound(payload.retainedSlice(i * chunkSize, chunkSize));
+        }
+        channel.finish();
+
+        long compressed = 0;
+        for (;;) {
+            ByteBuf buf = channel.readOutbound();
+            if (buf == null) {
+                break;
+            }
+            compressed += buf.readableBytes();
+            buf.release();
+        }
+        bytes.inputBytes += payloadSize;
+        bytes.outputBytes += compressed;
+        return compressed;
+    }
+
+    /**
+     * Generates a JSON array of records with repeated keys and a mix of random and recurring values, similar
+     * to the responses of a typical REST API.
+     */
+    static String jsonPayload(int size) {
+        Random random = new Random(42);
+        String[] statuses = { "active", "pending", "suspended", "deleted" };
+        String[] countries = { "US", "DE", "FR", "JP", "BR", "IN", "GB", "CA" };
+        StringBuilder sb = new StringBuilder(size + 256);
+        sb.append('[');
+        for (int id = 0; sb.length() < size; id++) {
+            if (id > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(100000 + id)
+              .append(",\"uuid\":\"").append(Long.toHexString(random.nextLong()))
+              .append(Long.toHexString(random.nextLong()))
+              .append("\",\"name\":\"user").append(random.nextInt(10000))
+              .append("\",\"email\":\"user").append(random.nextInt(10000)).append("@example.com\"")
+              .append(",\"status\":\"").append(statuses[random.nextInt(statuses.length)])
+              .append("\",\"country\":\"").append(countries[random.nextInt(countries.length)])
+              .append("\",\"score\":").append(random.nextInt(1000) / 10.0)
+              .append(",\"verified\":").append(random.nextBoolean())
+              .append(",\"createdAt\":\"2021-0").append(1 + random.nextInt(9)).append('-')
+              .append(10 + random.nextInt(18)).append("T12:").append(10 + random.nextInt(50))
+              .append(":00Z\",\"tags\":[\"tag").append(random.nextInt(20)).append("\",\"tag")
+              .append(random.nextInt(20)).append("\"]}");
+        }
+        sb.setLength(size - 1);
+        return sb.append(']').toString();
+    }
+}
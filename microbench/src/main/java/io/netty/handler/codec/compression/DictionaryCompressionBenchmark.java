@@ -0,0 +1,186 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+
+/**
+ * Compares the throughput and the compression ratio of small RPC messages compressed independently of each other,
+ * with and without a dictionary trained by {@link CompressionDictionaryTrainer} on a distinct set of messages.
+ * {@link Bytes#inputBytes} is the compression speed in bytes per second and the ratio of {@link Bytes#outputBytes}
+ * to {@link Bytes#inputBytes} is the compression ratio.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class DictionaryCompressionBenchmark extends AbstractMicrobenchmark {
+
+    private static final int MESSAGES = 1024;
+    private static final int DICTIONARY_SIZE = 16 * 1024;
+
+    public enum Codec {
+        JDK_ZLIB {
+            @Override
+            ChannelHandler newEncoder(DictionaryCompressionBenchmark benchmark) {
+                return new JdkZlibEncoder(6);
+            }
+        },
+        JDK_ZLIB_DICTIONARY {
+            @Override
+            ChannelHandler newEncoder(DictionaryCompressionBenchmark benchmark) {
+                return new JdkZlibEncoder(6, benchmark.zlibDictionary);
+            }
+        },
+        ZSTD {
+            @Override
+            ChannelHandler newEncoder(DictionaryCompressionBenchmark benchmark) {
+                return new ZstdEncoder(StandardCompressionOptions.zstd());
+            }
+        },
+        ZSTD_DICTIONARY {
+            @Override
+            ChannelHandler newEncoder(DictionaryCompressionBenchmark benchmark) {
+                return new ZstdEncoder(StandardCompressionOptions.zstd(), benchmark.zstdDictionary);
+            }
+        };
+
+        abstract ChannelHandler newEncoder(DictionaryCompressionBenchmark benchmark);
+    }
+
+    @Param
+    public Codec codec;
+
+    @Param({ "256", "1024", "2048" })
+    public int messageSize;
+
+    private ByteBuf[] messages;
+    private int next;
+    byte[] zlibDictionary;
+    ZstdDictionary zstdDictionary;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Bytes {
+        public long inputBytes;
+        public long outputBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Throwable {
+        CompressionDictionaryTrainer trainer = new CompressionDictionaryTrainer(MESSAGES * messageSize);
+        Random random = new Random(1);
+        for (int i = 0; i < MESSAGES; i++) {
+            trainer.addSample(Unpooled.wrappedBuffer(rpcMessage(random, messageSize).getBytes(CharsetUtil.US_ASCII)));
+        }
+        if (codec == Codec.JDK_ZLIB_DICTIONARY) {
+            zlibDictionary = trainer.trainZlibDictionary(DICTIONARY_SIZE);
+        } else if (codec == Codec.ZSTD_DICTIONARY) {
+            Zstd.ensureAvailability();
+            zstdDictionary = trainer.trainZstdDictionary(DICTIONARY_SIZE);
+        } else if (codec == Codec.ZSTD) {
+            Zstd.ensureAvailability();
+        }
+
+        // Measure on other messages than the ones the dictionaries were trained on.
+        random = new Random(2);
+        messages = new ByteBuf[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            messages[i] = PooledByteBufAllocator.DEFAULT.directBuffer(messageSize);
+            messages[i].writeBytes(rpcMessage(random, messageSize).getBytes(CharsetUtil.US_ASCII));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        for (ByteBuf message : messages) {
+            message.release();
+        }
+    }
+
+    @Benchmark
+    public long encode(Bytes bytes) throws Exception {
+        ByteBuf message = messages[next++ & MESSAGES - 1];
+        EmbeddedChannel channel = new EmbeddedChannel(false, false);
+        channel.config().setOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+        channel.pipeline().addLast(codec.newEncoder(this));
+        channel.register();
+
+        channel.writeOutbound(message.retainedDuplicate());
+        channel.finish();
+
+        long compressed = 0;
+        for (;;) {
+            ByteBuf buf = channel.readOutbound();
+            if (buf == null) {
+                break;
+            }
+            compressed += buf.readableBytes();
+            buf.release();
+        }
+        bytes.inputBytes += message.readableBytes();
+        bytes.outputBytes += compressed;
+        return compressed;
+    }
+
+    /**
+     * Generates a JSON-RPC request of exactly {@code size} bytes whose method, parameter names and enumerated
+     * values recur across messages while identifiers and free text differ.
+     */
+    static String rpcMessage(Random random, int size) {
+        String[] methods = { "accounts.getAccount", "accounts.updateAccount", "orders.listOrders",
+                "orders.createOrder", "payments.authorize", "payments.capture" };
+        String[] currencies = { "USD", "EUR", "GBP", "JPY" };
+        String[] states = { "OPEN", "PAID", "SHIPPED", "CANCELLED", "REFUNDED" };
+        StringBuilder sb = new StringBuilder(size + 256);
+        sb.append("{\"jsonrpc\":\"2.0\",\"id\":").append(random.nextInt(1000000))
+          .append(",\"method\":\"").append(methods[random.nextInt(methods.length)])
+          .append("\",\"params\":{\"accountId\":\"acc_").append(Long.toHexString(random.nextLong()))
+          .append("\",\"traceId\":\"").append(Long.toHexString(random.nextLong()))
+          .append("\",\"items\":[");
+        for (int i = 0; sb.length() < size; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"sku\":\"SKU-").append(10000 + random.nextInt(90000))
+              .append("\",\"quantity\":").append(1 + random.nextInt(9))
+              .append(",\"unitPrice\":{\"amount\":").append(random.nextInt(100000) / 100.0)
+              .append(",\"currency\":\"").append(currencies[random.nextInt(currencies.length)])
+              .append("\"},\"state\":\"").append(states[random.nextInt(states.length)])
+              .append("\",\"giftWrap\":").append(random.nextBoolean()).append('}');
+        }
+        sb.setLength(size - 3);
+        return sb.append("]}}").toString();
+    }
+}
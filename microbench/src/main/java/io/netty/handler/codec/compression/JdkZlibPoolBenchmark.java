@@ -0,0 +1,141 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compresses messages on {@link #CONNECTIONS} connections the way the WebSocket permessage-deflate encoder does,
+ * with and without context takeover, and with and without a {@link JdkZlibPool}.
+ * <p>
+ * {@link Footprint#liveDeflatersPerConnection} is the number of {@link java.util.zip.Deflater}s alive per
+ * connection, each of them holding about {@code 256 KiB} of native memory, and
+ * {@link Footprint#allocatedDeflaters} the number of {@link java.util.zip.Deflater}s allocated per iteration.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class JdkZlibPoolBenchmark extends AbstractMicrobenchmark {
+
+    private static final int CONNECTIONS = 1000;
+
+    public enum Mode {
+        CONTEXT_TAKEOVER,
+        NO_CONTEXT_TAKEOVER,
+        NO_CONTEXT_TAKEOVER_POOLED
+    }
+
+    @Param
+    public Mode mode;
+
+    @Param({ "64", "1024", "16384" })
+    public int messageSize;
+
+    private JdkZlibPool pool;
+    private EmbeddedChannel[] encoders;
+    private ByteBuf message;
+    private int next;
+    private long allocatedDeflaters;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public double liveDeflatersPerConnection;
+        public long allocatedDeflaters;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pool = mode == Mode.NO_CONTEXT_TAKEOVER_POOLED ? new JdkZlibPool(16) : null;
+        encoders = new EmbeddedChannel[CONNECTIONS];
+        StringBuilder sb = new StringBuilder(messageSize);
+        while (sb.length() < messageSize) {
+            sb.append("{\"type\":\"tick\",\"symbol\":\"NTY\",\"price\":").append(sb.length() % 997).append('}');
+        }
+        sb.setLength(messageSize);
+        message = PooledByteBufAllocator.DEFAULT.heapBuffer(messageSize);
+        message.writeBytes(sb.toString().getBytes(CharsetUtil.US_ASCII));
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        for (EmbeddedChannel encoder : encoders) {
+            if (encoder != null) {
+                encoder.finishAndReleaseAll();
+            }
+        }
+        message.release();
+    }
+
+    @Benchmark
+    public long compressMessage(Footprint footprint) {
+        int connection = next;
+        next = (connection + 1) % CONNECTIONS;
+
+        long allocatedBefore = allocatedDeflaters();
+        EmbeddedChannel encoder = encoders[connection];
+        if (encoder == null) {
+            if (pool == null) {
+                allocatedDeflaters++;
+            }
+            encoder = encoders[connection] = new EmbeddedChannel(
+                    new JdkZlibEncoder(ZlibWrapper.NONE, 6, pool));
+        }
+        encoder.writeOutbound(message.retainedDuplicate());
+
+        long compressed = 0;
+        for (;;) {
+            ByteBuf buf = encoder.readOutbound();
+            if (buf == null) {
+                break;
+            }
+            compressed += buf.readableBytes();
+            buf.release();
+        }
+        if (mode != Mode.CONTEXT_TAKEOVER) {
+            encoder.finishAndReleaseAll();
+            encoders[connection] = null;
+        }
+
+        if (mode == Mode.CONTEXT_TAKEOVER) {
+            footprint.liveDeflatersPerConnection = (double) Math.min(allocatedDeflaters, CONNECTIONS) / CONNECTIONS;
+        } else if (pool != null) {
+            footprint.liveDeflatersPerConnection = (double) pool.numPooledDeflaters() / CONNECTIONS;
+        } else {
+            footprint.liveDeflatersPerConnection = 0;
+        }
+        footprint.allocatedDeflaters += allocatedDeflaters() - allocatedBefore;
+        return compressed;
+    }
+
+    private long allocatedDeflaters() {
+        return pool == null ? allocatedDeflaters : pool.numAllocatedDeflaters();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.ning.compress.lzf.LZFChunk;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.CharsetUtil;
+import net.jpountz.lz4.LZ4Factory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares compressing a large stream with the block oriented encoders on the event loop and on an
+ * {@link Executor}. The benchmark thread plays the event loop, so {@link EventLoop#eventLoopCpuNanos} is the CPU
+ * time the stream would take from the other channels of the event loop.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ParallelBlockCompressionBenchmark extends AbstractMicrobenchmark {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final int WRITE_SIZE = 64 * 1024;
+
+    public enum Codec {
+        BZIP2 {
+            @Override
+            ChannelHandler newEncoder(Executor executor) {
+                return new Bzip2Encoder(9, executor);
+            }
+        },
+        LZ4 {
+            @Override
+            ChannelHandler newEncoder(Executor executor) {
+                return new Lz4FrameEncoder(LZ4Factory.fastestInstance(), false, 1 << 16,
+                        new Lz4XXHash32(Lz4Constants.DEFAULT_SEED), Lz4FrameEncoder.DEFAULT_MAX_ENCODE_SIZE, executor);
+            }
+        },
+        LZF {
+            @Override
+            ChannelHandler newEncoder(Executor executor) {
+                return new LzfEncoder(false, LZFChunk.MAX_CHUNK_LEN, 16, executor);
+            }
+        };
+
+        abstract ChannelHandler newEncoder(Executor executor);
+    }
+
+    @Param
+    public Codec codec;
+
+    @Param({ "false", "true" })
+    public boolean parallel;
+
+    @Param({ "8388608" })
+    public int streamSize;
+
+    private ExecutorService executor;
+    private ByteBuf payload;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class EventLoop {
+        public long eventLoopCpuNanos;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if (parallel) {
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+        payload = PooledByteBufAllocator.DEFAULT.directBuffer(streamSize);
+        payload.writeBytes(CompressionEncoderBenchmark.jsonPayload(streamSize).getBytes(CharsetUtil.US_ASCII));
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+        payload.release();
+    }
+
+    @Benchmark
+    public long encode(EventLoop eventLoop) throws Exception {
+        final long cpuTime = THREADS.getCurrentThreadCpuTime();
+        EmbeddedChannel channel = new EmbeddedChannel(false, false);
+        channel.config().setOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+        channel.pipeline().addLast(codec.newEncoder(executor));
+        channel.register();
+
+        long compressed = 0;
+        for (int i = 0; i < streamSize; i += WRITE_SIZE) {
+            channel.writeAndFlush(payload.retainedSlice(i, Math.min(WRITE_SIZE, streamSize - i)));
+            compressed += readOutbound(channel);
+        }
+        // Closing the channel waits for the blocks compressed on the executor.
+        ChannelFuture closeFuture = channel.close();
+        while (!closeFuture.isDone()) {
+            LockSupport.parkNanos(100000);
+            channel.runPendingTasks();
+            compressed += readOutbound(channel);
+        }
+        compressed += readOutbound(channel);
+        eventLoop.eventLoopCpuNanos += THREADS.getCurrentThreadCpuTime() - cpuTime;
+        return compressed;
+    }
+
+    private static long readOutbound(EmbeddedChannel channel) {
+        long bytes = 0;
+        for (;;) {
+            ByteBuf buf = channel.readOutbound();
+            if (buf == null) {
+                return bytes;
+            }
+            bytes += buf.readableBytes();
+            buf.release();
+        }
+    }
+}
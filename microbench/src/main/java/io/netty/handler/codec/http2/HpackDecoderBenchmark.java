@@ -33,21 +33,29 @@ package io.netty.handler.codec.http2;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.AuxCounters;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.infra.Blackhole;
 
+import java.util.concurrent.TimeUnit;
+
 import static io.netty.buffer.Unpooled.wrappedBuffer;
 import static io.netty.handler.codec.http2.HpackBenchmarkUtil.http2Headers;
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_LIST_SIZE;
 
 public class HpackDecoderBenchmark extends AbstractMicrobenchmark {
 
+    private static final int CONNECTIONS = 10000;
+
     @Param
     public HpackHeadersSize size;
 
@@ -57,11 +65,34 @@ public class HpackDecoderBenchmark extends AbstractMicrobenchmark {
     @Param({ "true", "false" })
     public boolean limitToAscii;
 
+    @Param({ "false", "true" })
+    public boolean intern;
+
     private ByteBuf input;
+    private Http2HeaderInterner interner;
+    private long retainedBytes;
+
+    /**
+     * The heap retained by the decoders and decoded headers of {@link #CONNECTIONS} connections. Use together with
+     * {@code -prof gc} to also get the allocation per {@link #CONNECTIONS} connections.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public long retainedBytes;
+    }
 
     @Setup(Level.Trial)
     public void setup() throws Http2Exception {
         input = wrappedBuffer(getSerializedHeaders(http2Headers(size, limitToAscii), sensitive));
+        interner = intern ? new Http2HeaderInterner() : null;
+
+        long before = usedHeap();
+        Object[] connections = decodeConnections();
+        retainedBytes = usedHeap() - before;
+        if (connections.length != CONNECTIONS * 2) {
+            throw new IllegalStateException();
+        }
     }
 
     @TearDown(Level.Trial)
@@ -72,7 +103,7 @@ public class HpackDecoderBenchmark extends AbstractMicrobenchmark {
     @Benchmark
     @BenchmarkMode(Mode.Throughput)
     public void decode(final Blackhole bh) throws Http2Exception {
-        HpackDecoder hpackDecoder = new HpackDecoder(Integer.MAX_VALUE);
+        HpackDecoder hpackDecoder = new HpackDecoder(Integer.MAX_VALUE, interner);
         @SuppressWarnings("unchecked")
         Http2Headers headers =
                 new DefaultHttp2Headers() {
@@ -85,6 +116,37 @@ public class HpackDecoderBenchmark extends AbstractMicrobenchmark {
         hpackDecoder.decode(0, input.duplicate(), headers, true);
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object[] decodeConnections(Footprint footprint) throws Http2Exception {
+        footprint.retainedBytes = retainedBytes;
+        return decodeConnections();
+    }
+
+    /**
+     * Decodes the same header block on {@link #CONNECTIONS} connections and retains the decoders and headers.
+     */
+    private Object[] decodeConnections() throws Http2Exception {
+        Object[] connections = new Object[CONNECTIONS * 2];
+        for (int i = 0; i < CONNECTIONS; i++) {
+            HpackDecoder hpackDecoder = new HpackDecoder(Integer.MAX_VALUE, interner);
+            Http2Headers headers = new DefaultHttp2Headers(false);
+            hpackDecoder.decode(0, input.duplicate(), headers, true);
+            connections[i * 2] = hpackDecoder;
+            connections[i * 2 + 1] = headers;
+        }
+        return connections;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
     private byte[] getSerializedHeaders(Http2Headers headers, boolean sensitive) throws Http2Exception {
         HpackEncoder hpackEncoder = HpackUtilBenchmark.newTestEncoder();
         ByteBuf out = size.newOutBuffer();
@@ -75,6 +75,7 @@ public class HpackEncoderBenchmark extends AbstractMicrobenchmark {
 
     private Http2Headers http2Headers;
     private ByteBuf output;
+    private ByteBuf forwardInput;
     private Http2HeadersEncoder.SensitivityDetector sensitivityDetector;
 
     @Setup(Level.Trial)
@@ -93,11 +94,21 @@ public class HpackEncoderBenchmark extends AbstractMicrobenchmark {
         }
         output = size.newOutBuffer();
         sensitivityDetector = sensitive ? Http2HeadersEncoder.ALWAYS_SENSITIVE : Http2HeadersEncoder.NEVER_SENSITIVE;
+
+        // Serialize the headers without indexing so that a lazy decoder keeps the values as views of the block.
+        forwardInput = size.newOutBuffer();
+        try {
+            HpackUtilBenchmark.newTestEncoder().encodeHeaders(3, forwardInput, http2Headers,
+                    Http2HeadersEncoder.ALWAYS_SENSITIVE);
+        } catch (Http2Exception e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     @TearDown(Level.Trial)
     public void tearDown() {
         output.release();
+        forwardInput.release();
     }
 
     @Benchmark
@@ -108,4 +119,25 @@ public class HpackEncoderBenchmark extends AbstractMicrobenchmark {
         hpackEncoder.encodeHeaders(3 /*randomly chosen*/, output, http2Headers, sensitivityDetector);
         bh.consume(output);
     }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void forwardEager(Blackhole bh) throws Exception {
+        forward(new HpackDecoder(Integer.MAX_VALUE), bh);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void forwardLazy(Blackhole bh) throws Exception {
+        forward(new HpackDecoder(Integer.MAX_VALUE, null, true), bh);
+    }
+
+    private void forward(HpackDecoder hpackDecoder, Blackhole bh) throws Exception {
+        Http2Headers headers = new DefaultHttp2Headers(false);
+        hpackDecoder.decode(3, forwardInput.duplicate(), headers, false);
+        HpackEncoder hpackEncoder = HpackUtilBenchmark.newTestEncoder();
+        output.clear();
+        hpackEncoder.encodeHeaders(3, output, headers, sensitivityDetector);
+        bh.consume(output);
+    }
 }
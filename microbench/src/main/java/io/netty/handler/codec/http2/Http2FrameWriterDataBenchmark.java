@@ -57,6 +57,8 @@ import static java.lang.Math.min;
 @State(Scope.Benchmark)
 @OutputTimeUnit(TimeUnit.NANOSECONDS)
 public class Http2FrameWriterDataBenchmark extends AbstractMicrobenchmark {
+    private static final int STREAMS = 32;
+
     @Param({ "64", "1024", "4096", "16384", "1048576", "4194304" })
     public int payloadSize;
 
@@ -70,11 +72,13 @@ public class Http2FrameWriterDataBenchmark extends AbstractMicrobenchmark {
     private ChannelHandlerContext ctx;
     private Http2DataWriter writer;
     private Http2DataWriter oldWriter;
+    private DefaultHttp2FrameWriter coalescingWriter;
 
     @Setup(Level.Trial)
     public void setup() {
         writer = new DefaultHttp2FrameWriter();
         oldWriter = new OldDefaultHttp2FrameWriter();
+        coalescingWriter = new DefaultHttp2FrameWriter(new DefaultHttp2HeadersEncoder(), 16 * 1024);
         payload = pooled ? PooledByteBufAllocator.DEFAULT.buffer(payloadSize) : Unpooled.buffer(payloadSize);
         payload.writeZero(payloadSize);
         ctx = new EmbeddedChannelWriteReleaseHandlerContext(
@@ -92,6 +96,9 @@ public class Http2FrameWriterDataBenchmark extends AbstractMicrobenchmark {
         if (payload != null) {
             payload.release();
         }
+        if (coalescingWriter != null) {
+            coalescingWriter.close();
+        }
         if (ctx != null) {
             ctx.close();
         }
@@ -111,6 +118,34 @@ public class Http2FrameWriterDataBenchmark extends AbstractMicrobenchmark {
         ctx.flush();
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void coalescingWriter() {
+        coalescingWriter.writeData(ctx, 3, payload.retain(), padding, true, ctx.voidPromise());
+        coalescingWriter.writePendingFrames(ctx);
+        ctx.flush();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void newWriterManyStreams() {
+        // Many streams writing a frame each before the connection is flushed.
+        for (int streamId = 3; streamId < 3 + 2 * STREAMS; streamId += 2) {
+            writer.writeData(ctx, streamId, payload.retainedSlice(), padding, true, ctx.voidPromise());
+        }
+        ctx.flush();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void coalescingWriterManyStreams() {
+        for (int streamId = 3; streamId < 3 + 2 * STREAMS; streamId += 2) {
+            coalescingWriter.writeData(ctx, streamId, payload.retainedSlice(), padding, true, ctx.voidPromise());
+        }
+        coalescingWriter.writePendingFrames(ctx);
+        ctx.flush();
+    }
+
     private static final class OldDefaultHttp2FrameWriter implements Http2DataWriter {
         private static final ByteBuf ZERO_BUFFER =
                 unreleasableBuffer(directBuffer(MAX_UNSIGNED_BYTE).writeZero(MAX_UNSIGNED_BYTE)).asReadOnly();
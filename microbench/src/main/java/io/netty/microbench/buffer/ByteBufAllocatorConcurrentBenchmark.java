@@ -15,30 +15,113 @@
  */
 package io.netty.microbench.buffer;
 
+import io.netty.buffer.AdaptiveByteBufAllocator;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufAllocatorMetricProvider;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.AuxCounters;
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
 
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Allocates and releases direct buffers from several threads.
+ * <p>
+ * {@link Footprint#usedDirectMemory} is the direct memory used by the allocator and
+ * {@link Footprint#residentSetSize} the resident set size of the JVM, both in bytes and sampled at the start of
+ * each iteration, so the allocators can be compared on more than throughput.
+ */
 @State(Scope.Benchmark)
 @Warmup(iterations = 5)
 @Measurement(iterations = 10)
 @Threads(8)
 public class ByteBufAllocatorConcurrentBenchmark  extends AbstractMicrobenchmark {
 
-    private static final ByteBufAllocator unpooledAllocator = new UnpooledByteBufAllocator(true, true);
+    @Param({ "unpooled", "pooled", "adaptive" })
+    public String allocatorType;
 
     @Param({ "00064", "00256", "01024", "04096" })
     public int size;
 
+    private ByteBufAllocator allocator;
+    private volatile long usedDirectMemory;
+    private volatile long residentSetSize;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public long usedDirectMemory;
+        public long residentSetSize;
+        boolean report;
+
+        @Setup(Level.Trial)
+        public void setup(ThreadParams threadParams) {
+            // The counters of all the threads are summed up, so only one of them reports the footprint.
+            report = threadParams.getThreadIndex() == 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if ("unpooled".equals(allocatorType)) {
+            allocator = new UnpooledByteBufAllocator(true, true);
+        } else if ("pooled".equals(allocatorType)) {
+            allocator = new PooledByteBufAllocator(true);
+        } else if ("adaptive".equals(allocatorType)) {
+            allocator = new AdaptiveByteBufAllocator(true);
+        } else {
+            throw new IllegalArgumentException("Unknown allocator type: " + allocatorType);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void sampleFootprint() throws IOException {
+        usedDirectMemory = ((ByteBufAllocatorMetricProvider) allocator).metric().usedDirectMemory();
+        residentSetSize = residentSetSize();
+    }
+
     @Benchmark
-    public boolean allocateRelease() {
-        return unpooledAllocator.directBuffer(size).release();
+    public boolean allocateRelease(Footprint footprint) {
+        if (footprint.report) {
+            footprint.usedDirectMemory = usedDirectMemory;
+            footprint.residentSetSize = residentSetSize;
+        }
+        return allocator.directBuffer(size).release();
+    }
+
+    private static long residentSetSize() throws IOException {
+        BufferedReader reader;
+        try {
+            reader = new BufferedReader(new FileReader("/proc/self/status"));
+        } catch (IOException e) {
+            // Not linux.
+            return 0;
+        }
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("VmRSS:")) {
+                    // For example "VmRSS:\t  123456 kB".
+                    String kiloBytes = line.substring("VmRSS:".length(), line.length() - "kB".length()).trim();
+                    return Long.parseLong(kiloBytes) * 1024;
+                }
+            }
+            return 0;
+        } finally {
+            reader.close();
+        }
     }
 }
@@ -20,6 +20,7 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ByteProcessor;
 import io.netty.util.internal.SuppressJava6Requirement;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Fork;
@@ -56,6 +57,7 @@ public class ByteBufIndexOfBenchmark extends AbstractMicrobenchmark {
 
     ByteBuf[] data;
     private int i;
+    private ByteProcessor processor;
 
     @Param({ "0" })
     private byte needleByte;
@@ -93,6 +95,20 @@ public class ByteBufIndexOfBenchmark extends AbstractMicrobenchmark {
             final int foundIndex = random.nextInt(Math.max(0, size - 8), size);
             data[i].setByte(foundIndex, needleByte);
         }
+        // the well-known processors can be searched for with SWAR, any other processor is applied byte by byte
+        switch (needleByte) {
+        case 0:
+            processor = ByteProcessor.FIND_NUL;
+            break;
+        case '\n':
+            processor = ByteProcessor.FIND_LF;
+            break;
+        case '\r':
+            processor = ByteProcessor.FIND_CR;
+            break;
+        default:
+            processor = new ByteProcessor.IndexOfProcessor(needleByte);
+        }
     }
 
     private ByteBuf getData() {
@@ -104,6 +120,11 @@ public class ByteBufIndexOfBenchmark extends AbstractMicrobenchmark {
         return getData().indexOf(0, size, needleByte);
     }
 
+    @Benchmark
+    public int forEachByte() {
+        return getData().forEachByte(0, size, processor);
+    }
+
     @TearDown
     public void releaseBuffers() {
         for (ByteBuf buffer : data) {
@@ -15,6 +15,7 @@
  */
 package io.netty.microbench.buffer;
 
+import io.netty.buffer.AdaptiveByteBufAllocator;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.PooledByteBufAllocator;
@@ -22,16 +23,21 @@ import io.netty.microbench.util.AbstractMicrobenchmark;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.infra.Blackhole;
 
 public class PooledByteBufAllocatorBenchmark extends
         AbstractMicrobenchmark {
+    @Param({ "pooled", "adaptive" })
+    public String allocatorType;
+
     private ByteBufAllocator allocator;
 
     @Setup
     public void setup() {
-        allocator = new PooledByteBufAllocator(true);
+        allocator = "adaptive".equals(allocatorType) ?
+                new AdaptiveByteBufAllocator(true) : new PooledByteBufAllocator(true);
     }
 
     @Benchmark
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.SegmentedDatagramPacket;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Promise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the datagrams per second that can be sent from one {@link EpollDatagramChannel} to another by using
+ * one {@link DatagramPacket} per datagram (sendmmsg / recvmmsg) or {@link SegmentedDatagramPacket}s (GSO / GRO).
+ */
+@OperationsPerInvocation(EpollDatagramChannelBenchmark.DATAGRAMS)
+public class EpollDatagramChannelBenchmark extends AbstractMicrobenchmark {
+    static final int DATAGRAMS = 32;
+
+    @Param({ "512", "1200" })
+    public int datagramSize;
+
+    @Param({ "false", "true" })
+    public boolean gro;
+
+    private EpollEventLoopGroup group;
+    private Channel receiver;
+    private Channel sender;
+    private InetSocketAddress receiverAddress;
+    private ByteBuf payload;
+    private volatile Promise<Void> received;
+
+    @Setup
+    public void setup() throws Exception {
+        group = new EpollEventLoopGroup(2);
+        receiver = new Bootstrap()
+                .channel(EpollDatagramChannel.class)
+                .group(group)
+                .option(ChannelOption.SO_RCVBUF, 4 * 1024 * 1024)
+                .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(64 * 1024))
+                .option(EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE, datagramSize)
+                .option(EpollChannelOption.UDP_GRO, gro)
+                .handler(new ChannelInboundHandlerAdapter() {
+                    private int count;
+
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        DatagramPacket packet = (DatagramPacket) msg;
+                        if (packet instanceof SegmentedDatagramPacket) {
+                            int segmentSize = ((SegmentedDatagramPacket) packet).segmentSize();
+                            count += (packet.content().readableBytes() + segmentSize - 1) / segmentSize;
+                        } else {
+                            count++;
+                        }
+                        ReferenceCountUtil.release(msg);
+                        if (count >= DATAGRAMS) {
+                            count = 0;
+                            received.trySuccess(null);
+                        }
+                    }
+                })
+                .bind(new InetSocketAddress("127.0.0.1", 0))
+                .sync()
+                .channel();
+        receiverAddress = (InetSocketAddress) receiver.localAddress();
+        sender = new Bootstrap()
+                .channel(EpollDatagramChannel.class)
+                .group(group)
+                .option(ChannelOption.SO_SNDBUF, 4 * 1024 * 1024)
+                .handler(new ChannelInboundHandlerAdapter())
+                .bind(new InetSocketAddress("127.0.0.1", 0))
+                .sync()
+                .channel();
+
+        payload = sender.alloc().directBuffer(datagramSize * DATAGRAMS);
+        payload.writeZero(payload.writableBytes());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        sender.close().sync();
+        receiver.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        payload.release();
+    }
+
+    @Benchmark
+    public Object datagramPackets() throws Exception {
+        Promise<Void> promise = newReceivedPromise();
+        for (int i = 0; i < DATAGRAMS; i++) {
+            sender.write(new DatagramPacket(
+                    payload.retainedSlice(i * datagramSize, datagramSize), receiverAddress), sender.voidPromise());
+        }
+        sender.flush();
+        return awaitReceived(promise);
+    }
+
+    @Benchmark
+    public Object segmentedDatagramPacket() throws Exception {
+        Promise<Void> promise = newReceivedPromise();
+        sender.writeAndFlush(new SegmentedDatagramPacket(
+                payload.retainedDuplicate(), datagramSize, receiverAddress), sender.voidPromise());
+        return awaitReceived(promise);
+    }
+
+    private static Object awaitReceived(Promise<Void> promise) throws InterruptedException {
+        // Datagrams may be dropped, fail instead of blocking the benchmark forever.
+        if (!promise.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Datagrams were dropped");
+        }
+        return promise;
+    }
+
+    private Promise<Void> newReceivedPromise() {
+        Promise<Void> promise = receiver.eventLoop().newPromise();
+        received = promise;
+        return promise;
+    }
+}
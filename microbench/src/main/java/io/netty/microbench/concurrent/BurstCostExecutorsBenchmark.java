@@ -20,6 +20,7 @@ import io.netty.channel.kqueue.KQueue;
 import io.netty.channel.kqueue.KQueueEventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.concurrent.AbstractEventExecutor;
 import io.netty.util.concurrent.DefaultEventExecutor;
 import io.netty.util.internal.PlatformDependent;
 import org.openjdk.jmh.annotations.Benchmark;
@@ -34,6 +35,7 @@ import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.infra.Blackhole;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Queue;
@@ -180,6 +182,12 @@ public class BurstCostExecutorsBenchmark extends AbstractMicrobenchmark {
     private String executorType;
     @Param({ "0", "10" })
     private int work;
+    /**
+     * If {@code true} each burst is submitted with a single {@link AbstractEventExecutor#executeAll(Runnable...)}
+     * call, if supported by the executor.
+     */
+    @Param({ "false", "true" })
+    private boolean batch;
 
     private ExecutorService executor;
     private ExecutorService executorToShutdown;
@@ -243,6 +251,7 @@ public class BurstCostExecutorsBenchmark extends AbstractMicrobenchmark {
         private volatile int completed;
 
         private Runnable completeTask;
+        private Runnable[] burst;
 
         @Setup
         public void setup(BurstCostExecutorsBenchmark bench) {
@@ -271,6 +280,8 @@ public class BurstCostExecutorsBenchmark extends AbstractMicrobenchmark {
                     }
                 };
             }
+            burst = new Runnable[bench.burstLength];
+            Arrays.fill(burst, completeTask);
         }
 
         /**
@@ -320,9 +331,13 @@ public class BurstCostExecutorsBenchmark extends AbstractMicrobenchmark {
     private int executeBurst(final PerThreadState state) {
         final ExecutorService executor = this.executor;
         final int burstLength = this.burstLength;
-        final Runnable completeTask = state.completeTask;
-        for (int i = 0; i < burstLength; i++) {
-            executor.execute(completeTask);
+        if (batch && executor instanceof AbstractEventExecutor) {
+            ((AbstractEventExecutor) executor).executeAll(state.burst);
+        } else {
+            final Runnable completeTask = state.completeTask;
+            for (int i = 0; i < burstLength; i++) {
+                executor.execute(completeTask);
+            }
         }
         final int value = state.spinWaitCompletionOf(burstLength);
         state.resetCompleted();
@@ -86,6 +86,10 @@ public class AbstractSslEngineBenchmark extends AbstractMicrobenchmark {
             return configureEngine(clientContext.newHandler(allocator).engine(), cipher);
         }
 
+        SSLEngine newClientEngine(ByteBufAllocator allocator, String cipher, String peerHost, int peerPort) {
+            return configureEngine(clientContext.newHandler(allocator, peerHost, peerPort).engine(), cipher);
+        }
+
         SSLEngine newServerEngine(ByteBufAllocator allocator, String cipher) {
             return configureEngine(serverContext.newHandler(allocator).engine(), cipher);
         }
@@ -147,6 +151,15 @@ public class AbstractSslEngineBenchmark extends AbstractMicrobenchmark {
         serverEngine = newServerEngine(allocator);
     }
 
+    /**
+     * Creates the engines while telling the client engine which peer it connects to, which allows it to resume a
+     * session that was established with the same peer before.
+     */
+    protected final void initEngines(ByteBufAllocator allocator, String peerHost, int peerPort) {
+        clientEngine = sslProvider.newClientEngine(allocator, cipher, peerHost, peerPort);
+        serverEngine = newServerEngine(allocator);
+    }
+
     protected final void destroyEngines() {
         ReferenceCountUtil.release(clientEngine);
         ReferenceCountUtil.release(serverEngine);
@@ -22,6 +22,7 @@ import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -34,6 +35,16 @@ import java.util.concurrent.TimeUnit;
 @Threads(1)
 public class SslEngineHandshakeBenchmark extends AbstractSslEngineBenchmark {
 
+    private static final String PEER_HOST = "netty.io";
+    private static final int PEER_PORT = 443;
+
+    /**
+     * If {@code true} every client engine is created for the same peer so all handshakes but the first one can
+     * resume the cached session, otherwise every handshake is a full one.
+     */
+    @Param({ "false", "true" })
+    public boolean resumeSession;
+
     private ByteBufAllocator allocator;
 
     @Setup(Level.Iteration)
@@ -54,7 +65,11 @@ public class SslEngineHandshakeBenchmark extends AbstractSslEngineBenchmark {
     @BenchmarkMode(Mode.AverageTime)
     @OutputTimeUnit(TimeUnit.MICROSECONDS)
     public boolean handshake() throws Exception {
-        initEngines(allocator);
+        if (resumeSession) {
+            initEngines(allocator, PEER_HOST, PEER_PORT);
+        } else {
+            initEngines(allocator);
+        }
         boolean ok = doHandshake();
         destroyEngines();
         assert ok;
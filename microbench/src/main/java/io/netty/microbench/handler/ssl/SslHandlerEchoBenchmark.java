@@ -17,12 +17,26 @@ package io.netty.microbench.handler.ssl;
 
 import io.netty.buffer.ByteBuf;
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
 
 public class SslHandlerEchoBenchmark extends AbstractSslHandlerThroughputBenchmark {
     @Param({ "1", "2", "5", "10" })
     public int numWrites;
 
+    @Param({ "1", "4" })
+    public int maxRecordsPerWrite;
+
+    @Param({ "false", "true" })
+    public boolean dynamicRecordSizing;
+
+    @Setup(Level.Iteration)
+    public void configureSslHandlers() {
+        clientSslHandler.setMaxRecordsPerWrite(maxRecordsPerWrite);
+        clientSslHandler.setDynamicRecordSizing(dynamicRecordSizing);
+    }
+
     @Benchmark
     public ByteBuf wrapUnwrap() throws Exception {
         ByteBuf src = doWrite(numWrites);
@@ -15,11 +15,16 @@
  */
 package io.netty.microbench.headers;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpScheme;
 import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersDecoder;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersEncoder;
 import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2HeadersEncoder;
 import io.netty.handler.codec.http2.ReadOnlyHttp2Headers;
 import io.netty.microbench.util.AbstractMicrobenchmark;
 import io.netty.util.AsciiString;
@@ -33,6 +38,7 @@ import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.Blackhole;
@@ -41,6 +47,8 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_HEADER_LIST_SIZE;
+
 @Threads(1)
 @State(Scope.Benchmark)
 @Fork(2)
@@ -50,6 +58,7 @@ import java.util.concurrent.TimeUnit;
 public class ReadOnlyHttp2HeadersBenchmark extends AbstractMicrobenchmark {
     private AsciiString[] headerNames;
     private AsciiString[] headerValues;
+    private ByteBuf serverHeadersBlock;
 
     @Param({ "1", "5", "10", "20" })
     public int headerCount;
@@ -65,6 +74,21 @@ public class ReadOnlyHttp2HeadersBenchmark extends AbstractMicrobenchmark {
             headerNames[i] = new AsciiString("key-" + i);
             headerValues[i] = new AsciiString(UUID.randomUUID().toString());
         }
+
+        // Huffman encode every literal without indexing, as a proxy would see headers it is asked to forward.
+        Http2Headers headers = new DefaultHttp2Headers(false);
+        for (int i = 0; i < headerCount; ++i) {
+            headers.add(headerNames[i], headerValues[i]);
+        }
+        headers.status(HttpResponseStatus.OK.codeAsText());
+        serverHeadersBlock = Unpooled.buffer();
+        new DefaultHttp2HeadersEncoder(Http2HeadersEncoder.ALWAYS_SENSITIVE, false, 16, 0)
+                .encodeHeaders(3, headers, serverHeadersBlock);
+    }
+
+    @TearDown
+    public void tearDown() {
+        serverHeadersBlock.release();
     }
 
     @Benchmark
@@ -121,6 +145,26 @@ public class ReadOnlyHttp2HeadersBenchmark extends AbstractMicrobenchmark {
         iterate(ReadOnlyHttp2Headers.serverHeaders(false, HttpResponseStatus.OK.codeAsText(), buildPairs()), bh);
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void decodeEagerServerHeaders(Blackhole bh) throws Exception {
+        decodeServerHeaders(new DefaultHttp2HeadersDecoder(false, MAX_HEADER_LIST_SIZE, null, false), bh);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void decodeLazyServerHeaders(Blackhole bh) throws Exception {
+        decodeServerHeaders(new DefaultHttp2HeadersDecoder(false, MAX_HEADER_LIST_SIZE, null, true), bh);
+    }
+
+    private void decodeServerHeaders(DefaultHttp2HeadersDecoder decoder, Blackhole bh) throws Exception {
+        // Only the names are touched, which is what routing on a forwarding hop typically needs.
+        Http2Headers headers = decoder.decodeHeaders(3, serverHeadersBlock.duplicate());
+        for (CharSequence name : headers.names()) {
+            bh.consume(name);
+        }
+    }
+
     private static void iterate(Http2Headers headers, Blackhole bh) {
         for (Map.Entry<CharSequence, CharSequence> entry : headers) {
             bh.consume(entry);
@@ -17,6 +17,7 @@ package io.netty.microbench.http;
 
 import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpObjectDecoder;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.microbench.util.AbstractMicrobenchmark;
 import io.netty.util.CharsetUtil;
@@ -29,6 +30,8 @@ import org.openjdk.jmh.annotations.Warmup;
 
 /**
  * This benchmark is based on HttpRequestDecoderTest class.
+ * Run it with the {@code gc} profiler to compare the allocation per request with and without
+ * {@code asciiStringHeaders}.
  */
 @State(Scope.Benchmark)
 @Warmup(iterations = 10)
@@ -41,6 +44,9 @@ public class HttpRequestDecoderBenchmark extends AbstractMicrobenchmark {
     @Param({ "2", "4", "8", "16", "32" })
     public int step;
 
+    @Param({ "false", "true" })
+    public boolean asciiStringHeaders;
+
     private static byte[] createContent(String... lineDelimiters) {
         String lineDelimiter;
         String lineDelimiter2;
@@ -83,11 +89,22 @@ public class HttpRequestDecoderBenchmark extends AbstractMicrobenchmark {
 
     @Benchmark
     public void testDecodeWholeRequestInMultipleStepsMixedDelimiters() {
-        testDecodeWholeRequestInMultipleSteps(CONTENT_MIXED_DELIMITERS, step);
+        testDecodeWholeRequestInMultipleSteps(CONTENT_MIXED_DELIMITERS, step, asciiStringHeaders);
+    }
+
+    @Benchmark
+    public void testDecodeWholeRequestAtOnceMixedDelimiters() {
+        testDecodeWholeRequestInMultipleSteps(
+                CONTENT_MIXED_DELIMITERS, CONTENT_MIXED_DELIMITERS.length, asciiStringHeaders);
     }
 
-    private static void testDecodeWholeRequestInMultipleSteps(byte[] content, int fragmentSize) {
-        final EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+    private static void testDecodeWholeRequestInMultipleSteps(
+            byte[] content, int fragmentSize, boolean asciiStringHeaders) {
+        final EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder(
+                HttpObjectDecoder.DEFAULT_MAX_INITIAL_LINE_LENGTH, HttpObjectDecoder.DEFAULT_MAX_HEADER_SIZE,
+                HttpObjectDecoder.DEFAULT_MAX_CHUNK_SIZE, HttpObjectDecoder.DEFAULT_VALIDATE_HEADERS,
+                HttpObjectDecoder.DEFAULT_INITIAL_BUFFER_SIZE,
+                HttpObjectDecoder.DEFAULT_ALLOW_DUPLICATE_CONTENT_LENGTHS, asciiStringHeaders));
 
         final int headerLength = content.length - CONTENT_LENGTH;
 
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License, version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at:
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.netty.microbench.http2;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http2.DefaultHttp2Connection;
+import io.netty.handler.codec.http2.DefaultHttp2RemoteFlowController;
+import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.netty.handler.codec.http2.Http2RemoteFlowController;
+import io.netty.handler.codec.http2.Http2Stream;
+import io.netty.handler.codec.http2.UniformStreamByteDistributor;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Benchmark for the cost of a channel writability change when a
+ * {@link Http2RemoteFlowController.Listener} is installed and most streams are blocked on their own flow
+ * control window.
+ */
+@Threads(1)
+@State(Scope.Benchmark)
+public class Http2RemoteFlowControllerWritabilityBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "100", "10000", "100000" })
+    private int numStreams;
+
+    /**
+     * Percentage of the streams that still have flow control window left.
+     */
+    @Param({ "10", "100" })
+    private int writablePercentage;
+
+    private EmbeddedChannel channel;
+    private Http2RemoteFlowController controller;
+    private boolean writable;
+    private long notifications;
+
+    @Setup(Level.Trial)
+    public void setup() throws Http2Exception {
+        channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        Http2Connection connection = new DefaultHttp2Connection(false);
+        controller = new DefaultHttp2RemoteFlowController(connection, new UniformStreamByteDistributor(connection),
+                new Http2RemoteFlowController.Listener() {
+                    @Override
+                    public void writabilityChanged(Http2Stream stream) {
+                        notifications++;
+                    }
+                });
+        connection.remote().flowController(controller);
+        controller.channelHandlerContext(channel.pipeline().firstContext());
+        controller.incrementWindowSize(connection.connectionStream(),
+                Integer.MAX_VALUE - controller.windowSize(connection.connectionStream()));
+
+        int blocked = numStreams - numStreams * writablePercentage / 100;
+        for (int i = 0; i < numStreams; ++i) {
+            Http2Stream stream = connection.local().createStream(2 * i + 1, false);
+            if (i < blocked) {
+                // Queue more than the initial window so the stream is not writable on its own.
+                controller.addFlowControlled(stream, new PendingData(Integer.MAX_VALUE));
+            }
+        }
+        writable = true;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public long channelWritabilityChanged() throws Http2Exception {
+        writable = !writable;
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, writable);
+        controller.channelWritabilityChanged();
+        return notifications;
+    }
+
+    private static final class PendingData implements Http2RemoteFlowController.FlowControlled {
+        private int size;
+
+        PendingData(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void error(ChannelHandlerContext ctx, Throwable cause) {
+            // Don't care.
+        }
+
+        @Override
+        public void writeComplete() {
+            // Don't care.
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, int allowedBytes) {
+            size -= allowedBytes;
+        }
+
+        @Override
+        public boolean merge(ChannelHandlerContext ctx, Http2RemoteFlowController.FlowControlled next) {
+            return false;
+        }
+    }
+}
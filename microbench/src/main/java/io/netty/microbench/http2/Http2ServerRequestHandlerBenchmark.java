@@ -0,0 +1,190 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License, version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at:
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.netty.microbench.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2FrameWriter;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2FrameWriter;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2ServerRequestHandlerBuilder;
+import io.netty.handler.codec.http2.Http2ServerRequestListener;
+import io.netty.handler.codec.http2.Http2ServerStream;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Compares serving simple request / response streams via {@link Http2MultiplexHandler} child channels with the
+ * connection level {@link io.netty.handler.codec.http2.Http2ServerRequestHandler}.
+ */
+@Threads(1)
+@State(Scope.Benchmark)
+public class Http2ServerRequestHandlerBenchmark extends AbstractMicrobenchmark {
+
+    public enum Server {
+        MULTIPLEX,
+        REQUEST_HANDLER
+    }
+
+    private static final byte[] RESPONSE = "hello world".getBytes();
+
+    @Param
+    private Server server;
+
+    /**
+     * The number of requests that are read at once by the server.
+     */
+    @Param({ "1", "16" })
+    private int requestsPerRead;
+
+    private EmbeddedChannel serverChannel;
+    private EmbeddedChannel clientChannel;
+    private ChannelHandlerContext clientCtx;
+    private Http2FrameWriter clientWriter;
+    private Http2Headers request;
+    private int streamId;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        switch (server) {
+            case MULTIPLEX:
+                final ChannelHandler responder = new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public boolean isSharable() {
+                        return true;
+                    }
+
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        if (msg instanceof Http2HeadersFrame && ((Http2HeadersFrame) msg).isEndStream()) {
+                            ctx.write(new DefaultHttp2HeadersFrame(new DefaultHttp2Headers().status("200")));
+                            ctx.write(new DefaultHttp2DataFrame(Unpooled.wrappedBuffer(RESPONSE), true));
+                        }
+                        ReferenceCountUtil.release(msg);
+                    }
+                };
+                serverChannel = new EmbeddedChannel(Http2FrameCodecBuilder.forServer().build(),
+                        new Http2MultiplexHandler(new ChannelInitializer<Channel>() {
+                            @Override
+                            protected void initChannel(Channel ch) {
+                                ch.pipeline().addLast(responder);
+                            }
+                        }));
+                break;
+            case REQUEST_HANDLER:
+                serverChannel = new EmbeddedChannel(new Http2ServerRequestHandlerBuilder(
+                        new Http2ServerRequestListener() {
+                            @Override
+                            public void onRequest(ChannelHandlerContext ctx, Http2ServerStream stream,
+                                                  Http2Headers headers, ByteBuf content, boolean endOfStream) {
+                                stream.writeHeaders(new DefaultHttp2Headers().status("200"), false);
+                                stream.writeData(Unpooled.wrappedBuffer(RESPONSE), true);
+                            }
+
+                            @Override
+                            public int onContent(ChannelHandlerContext ctx, Http2ServerStream stream,
+                                                 ByteBuf content, boolean endOfStream) {
+                                return content.readableBytes();
+                            }
+
+                            @Override
+                            public void onReset(ChannelHandlerContext ctx, Http2ServerStream stream,
+                                                long errorCode) {
+                                // NOOP
+                            }
+                        }).maxContentLength(8192).build());
+                break;
+            default:
+                throw new Error();
+        }
+        clientChannel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        clientCtx = clientChannel.pipeline().firstContext();
+        clientWriter = new DefaultHttp2FrameWriter();
+        request = new DefaultHttp2Headers().method("GET").path("/").scheme("https").authority("localhost");
+        // Stream 1 would be treated as an upgrade stream by the Http2MultiplexHandler as the parent is no child of
+        // a ServerChannel.
+        streamId = 3;
+
+        serverChannel.writeInbound(Http2CodecUtil.connectionPrefaceBuf());
+        clientWriter.writeSettings(clientCtx, new Http2Settings(), clientCtx.newPromise());
+        transferToServer();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        clientWriter.close();
+        clientChannel.finishAndReleaseAll();
+        serverChannel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public void requestResponse() throws Exception {
+        if (streamId < 0 || streamId > Integer.MAX_VALUE - 2 * requestsPerRead) {
+            // Stream ids are exhausted, just start a new connection.
+            tearDown();
+            setup();
+        }
+        for (int i = 0; i < requestsPerRead; i++) {
+            clientWriter.writeHeaders(clientCtx, streamId, request, 0, true, clientCtx.newPromise());
+            streamId += 2;
+        }
+        transferToServer();
+    }
+
+    private void transferToServer() {
+        clientCtx.flush();
+        ByteBuf requests = Unpooled.buffer();
+        for (;;) {
+            ByteBuf buf = clientChannel.readOutbound();
+            if (buf == null) {
+                break;
+            }
+            requests.writeBytes(buf);
+            buf.release();
+        }
+        // Write all requests at once so they are read by the server in a single read.
+        serverChannel.writeInbound(requests);
+        serverChannel.runPendingTasks();
+        for (;;) {
+            Object msg = serverChannel.readOutbound();
+            if (msg == null) {
+                break;
+            }
+            ReferenceCountUtil.release(msg);
+        }
+    }
+}
@@ -53,7 +53,7 @@ public class NoPriorityByteDistributionBenchmark extends AbstractMicrobenchmark
         UNIFORM
     }
 
-    @Param({ "100", "10000" })
+    @Param({ "100", "10000", "100000" })
     private int numStreams;
 
     @Param({ "1024", "65536", "1048576" })
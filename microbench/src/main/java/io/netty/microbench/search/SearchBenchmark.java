@@ -22,6 +22,8 @@ import io.netty.buffer.search.AbstractMultiSearchProcessorFactory;
 import io.netty.buffer.search.AbstractSearchProcessorFactory;
 import io.netty.buffer.search.SearchProcessorFactory;
 import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ByteProcessor;
+import io.netty.util.CharsetUtil;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.CompilerControl;
 import org.openjdk.jmh.annotations.CompilerControl.Mode;
@@ -153,6 +155,18 @@ public class SearchBenchmark extends AbstractMicrobenchmark {
         return ByteBufUtil.indexOf(needle, haystack);
     }
 
+    @Benchmark
+    @CompilerControl(Mode.DONT_INLINE)
+    public int findCrlf() {
+        return haystack.forEachByte(ByteProcessor.FIND_CRLF);
+    }
+
+    @Benchmark
+    @CompilerControl(Mode.DONT_INLINE)
+    public boolean isUtf8() {
+        return ByteBufUtil.isText(haystack, CharsetUtil.UTF_8);
+    }
+
     @Benchmark
     @CompilerControl(Mode.DONT_INLINE)
     public int kmp() {
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.util;
+
+import io.netty.util.Recycler;
+import io.netty.util.internal.PlatformDependent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Queue;
+
+/**
+ * Benchmarks {@link Recycler} when objects are recycled by the thread that allocated them and when they are handed
+ * off to and recycled by another thread.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class RecyclerBenchmark extends AbstractMicrobenchmark {
+
+    private static final Recycler<DummyObject> recycler = new Recycler<DummyObject>() {
+        @Override
+        protected DummyObject newObject(Recycler.Handle<DummyObject> handle) {
+            return new DummyObject(handle);
+        }
+    };
+
+    @State(Scope.Group)
+    public static class HandOff {
+        final Queue<DummyObject> queue = PlatformDependent.newFixedMpscQueue(1024);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public DummyObject plainNew() {
+        return new DummyObject(null);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public DummyObject recyclerGetAndRecycle() {
+        DummyObject o = recycler.get();
+        o.recycle();
+        return o;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public DummyObject recyclerGetAndRecycleContended() {
+        DummyObject o = recycler.get();
+        o.recycle();
+        return o;
+    }
+
+    @Benchmark
+    @Group("crossThread")
+    @GroupThreads(1)
+    public void producer(HandOff handOff) {
+        DummyObject o = recycler.get();
+        if (!handOff.queue.offer(o)) {
+            // The consumer can not keep up, recycle it ourselves.
+            o.recycle();
+        }
+    }
+
+    @Benchmark
+    @Group("crossThread")
+    @GroupThreads(1)
+    public void consumer(HandOff handOff, Blackhole blackhole) {
+        DummyObject o = handOff.queue.poll();
+        if (o != null) {
+            o.recycle();
+        }
+        blackhole.consume(o);
+    }
+
+    static final class DummyObject {
+        private final Recycler.Handle<DummyObject> handle;
+
+        DummyObject(Recycler.Handle<DummyObject> handle) {
+            this.handle = handle;
+        }
+
+        void recycle() {
+            handle.recycle(this);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.util;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.HierarchicalWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link HashedWheelTimer} and {@link HierarchicalWheelTimer} for the typical idle / read timeout pattern
+ * where almost every {@link Timeout} is cancelled before it expires.
+ */
+@Warmup(iterations = 5, time = 3, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 3, timeUnit = TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class TimerBenchmark extends AbstractMicrobenchmark {
+
+    private static final TimerTask NO_OP = new TimerTask() {
+        @Override
+        public void run(Timeout timeout) {
+        }
+    };
+
+    @Param({ "hashed", "hierarchical" })
+    public String timerType;
+
+    @Param({ "1", "3600" })
+    public int delaySeconds;
+
+    private Timer timer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if ("hashed".equals(timerType)) {
+            timer = new HashedWheelTimer();
+        } else if ("hierarchical".equals(timerType)) {
+            timer = new HierarchicalWheelTimer();
+        } else {
+            throw new IllegalArgumentException("Unknown timerType: " + timerType);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        timer.stop();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean newTimeoutAndCancel() {
+        return timer.newTimeout(NO_OP, delaySeconds, TimeUnit.SECONDS).cancel();
+    }
+}
@@ -106,4 +106,17 @@ public class ScheduleFutureTaskBenchmark extends AbstractMicrobenchmark {
         }
         return null;
     }
+
+    @Benchmark
+    @Threads(1)
+    public Future<?> scheduleCancelLotsInsideLoop(final ThreadState threadState) {
+        return threadState.eventLoop.submit(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 1; i <= threadState.num; i++) {
+                    threadState.eventLoop.schedule(NO_OP, i, TimeUnit.HOURS).cancel(false);
+                }
+            }
+        }).syncUninterruptibly();
+    }
 }
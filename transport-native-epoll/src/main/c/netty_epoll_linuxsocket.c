@@ -26,6 +26,8 @@
 #include <errno.h>
 #include <netinet/in.h>
 #include <sys/sendfile.h>
+#include <sys/socket.h>
+#include <linux/errqueue.h>
 #include <linux/tcp.h> // TCP_NOTSENT_LOWAT is a linux specific define
 
 #include "netty_epoll_linuxsocket.h"
@@ -57,6 +59,86 @@
 #define SO_BUSY_POLL 46
 #endif
 
+// SO_ZEROCOPY and MSG_ZEROCOPY are defined in linux 4.14. We define these here so older kernels can compile.
+#ifndef SO_ZEROCOPY
+#define SO_ZEROCOPY 60
+#endif
+
+#ifndef MSG_ZEROCOPY
+#define MSG_ZEROCOPY 0x4000000
+#endif
+
+#ifndef SO_EE_ORIGIN_ZEROCOPY
+#define SO_EE_ORIGIN_ZEROCOPY 5
+#endif
+
+#ifndef SO_EE_CODE_ZEROCOPY_COPIED
+#define SO_EE_CODE_ZEROCOPY_COPIED 1
+#endif
+
+// UDP_SEGMENT is defined in linux 4.18 and UDP_GRO in linux 5.0. We define these here so older kernels can compile.
+#ifndef SOL_UDP
+#define SOL_UDP 17
+#endif
+
+#ifndef UDP_SEGMENT
+#define UDP_SEGMENT 103
+#endif
+
+#ifndef UDP_GRO
+#define UDP_GRO 104
+#endif
+
+// TCP_ULP is defined in linux 4.13. We define this here so older kernels can compile.
+#ifndef TCP_ULP
+#define TCP_ULP 31
+#endif
+
+// SOL_TLS and TLS_TX are defined in linux 4.13, TLS_RX in linux 4.17 and TLS_CIPHER_AES_GCM_256 in linux 5.1.
+// linux/tls.h is not present before linux 4.13, so we define these here so older kernels can compile.
+#ifndef SOL_TLS
+#define SOL_TLS 282
+#endif
+
+#ifndef TLS_TX
+#define TLS_TX 1
+#endif
+
+#ifndef TLS_RX
+#define TLS_RX 2
+#endif
+
+#ifndef TLS_CIPHER_AES_GCM_128
+#define TLS_CIPHER_AES_GCM_128 51
+#endif
+
+#ifndef TLS_CIPHER_AES_GCM_256
+#define TLS_CIPHER_AES_GCM_256 52
+#endif
+
+#define NETTY_TLS_IV_SIZE 8
+#define NETTY_TLS_SALT_SIZE 4
+#define NETTY_TLS_REC_SEQ_SIZE 8
+
+// Same layout as struct tls12_crypto_info_aes_gcm_128 / struct tls12_crypto_info_aes_gcm_256.
+struct netty_tls12_crypto_info_aes_gcm_128 {
+    unsigned short version;
+    unsigned short cipher_type;
+    unsigned char iv[NETTY_TLS_IV_SIZE];
+    unsigned char key[16];
+    unsigned char salt[NETTY_TLS_SALT_SIZE];
+    unsigned char rec_seq[NETTY_TLS_REC_SEQ_SIZE];
+};
+
+struct netty_tls12_crypto_info_aes_gcm_256 {
+    unsigned short version;
+    unsigned short cipher_type;
+    unsigned char iv[NETTY_TLS_IV_SIZE];
+    unsigned char key[32];
+    unsigned char salt[NETTY_TLS_SALT_SIZE];
+    unsigned char rec_seq[NETTY_TLS_REC_SEQ_SIZE];
+};
+
 static jclass peerCredentialsClass = NULL;
 static jmethodID peerCredentialsMethodId = NULL;
 
@@ -128,6 +210,18 @@ static void netty_epoll_linuxsocket_setTcpFastOpenConnect(JNIEnv* env, jclass cl
     netty_unix_socket_setOption(env, fd, IPPROTO_TCP, TCP_FASTOPEN_CONNECT, &optval, sizeof(optval));
 }
 
+static void netty_epoll_linuxsocket_setZeroCopy(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    netty_unix_socket_setOption(env, fd, SOL_SOCKET, SO_ZEROCOPY, &optval, sizeof(optval));
+}
+
+static void netty_epoll_linuxsocket_setUdpGro(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    netty_unix_socket_setOption(env, fd, SOL_UDP, UDP_GRO, &optval, sizeof(optval));
+}
+
+static void netty_epoll_linuxsocket_setUdpSegment(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    netty_unix_socket_setOption(env, fd, SOL_UDP, UDP_SEGMENT, &optval, sizeof(optval));
+}
+
 static void netty_epoll_linuxsocket_setTcpKeepIdle(JNIEnv* env, jclass clazz, jint fd, jint optval) {
     netty_unix_socket_setOption(env, fd, IPPROTO_TCP, TCP_KEEPIDLE, &optval, sizeof(optval));
 }
@@ -423,6 +517,61 @@ static void netty_epoll_linuxsocket_setTcpMd5Sig(JNIEnv* env, jclass clazz, jint
     }
 }
 
+static void netty_epoll_linuxsocket_setTcpUlpTls(JNIEnv* env, jclass clazz, jint fd) {
+    netty_unix_socket_setOption(env, fd, IPPROTO_TCP, TCP_ULP, "tls", sizeof("tls"));
+}
+
+static jint netty_epoll_linuxsocket_copyTlsField(JNIEnv* env, jbyteArray array, unsigned char* dst, jint len) {
+    if ((*env)->GetArrayLength(env, array) != len) {
+        netty_unix_errors_throwIOException(env, "Invalid length of TLS crypto info field");
+        return -1;
+    }
+    (*env)->GetByteArrayRegion(env, array, 0, len, (jbyte*) dst);
+    if ((*env)->ExceptionCheck(env) == JNI_TRUE) {
+        return -1;
+    }
+    return 0;
+}
+
+static void netty_epoll_linuxsocket_setTlsCryptoInfo(JNIEnv* env, jclass clazz, jint fd, jboolean tx, jint version, jint cipherType, jbyteArray key, jbyteArray iv, jbyteArray salt, jbyteArray recSeq) {
+    int optname = tx == JNI_TRUE ? TLS_TX : TLS_RX;
+    struct netty_tls12_crypto_info_aes_gcm_128 info128;
+    struct netty_tls12_crypto_info_aes_gcm_256 info256;
+
+    switch (cipherType) {
+    case TLS_CIPHER_AES_GCM_128:
+        memset(&info128, 0, sizeof(info128));
+        info128.version = (unsigned short) version;
+        info128.cipher_type = (unsigned short) cipherType;
+        if (netty_epoll_linuxsocket_copyTlsField(env, key, info128.key, sizeof(info128.key)) == -1 ||
+            netty_epoll_linuxsocket_copyTlsField(env, iv, info128.iv, sizeof(info128.iv)) == -1 ||
+            netty_epoll_linuxsocket_copyTlsField(env, salt, info128.salt, sizeof(info128.salt)) == -1 ||
+            netty_epoll_linuxsocket_copyTlsField(env, recSeq, info128.rec_seq, sizeof(info128.rec_seq)) == -1) {
+            return;
+        }
+        netty_unix_socket_setOption(env, fd, SOL_TLS, optname, &info128, sizeof(info128));
+        // Don't keep the key material on the stack longer than needed.
+        memset(&info128, 0, sizeof(info128));
+        break;
+    case TLS_CIPHER_AES_GCM_256:
+        memset(&info256, 0, sizeof(info256));
+        info256.version = (unsigned short) version;
+        info256.cipher_type = (unsigned short) cipherType;
+        if (netty_epoll_linuxsocket_copyTlsField(env, key, info256.key, sizeof(info256.key)) == -1 ||
+            netty_epoll_linuxsocket_copyTlsField(env, iv, info256.iv, sizeof(info256.iv)) == -1 ||
+            netty_epoll_linuxsocket_copyTlsField(env, salt, info256.salt, sizeof(info256.salt)) == -1 ||
+            netty_epoll_linuxsocket_copyTlsField(env, recSeq, info256.rec_seq, sizeof(info256.rec_seq)) == -1) {
+            return;
+        }
+        netty_unix_socket_setOption(env, fd, SOL_TLS, optname, &info256, sizeof(info256));
+        memset(&info256, 0, sizeof(info256));
+        break;
+    default:
+        netty_unix_errors_throwIOException(env, "Unsupported TLS cipher type");
+        break;
+    }
+}
+
 static int netty_epoll_linuxsocket_getInterface(JNIEnv* env, jclass clazz, jint fd, jboolean ipv6) {
     if (ipv6 == JNI_TRUE) {
         int optval;
@@ -580,6 +729,30 @@ static jint netty_epoll_linuxsocket_getSoBusyPoll(JNIEnv* env, jclass clazz, jin
     return optval;
 }
 
+static jint netty_epoll_linuxsocket_isZeroCopy(JNIEnv* env, jclass clazz, jint fd) {
+    int optval;
+    if (netty_unix_socket_getOption(env, fd, SOL_SOCKET, SO_ZEROCOPY, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
+static jint netty_epoll_linuxsocket_isUdpGro(JNIEnv* env, jclass clazz, jint fd) {
+    int optval;
+    if (netty_unix_socket_getOption(env, fd, SOL_UDP, UDP_GRO, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
+static jint netty_epoll_linuxsocket_getUdpSegment(JNIEnv* env, jclass clazz, jint fd) {
+    int optval;
+    if (netty_unix_socket_getOption(env, fd, SOL_UDP, UDP_SEGMENT, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
 static jint netty_epoll_linuxsocket_getTcpDeferAccept(JNIEnv* env, jclass clazz, jint fd) {
     int optval;
     if (netty_unix_socket_getOption(env, fd, IPPROTO_TCP, TCP_DEFER_ACCEPT, &optval, sizeof(optval)) == -1) {
@@ -660,6 +833,75 @@ static jlong netty_epoll_linuxsocket_sendFile(JNIEnv* env, jclass clazz, jint fd
 
     return res;
 }
+static jint netty_epoll_linuxsocket_sendAddressZeroCopy(JNIEnv* env, jclass clazz, jint fd, jlong address, jint pos, jint limit) {
+    ssize_t res;
+    int err;
+    do {
+        res = send(fd, (void*) (intptr_t) (address + pos), (size_t) (limit - pos), MSG_ZEROCOPY);
+        // keep on writing if it was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        return -err;
+    }
+    return (jint) res;
+}
+
+static jlong netty_epoll_linuxsocket_sendvAddressesZeroCopy(JNIEnv* env, jclass clazz, jint fd, jlong memoryAddress, jint length) {
+    struct msghdr m = { 0 };
+    m.msg_iov = (struct iovec*) (intptr_t) memoryAddress;
+    m.msg_iovlen = length;
+
+    ssize_t res;
+    int err;
+    do {
+        res = sendmsg(fd, &m, MSG_ZEROCOPY);
+        // keep on writing if it was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        return -err;
+    }
+    return (jlong) res;
+}
+
+// Reads one message from the error queue of the socket. If it is a MSG_ZEROCOPY completion notification the range of
+// completed sends and if the kernel copied the data are stored in the given array and 1 is returned. 0 is returned if
+// the message was not a MSG_ZEROCOPY completion notification.
+static jint netty_epoll_linuxsocket_recvZeroCopyCompletion(JNIEnv* env, jclass clazz, jint fd, jintArray completion) {
+    char control[CMSG_SPACE(sizeof(struct sock_extended_err) + sizeof(struct sockaddr_in6))];
+    struct msghdr m = { 0 };
+    m.msg_control = control;
+    m.msg_controllen = sizeof(control);
+
+    ssize_t res;
+    int err;
+    do {
+        res = recvmsg(fd, &m, MSG_ERRQUEUE);
+        // Keep on reading if we was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        return -err;
+    }
+
+    struct cmsghdr* cmsg;
+    for (cmsg = CMSG_FIRSTHDR(&m); cmsg != NULL; cmsg = CMSG_NXTHDR(&m, cmsg)) {
+        if ((cmsg->cmsg_level == SOL_IP && cmsg->cmsg_type == IP_RECVERR) ||
+                (cmsg->cmsg_level == SOL_IPV6 && cmsg->cmsg_type == IPV6_RECVERR)) {
+            struct sock_extended_err* serr = (struct sock_extended_err*) CMSG_DATA(cmsg);
+            if (serr->ee_errno == 0 && serr->ee_origin == SO_EE_ORIGIN_ZEROCOPY) {
+                jint values[3];
+                values[0] = (jint) serr->ee_info;
+                values[1] = (jint) serr->ee_data;
+                values[2] = (serr->ee_code & SO_EE_CODE_ZEROCOPY_COPIED) != 0 ? 1 : 0;
+                (*env)->SetIntArrayRegion(env, completion, 0, 3, values);
+                return 1;
+            }
+        }
+    }
+    return 0;
+}
 // JNI Registered Methods End
 
 // JNI Method Registration Table Begin
@@ -687,6 +929,15 @@ static const JNINativeMethod fixed_method_table[] = {
   { "setTcpKeepIntvl", "(II)V", (void *) netty_epoll_linuxsocket_setTcpKeepIntvl },
   { "setTcpKeepCnt", "(II)V", (void *) netty_epoll_linuxsocket_setTcpKeepCnt },
   { "setTcpUserTimeout", "(II)V", (void *) netty_epoll_linuxsocket_setTcpUserTimeout },
+  { "setZeroCopy", "(II)V", (void *) netty_epoll_linuxsocket_setZeroCopy },
+  { "isZeroCopy", "(I)I", (void *) netty_epoll_linuxsocket_isZeroCopy },
+  { "sendAddressZeroCopy", "(IJII)I", (void *) netty_epoll_linuxsocket_sendAddressZeroCopy },
+  { "sendvAddressesZeroCopy", "(IJI)J", (void *) netty_epoll_linuxsocket_sendvAddressesZeroCopy },
+  { "recvZeroCopyCompletion", "(I[I)I", (void *) netty_epoll_linuxsocket_recvZeroCopyCompletion },
+  { "setUdpGro", "(II)V", (void *) netty_epoll_linuxsocket_setUdpGro },
+  { "isUdpGro", "(I)I", (void *) netty_epoll_linuxsocket_isUdpGro },
+  { "setUdpSegment", "(II)V", (void *) netty_epoll_linuxsocket_setUdpSegment },
+  { "getUdpSegment", "(I)I", (void *) netty_epoll_linuxsocket_getUdpSegment },
   { "setIpFreeBind", "(II)V", (void *) netty_epoll_linuxsocket_setIpFreeBind },
   { "setIpTransparent", "(II)V", (void *) netty_epoll_linuxsocket_setIpTransparent },
   { "setIpRecvOrigDestAddr", "(II)V", (void *) netty_epoll_linuxsocket_setIpRecvOrigDestAddr },
@@ -699,6 +950,8 @@ static const JNINativeMethod fixed_method_table[] = {
   { "isIpRecvOrigDestAddr", "(I)I", (void *) netty_epoll_linuxsocket_isIpRecvOrigDestAddr },
   { "getTcpInfo", "(I[J)V", (void *) netty_epoll_linuxsocket_getTcpInfo },
   { "setTcpMd5Sig", "(IZ[BI[B)V", (void *) netty_epoll_linuxsocket_setTcpMd5Sig },
+  { "setTcpUlpTls", "(I)V", (void *) netty_epoll_linuxsocket_setTcpUlpTls },
+  { "setTlsCryptoInfo", "(IZII[B[B[B[B)V", (void *) netty_epoll_linuxsocket_setTlsCryptoInfo },
   { "joinGroup", "(IZ[B[BII)V", (void *) netty_epoll_linuxsocket_joinGroup },
   { "joinSsmGroup", "(IZ[B[BII[B)V", (void *) netty_epoll_linuxsocket_joinSsmGroup },
   { "leaveGroup", "(IZ[B[BII)V", (void *) netty_epoll_linuxsocket_leaveGroup },
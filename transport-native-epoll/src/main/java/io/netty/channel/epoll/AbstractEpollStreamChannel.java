@@ -23,10 +23,12 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelMetadata;
 import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelOutboundBuffer.MessageProcessor;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.DefaultFileRegion;
 import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopMetrics;
 import io.netty.channel.FileRegion;
 import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.internal.ChannelUtils;
@@ -78,6 +80,10 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
 
     private WritableByteChannel byteChannel;
 
+    // Lazy init these if we need to write with MSG_ZEROCOPY
+    private volatile ZeroCopyTracker zeroCopyTracker;
+    private GatheringWriteProcessor gatheringWriteProcessor;
+
     protected AbstractEpollStreamChannel(Channel parent, int fd) {
         this(parent, new LinuxSocket(fd));
     }
@@ -256,6 +262,9 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             return 0;
         }
 
+        if (isZeroCopyCurrent(buf)) {
+            return writeBytesZeroCopy(in, buf);
+        }
         if (buf.hasMemoryAddress() || buf.nioBufferCount() == 1) {
             return doWriteBytes(in, buf);
         } else {
@@ -265,6 +274,72 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         }
     }
 
+    /**
+     * Returns the minimum number of readable bytes a direct {@link ByteBuf} must have to be written with
+     * {@code MSG_ZEROCOPY}, or {@code 0} if {@code MSG_ZEROCOPY} should not be used.
+     */
+    int zeroCopyThreshold() {
+        return 0;
+    }
+
+    private boolean isZeroCopy(ByteBuf buf, int zeroCopyThreshold) {
+        return zeroCopyThreshold > 0 && buf.hasMemoryAddress() && buf.readableBytes() >= zeroCopyThreshold;
+    }
+
+    private boolean isZeroCopyCurrent(ByteBuf buf) {
+        ZeroCopyTracker tracker = zeroCopyTracker;
+        // Once a message was partially sent with MSG_ZEROCOPY the rest must be sent the same way, so it is kept until
+        // the completion notification arrives.
+        return tracker != null && tracker.isCurrentPinned() || isZeroCopy(buf, zeroCopyThreshold());
+    }
+
+    /**
+     * Write the current {@link ByteBuf} with {@code MSG_ZEROCOPY}. Once completely written it is removed from the
+     * {@link ChannelOutboundBuffer} but it is only released, and its {@link ChannelPromise} only notified, after the
+     * kernel signals that it does not use its memory anymore.
+     * @param in the collection which contains objects to write.
+     * @param buf the {@link ByteBuf} from which the bytes should be written
+     * @return The value that should be decremented from the write quantum which starts at
+     * {@link ChannelConfig#getWriteSpinCount()}. The typical use cases are as follows:
+     * <ul>
+     *     <li>1 - if a single call to write data was made to the OS</li>
+     *     <li>{@link ChannelUtils#WRITE_STATUS_SNDBUF_FULL} - if an attempt to write data was made to the OS, but
+     *     no data was accepted</li>
+     * </ul>
+     */
+    private int writeBytesZeroCopy(ChannelOutboundBuffer in, ByteBuf buf) throws IOException {
+        ZeroCopyTracker tracker = zeroCopyTracker;
+        if (tracker == null) {
+            zeroCopyTracker = tracker = new ZeroCopyTracker();
+        }
+        final long memoryAddress = buf.memoryAddress();
+        final int readerIndex = buf.readerIndex();
+        final int writerIndex = buf.writerIndex();
+        int localFlushedAmount = socket.sendAddressZeroCopy(memoryAddress, readerIndex, writerIndex);
+        if (localFlushedAmount > 0) {
+            tracker.sent();
+        } else if (localFlushedAmount < 0) {
+            // The kernel was not able to allocate the completion notification, copy the data this time.
+            localFlushedAmount = socket.writeAddress(memoryAddress, readerIndex, writerIndex);
+            if (localFlushedAmount > 0) {
+                tracker.copied();
+            }
+        }
+        if (localFlushedAmount <= 0) {
+            return WRITE_STATUS_SNDBUF_FULL;
+        }
+
+        in.progress(localFlushedAmount);
+        if (localFlushedAmount < writerIndex - readerIndex) {
+            buf.readerIndex(readerIndex + localFlushedAmount);
+        } else if (tracker.isCurrentPinned()) {
+            tracker.add(in);
+        } else {
+            in.remove();
+        }
+        return 1;
+    }
+
     private void adjustMaxBytesPerGatheringWrite(long attempted, long written, long oldMaxBytesPerGatheringWrite) {
         // By default we track the SO_SNDBUF when ever it is explicitly set. However some OSes may dynamically change
         // SO_SNDBUF (and other characteristics that determine how much data can be written at once) so we should try
@@ -500,10 +575,29 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
      * @throws Exception If an I/O error occurs.
      */
     private int doWriteMultiple(ChannelOutboundBuffer in) throws Exception {
+        final ByteBuf current = (ByteBuf) in.current();
+        if (isZeroCopyCurrent(current)) {
+            return writeBytesZeroCopy(in, current);
+        }
         final long maxBytesPerGatheringWrite = config().getMaxBytesPerGatheringWrite();
         IovArray array = ((EpollEventLoop) eventLoop()).cleanIovArray();
         array.maxBytes(maxBytesPerGatheringWrite);
-        in.forEachFlushedMessage(array);
+        final int zeroCopyThreshold = zeroCopyThreshold();
+        if (zeroCopyThreshold > 0) {
+            GatheringWriteProcessor processor = gatheringWriteProcessor;
+            if (processor == null) {
+                gatheringWriteProcessor = processor = new GatheringWriteProcessor();
+            }
+            processor.array = array;
+            processor.zeroCopyThreshold = zeroCopyThreshold;
+            try {
+                in.forEachFlushedMessage(processor);
+            } finally {
+                processor.array = null;
+            }
+        } else {
+            in.forEachFlushedMessage(array);
+        }
 
         if (array.count() >= 1) {
             // TODO: Handle the case where cnt == 1 specially.
@@ -668,15 +762,53 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
     @Override
     protected void doClose() throws Exception {
         try {
+            // Pick up the MSG_ZEROCOPY completions which are available while the socket is still open.
+            processZeroCopyCompletions();
             // Calling super.doClose() first so spliceTo(...) will fail on next call.
             super.doClose();
         } finally {
             safeClosePipe(pipeIn);
             safeClosePipe(pipeOut);
             clearSpliceQueue();
+            releaseZeroCopyWrites();
         }
     }
 
+    private void processZeroCopyCompletions() {
+        ZeroCopyTracker tracker = zeroCopyTracker;
+        if (tracker != null && tracker.isPending()) {
+            try {
+                tracker.processCompletions(socket);
+            } catch (IOException e) {
+                // Errors of the socket itself are reported by the following read or write attempt.
+                logger.debug("Failed to read MSG_ZEROCOPY completions", e);
+            }
+        }
+    }
+
+    private void releaseZeroCopyWrites() {
+        ZeroCopyTracker tracker = zeroCopyTracker;
+        if (tracker != null) {
+            tracker.releaseAll();
+        }
+    }
+
+    /**
+     * Returns the number of {@code MSG_ZEROCOPY} sends for which the kernel did not need to copy the data.
+     */
+    long zeroCopyHits() {
+        ZeroCopyTracker tracker = zeroCopyTracker;
+        return tracker == null ? 0 : tracker.hits();
+    }
+
+    /**
+     * Returns the number of {@code MSG_ZEROCOPY} sends for which the data was copied anyway.
+     */
+    long zeroCopyFallbacks() {
+        ZeroCopyTracker tracker = zeroCopyTracker;
+        return tracker == null ? 0 : tracker.fallbacks();
+    }
+
     private void clearSpliceQueue() {
         Queue<SpliceInTask> sQueue = spliceQueue;
         if (sQueue == null) {
@@ -706,6 +838,21 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         }
     }
 
+    /**
+     * Collects the messages of a gathering write but stops in front of a message that should be written with
+     * {@code MSG_ZEROCOPY}, as this one is written on its own.
+     */
+    private final class GatheringWriteProcessor implements MessageProcessor {
+        IovArray array;
+        int zeroCopyThreshold;
+
+        @Override
+        public boolean processMessage(Object msg) throws Exception {
+            return !(msg instanceof ByteBuf && isZeroCopy((ByteBuf) msg, zeroCopyThreshold)) &&
+                    array.processMessage(msg);
+        }
+    }
+
     class EpollStreamUnsafe extends AbstractEpollUnsafe {
         // Overridden here just to be able to access this method from AbstractEpollStreamChannel
         @Override
@@ -713,6 +860,11 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             return super.prepareToClose();
         }
 
+        @Override
+        void epollErrReady() {
+            processZeroCopyCompletions();
+        }
+
         private void handleReadException(ChannelPipeline pipeline, ByteBuf byteBuf, Throwable cause, boolean close,
                 EpollRecvByteAllocatorHandle allocHandle) {
             if (byteBuf != null) {
@@ -756,6 +908,8 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
 
             ByteBuf byteBuf = null;
             boolean close = false;
+            long readBytes = 0;
+            int readMessages = 0;
             try {
                 Queue<SpliceInTask> sQueue = null;
                 do {
@@ -791,6 +945,8 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
                         break;
                     }
                     allocHandle.incMessagesRead(1);
+                    readBytes += allocHandle.lastBytesRead();
+                    readMessages++;
                     readPending = false;
                     pipeline.fireChannelRead(byteBuf);
                     byteBuf = null;
@@ -812,6 +968,10 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
                 } while (allocHandle.continueReading());
 
                 allocHandle.readComplete();
+                EventLoopMetrics metrics = eventLoopMetrics();
+                if (metrics != null) {
+                    metrics.channelRead(AbstractEpollStreamChannel.this, readBytes, readMessages);
+                }
                 pipeline.fireChannelReadComplete();
 
                 if (close) {
@@ -39,6 +39,11 @@ public final class EpollChannelOption<T> extends UnixChannelOption<T> {
             ChannelOption.valueOf(EpollChannelOption.class, "TCP_DEFER_ACCEPT");
     public static final ChannelOption<Boolean> TCP_QUICKACK = valueOf(EpollChannelOption.class, "TCP_QUICKACK");
     public static final ChannelOption<Integer> SO_BUSY_POLL = valueOf(EpollChannelOption.class, "SO_BUSY_POLL");
+    /**
+     * The minimum number of readable bytes a direct buffer must have to be written with {@code MSG_ZEROCOPY},
+     * {@code 0} disables {@code SO_ZEROCOPY}.
+     */
+    public static final ChannelOption<Integer> SO_ZEROCOPY = valueOf(EpollChannelOption.class, "SO_ZEROCOPY");
 
     public static final ChannelOption<EpollMode> EPOLL_MODE =
             ChannelOption.valueOf(EpollChannelOption.class, "EPOLL_MODE");
@@ -46,6 +51,16 @@ public final class EpollChannelOption<T> extends UnixChannelOption<T> {
     public static final ChannelOption<Map<InetAddress, byte[]>> TCP_MD5SIG = valueOf("TCP_MD5SIG");
 
     public static final ChannelOption<Integer> MAX_DATAGRAM_PAYLOAD_SIZE = valueOf("MAX_DATAGRAM_PAYLOAD_SIZE");
+    /**
+     * Enables {@code UDP_GRO}, coalesced datagrams are read into one buffer and delivered as
+     * {@link SegmentedDatagramPacket}.
+     */
+    public static final ChannelOption<Boolean> UDP_GRO = valueOf("UDP_GRO");
+    /**
+     * The {@code UDP_SEGMENT} size used for all writes of the socket, {@code 0} disables {@code UDP_SEGMENT}.
+     * A single write can also use its own size by writing a {@link SegmentedDatagramPacket}.
+     */
+    public static final ChannelOption<Integer> UDP_SEGMENT = valueOf("UDP_SEGMENT");
 
     @SuppressWarnings({ "unused", "deprecation" })
     private EpollChannelOption() {
@@ -297,8 +297,9 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
             }
 
             try {
-                // Check if sendmmsg(...) is supported which is only the case for GLIBC 2.14+
-                if (Native.IS_SUPPORTING_SENDMMSG && in.size() > 1) {
+                // Check if sendmmsg(...) is supported which is only the case for GLIBC 2.14+. A
+                // SegmentedDatagramPacket is always written via sendmmsg(...) as it needs to carry UDP_SEGMENT.
+                if ((Native.IS_SUPPORTING_SENDMMSG && in.size() > 1) || msg instanceof SegmentedDatagramPacket) {
                     NativeDatagramPacketArray array = cleanDatagramPacketArray();
                     array.add(in, isConnected());
                     int cnt = array.count();
@@ -403,6 +404,16 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
 
     @Override
     protected Object filterOutboundMessage(Object msg) {
+        if (msg instanceof SegmentedDatagramPacket) {
+            if (!Native.IS_SUPPORTING_UDP_SEGMENT) {
+                throw new UnsupportedOperationException(
+                        "unsupported message type: " + StringUtil.simpleClassName(msg) + EXPECTED_TYPES);
+            }
+            SegmentedDatagramPacket packet = (SegmentedDatagramPacket) msg;
+            ByteBuf content = packet.content();
+            return UnixChannelUtil.isBufferCopyNeededForWrite(content) ?
+                    packet.replace(newDirectBuffer(packet, content)) : msg;
+        }
         if (msg instanceof DatagramPacket) {
             DatagramPacket packet = (DatagramPacket) msg;
             ByteBuf content = packet.content();
@@ -492,7 +503,10 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
                                 0;
 
                         try {
-                            if (numDatagram <= 1) {
+                            if (config().isUdpGro()) {
+                                // Coalesced datagrams are read as a whole via recvmsg(...).
+                                read = groRead(allocHandle, byteBuf);
+                            } else if (numDatagram <= 1) {
                                 if (connected) {
                                     read = connectedRead(allocHandle, byteBuf, datagramSize);
                                 } else {
@@ -647,6 +661,38 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
         }
     }
 
+    private boolean groRead(EpollRecvByteAllocatorHandle allocHandle, ByteBuf byteBuf) throws IOException {
+        try {
+            int writable = byteBuf.writableBytes();
+            NativeDatagramPacketArray array = cleanDatagramPacketArray();
+            if (!array.addWritable(byteBuf, byteBuf.writerIndex(), writable)) {
+                // Not able to build the iovec, use a normal read which will not be able to report the segment size.
+                ByteBuf buf = byteBuf;
+                byteBuf = null;
+                return isConnected() ? connectedRead(allocHandle, buf, 0) : read(allocHandle, buf, 0);
+            }
+            allocHandle.attemptedBytesRead(writable);
+
+            NativeDatagramPacketArray.NativeDatagramPacket packet = array.packets()[0];
+            int received = socket.recvmsg(packet);
+            if (received == 0) {
+                allocHandle.lastBytesRead(-1);
+                return false;
+            }
+            DatagramPacket datagramPacket = packet.newDatagramPacket(byteBuf, localAddress());
+            allocHandle.lastBytesRead(received);
+            allocHandle.incMessagesRead(1);
+
+            pipeline().fireChannelRead(datagramPacket);
+            byteBuf = null;
+            return true;
+        } finally {
+            if (byteBuf != null) {
+                byteBuf.release();
+            }
+        }
+    }
+
     private boolean read(EpollRecvByteAllocatorHandle allocHandle, ByteBuf byteBuf, int maxDatagramPacketSize)
             throws IOException {
         try {
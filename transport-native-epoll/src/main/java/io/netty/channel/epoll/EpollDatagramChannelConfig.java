@@ -35,6 +35,7 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
     private static final RecvByteBufAllocator DEFAULT_RCVBUF_ALLOCATOR = new FixedRecvByteBufAllocator(2048);
     private boolean activeOnOpen;
     private volatile int maxDatagramSize;
+    private volatile boolean gro;
 
     EpollDatagramChannelConfig(EpollDatagramChannel channel) {
         super(channel);
@@ -51,7 +52,8 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
                 ChannelOption.IP_MULTICAST_ADDR, ChannelOption.IP_MULTICAST_IF, ChannelOption.IP_MULTICAST_TTL,
                 ChannelOption.IP_TOS, ChannelOption.DATAGRAM_CHANNEL_ACTIVE_ON_REGISTRATION,
                 EpollChannelOption.SO_REUSEPORT, EpollChannelOption.IP_FREEBIND, EpollChannelOption.IP_TRANSPARENT,
-                EpollChannelOption.IP_RECVORIGDSTADDR, EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE);
+                EpollChannelOption.IP_RECVORIGDSTADDR, EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE,
+                EpollChannelOption.UDP_GRO, EpollChannelOption.UDP_SEGMENT);
     }
 
     @SuppressWarnings({ "unchecked", "deprecation" })
@@ -102,6 +104,12 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
         if (option == EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE) {
             return (T) Integer.valueOf(getMaxDatagramPayloadSize());
         }
+        if (option == EpollChannelOption.UDP_GRO) {
+            return (T) Boolean.valueOf(isUdpGro());
+        }
+        if (option == EpollChannelOption.UDP_SEGMENT) {
+            return (T) Integer.valueOf(getUdpSegment());
+        }
         return super.getOption(option);
     }
 
@@ -140,6 +148,10 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
             setIpRecvOrigDestAddr((Boolean) value);
         } else if (option == EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE) {
             setMaxDatagramPayloadSize((Integer) value);
+        } else if (option == EpollChannelOption.UDP_GRO) {
+            setUdpGro((Boolean) value);
+        } else if (option == EpollChannelOption.UDP_SEGMENT) {
+            setUdpSegment((Integer) value);
         } else {
             return super.setOption(option, value);
         }
@@ -526,4 +538,59 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
     public int getMaxDatagramPayloadSize() {
         return maxDatagramSize;
     }
+
+    /**
+     * If {@code true} is used <a href="https://man7.org/linux/man-pages/man7/udp.7.html">UDP_GRO</a> is enabled,
+     * {@code false} for disable it. Default is disabled.
+     * <p>
+     * When enabled the kernel may coalesce multiple datagrams of the same flow, these are read with one syscall
+     * into one buffer and delivered as {@link SegmentedDatagramPacket}. The {@link RecvByteBufAllocator} should
+     * hand out buffers big enough to hold the coalesced datagrams (up to 64kb), as the payload is truncated
+     * otherwise. {@link #getMaxDatagramPayloadSize()} is not used while {@code UDP_GRO} is enabled.
+     */
+    public EpollDatagramChannelConfig setUdpGro(boolean gro) {
+        try {
+            ((EpollDatagramChannel) channel).socket.setUdpGro(gro);
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+        this.gro = gro;
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if <a href="https://man7.org/linux/man-pages/man7/udp.7.html">UDP_GRO</a> is
+     * enabled, {@code false} otherwise.
+     */
+    public boolean isUdpGro() {
+        // Return the cached value as this is checked for every read and so we don't want to do a syscall.
+        return gro;
+    }
+
+    /**
+     * Set the <a href="https://man7.org/linux/man-pages/man7/udp.7.html">UDP_SEGMENT</a> size which is used for
+     * all writes of this socket, {@code 0} disables it. Payloads bigger than the segment size are split into
+     * multiple datagrams by the kernel (or the NIC), which allows to send many datagrams with one syscall.
+     */
+    public EpollDatagramChannelConfig setUdpSegment(int segmentSize) {
+        ObjectUtil.checkInRange(segmentSize, 0, 0xFFFF, "segmentSize");
+        try {
+            ((EpollDatagramChannel) channel).socket.setUdpSegment(segmentSize);
+            return this;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Returns the <a href="https://man7.org/linux/man-pages/man7/udp.7.html">UDP_SEGMENT</a> size of the socket,
+     * {@code 0} if it is disabled.
+     */
+    public int getUdpSegment() {
+        try {
+            return ((EpollDatagramChannel) channel).socket.getUdpSegment();
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
 }
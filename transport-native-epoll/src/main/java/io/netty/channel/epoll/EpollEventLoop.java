@@ -17,6 +17,7 @@ package io.netty.channel.epoll;
 
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.EventLoopMetrics;
 import io.netty.channel.EventLoopTaskQueueFactory;
 import io.netty.channel.SelectStrategy;
 import io.netty.channel.SingleThreadEventLoop;
@@ -184,6 +185,10 @@ class EpollEventLoop extends SingleThreadEventLoop {
         if (!inEventLoop && nextWakeupNanos.getAndSet(AWAKE) != AWAKE) {
             // write to the evfd which will then wake-up epoll_wait(...)
             Native.eventFdWrite(eventFd.intValue(), 1L);
+            EventLoopMetrics metrics = metrics();
+            if (metrics != null) {
+                metrics.wakeup(this);
+            }
         }
     }
 
@@ -363,29 +368,40 @@ class EpollEventLoop extends SingleThreadEventLoop {
                 }
 
                 final int ioRatio = this.ioRatio;
+                final EventLoopMetrics metrics = metrics();
+                final long completedTasks = metrics != null ? completedTasks() : 0;
+                final long ioStartTime = metrics != null || ioRatio != 100 && strategy > 0 ? System.nanoTime() : 0;
+                long ioEndTime = ioStartTime;
                 if (ioRatio == 100) {
                     try {
                         if (strategy > 0 && processReady(events, strategy)) {
                             prevDeadlineNanos = NONE;
                         }
                     } finally {
+                        if (metrics != null) {
+                            ioEndTime = System.nanoTime();
+                        }
                         // Ensure we always run tasks.
                         runAllTasks();
                     }
                 } else if (strategy > 0) {
-                    final long ioStartTime = System.nanoTime();
                     try {
                         if (processReady(events, strategy)) {
                             prevDeadlineNanos = NONE;
                         }
                     } finally {
                         // Ensure we always run tasks.
-                        final long ioTime = System.nanoTime() - ioStartTime;
+                        ioEndTime = System.nanoTime();
+                        final long ioTime = ioEndTime - ioStartTime;
                         runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
                     }
                 } else {
                     runAllTasks(0); // This will run the minimum number of tasks
                 }
+                if (metrics != null) {
+                    metrics.iterationCompleted(this, ioEndTime - ioStartTime, System.nanoTime() - ioEndTime,
+                            completedTasks() - completedTasks, pendingTasks());
+                }
                 if (allowGrowing && strategy == events.length()) {
                     //increase the size of the array as we needed the whole space for the events
                     events.increase();
@@ -457,6 +473,12 @@ class EpollEventLoop extends SingleThreadEventLoop {
                     // past.
                     AbstractEpollUnsafe unsafe = (AbstractEpollUnsafe) ch.unsafe();
 
+                    // EPOLLERR is also signaled for MSG_ZEROCOPY completion notifications on the error queue of the
+                    // socket, these must be consumed to not be woken up over and over again.
+                    if ((ev & Native.EPOLLERR) != 0) {
+                        unsafe.epollErrReady();
+                    }
+
                     // First check for EPOLLOUT as we may need to fail the connect ChannelPromise before try
                     // to read from the file descriptor.
                     // See https://github.com/netty/netty/issues/3785
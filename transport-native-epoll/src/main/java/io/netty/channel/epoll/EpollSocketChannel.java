@@ -17,6 +17,8 @@ package io.netty.channel.epoll;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelException;
+import io.netty.channel.socket.KernelTlsChannel;
+import io.netty.channel.socket.KernelTlsCryptoInfo;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.util.concurrent.GlobalEventExecutor;
@@ -30,16 +32,18 @@ import java.util.Map;
 import java.util.concurrent.Executor;
 
 import static io.netty.channel.epoll.LinuxSocket.newSocketStream;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
 
 /**
  * {@link SocketChannel} implementation that uses linux EPOLL Edge-Triggered Mode for
  * maximal performance.
  */
-public final class EpollSocketChannel extends AbstractEpollStreamChannel implements SocketChannel {
+public final class EpollSocketChannel extends AbstractEpollStreamChannel implements KernelTlsChannel {
 
     private final EpollSocketChannelConfig config;
 
     private volatile Collection<InetAddress> tcpMd5SigAddresses = Collections.emptyList();
+    private volatile boolean kernelTls;
 
     public EpollSocketChannel() {
         super(newSocketStream(), false);
@@ -86,6 +90,30 @@ public final class EpollSocketChannel extends AbstractEpollStreamChannel impleme
         }
     }
 
+    /**
+     * Returns the number of {@code MSG_ZEROCOPY} sends for which the kernel did not need to copy the data.
+     *
+     * @see EpollSocketChannelConfig#setZeroCopyThreshold(int)
+     */
+    public long zeroCopyHits() {
+        return super.zeroCopyHits();
+    }
+
+    /**
+     * Returns the number of {@code MSG_ZEROCOPY} sends for which the data was copied anyway, for example because the
+     * connection uses the loopback interface or the kernel was not able to allocate the completion notification.
+     *
+     * @see EpollSocketChannelConfig#setZeroCopyThreshold(int)
+     */
+    public long zeroCopyFallbacks() {
+        return super.zeroCopyFallbacks();
+    }
+
+    @Override
+    int zeroCopyThreshold() {
+        return config.getZeroCopyThreshold();
+    }
+
     @Override
     public InetSocketAddress remoteAddress() {
         return (InetSocketAddress) super.remoteAddress();
@@ -137,4 +165,34 @@ public final class EpollSocketChannel extends AbstractEpollStreamChannel impleme
     void setTcpMd5Sig(Map<InetAddress, byte[]> keys) throws IOException {
         tcpMd5SigAddresses = TcpMd5Util.newTcpMd5Sigs(this, tcpMd5SigAddresses, keys);
     }
+
+    @Override
+    public boolean isKernelTlsEnabled() {
+        return kernelTls;
+    }
+
+    @Override
+    public void enableKernelTls(KernelTlsCryptoInfo tx, KernelTlsCryptoInfo rx) throws IOException {
+        checkNotNull(tx, "tx");
+        checkNotNull(rx, "rx");
+        if (!eventLoop().inEventLoop()) {
+            throw new IllegalStateException("enableKernelTls(...) must be called from the EventLoop");
+        }
+        if (kernelTls) {
+            throw new IllegalStateException("kernel TLS already enabled");
+        }
+        // Attaching the ULP fails if the tls module is not loaded. Once attached without any crypto state the
+        // socket still passes all bytes through unchanged, so any failure up to the first installed direction
+        // leaves the channel usable.
+        socket.setTcpUlpTls();
+        socket.setTlsRx(rx);
+        try {
+            socket.setTlsTx(tx);
+        } catch (IOException e) {
+            // The receive direction can not be removed again, there is no way to recover.
+            close(voidPromise());
+            throw e;
+        }
+        kernelTls = true;
+    }
 }
@@ -36,9 +36,11 @@ import static io.netty.channel.ChannelOption.SO_RCVBUF;
 import static io.netty.channel.ChannelOption.SO_REUSEADDR;
 import static io.netty.channel.ChannelOption.SO_SNDBUF;
 import static io.netty.channel.ChannelOption.TCP_NODELAY;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
 
 public final class EpollSocketChannelConfig extends EpollChannelConfig implements SocketChannelConfig {
     private volatile boolean allowHalfClosure;
+    private volatile int zeroCopyThreshold;
 
     /**
      * Creates a new instance.
@@ -60,7 +62,8 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
                 ALLOW_HALF_CLOSURE, EpollChannelOption.TCP_CORK, EpollChannelOption.TCP_NOTSENT_LOWAT,
                 EpollChannelOption.TCP_KEEPCNT, EpollChannelOption.TCP_KEEPIDLE, EpollChannelOption.TCP_KEEPINTVL,
                 EpollChannelOption.TCP_MD5SIG, EpollChannelOption.TCP_QUICKACK, EpollChannelOption.IP_TRANSPARENT,
-                EpollChannelOption.TCP_FASTOPEN_CONNECT, EpollChannelOption.SO_BUSY_POLL);
+                EpollChannelOption.TCP_FASTOPEN_CONNECT, EpollChannelOption.SO_BUSY_POLL,
+                EpollChannelOption.SO_ZEROCOPY);
     }
 
     @SuppressWarnings("unchecked")
@@ -120,6 +123,9 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
         if (option == EpollChannelOption.SO_BUSY_POLL) {
             return (T) Integer.valueOf(getSoBusyPoll());
         }
+        if (option == EpollChannelOption.SO_ZEROCOPY) {
+            return (T) Integer.valueOf(getZeroCopyThreshold());
+        }
         return super.getOption(option);
     }
 
@@ -167,6 +173,8 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
             setTcpFastOpenConnect((Boolean) value);
         } else if (option == EpollChannelOption.SO_BUSY_POLL) {
             setSoBusyPoll((Integer) value);
+        } else if (option == EpollChannelOption.SO_ZEROCOPY) {
+            setZeroCopyThreshold((Integer) value);
         } else {
             return super.setOption(option, value);
         }
@@ -259,6 +267,14 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
         }
     }
 
+    /**
+     * Returns the minimum number of readable bytes a direct buffer must have to be written with {@code MSG_ZEROCOPY},
+     * or {@code 0} if {@code SO_ZEROCOPY} is disabled.
+     */
+    public int getZeroCopyThreshold() {
+        return zeroCopyThreshold;
+    }
+
     /**
      * Get the {@code TCP_NOTSENT_LOWAT} option on the socket. See {@code man 7 tcp} for more details.
      * @return value is a uint32_t
@@ -406,6 +422,29 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
         }
     }
 
+    /**
+     * Set the {@code SO_ZEROCOPY} option on the socket and write direct buffers with at least {@code threshold}
+     * readable bytes with {@code MSG_ZEROCOPY}, {@code 0} disables it. Requires Linux kernel 4.14 or later.
+     * <p>
+     * Buffers written this way are only released, and their {@link io.netty.channel.ChannelPromise}s only notified,
+     * once the kernel signals that it does not need their memory anymore. This usually pays off for writes of at
+     * least a few tens of kilobytes. Older kernels only allow to change {@code SO_ZEROCOPY} before the socket is
+     * connected. See
+     * <a href="https://www.kernel.org/doc/html/latest/networking/msg_zerocopy.html">MSG_ZEROCOPY</a> for more details.
+     */
+    public EpollSocketChannelConfig setZeroCopyThreshold(int threshold) {
+        checkPositiveOrZero(threshold, "threshold");
+        try {
+            if ((threshold > 0) != (zeroCopyThreshold > 0)) {
+                ((EpollSocketChannel) channel).socket.setZeroCopy(threshold > 0);
+            }
+            zeroCopyThreshold = threshold;
+            return this;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
     /**
      * Set the {@code TCP_NOTSENT_LOWAT} option on the socket. See {@code man 7 tcp} for more details.
      * @param tcpNotSentLowAt is a uint32_t
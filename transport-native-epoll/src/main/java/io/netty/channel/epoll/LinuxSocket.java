@@ -21,6 +21,7 @@ import io.netty.channel.unix.NativeInetAddress;
 import io.netty.channel.unix.PeerCredentials;
 import io.netty.channel.unix.Socket;
 import io.netty.channel.socket.InternetProtocolFamily;
+import io.netty.channel.socket.KernelTlsCryptoInfo;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.SocketUtils;
 
@@ -59,6 +60,10 @@ final class LinuxSocket extends Socket {
         return Native.recvmmsg(intValue(), ipv6, msgs, offset, len);
     }
 
+    int recvmsg(NativeDatagramPacketArray.NativeDatagramPacket msg) throws IOException {
+        return Native.recvmsg(intValue(), ipv6, msg);
+    }
+
     void setTimeToLive(int ttl) throws IOException {
         setTimeToLive(intValue(), ttl);
     }
@@ -168,6 +173,18 @@ final class LinuxSocket extends Socket {
         setSoBusyPoll(intValue(), loopMicros);
     }
 
+    void setZeroCopy(boolean zeroCopy) throws IOException {
+        setZeroCopy(intValue(), zeroCopy ? 1 : 0);
+    }
+
+    void setUdpGro(boolean gro) throws IOException {
+        setUdpGro(intValue(), gro ? 1 : 0);
+    }
+
+    void setUdpSegment(int segmentSize) throws IOException {
+        setUdpSegment(intValue(), segmentSize);
+    }
+
     void setTcpNotSentLowAt(long tcpNotSentLowAt) throws IOException {
         if (tcpNotSentLowAt < 0 || tcpNotSentLowAt > MAX_UINT32_T) {
             throw new IllegalArgumentException("tcpNotSentLowAt must be a uint32_t");
@@ -228,6 +245,20 @@ final class LinuxSocket extends Socket {
         setTcpMd5Sig(intValue(), ipv6, a.address(), a.scopeId(), key);
     }
 
+    void setTcpUlpTls() throws IOException {
+        setTcpUlpTls(intValue());
+    }
+
+    void setTlsTx(KernelTlsCryptoInfo info) throws IOException {
+        setTlsCryptoInfo(intValue(), true, info.version(), info.cipherType(), info.key(), info.iv(), info.salt(),
+                info.recordSequence());
+    }
+
+    void setTlsRx(KernelTlsCryptoInfo info) throws IOException {
+        setTlsCryptoInfo(intValue(), false, info.version(), info.cipherType(), info.key(), info.iv(), info.salt(),
+                info.recordSequence());
+    }
+
     boolean isTcpCork() throws IOException  {
         return isTcpCork(intValue()) != 0;
     }
@@ -236,6 +267,18 @@ final class LinuxSocket extends Socket {
         return getSoBusyPoll(intValue());
     }
 
+    boolean isZeroCopy() throws IOException {
+        return isZeroCopy(intValue()) != 0;
+    }
+
+    boolean isUdpGro() throws IOException {
+        return isUdpGro(intValue()) != 0;
+    }
+
+    int getUdpSegment() throws IOException {
+        return getUdpSegment(intValue());
+    }
+
     int getTcpDeferAccept() throws IOException {
         return getTcpDeferAccept(intValue());
     }
@@ -300,6 +343,57 @@ final class LinuxSocket extends Socket {
         return ioResult("sendfile", (int) res);
     }
 
+    /**
+     * Writes the bytes between {@code pos} and {@code limit} of the given memory address with {@code MSG_ZEROCOPY}.
+     *
+     * @return the number of written bytes, {@code 0} if the socket is not writable or {@code -1} if the kernel was
+     * not able to allocate the completion notification and the caller should fall back to a copying write.
+     */
+    int sendAddressZeroCopy(long memoryAddress, int pos, int limit) throws IOException {
+        int res = sendAddressZeroCopy(intValue(), memoryAddress, pos, limit);
+        if (res >= 0) {
+            return res;
+        }
+        if (res == Native.ERRNO_ENOBUFS_NEGATIVE) {
+            return -1;
+        }
+        return ioResult("send", res);
+    }
+
+    /**
+     * Writes the given {@code iovec} array with {@code MSG_ZEROCOPY}.
+     *
+     * @return the number of written bytes, {@code 0} if the socket is not writable or {@code -1} if the kernel was
+     * not able to allocate the completion notification and the caller should fall back to a copying write.
+     */
+    long sendvAddressesZeroCopy(long memoryAddress, int length) throws IOException {
+        long res = sendvAddressesZeroCopy(intValue(), memoryAddress, length);
+        if (res >= 0) {
+            return res;
+        }
+        if (res == Native.ERRNO_ENOBUFS_NEGATIVE) {
+            return -1;
+        }
+        return ioResult("sendmsg", (int) res);
+    }
+
+    /**
+     * Reads the next {@code MSG_ZEROCOPY} completion notification from the error queue of the socket into
+     * {@code completion} as {@code [first send, last send, copied]}.
+     *
+     * @return {@code 1} if a notification was read, {@code 0} if the error queue contained a message which was not
+     * a {@code MSG_ZEROCOPY} notification and {@code -1} if the error queue is empty.
+     */
+    int recvZeroCopyCompletion(int[] completion) throws IOException {
+        int res = recvZeroCopyCompletion(intValue(), completion);
+        if (res >= 0) {
+            return res;
+        }
+        // ioResult(...) returns for EAGAIN, which means the error queue is empty, and throws for every other error.
+        ioResult("recvmsg", res);
+        return -1;
+    }
+
     private static InetAddress deriveInetAddress(NetworkInterface netInterface, boolean ipv6) {
         final InetAddress ipAny = ipv6 ? INET6_ANY : INET_ANY;
         if (netInterface != null) {
@@ -354,10 +448,16 @@ final class LinuxSocket extends Socket {
     private static native long sendFile(int socketFd, DefaultFileRegion src, long baseOffset,
                                         long offset, long length) throws IOException;
 
+    private static native int sendAddressZeroCopy(int fd, long memoryAddress, int pos, int limit);
+    private static native long sendvAddressesZeroCopy(int fd, long memoryAddress, int length);
+    private static native int recvZeroCopyCompletion(int fd, int[] completion);
     private static native int getTcpDeferAccept(int fd) throws IOException;
     private static native int isTcpQuickAck(int fd) throws IOException;
     private static native int isTcpCork(int fd) throws IOException;
     private static native int getSoBusyPoll(int fd) throws IOException;
+    private static native int isZeroCopy(int fd) throws IOException;
+    private static native int isUdpGro(int fd) throws IOException;
+    private static native int getUdpSegment(int fd) throws IOException;
     private static native int getTcpNotSentLowAt(int fd) throws IOException;
     private static native int getTcpKeepIdle(int fd) throws IOException;
     private static native int getTcpKeepIntvl(int fd) throws IOException;
@@ -375,6 +475,9 @@ final class LinuxSocket extends Socket {
     private static native void setTcpQuickAck(int fd, int quickAck) throws IOException;
     private static native void setTcpCork(int fd, int tcpCork) throws IOException;
     private static native void setSoBusyPoll(int fd, int loopMicros) throws IOException;
+    private static native void setZeroCopy(int fd, int zeroCopy) throws IOException;
+    private static native void setUdpGro(int fd, int gro) throws IOException;
+    private static native void setUdpSegment(int fd, int segmentSize) throws IOException;
     private static native void setTcpNotSentLowAt(int fd, int tcpNotSentLowAt) throws IOException;
     private static native void setTcpFastOpen(int fd, int tcpFastopenBacklog) throws IOException;
     private static native void setTcpFastOpenConnect(int fd, int tcpFastOpenConnect) throws IOException;
@@ -385,6 +488,9 @@ final class LinuxSocket extends Socket {
     private static native void setIpFreeBind(int fd, int freeBind) throws IOException;
     private static native void setIpTransparent(int fd, int transparent) throws IOException;
     private static native void setIpRecvOrigDestAddr(int fd, int transparent) throws IOException;
+    private static native void setTcpUlpTls(int fd) throws IOException;
+    private static native void setTlsCryptoInfo(int fd, boolean tx, int version, int cipherType, byte[] key,
+                                                byte[] iv, byte[] salt, byte[] recordSequence) throws IOException;
     private static native void setTcpMd5Sig(
             int fd, boolean ipv6, byte[] address, int scopeId, byte[] key) throws IOException;
     private static native void setInterface(
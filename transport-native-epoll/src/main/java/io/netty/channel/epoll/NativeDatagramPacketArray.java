@@ -55,10 +55,10 @@ final class NativeDatagramPacketArray {
     }
 
     boolean addWritable(ByteBuf buf, int index, int len) {
-        return add0(buf, index, len, null);
+        return add0(buf, index, len, 0, null);
     }
 
-    private boolean add0(ByteBuf buf, int index, int len, InetSocketAddress recipient) {
+    private boolean add0(ByteBuf buf, int index, int len, int segmentSize, InetSocketAddress recipient) {
         if (count == packets.length) {
             // We already filled up to UIO_MAX_IOV messages. This is the max allowed per
             // recvmmsg(...) / sendmmsg(...) call, we will try again later.
@@ -73,7 +73,7 @@ final class NativeDatagramPacketArray {
             return false;
         }
         NativeDatagramPacket p = packets[count];
-        p.init(iovArray.memoryAddress(offset), iovArray.count() - offset, recipient);
+        p.init(iovArray.memoryAddress(offset), iovArray.count() - offset, segmentSize, recipient);
 
         count++;
         return true;
@@ -115,11 +115,15 @@ final class NativeDatagramPacketArray {
             if (msg instanceof DatagramPacket) {
                 DatagramPacket packet = (DatagramPacket) msg;
                 ByteBuf buf = packet.content();
-                return add0(buf, buf.readerIndex(), buf.readableBytes(), packet.recipient());
+                int segmentSize = 0;
+                if (packet instanceof SegmentedDatagramPacket) {
+                    segmentSize = ((SegmentedDatagramPacket) packet).segmentSize();
+                }
+                return add0(buf, buf.readerIndex(), buf.readableBytes(), segmentSize, packet.recipient());
             }
             if (msg instanceof ByteBuf && connected) {
                 ByteBuf buf = (ByteBuf) msg;
-                return add0(buf, buf.readerIndex(), buf.readableBytes(), null);
+                return add0(buf, buf.readerIndex(), buf.readableBytes(), 0, null);
             }
             return false;
         }
@@ -141,9 +145,13 @@ final class NativeDatagramPacketArray {
         private int scopeId;
         private int port;
 
-        private void init(long memoryAddress, int count, InetSocketAddress recipient) {
+        // The UDP_SEGMENT size to use when writing, or the UDP_GRO size reported by the kernel when reading.
+        private int segmentSize;
+
+        private void init(long memoryAddress, int count, int segmentSize, InetSocketAddress recipient) {
             this.memoryAddress = memoryAddress;
             this.count = count;
+            this.segmentSize = segmentSize;
 
             if (recipient == null) {
                 this.scopeId = 0;
@@ -171,8 +179,13 @@ final class NativeDatagramPacketArray {
             } else {
                 address = Inet6Address.getByAddress(null, addr, scopeId);
             }
-            return new DatagramPacket(buffer.writerIndex(count),
-                    localAddress, new InetSocketAddress(address, port));
+            InetSocketAddress remoteAddress = new InetSocketAddress(address, port);
+            if (segmentSize > 0 && segmentSize < count) {
+                // The kernel coalesced multiple datagrams via UDP_GRO.
+                return new SegmentedDatagramPacket(buffer.writerIndex(count), segmentSize,
+                        localAddress, remoteAddress);
+            }
+            return new DatagramPacket(buffer.writerIndex(count), localAddress, remoteAddress);
         }
     }
 }
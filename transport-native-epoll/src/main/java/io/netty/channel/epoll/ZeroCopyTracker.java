@@ -0,0 +1,191 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the messages which were written with {@code MSG_ZEROCOPY} until the kernel signals via the error queue of the
+ * socket that it does not use their memory anymore, and notifies their {@link ChannelPromise}s only then.
+ * <p>
+ * The kernel assigns consecutive ids, starting at {@code 0}, to every successful send with {@code MSG_ZEROCOPY} and
+ * notifies the completion of ranges of these ids.
+ * <p>
+ * Must only be used from the {@link EpollEventLoop}.
+ */
+final class ZeroCopyTracker {
+    private final ArrayDeque<PendingWrite> pendingWrites = new ArrayDeque<PendingWrite>();
+    private final int[] completion = new int[3];
+    // Ranges which completed before all sends in front of them did, keyed by the first id of the range.
+    private Map<Integer, Integer> outOfOrderCompletions;
+    // The id which the kernel will assign to the next successful send.
+    private int nextId;
+    // All sends with an id before this one are completed.
+    private int completedId;
+    // true if the current message of the ChannelOutboundBuffer was already (partially) sent with MSG_ZEROCOPY.
+    private boolean currentPinned;
+
+    private volatile long hits;
+    private volatile long fallbacks;
+
+    /**
+     * Returns {@code true} if the current message of the {@link ChannelOutboundBuffer} was already (partially) sent
+     * with {@code MSG_ZEROCOPY} and so must be passed to {@link #add(ChannelOutboundBuffer)} once written completely.
+     */
+    boolean isCurrentPinned() {
+        return currentPinned;
+    }
+
+    /**
+     * Returns {@code true} if there are sends for which no completion notification was received yet.
+     */
+    boolean isPending() {
+        return nextId != completedId;
+    }
+
+    /**
+     * Must be called after each send with {@code MSG_ZEROCOPY} which wrote some bytes of the current message.
+     */
+    void sent() {
+        nextId++;
+        currentPinned = true;
+    }
+
+    /**
+     * Must be called if the current message was copied as the kernel was not able to allocate a completion
+     * notification.
+     */
+    void copied() {
+        fallbacks++;
+    }
+
+    /**
+     * Removes the current message, which was written completely, from the {@link ChannelOutboundBuffer} and keeps
+     * it until all sends which included its bytes are completed.
+     */
+    void add(ChannelOutboundBuffer in) {
+        assert currentPinned;
+        currentPinned = false;
+        Object msg = in.current();
+        ChannelPromise promise = in.removeDeferred();
+        if (promise != null) {
+            pendingWrites.add(new PendingWrite(msg, promise, nextId - 1));
+            // The last send may have completed already if the rest of the message was copied.
+            releaseCompleted();
+        }
+    }
+
+    /**
+     * Reads all completion notifications from the error queue of the given {@link LinuxSocket} and releases the
+     * messages whose sends are completed.
+     */
+    void processCompletions(LinuxSocket socket) throws IOException {
+        int res;
+        while ((res = socket.recvZeroCopyCompletion(completion)) >= 0) {
+            if (res == 0) {
+                // Not a MSG_ZEROCOPY notification.
+                continue;
+            }
+            int first = completion[0];
+            int last = completion[1];
+            long count = (last - first + 1) & 0xFFFFFFFFL;
+            if (completion[2] != 0) {
+                fallbacks += count;
+            } else {
+                hits += count;
+            }
+            complete(first, last);
+        }
+        releaseCompleted();
+    }
+
+    private void complete(int first, int last) {
+        if (first != completedId) {
+            if (outOfOrderCompletions == null) {
+                outOfOrderCompletions = new HashMap<Integer, Integer>();
+            }
+            outOfOrderCompletions.put(first, last);
+            return;
+        }
+        completedId = last + 1;
+        if (outOfOrderCompletions != null) {
+            Integer next;
+            while ((next = outOfOrderCompletions.remove(completedId)) != null) {
+                completedId = next + 1;
+            }
+        }
+    }
+
+    private void releaseCompleted() {
+        for (;;) {
+            PendingWrite write = pendingWrites.peek();
+            // Compare the difference to handle the wrap around of the ids.
+            if (write == null || write.lastId - completedId >= 0) {
+                break;
+            }
+            pendingWrites.remove();
+            write.release();
+        }
+    }
+
+    /**
+     * Releases all messages, regardless of outstanding completion notifications. Must be called once the socket was
+     * closed as no notifications can be received anymore.
+     */
+    void releaseAll() {
+        for (;;) {
+            PendingWrite write = pendingWrites.poll();
+            if (write == null) {
+                break;
+            }
+            write.release();
+        }
+        currentPinned = false;
+    }
+
+    long hits() {
+        return hits;
+    }
+
+    long fallbacks() {
+        return fallbacks;
+    }
+
+    private static final class PendingWrite {
+        private final Object msg;
+        private final ChannelPromise promise;
+        private final int lastId;
+
+        PendingWrite(Object msg, ChannelPromise promise, int lastId) {
+            this.msg = msg;
+            this.promise = promise;
+            this.lastId = lastId;
+        }
+
+        void release() {
+            ReferenceCountUtil.safeRelease(msg);
+            // The kernel accepted the data, so the write is successful just like a write which was copied.
+            promise.trySuccess();
+        }
+    }
+}
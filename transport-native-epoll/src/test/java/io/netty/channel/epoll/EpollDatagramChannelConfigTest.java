@@ -15,8 +15,12 @@
  */
 package io.netty.channel.epoll;
 
+import io.netty.channel.ChannelException;
+import org.junit.Assume;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class EpollDatagramChannelConfigTest {
@@ -29,4 +33,35 @@ public class EpollDatagramChannelConfigTest {
         assertTrue(channel.config().getOption(EpollChannelOption.IP_FREEBIND));
         channel.fd().close();
     }
+
+    @Test
+    public void testUdpSegment() throws Exception {
+        Epoll.ensureAvailability();
+        Assume.assumeTrue(SegmentedDatagramPacket.isSupported());
+        EpollDatagramChannel channel = new EpollDatagramChannel();
+        assertEquals(0, (int) channel.config().getOption(EpollChannelOption.UDP_SEGMENT));
+        assertTrue(channel.config().setOption(EpollChannelOption.UDP_SEGMENT, 1200));
+        assertEquals(1200, (int) channel.config().getOption(EpollChannelOption.UDP_SEGMENT));
+        assertTrue(channel.config().setOption(EpollChannelOption.UDP_SEGMENT, 0));
+        assertEquals(0, (int) channel.config().getOption(EpollChannelOption.UDP_SEGMENT));
+        channel.fd().close();
+    }
+
+    @Test
+    public void testUdpGro() throws Exception {
+        Epoll.ensureAvailability();
+        EpollDatagramChannel channel = new EpollDatagramChannel();
+        assertFalse(channel.config().getOption(EpollChannelOption.UDP_GRO));
+        try {
+            channel.config().setOption(EpollChannelOption.UDP_GRO, true);
+        } catch (ChannelException e) {
+            // UDP_GRO is only supported since linux 5.0.
+            channel.fd().close();
+            Assume.assumeNoException(e);
+        }
+        assertTrue(channel.config().getOption(EpollChannelOption.UDP_GRO));
+        assertTrue(channel.config().setOption(EpollChannelOption.UDP_GRO, false));
+        assertFalse(channel.config().getOption(EpollChannelOption.UDP_GRO));
+        channel.fd().close();
+    }
 }
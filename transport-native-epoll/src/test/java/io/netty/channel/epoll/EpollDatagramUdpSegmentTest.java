@@ -0,0 +1,171 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.testsuite.transport.TestsuitePermutation;
+import io.netty.testsuite.transport.socket.AbstractDatagramTest;
+import io.netty.util.internal.PlatformDependent;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class EpollDatagramUdpSegmentTest extends AbstractDatagramTest {
+
+    private static final int SEGMENT_SIZE = 512;
+    private static final int NUM_SEGMENTS = 8;
+
+    @BeforeClass
+    public static void assumeUdpSegmentSupported() {
+        Assume.assumeTrue(SegmentedDatagramPacket.isSupported());
+    }
+
+    @Override
+    protected List<TestsuitePermutation.BootstrapComboFactory<Bootstrap, Bootstrap>> newFactories() {
+        return EpollSocketTestPermutation.INSTANCE.epollOnlyDatagram(internetProtocolFamily());
+    }
+
+    @Test
+    public void testSegmentedDatagramPacket() throws Throwable {
+        run();
+    }
+
+    public void testSegmentedDatagramPacket(Bootstrap sb, Bootstrap cb) throws Throwable {
+        testSegmented(sb, cb, false, false);
+    }
+
+    @Test
+    public void testUdpSegmentOption() throws Throwable {
+        run();
+    }
+
+    public void testUdpSegmentOption(Bootstrap sb, Bootstrap cb) throws Throwable {
+        testSegmented(sb, cb, true, false);
+    }
+
+    @Test
+    public void testSegmentedDatagramPacketGro() throws Throwable {
+        run();
+    }
+
+    public void testSegmentedDatagramPacketGro(Bootstrap sb, Bootstrap cb) throws Throwable {
+        testSegmented(sb, cb, false, true);
+    }
+
+    private void testSegmented(Bootstrap sb, Bootstrap cb, boolean socketOption, boolean gro) throws Throwable {
+        final byte[] bytes = new byte[SEGMENT_SIZE * NUM_SEGMENTS];
+        PlatformDependent.threadLocalRandom().nextBytes(bytes);
+
+        final CountDownLatch latch = new CountDownLatch(bytes.length);
+        final AtomicReference<Throwable> errorRef = new AtomicReference<Throwable>();
+        final AtomicInteger datagrams = new AtomicInteger();
+        final byte[] received = new byte[bytes.length];
+        sb.option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(64 * 1024));
+        sb.handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+            private int offset;
+
+            @Override
+            protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket msg) {
+                ByteBuf content = msg.content();
+                int readable = content.readableBytes();
+                if (msg instanceof SegmentedDatagramPacket) {
+                    assertEquals(SEGMENT_SIZE, ((SegmentedDatagramPacket) msg).segmentSize());
+                    datagrams.addAndGet((readable + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+                } else {
+                    assertEquals(SEGMENT_SIZE, readable);
+                    datagrams.incrementAndGet();
+                }
+                content.readBytes(received, offset, readable);
+                offset += readable;
+                for (int i = 0; i < readable; i++) {
+                    latch.countDown();
+                }
+            }
+
+            @Override
+            public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                errorRef.compareAndSet(null, cause);
+            }
+        });
+        cb.handler(new SimpleChannelInboundHandler<Object>() {
+            @Override
+            protected void channelRead0(ChannelHandlerContext ctx, Object msg) {
+                // Nothing will be sent.
+            }
+        });
+
+        Channel sc = null;
+        Channel cc = null;
+        try {
+            sc = sb.bind(newSocketAddress()).sync().channel();
+            if (gro) {
+                try {
+                    ((EpollDatagramChannel) sc).config().setUdpGro(true);
+                } catch (ChannelException e) {
+                    // UDP_GRO is only supported since linux 5.0.
+                    Assume.assumeNoException(e);
+                }
+            }
+            cc = cb.bind(newSocketAddress()).sync().channel();
+            InetSocketAddress addr = (InetSocketAddress) sc.localAddress();
+            ByteBuf buffer = cc.alloc().directBuffer(bytes.length).writeBytes(bytes);
+            if (socketOption) {
+                ((EpollDatagramChannel) cc).config().setUdpSegment(SEGMENT_SIZE);
+                cc.writeAndFlush(new DatagramPacket(buffer, addr)).sync();
+            } else {
+                cc.writeAndFlush(new SegmentedDatagramPacket(buffer, SEGMENT_SIZE, addr)).sync();
+            }
+
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                Throwable error = errorRef.get();
+                if (error != null) {
+                    throw error;
+                }
+                fail("Timeout while waiting for datagrams");
+            }
+            assertEquals(NUM_SEGMENTS, datagrams.get());
+            assertArrayEquals(bytes, received);
+            assertTrue(errorRef.get() == null);
+        } finally {
+            if (cc != null) {
+                cc.close().syncUninterruptibly();
+            }
+            if (sc != null) {
+                sc.close().syncUninterruptibly();
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import io.netty.util.NetUtil;
+import io.netty.util.concurrent.Promise;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class EpollKernelTlsTest {
+
+    private static final List<String> CIPHERS = Collections.singletonList("TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256");
+    private static final Random RANDOM = new Random();
+
+    private static EventLoopGroup GROUP;
+    private static SelfSignedCertificate CERT;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        Assume.assumeTrue(OpenSsl.isAvailable());
+        GROUP = new EpollEventLoopGroup(2);
+        CERT = new SelfSignedCertificate();
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        if (GROUP != null) {
+            GROUP.shutdownGracefully();
+        }
+        if (CERT != null) {
+            CERT.delete();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testEcho() throws Throwable {
+        byte[] data = new byte[256 * 1024];
+        RANDOM.nextBytes(data);
+
+        Channel server = newServer();
+        EchoClient client = newClient(server, data.length);
+        try {
+            // Either the kernel took over the record layer or we fall back to user space, both must work.
+            client.channel.writeAndFlush(Unpooled.wrappedBuffer(data));
+            assertArrayEquals(data, client.received.sync().getNow());
+            assertKernelTlsConsistent(client.channel);
+        } finally {
+            client.channel.close().sync();
+            server.close().sync();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testFileRegion() throws Throwable {
+        byte[] data = new byte[256 * 1024];
+        RANDOM.nextBytes(data);
+        File file = File.createTempFile("netty-", ".tmp");
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+
+        Channel server = newServer();
+        final EchoClient client = newClient(server, data.length);
+        try {
+            // FileRegions can only be used on an encrypted connection once the kernel took over.
+            Assume.assumeTrue(client.channel.eventLoop().submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return ((EpollSocketChannel) client.channel).isKernelTlsEnabled();
+                }
+            }).sync().getNow());
+
+            client.channel.writeAndFlush(new DefaultFileRegion(file, 0, file.length()));
+            assertArrayEquals(data, client.received.sync().getNow());
+        } finally {
+            client.channel.close().sync();
+            server.close().sync();
+        }
+    }
+
+    private static void assertKernelTlsConsistent(final Channel channel) throws Exception {
+        channel.eventLoop().submit(new Runnable() {
+            @Override
+            public void run() {
+                boolean kernelTls = ((EpollSocketChannel) channel).isKernelTlsEnabled();
+                assertEquals(kernelTls, channel.pipeline().get(SslHandler.class) == null);
+            }
+        }).sync();
+    }
+
+    private static Channel newServer() throws Exception {
+        final SslContext sslCtx = SslContextBuilder.forServer(CERT.certificate(), CERT.privateKey())
+                .sslProvider(SslProvider.OPENSSL)
+                .protocols("TLSv1.2")
+                .ciphers(CIPHERS)
+                .build();
+        return new ServerBootstrap().group(GROUP)
+                .channel(EpollServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        SslHandler sslHandler = sslCtx.newHandler(ch.alloc());
+                        sslHandler.setKernelTlsOffload(true);
+                        ch.pipeline().addLast(sslHandler, new ChannelInboundHandlerAdapter() {
+                            @Override
+                            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                                ctx.writeAndFlush(msg);
+                            }
+                        });
+                    }
+                })
+                .bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0)).sync().channel();
+    }
+
+    private static EchoClient newClient(Channel server, final int expected) throws Exception {
+        final SslContext sslCtx = SslContextBuilder.forClient()
+                .sslProvider(SslProvider.OPENSSL)
+                .trustManager(InsecureTrustManagerFactory.INSTANCE)
+                .protocols("TLSv1.2")
+                .ciphers(CIPHERS)
+                .build();
+        final Promise<byte[]> received = GROUP.next().newPromise();
+        final SslHandler sslHandler = sslCtx.newHandler(ByteBufAllocator.DEFAULT);
+        sslHandler.setKernelTlsOffload(true);
+        Channel channel = new Bootstrap().group(GROUP)
+                .channel(EpollSocketChannel.class)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(sslHandler, new SimpleChannelInboundHandler<ByteBuf>() {
+                            private final ByteBuf buffer = Unpooled.buffer(expected);
+
+                            @Override
+                            protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) {
+                                buffer.writeBytes(msg);
+                                if (buffer.readableBytes() == expected) {
+                                    byte[] bytes = new byte[expected];
+                                    buffer.readBytes(bytes);
+                                    buffer.release();
+                                    received.setSuccess(bytes);
+                                }
+                            }
+
+                            @Override
+                            public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                                received.tryFailure(cause);
+                            }
+                        });
+                    }
+                })
+                .connect(server.localAddress()).sync().channel();
+        sslHandler.handshakeFuture().sync();
+        return new EchoClient(channel, received);
+    }
+
+    private static final class EchoClient {
+        final Channel channel;
+        final Promise<byte[]> received;
+
+        EchoClient(Channel channel, Promise<byte[]> received) {
+            this.channel = channel;
+            this.received = received;
+        }
+    }
+}
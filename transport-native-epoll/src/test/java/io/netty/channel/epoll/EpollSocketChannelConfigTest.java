@@ -92,6 +92,22 @@ public class EpollSocketChannelConfigTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    public void testZeroCopyThreshold() throws Exception {
+        try {
+            ch.config().setZeroCopyThreshold(16384);
+        } catch (RuntimeException e) {
+            assumeNoException(e);
+        }
+        assertEquals(16384, ch.config().getZeroCopyThreshold());
+        assertEquals(Integer.valueOf(16384), ch.config().getOption(EpollChannelOption.SO_ZEROCOPY));
+        assertTrue(ch.socket.isZeroCopy());
+
+        ch.config().setZeroCopyThreshold(0);
+        assertEquals(0, ch.config().getZeroCopyThreshold());
+        assertFalse(ch.socket.isZeroCopy());
+    }
+
     @Test
     public void testInvalidHighTcpNotSentLowAt() {
         try {
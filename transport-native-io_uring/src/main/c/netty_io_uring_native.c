@@ -0,0 +1,496 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+#define _GNU_SOURCE
+#include <jni.h>
+#include <stdint.h>
+#include <stdlib.h>
+#include <string.h>
+#include <errno.h>
+#include <poll.h>
+#include <sys/eventfd.h>
+#include <sys/mman.h>
+#include <sys/socket.h>
+#include <sys/types.h>
+#include <sys/utsname.h>
+#include <netinet/in.h>
+#include <unistd.h>
+#include <stddef.h>
+#include <time.h>
+// Needed to be able to use syscalls directly and so not depend on newer GLIBC versions
+#include <sys/syscall.h>
+
+#include "netty_io_uring.h"
+#include "netty_unix_errors.h"
+#include "netty_unix_filedescriptor.h"
+#include "netty_unix_jni.h"
+#include "netty_unix_socket.h"
+#include "netty_unix_util.h"
+#include "netty_unix.h"
+
+// Add define if NETTY_BUILD_STATIC is defined so it is picked up in netty_jni_util.c
+#ifdef NETTY_BUILD_STATIC
+#define NETTY_JNI_UTIL_BUILD_STATIC
+#endif
+
+#define STATICALLY_CLASSNAME "io/netty/channel/uring/NativeStaticallyReferencedJniMethods"
+#define NATIVE_CLASSNAME "io/netty/channel/uring/Native"
+
+// POLLRDHUP is only defined when _GNU_SOURCE is used with newer GLIBC versions.
+#ifndef POLLRDHUP
+#define POLLRDHUP 0x2000
+#endif
+
+static const char* staticPackagePrefix = NULL;
+static int register_unix_called = 0;
+
+static int sys_io_uring_setup(unsigned int entries, struct io_uring_params* p) {
+    return (int) syscall(__NR_io_uring_setup, entries, p);
+}
+
+static int sys_io_uring_enter(int fd, unsigned int to_submit, unsigned int min_complete, unsigned int flags) {
+    return (int) syscall(__NR_io_uring_enter, fd, to_submit, min_complete, flags, NULL, 0);
+}
+
+static void netty_io_uring_unmap(void* sqRing, size_t sqRingSize, void* cqRing, size_t cqRingSize,
+                                 void* sqes, size_t sqesSize) {
+    if (sqes != NULL && sqes != MAP_FAILED) {
+        munmap(sqes, sqesSize);
+    }
+    if (cqRing != NULL && cqRing != MAP_FAILED && cqRing != sqRing) {
+        munmap(cqRing, cqRingSize);
+    }
+    if (sqRing != NULL && sqRing != MAP_FAILED) {
+        munmap(sqRing, sqRingSize);
+    }
+}
+
+// JNI Registered Methods Begin
+static jlongArray netty_io_uring_ioUringSetup(JNIEnv* env, jclass clazz, jint entries) {
+    struct io_uring_params p;
+    void* sqRing = NULL;
+    void* cqRing = NULL;
+    void* sqes = NULL;
+    size_t sqRingSize;
+    size_t cqRingSize;
+    size_t sqesSize;
+    int err;
+    jlongArray result;
+
+    memset(&p, 0, sizeof(p));
+
+    int ringFd = sys_io_uring_setup((unsigned int) entries, &p);
+    if (ringFd < 0) {
+        netty_unix_errors_throwChannelExceptionErrorNo(env, "io_uring_setup() failed: ", errno);
+        return NULL;
+    }
+
+    sqRingSize = p.sq_off.array + p.sq_entries * sizeof(unsigned int);
+    cqRingSize = p.cq_off.cqes + p.cq_entries * sizeof(struct io_uring_cqe);
+    if (p.features & IORING_FEAT_SINGLE_MMAP) {
+        // Both rings share one mapping, so make sure it is big enough for both.
+        if (cqRingSize > sqRingSize) {
+            sqRingSize = cqRingSize;
+        }
+        cqRingSize = sqRingSize;
+    }
+
+    sqRing = mmap(NULL, sqRingSize, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE, ringFd, IORING_OFF_SQ_RING);
+    if (sqRing == MAP_FAILED) {
+        err = errno;
+        goto error;
+    }
+
+    if (p.features & IORING_FEAT_SINGLE_MMAP) {
+        cqRing = sqRing;
+    } else {
+        cqRing = mmap(NULL, cqRingSize, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE, ringFd, IORING_OFF_CQ_RING);
+        if (cqRing == MAP_FAILED) {
+            err = errno;
+            goto error;
+        }
+    }
+
+    sqesSize = p.sq_entries * sizeof(struct io_uring_sqe);
+    sqes = mmap(NULL, sqesSize, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE, ringFd, IORING_OFF_SQES);
+    if (sqes == MAP_FAILED) {
+        err = errno;
+        goto error;
+    }
+
+    jlong values[] = {
+        (jlong) ((intptr_t) sqRing + p.sq_off.head),
+        (jlong) ((intptr_t) sqRing + p.sq_off.tail),
+        (jlong) ((intptr_t) sqRing + p.sq_off.ring_mask),
+        (jlong) ((intptr_t) sqRing + p.sq_off.ring_entries),
+        (jlong) ((intptr_t) sqRing + p.sq_off.flags),
+        (jlong) ((intptr_t) sqRing + p.sq_off.dropped),
+        (jlong) ((intptr_t) sqRing + p.sq_off.array),
+        (jlong) ((intptr_t) sqes),
+        (jlong) sqRingSize,
+        (jlong) ((intptr_t) sqRing),
+        (jlong) ((intptr_t) cqRing + p.cq_off.head),
+        (jlong) ((intptr_t) cqRing + p.cq_off.tail),
+        (jlong) ((intptr_t) cqRing + p.cq_off.ring_mask),
+        (jlong) ((intptr_t) cqRing + p.cq_off.ring_entries),
+        (jlong) ((intptr_t) cqRing + p.cq_off.overflow),
+        (jlong) ((intptr_t) cqRing + p.cq_off.cqes),
+        (jlong) cqRingSize,
+        (jlong) ((intptr_t) cqRing),
+        (jlong) sqesSize,
+        (jlong) ringFd,
+        (jlong) p.features
+    };
+
+    result = (*env)->NewLongArray(env, sizeof(values) / sizeof(values[0]));
+    if (result == NULL) {
+        // An OutOfMemoryError is pending
+        netty_io_uring_unmap(sqRing, sqRingSize, cqRing, cqRingSize, sqes, sqesSize);
+        close(ringFd);
+        return NULL;
+    }
+    (*env)->SetLongArrayRegion(env, result, 0, sizeof(values) / sizeof(values[0]), values);
+    return result;
+
+error:
+    netty_io_uring_unmap(sqRing, sqRingSize, cqRing, cqRingSize, sqes, 0);
+    close(ringFd);
+    netty_unix_errors_throwChannelExceptionErrorNo(env, "mmap() failed: ", err);
+    return NULL;
+}
+
+static void netty_io_uring_ioUringExit(JNIEnv* env, jclass clazz, jlong sqRingAddress, jint sqRingSize,
+                                       jlong cqRingAddress, jint cqRingSize, jlong sqesAddress, jint sqesSize,
+                                       jint ringFd) {
+    netty_io_uring_unmap((void*) (intptr_t) sqRingAddress, (size_t) sqRingSize,
+                         (void*) (intptr_t) cqRingAddress, (size_t) cqRingSize,
+                         (void*) (intptr_t) sqesAddress, (size_t) sqesSize);
+    close(ringFd);
+}
+
+static jint netty_io_uring_ioUringEnter(JNIEnv* env, jclass clazz, jint ringFd, jint toSubmit,
+                                        jint minComplete, jint flags) {
+    int result;
+    int err;
+    do {
+        result = sys_io_uring_enter(ringFd, (unsigned int) toSubmit, (unsigned int) minComplete, (unsigned int) flags);
+        if (result >= 0) {
+            return result;
+        }
+    } while ((err = errno) == EINTR);
+    return -err;
+}
+
+static jint netty_io_uring_eventFd(JNIEnv* env, jclass clazz) {
+    jint eventFD = eventfd(0, EFD_CLOEXEC | EFD_NONBLOCK);
+
+    if (eventFD < 0) {
+        netty_unix_errors_throwChannelExceptionErrorNo(env, "eventfd() failed: ", errno);
+    }
+    return eventFD;
+}
+
+static void netty_io_uring_eventFdWrite(JNIEnv* env, jclass clazz, jint fd, jlong value) {
+    uint64_t val;
+
+    for (;;) {
+        jint ret = eventfd_write(fd, (eventfd_t) value);
+
+        if (ret < 0) {
+            // We need to read before we can write again, let's try to read and then write again and if this
+            // fails we will bail out.
+            //
+            // See https://man7.org/linux/man-pages/man2/eventfd.2.html.
+            if (errno == EAGAIN) {
+                if (eventfd_read(fd, &val) == 0 || errno == EAGAIN) {
+                    // Try again
+                    continue;
+                }
+                netty_unix_errors_throwChannelExceptionErrorNo(env, "eventfd_read(...) failed: ", errno);
+            } else {
+                netty_unix_errors_throwChannelExceptionErrorNo(env, "eventfd_write(...) failed: ", errno);
+            }
+        }
+        break;
+    }
+}
+
+static jstring netty_io_uring_kernelVersion(JNIEnv* env, jclass clazz) {
+    struct utsname name;
+
+    int res = uname(&name);
+    if (res == 0) {
+        return (*env)->NewStringUTF(env, name.release);
+    }
+    netty_unix_errors_throwRuntimeExceptionErrorNo(env, "uname() failed: ", errno);
+    return NULL;
+}
+
+static jint netty_io_uring_registerUnix(JNIEnv* env, jclass clazz) {
+    register_unix_called = 1;
+    return netty_unix_register(env, staticPackagePrefix);
+}
+
+static jint netty_io_uring_sizeofIoUringSqe(JNIEnv* env, jclass clazz) {
+    return sizeof(struct io_uring_sqe);
+}
+
+static jint netty_io_uring_sizeofIoUringCqe(JNIEnv* env, jclass clazz) {
+    return sizeof(struct io_uring_cqe);
+}
+
+static jint netty_io_uring_sizeofKernelTimespec(JNIEnv* env, jclass clazz) {
+    return sizeof(struct __kernel_timespec);
+}
+
+static jint netty_io_uring_sizeofMsghdr(JNIEnv* env, jclass clazz) {
+    return sizeof(struct msghdr);
+}
+
+static jint netty_io_uring_offsetofMsghdrName(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_name);
+}
+
+static jint netty_io_uring_offsetofMsghdrNamelen(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_namelen);
+}
+
+static jint netty_io_uring_offsetofMsghdrIov(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_iov);
+}
+
+static jint netty_io_uring_offsetofMsghdrIovlen(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_iovlen);
+}
+
+static jint netty_io_uring_sizeofSockaddrStorage(JNIEnv* env, jclass clazz) {
+    return sizeof(struct sockaddr_storage);
+}
+
+static jint netty_io_uring_sizeofSockaddrIn(JNIEnv* env, jclass clazz) {
+    return sizeof(struct sockaddr_in);
+}
+
+static jint netty_io_uring_sizeofSockaddrIn6(JNIEnv* env, jclass clazz) {
+    return sizeof(struct sockaddr_in6);
+}
+
+static jint netty_io_uring_afInet(JNIEnv* env, jclass clazz) {
+    return AF_INET;
+}
+
+static jint netty_io_uring_afInet6(JNIEnv* env, jclass clazz) {
+    return AF_INET6;
+}
+
+static jint netty_io_uring_pollin(JNIEnv* env, jclass clazz) {
+    return POLLIN;
+}
+
+static jint netty_io_uring_pollout(JNIEnv* env, jclass clazz) {
+    return POLLOUT;
+}
+
+static jint netty_io_uring_pollrdhup(JNIEnv* env, jclass clazz) {
+    return POLLRDHUP;
+}
+
+static jint netty_io_uring_sockNonblock(JNIEnv* env, jclass clazz) {
+    return SOCK_NONBLOCK;
+}
+
+static jint netty_io_uring_sockCloexec(JNIEnv* env, jclass clazz) {
+    return SOCK_CLOEXEC;
+}
+
+static jint netty_io_uring_etime(JNIEnv* env, jclass clazz) {
+    return ETIME;
+}
+
+static jint netty_io_uring_ecanceled(JNIEnv* env, jclass clazz) {
+    return ECANCELED;
+}
+
+static jint netty_io_uring_ioringEnterGetevents(JNIEnv* env, jclass clazz) {
+    return IORING_ENTER_GETEVENTS;
+}
+
+static jint netty_io_uring_ioringOpWritev(JNIEnv* env, jclass clazz) {
+    return IORING_OP_WRITEV;
+}
+
+static jint netty_io_uring_ioringOpPollAdd(JNIEnv* env, jclass clazz) {
+    return IORING_OP_POLL_ADD;
+}
+
+static jint netty_io_uring_ioringOpPollRemove(JNIEnv* env, jclass clazz) {
+    return IORING_OP_POLL_REMOVE;
+}
+
+static jint netty_io_uring_ioringOpSendmsg(JNIEnv* env, jclass clazz) {
+    return IORING_OP_SENDMSG;
+}
+
+static jint netty_io_uring_ioringOpRecvmsg(JNIEnv* env, jclass clazz) {
+    return IORING_OP_RECVMSG;
+}
+
+static jint netty_io_uring_ioringOpTimeout(JNIEnv* env, jclass clazz) {
+    return IORING_OP_TIMEOUT;
+}
+
+static jint netty_io_uring_ioringOpTimeoutRemove(JNIEnv* env, jclass clazz) {
+    return IORING_OP_TIMEOUT_REMOVE;
+}
+
+static jint netty_io_uring_ioringOpAccept(JNIEnv* env, jclass clazz) {
+    return IORING_OP_ACCEPT;
+}
+
+static jint netty_io_uring_ioringOpAsyncCancel(JNIEnv* env, jclass clazz) {
+    return IORING_OP_ASYNC_CANCEL;
+}
+
+static jint netty_io_uring_ioringOpRead(JNIEnv* env, jclass clazz) {
+    return IORING_OP_READ;
+}
+
+static jint netty_io_uring_ioringOpWrite(JNIEnv* env, jclass clazz) {
+    return IORING_OP_WRITE;
+}
+
+// JNI Registered Methods End
+
+// JNI Method Registration Table Begin
+static const JNINativeMethod statically_referenced_fixed_method_table[] = {
+  { "sizeofIoUringSqe", "()I", (void *) netty_io_uring_sizeofIoUringSqe },
+  { "sizeofIoUringCqe", "()I", (void *) netty_io_uring_sizeofIoUringCqe },
+  { "sizeofKernelTimespec", "()I", (void *) netty_io_uring_sizeofKernelTimespec },
+  { "sizeofMsghdr", "()I", (void *) netty_io_uring_sizeofMsghdr },
+  { "offsetofMsghdrName", "()I", (void *) netty_io_uring_offsetofMsghdrName },
+  { "offsetofMsghdrNamelen", "()I", (void *) netty_io_uring_offsetofMsghdrNamelen },
+  { "offsetofMsghdrIov", "()I", (void *) netty_io_uring_offsetofMsghdrIov },
+  { "offsetofMsghdrIovlen", "()I", (void *) netty_io_uring_offsetofMsghdrIovlen },
+  { "sizeofSockaddrStorage", "()I", (void *) netty_io_uring_sizeofSockaddrStorage },
+  { "sizeofSockaddrIn", "()I", (void *) netty_io_uring_sizeofSockaddrIn },
+  { "sizeofSockaddrIn6", "()I", (void *) netty_io_uring_sizeofSockaddrIn6 },
+  { "afInet", "()I", (void *) netty_io_uring_afInet },
+  { "afInet6", "()I", (void *) netty_io_uring_afInet6 },
+  { "pollin", "()I", (void *) netty_io_uring_pollin },
+  { "pollout", "()I", (void *) netty_io_uring_pollout },
+  { "pollrdhup", "()I", (void *) netty_io_uring_pollrdhup },
+  { "sockNonblock", "()I", (void *) netty_io_uring_sockNonblock },
+  { "sockCloexec", "()I", (void *) netty_io_uring_sockCloexec },
+  { "etime", "()I", (void *) netty_io_uring_etime },
+  { "ecanceled", "()I", (void *) netty_io_uring_ecanceled },
+  { "ioringEnterGetevents", "()I", (void *) netty_io_uring_ioringEnterGetevents },
+  { "ioringOpWritev", "()I", (void *) netty_io_uring_ioringOpWritev },
+  { "ioringOpPollAdd", "()I", (void *) netty_io_uring_ioringOpPollAdd },
+  { "ioringOpPollRemove", "()I", (void *) netty_io_uring_ioringOpPollRemove },
+  { "ioringOpSendmsg", "()I", (void *) netty_io_uring_ioringOpSendmsg },
+  { "ioringOpRecvmsg", "()I", (void *) netty_io_uring_ioringOpRecvmsg },
+  { "ioringOpTimeout", "()I", (void *) netty_io_uring_ioringOpTimeout },
+  { "ioringOpTimeoutRemove", "()I", (void *) netty_io_uring_ioringOpTimeoutRemove },
+  { "ioringOpAccept", "()I", (void *) netty_io_uring_ioringOpAccept },
+  { "ioringOpAsyncCancel", "()I", (void *) netty_io_uring_ioringOpAsyncCancel },
+  { "ioringOpRead", "()I", (void *) netty_io_uring_ioringOpRead },
+  { "ioringOpWrite", "()I", (void *) netty_io_uring_ioringOpWrite },
+  { "kernelVersion", "()Ljava/lang/String;", (void *) netty_io_uring_kernelVersion }
+};
+static const jint statically_referenced_fixed_method_table_size = sizeof(statically_referenced_fixed_method_table) / sizeof(statically_referenced_fixed_method_table[0]);
+static const JNINativeMethod method_table[] = {
+  { "ioUringSetup", "(I)[J", (void *) netty_io_uring_ioUringSetup },
+  { "ioUringExit", "(JIJIJII)V", (void *) netty_io_uring_ioUringExit },
+  { "ioUringEnter0", "(IIII)I", (void *) netty_io_uring_ioUringEnter },
+  { "eventFd", "()I", (void *) netty_io_uring_eventFd },
+  { "eventFdWrite", "(IJ)V", (void *) netty_io_uring_eventFdWrite },
+  { "registerUnix", "()I", (void *) netty_io_uring_registerUnix }
+};
+static const jint method_table_size = sizeof(method_table) / sizeof(method_table[0]);
+// JNI Method Registration Table End
+
+static jint netty_io_uring_JNI_OnLoad(JNIEnv* env, const char* packagePrefix) {
+    int staticallyRegistered = 0;
+    int nativeRegistered = 0;
+
+    // We must register the statically referenced methods first!
+    if (netty_jni_util_register_natives(env,
+            packagePrefix,
+            STATICALLY_CLASSNAME,
+            statically_referenced_fixed_method_table,
+            statically_referenced_fixed_method_table_size) != 0) {
+        goto error;
+    }
+    staticallyRegistered = 1;
+
+    if (netty_jni_util_register_natives(env,
+            packagePrefix,
+            NATIVE_CLASSNAME,
+            method_table,
+            method_table_size) != 0) {
+        goto error;
+    }
+    nativeRegistered = 1;
+
+    if (packagePrefix != NULL) {
+        staticPackagePrefix = strdup(packagePrefix);
+    }
+    return NETTY_JNI_UTIL_JNI_VERSION;
+error:
+    if (staticallyRegistered == 1) {
+        netty_jni_util_unregister_natives(env, packagePrefix, STATICALLY_CLASSNAME);
+    }
+    if (nativeRegistered == 1) {
+        netty_jni_util_unregister_natives(env, packagePrefix, NATIVE_CLASSNAME);
+    }
+    return JNI_ERR;
+}
+
+static void netty_io_uring_JNI_OnUnload(JNIEnv* env, const char* packagePrefix) {
+    if (register_unix_called == 1) {
+        register_unix_called = 0;
+        netty_unix_unregister(env, staticPackagePrefix);
+    }
+    if (staticPackagePrefix != NULL) {
+        free((void *) staticPackagePrefix);
+        staticPackagePrefix = NULL;
+    }
+
+    netty_jni_util_unregister_natives(env, packagePrefix, STATICALLY_CLASSNAME);
+    netty_jni_util_unregister_natives(env, packagePrefix, NATIVE_CLASSNAME);
+}
+
+// We build with -fvisibility=hidden so ensure we mark everything that needs to be visible with JNIEXPORT
+// https://mail.openjdk.java.net/pipermail/core-libs-dev/2013-February/014549.html
+
+// Invoked by the JVM when statically linked
+JNIEXPORT jint JNI_OnLoad_netty_transport_native_io_uring(JavaVM* vm, void* reserved) {
+    return netty_jni_util_JNI_OnLoad(vm, reserved, "netty_transport_native_io_uring", netty_io_uring_JNI_OnLoad);
+}
+
+// Invoked by the JVM when statically linked
+JNIEXPORT void JNI_OnUnload_netty_transport_native_io_uring(JavaVM* vm, void* reserved) {
+    netty_jni_util_JNI_OnUnload(vm, reserved, netty_io_uring_JNI_OnUnload);
+}
+
+#ifndef NETTY_BUILD_STATIC
+JNIEXPORT jint JNI_OnLoad(JavaVM* vm, void* reserved) {
+    return netty_jni_util_JNI_OnLoad(vm, reserved, "netty_transport_native_io_uring", netty_io_uring_JNI_OnLoad);
+}
+
+JNIEXPORT void JNI_OnUnload(JavaVM* vm, void* reserved) {
+    netty_jni_util_JNI_OnUnload(vm, reserved, netty_io_uring_JNI_OnUnload);
+}
+#endif /* NETTY_BUILD_STATIC */
@@ -0,0 +1,409 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelOutboundBuffer.MessageProcessor;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
+import io.netty.channel.socket.DuplexChannel;
+import io.netty.channel.unix.Errors;
+import io.netty.channel.unix.IovArray;
+import io.netty.channel.unix.UnixChannelUtil;
+import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.UnstableApi;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+abstract class AbstractIOUringStreamChannel extends AbstractIOUringChannel implements DuplexChannel {
+    private static final ChannelMetadata METADATA = new ChannelMetadata(false, 16);
+    private static final String EXPECTED_TYPES =
+            " (expected: " + StringUtil.simpleClassName(ByteBuf.class) + ')';
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(AbstractIOUringStreamChannel.class);
+
+    // The buffer the kernel reads into while a read is in flight.
+    private ByteBuf readBuffer;
+
+    // The buffers (and the iovec array if a gathering write is used) the kernel reads from while a write is in flight.
+    // All of them are retained until the completion was processed as the ChannelOutboundBuffer may release them
+    // before if the Channel is closed in the meantime.
+    private ByteBuf[] writeBuffers = new ByteBuf[8];
+    private int writeBuffersCount;
+    private IovArray writeIovArray;
+    private IovArray processorIovArray;
+    private IOException writeError;
+
+    private final MessageProcessor writeProcessor = new MessageProcessor() {
+        @Override
+        public boolean processMessage(Object msg) {
+            ByteBuf buf = (ByteBuf) msg;
+            // Retain before adding as the buffer may have been added partially even if add(...) returns false.
+            addWriteBuffer(buf.retain());
+            return processorIovArray.add(buf, buf.readerIndex(), buf.readableBytes());
+        }
+    };
+
+    AbstractIOUringStreamChannel(Channel parent, LinuxSocket fd, boolean active) {
+        super(parent, fd, active);
+    }
+
+    AbstractIOUringStreamChannel(Channel parent, LinuxSocket fd, SocketAddress remote) {
+        super(parent, fd, remote);
+    }
+
+    @Override
+    protected AbstractIOUringUnsafe newUnsafe() {
+        return new IOUringStreamUnsafe();
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    private void addWriteBuffer(ByteBuf buf) {
+        if (writeBuffersCount == writeBuffers.length) {
+            writeBuffers = Arrays.copyOf(writeBuffers, writeBuffersCount << 1);
+        }
+        writeBuffers[writeBuffersCount++] = buf;
+    }
+
+    private void releaseWriteResources() {
+        for (int i = 0; i < writeBuffersCount; i++) {
+            writeBuffers[i].release();
+            writeBuffers[i] = null;
+        }
+        writeBuffersCount = 0;
+        if (writeIovArray != null) {
+            ((IOUringEventLoop) eventLoop()).releaseIovArray(writeIovArray);
+            writeIovArray = null;
+        }
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        IOException error = writeError;
+        if (error != null) {
+            // The last write failed, let AbstractUnsafe handle the error.
+            writeError = null;
+            throw error;
+        }
+
+        ByteBuf buf;
+        for (;;) {
+            buf = (ByteBuf) in.current();
+            if (buf == null) {
+                // Nothing left to write.
+                return;
+            }
+            if (buf.isReadable()) {
+                break;
+            }
+            in.remove();
+        }
+
+        // Only one write is in flight per Channel. All flushed messages are written with one operation and the rest
+        // is written once the completion was processed.
+        IOUringSubmissionQueue submissionQueue = submissionQueue();
+        int fd = socket.intValue();
+        if (in.size() == 1 && buf.nioBufferCount() == 1) {
+            addWriteBuffer(buf.retain());
+            submissionQueue.addWrite(fd, memoryAddress(buf), buf.readerIndex(), buf.writerIndex(), id);
+            writeScheduled(Native.IORING_OP_WRITE);
+        } else {
+            IovArray iovArray = ((IOUringEventLoop) eventLoop()).acquireIovArray();
+            writeIovArray = iovArray;
+            processorIovArray = iovArray;
+            try {
+                in.forEachFlushedMessage(writeProcessor);
+            } finally {
+                processorIovArray = null;
+            }
+            submissionQueue.addWritev(fd, iovArray.memoryAddress(0), iovArray.count(), id);
+            writeScheduled(Native.IORING_OP_WRITEV);
+        }
+    }
+
+    @Override
+    protected Object filterOutboundMessage(Object msg) {
+        if (msg instanceof ByteBuf) {
+            ByteBuf buf = (ByteBuf) msg;
+            return UnixChannelUtil.isBufferCopyNeededForWrite(buf)? newDirectBuffer(buf): buf;
+        }
+
+        throw new UnsupportedOperationException(
+                "unsupported message type: " + StringUtil.simpleClassName(msg) + EXPECTED_TYPES);
+    }
+
+    @UnstableApi
+    @Override
+    protected final void doShutdownOutput() throws Exception {
+        socket.shutdown(false, true);
+    }
+
+    private void shutdownInput0(final ChannelPromise promise) {
+        try {
+            socket.shutdown(true, false);
+            promise.setSuccess();
+        } catch (Throwable cause) {
+            promise.setFailure(cause);
+        }
+    }
+
+    @Override
+    public boolean isOutputShutdown() {
+        return socket.isOutputShutdown();
+    }
+
+    @Override
+    public boolean isInputShutdown() {
+        return socket.isInputShutdown();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return socket.isShutdown();
+    }
+
+    @Override
+    public ChannelFuture shutdownOutput() {
+        return shutdownOutput(newPromise());
+    }
+
+    @Override
+    public ChannelFuture shutdownOutput(final ChannelPromise promise) {
+        EventLoop loop = eventLoop();
+        if (loop.inEventLoop()) {
+            ((AbstractUnsafe) unsafe()).shutdownOutput(promise);
+        } else {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    ((AbstractUnsafe) unsafe()).shutdownOutput(promise);
+                }
+            });
+        }
+
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture shutdownInput() {
+        return shutdownInput(newPromise());
+    }
+
+    @Override
+    public ChannelFuture shutdownInput(final ChannelPromise promise) {
+        Executor closeExecutor = ((IOUringStreamUnsafe) unsafe()).prepareToClose();
+        if (closeExecutor != null) {
+            closeExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    shutdownInput0(promise);
+                }
+            });
+        } else {
+            EventLoop loop = eventLoop();
+            if (loop.inEventLoop()) {
+                shutdownInput0(promise);
+            } else {
+                loop.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        shutdownInput0(promise);
+                    }
+                });
+            }
+        }
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture shutdown() {
+        return shutdown(newPromise());
+    }
+
+    @Override
+    public ChannelFuture shutdown(final ChannelPromise promise) {
+        ChannelFuture shutdownOutputFuture = shutdownOutput();
+        if (shutdownOutputFuture.isDone()) {
+            shutdownOutputDone(shutdownOutputFuture, promise);
+        } else {
+            shutdownOutputFuture.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(final ChannelFuture shutdownOutputFuture) throws Exception {
+                    shutdownOutputDone(shutdownOutputFuture, promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    private void shutdownOutputDone(final ChannelFuture shutdownOutputFuture, final ChannelPromise promise) {
+        ChannelFuture shutdownInputFuture = shutdownInput();
+        if (shutdownInputFuture.isDone()) {
+            shutdownDone(shutdownOutputFuture, shutdownInputFuture, promise);
+        } else {
+            shutdownInputFuture.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture shutdownInputFuture) throws Exception {
+                    shutdownDone(shutdownOutputFuture, shutdownInputFuture, promise);
+                }
+            });
+        }
+    }
+
+    private static void shutdownDone(ChannelFuture shutdownOutputFuture,
+                              ChannelFuture shutdownInputFuture,
+                              ChannelPromise promise) {
+        Throwable shutdownOutputCause = shutdownOutputFuture.cause();
+        Throwable shutdownInputCause = shutdownInputFuture.cause();
+        if (shutdownOutputCause != null) {
+            if (shutdownInputCause != null) {
+                logger.debug("Exception suppressed because a previous exception occurred.",
+                        shutdownInputCause);
+            }
+            promise.setFailure(shutdownOutputCause);
+        } else if (shutdownInputCause != null) {
+            promise.setFailure(shutdownInputCause);
+        } else {
+            promise.setSuccess();
+        }
+    }
+
+    class IOUringStreamUnsafe extends AbstractIOUringUnsafe {
+        // Overridden here just to be able to access this method from AbstractIOUringStreamChannel
+        @Override
+        protected Executor prepareToClose() {
+            return super.prepareToClose();
+        }
+
+        @Override
+        void scheduleRead() {
+            final IOUringRecvByteAllocatorHandle allocHandle = recvBufAllocHandle();
+            ByteBuf byteBuf = allocHandle.allocate(alloc());
+            allocHandle.attemptedBytesRead(byteBuf.writableBytes());
+            readBuffer = byteBuf;
+            submissionQueue().addRead(socket.intValue(), memoryAddress(byteBuf),
+                    byteBuf.writerIndex(), byteBuf.capacity(), id);
+            readScheduled(Native.IORING_OP_READ);
+        }
+
+        @Override
+        void readComplete(int res) {
+            ByteBuf byteBuf = readBuffer;
+            readBuffer = null;
+            if (isDiscarded(res)) {
+                // The read was cancelled because the Channel was closed or deregistered.
+                byteBuf.release();
+                return;
+            }
+            if (res == Errors.ERRNO_EAGAIN_NEGATIVE) {
+                // Older kernels may not poll internally, so wait until the socket becomes readable again.
+                byteBuf.release();
+                schedulePollIn();
+                return;
+            }
+
+            final IOUringRecvByteAllocatorHandle allocHandle = recvBufAllocHandle();
+            final ChannelPipeline pipeline = pipeline();
+            boolean close = false;
+            try {
+                if (res < 0) {
+                    throw Errors.newIOException("read", res);
+                }
+                allocHandle.lastBytesRead(res);
+                if (res == 0) {
+                    // EOF, release the buffer.
+                    byteBuf.release();
+                    byteBuf = null;
+                    close = true;
+                    readPending = false;
+                    allocHandle.readComplete();
+                    pipeline.fireChannelReadComplete();
+                    shutdownInput(false);
+                    return;
+                }
+                byteBuf.writerIndex(byteBuf.writerIndex() + res);
+                allocHandle.incMessagesRead(1);
+                readPending = false;
+                pipeline.fireChannelRead(byteBuf);
+                byteBuf = null;
+
+                // Each completion ends the read loop. Scheduling the next read directly could delay
+                // channelReadComplete() until more data arrives, so the next read is scheduled by
+                // doBeginRead() which is triggered by auto read or an explicit read().
+                allocHandle.readComplete();
+                pipeline.fireChannelReadComplete();
+            } catch (Throwable t) {
+                handleReadException(pipeline, byteBuf, t, close, allocHandle);
+            }
+        }
+
+        private void handleReadException(ChannelPipeline pipeline, ByteBuf byteBuf, Throwable cause, boolean close,
+                IOUringRecvByteAllocatorHandle allocHandle) {
+            if (byteBuf != null) {
+                if (byteBuf.isReadable()) {
+                    readPending = false;
+                    pipeline.fireChannelRead(byteBuf);
+                } else {
+                    byteBuf.release();
+                }
+            }
+            allocHandle.readComplete();
+            pipeline.fireChannelReadComplete();
+            pipeline.fireExceptionCaught(cause);
+
+            // If oom will close the read event, release connection.
+            // See https://github.com/netty/netty/issues/10434
+            if (close || cause instanceof OutOfMemoryError || cause instanceof IOException) {
+                shutdownInput(false);
+            }
+        }
+
+        @Override
+        void writeComplete(int res) {
+            releaseWriteResources();
+            ChannelOutboundBuffer in = outboundBuffer();
+            if (res == Native.ERRNO_ECANCELED_NEGATIVE || in == null) {
+                // The Channel was closed in the meantime, the ChannelOutboundBuffer took care of failing the writes.
+                return;
+            }
+            if (res > 0) {
+                in.removeBytes(res);
+                // Write the rest (if any) of the flushed messages.
+                forceFlush();
+            } else if (res == 0 || res == Errors.ERRNO_EAGAIN_NEGATIVE) {
+                // The socket is not writable atm, wait until it is.
+                schedulePollOut();
+            } else {
+                writeError = Errors.newIOException("write", res);
+                forceFlush();
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.IOException;
+
+/**
+ * Completion queue implementation for io_uring.
+ */
+final class IOUringCompletionQueue {
+
+    // Offsets into the struct io_uring_cqe, see /usr/include/linux/io_uring.h
+    private static final int CQE_USER_DATA_FIELD = 0;
+    private static final int CQE_RES_FIELD = 8;
+    private static final int CQE_FLAGS_FIELD = 12;
+
+    private final long kHeadAddress;
+    private final long kTailAddress;
+    private final long kOverflowAddress;
+    private final long completionQueueArrayAddress;
+
+    final int ringSize;
+    final long ringAddress;
+    final int ringFd;
+
+    private final int ringEntries;
+    private final int ringMask;
+    private int ringHead;
+
+    IOUringCompletionQueue(long kHeadAddress, long kTailAddress, long kRingMaskAddress, long kRingEntriesAddress,
+                           long kOverflowAddress, long completionQueueArrayAddress, int ringSize, long ringAddress,
+                           int ringFd) {
+        this.kHeadAddress = kHeadAddress;
+        this.kTailAddress = kTailAddress;
+        this.kOverflowAddress = kOverflowAddress;
+        this.completionQueueArrayAddress = completionQueueArrayAddress;
+        this.ringSize = ringSize;
+        this.ringAddress = ringAddress;
+        this.ringFd = ringFd;
+
+        ringEntries = PlatformDependent.getIntVolatile(kRingEntriesAddress);
+        ringMask = PlatformDependent.getIntVolatile(kRingMaskAddress);
+        ringHead = PlatformDependent.getIntVolatile(kHeadAddress);
+    }
+
+    /**
+     * Returns {@code true} if there are completions which were not processed yet.
+     */
+    boolean hasCompletions() {
+        return ringHead != PlatformDependent.getIntVolatile(kTailAddress);
+    }
+
+    /**
+     * Process all completions which are ready and notify the given {@link IOUringCompletionQueueCallback} for each
+     * of them. Returns the number of processed completions.
+     */
+    int process(IOUringCompletionQueueCallback callback) {
+        int tail = PlatformDependent.getIntVolatile(kTailAddress);
+        int i = 0;
+        while (ringHead != tail) {
+            long cqeAddress = completionQueueArrayAddress +
+                    (long) (ringHead & ringMask) * Native.SIZEOF_IO_URING_CQE;
+
+            long udata = PlatformDependent.getLong(cqeAddress + CQE_USER_DATA_FIELD);
+            int res = PlatformDependent.getInt(cqeAddress + CQE_RES_FIELD);
+            int flags = PlatformDependent.getInt(cqeAddress + CQE_FLAGS_FIELD);
+
+            // Increment and publish the head before we call the callback as it may submit new operations and so
+            // is able to reuse the slot.
+            ringHead++;
+            PlatformDependent.putIntOrdered(kHeadAddress, ringHead);
+
+            i++;
+            callback.handle(UserData.decodeId(udata), res, flags, UserData.decodeOp(udata),
+                    UserData.decodeData(udata));
+
+            if (ringHead == tail) {
+                // Refresh the tail as there may be more completions now.
+                tail = PlatformDependent.getIntVolatile(kTailAddress);
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Returns the number of completions that were dropped by the kernel because the queue was full.
+     */
+    int overflow() {
+        return PlatformDependent.getIntVolatile(kOverflowAddress);
+    }
+
+    /**
+     * Block until at least one completion is ready.
+     */
+    void ioUringWaitCqe() throws IOException {
+        Native.ioUringEnter(ringFd, 0, 1, Native.IORING_ENTER_GETEVENTS);
+    }
+
+    int ringEntries() {
+        return ringEntries;
+    }
+}
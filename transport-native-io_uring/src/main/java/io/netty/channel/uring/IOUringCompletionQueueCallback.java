@@ -0,0 +1,33 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+/**
+ * Callback which is notified for every completion that is reaped from the {@link IOUringCompletionQueue}.
+ */
+interface IOUringCompletionQueueCallback {
+    /**
+     * Called for each completion.
+     *
+     * @param id    the id of the {@link AbstractIOUringChannel} the operation belongs to, as assigned by the
+     *              {@link IOUringEventLoop}.
+     * @param res   the result of the operation, negative values are {@code -errno}.
+     * @param flags the completion flags.
+     * @param op    the io_uring operation that completed.
+     * @param data  extra data that was attached when the operation was submitted.
+     */
+    void handle(int id, int res, int flags, byte op, short data);
+}
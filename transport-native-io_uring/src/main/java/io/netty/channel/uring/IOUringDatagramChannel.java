@@ -0,0 +1,441 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.AddressedEnvelope;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultAddressedEnvelope;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.channel.socket.InternetProtocolFamily;
+import io.netty.channel.unix.Errors;
+import io.netty.channel.unix.UnixChannelUtil;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.StringUtil;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.PortUnreachableException;
+import java.net.SocketAddress;
+
+/**
+ * {@link DatagramChannel} implementation that uses io_uring. Datagrams are received and sent via
+ * {@code IORING_OP_RECVMSG} and {@code IORING_OP_SENDMSG}. Multicast is not supported yet.
+ */
+public final class IOUringDatagramChannel extends AbstractIOUringChannel implements DatagramChannel {
+    private static final ChannelMetadata METADATA = new ChannelMetadata(true);
+    private static final String EXPECTED_TYPES =
+            " (expected: " + StringUtil.simpleClassName(DatagramPacket.class) + ", " +
+            StringUtil.simpleClassName(AddressedEnvelope.class) + '<' +
+            StringUtil.simpleClassName(ByteBuf.class) + ", " +
+            StringUtil.simpleClassName(InetSocketAddress.class) + ">, " +
+            StringUtil.simpleClassName(ByteBuf.class) + ')';
+
+    private final IOUringDatagramChannelConfig config;
+    private volatile boolean connected;
+
+    // The msghdr memory and buffers which are used by the recvmsg and sendmsg operations which are in flight.
+    private final MsgHdrMemory recvMsgHdr = new MsgHdrMemory();
+    private final MsgHdrMemory sendMsgHdr = new MsgHdrMemory();
+    private ByteBuf readBuffer;
+    private ByteBuf writeBuffer;
+    private boolean msgHdrsReleased;
+
+    /**
+     * Create a new instance which selects the {@link InternetProtocolFamily} to use depending
+     * on the Operation Systems default which will be chosen.
+     */
+    public IOUringDatagramChannel() {
+        this(null);
+    }
+
+    /**
+     * Create a new instance using the given {@link InternetProtocolFamily}. If {@code null} is used it will depend
+     * on the Operation Systems default which will be chosen.
+     */
+    public IOUringDatagramChannel(InternetProtocolFamily family) {
+        super(null, family == null ? LinuxSocket.newSocketDgram() : LinuxSocket.newSocketDgram(family), false);
+        config = new IOUringDatagramChannelConfig(this);
+    }
+
+    @Override
+    public InetSocketAddress remoteAddress() {
+        return (InetSocketAddress) super.remoteAddress();
+    }
+
+    @Override
+    public InetSocketAddress localAddress() {
+        return (InetSocketAddress) super.localAddress();
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    public boolean isActive() {
+        return socket.isOpen() && (config.getActiveOnOpen() && isRegistered() || active);
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetAddress multicastAddress) {
+        return joinGroup(multicastAddress, newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetAddress multicastAddress, ChannelPromise promise) {
+        return joinGroup(multicastAddress, null, null, promise);
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetSocketAddress multicastAddress, NetworkInterface networkInterface) {
+        return joinGroup(multicastAddress, networkInterface, newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetSocketAddress multicastAddress, NetworkInterface networkInterface,
+            ChannelPromise promise) {
+        return joinGroup(multicastAddress.getAddress(), networkInterface, null, promise);
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source) {
+        return joinGroup(multicastAddress, networkInterface, source, newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            final InetAddress multicastAddress, final NetworkInterface networkInterface,
+            final InetAddress source, final ChannelPromise promise) {
+        ObjectUtil.checkNotNull(multicastAddress, "multicastAddress");
+        return promise.setFailure(new UnsupportedOperationException("Multicast not supported"));
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetAddress multicastAddress) {
+        return leaveGroup(multicastAddress, newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetAddress multicastAddress, ChannelPromise promise) {
+        return leaveGroup(multicastAddress, null, null, promise);
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetSocketAddress multicastAddress, NetworkInterface networkInterface) {
+        return leaveGroup(multicastAddress, networkInterface, newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetSocketAddress multicastAddress,
+            NetworkInterface networkInterface, ChannelPromise promise) {
+        return leaveGroup(multicastAddress.getAddress(), networkInterface, null, promise);
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source) {
+        return leaveGroup(multicastAddress, networkInterface, source, newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            final InetAddress multicastAddress, final NetworkInterface networkInterface, final InetAddress source,
+            final ChannelPromise promise) {
+        ObjectUtil.checkNotNull(multicastAddress, "multicastAddress");
+        return promise.setFailure(new UnsupportedOperationException("Multicast not supported"));
+    }
+
+    @Override
+    public ChannelFuture block(
+            InetAddress multicastAddress, NetworkInterface networkInterface,
+            InetAddress sourceToBlock) {
+        return block(multicastAddress, networkInterface, sourceToBlock, newPromise());
+    }
+
+    @Override
+    public ChannelFuture block(
+            final InetAddress multicastAddress, final NetworkInterface networkInterface,
+            final InetAddress sourceToBlock, final ChannelPromise promise) {
+        ObjectUtil.checkNotNull(multicastAddress, "multicastAddress");
+        ObjectUtil.checkNotNull(sourceToBlock, "sourceToBlock");
+        return promise.setFailure(new UnsupportedOperationException("Multicast not supported"));
+    }
+
+    @Override
+    public ChannelFuture block(InetAddress multicastAddress, InetAddress sourceToBlock) {
+        return block(multicastAddress, sourceToBlock, newPromise());
+    }
+
+    @Override
+    public ChannelFuture block(
+            InetAddress multicastAddress, InetAddress sourceToBlock, ChannelPromise promise) {
+        return block(multicastAddress, null, sourceToBlock, promise);
+    }
+
+    @Override
+    protected AbstractIOUringUnsafe newUnsafe() {
+        return new IOUringDatagramChannelUnsafe();
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        if (localAddress instanceof InetSocketAddress) {
+            InetSocketAddress socketAddress = (InetSocketAddress) localAddress;
+            if (socketAddress.getAddress().isAnyLocalAddress() &&
+                    socketAddress.getAddress() instanceof Inet4Address) {
+                if (socket.family() == InternetProtocolFamily.IPv6) {
+                    localAddress = new InetSocketAddress(LinuxSocket.INET6_ANY, socketAddress.getPort());
+                }
+            }
+        }
+        super.doBind(localAddress);
+        active = true;
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        // Only one datagram is in flight at a time, the next one is written once the completion was processed.
+        for (;;) {
+            Object msg = in.current();
+            if (msg == null) {
+                // Wrote all messages.
+                return;
+            }
+
+            final ByteBuf data;
+            final InetSocketAddress remoteAddress;
+            if (msg instanceof AddressedEnvelope) {
+                @SuppressWarnings("unchecked")
+                AddressedEnvelope<ByteBuf, InetSocketAddress> envelope =
+                        (AddressedEnvelope<ByteBuf, InetSocketAddress>) msg;
+                data = envelope.content();
+                remoteAddress = envelope.recipient();
+            } else {
+                data = (ByteBuf) msg;
+                remoteAddress = null;
+            }
+
+            if (!data.isReadable()) {
+                in.remove();
+                continue;
+            }
+            // The ChannelOutboundBuffer may release the buffer before the completion was processed if the Channel
+            // is closed in the meantime, so retain it until then.
+            writeBuffer = data.retain();
+            sendMsgHdr.prepareWrite(socket.isIpv6(), remoteAddress,
+                    memoryAddress(data) + data.readerIndex(), data.readableBytes());
+            submissionQueue().addSendmsg(socket.intValue(), sendMsgHdr.address(), id);
+            writeScheduled(Native.IORING_OP_SENDMSG);
+            return;
+        }
+    }
+
+    // Datagrams are sent from a single contiguous memory region, so gathering buffers are copied as well.
+    private static boolean isBufferCopyNeeded(ByteBuf buf) {
+        return UnixChannelUtil.isBufferCopyNeededForWrite(buf) || buf.nioBufferCount() != 1;
+    }
+
+    @Override
+    protected Object filterOutboundMessage(Object msg) {
+        if (msg instanceof DatagramPacket) {
+            DatagramPacket packet = (DatagramPacket) msg;
+            ByteBuf content = packet.content();
+            return isBufferCopyNeeded(content) ?
+                    new DatagramPacket(newDirectBuffer(packet, content), packet.recipient()) : msg;
+        }
+
+        if (msg instanceof ByteBuf) {
+            ByteBuf buf = (ByteBuf) msg;
+            return isBufferCopyNeeded(buf)? newDirectBuffer(buf) : buf;
+        }
+
+        if (msg instanceof AddressedEnvelope) {
+            @SuppressWarnings("unchecked")
+            AddressedEnvelope<Object, SocketAddress> e = (AddressedEnvelope<Object, SocketAddress>) msg;
+            if (e.content() instanceof ByteBuf &&
+                (e.recipient() == null || e.recipient() instanceof InetSocketAddress)) {
+
+                ByteBuf content = (ByteBuf) e.content();
+                return isBufferCopyNeeded(content)?
+                        new DefaultAddressedEnvelope<ByteBuf, InetSocketAddress>(
+                            newDirectBuffer(e, content), (InetSocketAddress) e.recipient()) : e;
+            }
+        }
+
+        throw new UnsupportedOperationException(
+                "unsupported message type: " + StringUtil.simpleClassName(msg) + EXPECTED_TYPES);
+    }
+
+    @Override
+    public IOUringDatagramChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        socket.disconnect();
+        connected = active = false;
+        resetCachedAddresses();
+    }
+
+    @Override
+    protected boolean doConnect(SocketAddress remoteAddress, SocketAddress localAddress) throws Exception {
+        if (super.doConnect(remoteAddress, localAddress)) {
+            connected = true;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        super.doClose();
+        connected = false;
+        if (!isRegistered()) {
+            // doDeregister() will not be called anymore.
+            releaseMsgHdrsIfDone();
+        }
+    }
+
+    @Override
+    protected void doDeregister() throws Exception {
+        super.doDeregister();
+        releaseMsgHdrsIfDone();
+    }
+
+    private void releaseMsgHdrsIfDone() {
+        // The native memory can only be released once the Channel is closed and no operation is in flight anymore.
+        if (!isOpen() && (ioState & (READ_SCHEDULED | WRITE_SCHEDULED)) == 0 && !msgHdrsReleased) {
+            msgHdrsReleased = true;
+            recvMsgHdr.release();
+            sendMsgHdr.release();
+        }
+    }
+
+    final class IOUringDatagramChannelUnsafe extends AbstractIOUringUnsafe {
+
+        @Override
+        void scheduleRead() {
+            final IOUringRecvByteAllocatorHandle allocHandle = recvBufAllocHandle();
+            ByteBuf byteBuf = allocHandle.allocate(alloc());
+            allocHandle.attemptedBytesRead(byteBuf.writableBytes());
+            readBuffer = byteBuf;
+            recvMsgHdr.prepareRead(memoryAddress(byteBuf) + byteBuf.writerIndex(), byteBuf.writableBytes());
+            submissionQueue().addRecvmsg(socket.intValue(), recvMsgHdr.address(), id);
+            readScheduled(Native.IORING_OP_RECVMSG);
+        }
+
+        @Override
+        void readComplete(int res) {
+            ByteBuf byteBuf = readBuffer;
+            readBuffer = null;
+            if (isDiscarded(res)) {
+                // The read was cancelled because the Channel was closed or deregistered.
+                byteBuf.release();
+                releaseMsgHdrsIfDone();
+                return;
+            }
+            if (res == Errors.ERRNO_EAGAIN_NEGATIVE) {
+                // Older kernels may not poll internally, so wait until the socket becomes readable again.
+                byteBuf.release();
+                schedulePollIn();
+                return;
+            }
+
+            final IOUringRecvByteAllocatorHandle allocHandle = recvBufAllocHandle();
+            final ChannelPipeline pipeline = pipeline();
+            Throwable exception = null;
+            try {
+                if (res < 0) {
+                    IOException e = Errors.newIOException("recvmsg", res);
+                    if (connected && res == Errors.ERROR_ECONNREFUSED_NEGATIVE) {
+                        // We need to correctly translate connect errors to match NIO behaviour.
+                        PortUnreachableException error = new PortUnreachableException(e.getMessage());
+                        error.initCause(e);
+                        throw error;
+                    }
+                    throw e;
+                }
+                byteBuf.writerIndex(byteBuf.writerIndex() + res);
+                allocHandle.lastBytesRead(res);
+                allocHandle.incMessagesRead(1);
+                InetSocketAddress sender = connected ? IOUringDatagramChannel.this.remoteAddress() :
+                        recvMsgHdr.sender();
+                readPending = false;
+                pipeline.fireChannelRead(
+                        new DatagramPacket(byteBuf, IOUringDatagramChannel.this.localAddress(), sender));
+                byteBuf = null;
+            } catch (Throwable t) {
+                if (byteBuf != null) {
+                    byteBuf.release();
+                }
+                exception = t;
+            }
+            allocHandle.readComplete();
+            pipeline.fireChannelReadComplete();
+
+            if (exception != null) {
+                pipeline.fireExceptionCaught(exception);
+            }
+        }
+
+        @Override
+        void writeComplete(int res) {
+            writeBuffer.release();
+            writeBuffer = null;
+            ChannelOutboundBuffer in = outboundBuffer();
+            if (res == Native.ERRNO_ECANCELED_NEGATIVE || in == null) {
+                // The Channel was closed in the meantime, the ChannelOutboundBuffer took care of failing the writes.
+                releaseMsgHdrsIfDone();
+                return;
+            }
+            if (res == Errors.ERRNO_EAGAIN_NEGATIVE) {
+                // The socket is not writable atm, wait until it is.
+                schedulePollOut();
+                return;
+            }
+            if (res >= 0) {
+                in.remove();
+            } else {
+                // Continue on write error as a DatagramChannel can write to multiple remote peers
+                //
+                // See https://github.com/netty/netty/issues/2665
+                in.remove(Errors.newIOException("sendmsg", res));
+            }
+            forceFlush();
+        }
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.EventLoopTaskQueueFactory;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.IovArray;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import io.netty.util.concurrent.RejectedExecutionHandler;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link EventLoop} which uses io_uring under the covers. Only works on Linux!
+ * <p>
+ * All I/O is submitted as operations to the submission queue of the ring and is only handed to the kernel once per
+ * loop iteration, which allows to batch the work of many channels into a single {@code io_uring_enter} call.
+ */
+final class IOUringEventLoop extends SingleThreadEventLoop implements IOUringCompletionQueueCallback {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(IOUringEventLoop.class);
+
+    static {
+        // Ensure JNI is initialized by the time this class is loaded by this time!
+        // We use unix-common methods in this class which are backed by JNI methods.
+        IOUring.ensureAvailability();
+    }
+
+    // The id which is used for the operations that are submitted by the event loop itself (eventfd read, timeouts).
+    private static final int EVENT_LOOP_ID = 0;
+    private static final int MAX_CACHED_IOV_ARRAYS = 32;
+
+    private static final long AWAKE = -1L;
+    private static final long NONE = Long.MAX_VALUE;
+
+    private final IntObjectMap<AbstractIOUringChannel> channels =
+            new IntObjectHashMap<AbstractIOUringChannel>(4096);
+    private final RingBuffer ringBuffer;
+    private final FileDescriptor eventFd;
+    private final long eventFdReadBuf;
+    private final Queue<IovArray> iovArrays = new ArrayDeque<IovArray>();
+
+    // nextWakeupNanos is:
+    //    AWAKE            when EL is awake
+    //    NONE             when EL is waiting with no wakeup scheduled
+    //    other value T    when EL is waiting with wakeup scheduled at time T
+    private final AtomicLong nextWakeupNanos = new AtomicLong(AWAKE);
+    private boolean pendingWakeup;
+    private boolean timeoutPending;
+    private long prevDeadlineNanos = NONE;
+    private int nextId = EVENT_LOOP_ID + 1;
+
+    IOUringEventLoop(EventLoopGroup parent, Executor executor, int ringSize,
+                     RejectedExecutionHandler rejectedExecutionHandler, EventLoopTaskQueueFactory queueFactory) {
+        super(parent, executor, false, newTaskQueue(queueFactory), newTaskQueue(queueFactory),
+                rejectedExecutionHandler);
+        RingBuffer ringBuffer = null;
+        boolean success = false;
+        try {
+            this.ringBuffer = ringBuffer = ringSize == 0 ? Native.createRingBuffer() :
+                    Native.createRingBuffer(ringSize);
+            eventFd = Native.newEventFd();
+            eventFdReadBuf = PlatformDependent.allocateMemory(8);
+            success = true;
+        } finally {
+            if (!success && ringBuffer != null) {
+                ringBuffer.close();
+            }
+        }
+    }
+
+    private static Queue<Runnable> newTaskQueue(
+            EventLoopTaskQueueFactory queueFactory) {
+        if (queueFactory == null) {
+            return newTaskQueue0(DEFAULT_MAX_PENDING_TASKS);
+        }
+        return queueFactory.newTaskQueue(DEFAULT_MAX_PENDING_TASKS);
+    }
+
+    @Override
+    protected Queue<Runnable> newTaskQueue(int maxPendingTasks) {
+        return newTaskQueue0(maxPendingTasks);
+    }
+
+    private static Queue<Runnable> newTaskQueue0(int maxPendingTasks) {
+        // This event loop never calls takeTask()
+        return maxPendingTasks == Integer.MAX_VALUE ? PlatformDependent.<Runnable>newMpscQueue()
+                : PlatformDependent.<Runnable>newMpscQueue(maxPendingTasks);
+    }
+
+    RingBuffer ringBuffer() {
+        return ringBuffer;
+    }
+
+    IOUringSubmissionQueue submissionQueue() {
+        return ringBuffer.ioUringSubmissionQueue();
+    }
+
+    /**
+     * Return a cleared {@link IovArray} that can be used for one gathering write. As the memory is used by the kernel
+     * until the write completes it must be given back via {@link #releaseIovArray(IovArray)} only after the
+     * completion was processed.
+     */
+    IovArray acquireIovArray() {
+        IovArray iovArray = iovArrays.poll();
+        if (iovArray == null) {
+            return new IovArray();
+        }
+        iovArray.clear();
+        return iovArray;
+    }
+
+    void releaseIovArray(IovArray iovArray) {
+        if (iovArrays.size() < MAX_CACHED_IOV_ARRAYS) {
+            iovArrays.add(iovArray);
+        } else {
+            iovArray.release();
+        }
+    }
+
+    /**
+     * Register the given channel with this {@link EventLoop} and return the id that must be used for all its
+     * submissions.
+     */
+    int add(AbstractIOUringChannel ch) {
+        assert inEventLoop();
+        int id;
+        do {
+            id = nextId++;
+            if (nextId == EVENT_LOOP_ID) {
+                // Wrapped around, skip the id of the event loop itself.
+                nextId++;
+            }
+        } while (id == EVENT_LOOP_ID || channels.containsKey(id));
+        channels.put(id, ch);
+        return id;
+    }
+
+    /**
+     * Deregister the given channel from this {@link EventLoop}. This must only be called once there are no more
+     * operations in flight for it.
+     */
+    void remove(AbstractIOUringChannel ch) {
+        assert inEventLoop();
+        AbstractIOUringChannel old = channels.remove(ch.id);
+        if (old != null && old != ch) {
+            // The id was already reused, put back the stored Channel.
+            channels.put(ch.id, old);
+        }
+    }
+
+    @Override
+    public int registeredChannels() {
+        return channels.size();
+    }
+
+    @Override
+    protected void wakeup(boolean inEventLoop) {
+        if (!inEventLoop && nextWakeupNanos.getAndSet(AWAKE) != AWAKE) {
+            // write to the evfd which will then complete the pending read and so wake-up io_uring_enter(...)
+            Native.eventFdWrite(eventFd.intValue(), 1L);
+        }
+    }
+
+    @Override
+    protected boolean beforeScheduledTaskSubmitted(long deadlineNanos) {
+        // Note this is also correct for the nextWakeupNanos == -1 (AWAKE) case
+        return deadlineNanos < nextWakeupNanos.get();
+    }
+
+    @Override
+    protected boolean afterScheduledTaskSubmitted(long deadlineNanos) {
+        // Note this is also correct for the nextWakeupNanos == -1 (AWAKE) case
+        return deadlineNanos < nextWakeupNanos.get();
+    }
+
+    @Override
+    protected void run() {
+        final IOUringCompletionQueue completionQueue = ringBuffer.ioUringCompletionQueue();
+        final IOUringSubmissionQueue submissionQueue = ringBuffer.ioUringSubmissionQueue();
+
+        // Watch the eventfd so wakeup() is able to interrupt io_uring_enter(...).
+        addEventFdRead(submissionQueue);
+
+        for (;;) {
+            try {
+                long curDeadlineNanos = nextScheduledTaskDeadlineNanos();
+                if (curDeadlineNanos == -1L) {
+                    curDeadlineNanos = NONE; // nothing on the calendar
+                }
+                nextWakeupNanos.set(curDeadlineNanos);
+                try {
+                    if (!hasTasks()) {
+                        if (curDeadlineNanos != prevDeadlineNanos) {
+                            // The timeout needs to be re-armed or disarmed.
+                            updateTimeout(submissionQueue, curDeadlineNanos);
+                        }
+                        if (!completionQueue.hasCompletions()) {
+                            // Submit everything that was queued and wait for at least one completion.
+                            submissionQueue.submitAndWait();
+                        }
+                    }
+                } finally {
+                    // Try get() first to avoid much more expensive CAS in the case we
+                    // were woken via the wakeup() method (submitted task)
+                    if (nextWakeupNanos.get() == AWAKE || nextWakeupNanos.getAndSet(AWAKE) == AWAKE) {
+                        pendingWakeup = true;
+                    }
+                }
+
+                completionQueue.process(this);
+
+                // Hand everything that was queued while processing the completions to the kernel so it can work on
+                // it while we run the tasks.
+                submissionQueue.submit();
+            } catch (Error e) {
+                throw (Error) e;
+            } catch (Throwable t) {
+                handleLoopException(t);
+            }
+
+            try {
+                // Ensure we always run tasks.
+                runAllTasks();
+            } catch (Error e) {
+                throw (Error) e;
+            } catch (Throwable t) {
+                handleLoopException(t);
+            } finally {
+                // Always handle shutdown even if the loop processing threw an exception.
+                try {
+                    if (isShuttingDown()) {
+                        closeAll();
+                        submissionQueue.submit();
+                        if (confirmShutdown()) {
+                            break;
+                        }
+                    }
+                } catch (Error e) {
+                    throw (Error) e;
+                } catch (Throwable t) {
+                    handleLoopException(t);
+                }
+            }
+        }
+    }
+
+    private void updateTimeout(IOUringSubmissionQueue submissionQueue, long deadlineNanos) {
+        if (timeoutPending) {
+            // Remove the old timeout first, its completion will be ignored.
+            submissionQueue.addTimeoutRemove(EVENT_LOOP_ID);
+            timeoutPending = false;
+        }
+        prevDeadlineNanos = deadlineNanos;
+        if (deadlineNanos != NONE) {
+            submissionQueue.addTimeout(deadlineToDelayNanos(deadlineNanos), EVENT_LOOP_ID);
+            timeoutPending = true;
+        }
+    }
+
+    private void addEventFdRead(IOUringSubmissionQueue submissionQueue) {
+        submissionQueue.addRead(eventFd.intValue(), eventFdReadBuf, 0, 8, EVENT_LOOP_ID);
+    }
+
+    @Override
+    public void handle(int id, int res, int flags, byte op, short data) {
+        if (id == EVENT_LOOP_ID) {
+            if (op == Native.IORING_OP_READ) {
+                // The eventfd was written, re-arm the read so we will be notified about the next wakeup.
+                pendingWakeup = false;
+                addEventFdRead(ringBuffer.ioUringSubmissionQueue());
+            } else if (op == Native.IORING_OP_TIMEOUT && res == Native.ERRNO_ETIME_NEGATIVE) {
+                // The timeout fired, we need to re-arm it on the next iteration if needed.
+                timeoutPending = false;
+                prevDeadlineNanos = NONE;
+            }
+            return;
+        }
+        AbstractIOUringChannel ch = channels.get(id);
+        if (ch != null) {
+            ch.ioUringUnsafe().handle(res, flags, op, data);
+        } else if (logger.isTraceEnabled()) {
+            logger.trace("Completion for unknown channel id {}: op={}, res={}", id, op, res);
+        }
+    }
+
+    /**
+     * Visible only for testing!
+     */
+    void handleLoopException(Throwable t) {
+        logger.warn("Unexpected exception in the io_uring loop.", t);
+
+        // Prevent possible consecutive immediate failures that lead to
+        // excessive CPU consumption.
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            // Ignore.
+        }
+    }
+
+    private void closeAll() {
+        // Using the intermediate collection to prevent ConcurrentModificationException.
+        // In the `close()` method, the channel is deleted from `channels` map.
+        AbstractIOUringChannel[] localChannels = channels.values().toArray(new AbstractIOUringChannel[0]);
+
+        for (AbstractIOUringChannel ch: localChannels) {
+            ch.unsafe().close(ch.unsafe().voidPromise());
+        }
+    }
+
+    @Override
+    protected void cleanup() {
+        try {
+            IOUringCompletionQueue completionQueue = ringBuffer.ioUringCompletionQueue();
+            IOUringSubmissionQueue submissionQueue = ringBuffer.ioUringSubmissionQueue();
+
+            // Ensure any in-flight wakeup writes have been performed prior to closing eventFd.
+            if (pendingWakeup) {
+                // Wait with 1 second "safeguard" timeout
+                updateTimeout(submissionQueue, nanoTime() + TimeUnit.SECONDS.toNanos(1));
+                while (pendingWakeup && timeoutPending) {
+                    submissionQueue.submitAndWait();
+                    completionQueue.process(this);
+                }
+            }
+            try {
+                eventFd.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close the event fd.", e);
+            }
+        } finally {
+            // release native memory
+            ringBuffer.close();
+            PlatformDependent.freeMemory(eventFdReadBuf);
+            for (;;) {
+                IovArray iovArray = iovArrays.poll();
+                if (iovArray == null) {
+                    break;
+                }
+                iovArray.release();
+            }
+        }
+    }
+}
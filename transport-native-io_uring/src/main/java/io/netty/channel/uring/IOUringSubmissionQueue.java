@@ -0,0 +1,273 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.ChannelException;
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.IOException;
+
+/**
+ * Submission queue implementation for io_uring.
+ * <p>
+ * Operations are only written into the shared ring when one of the {@code add*} methods is called and are handed
+ * to the kernel in a batch once {@link #submit()} or {@link #submitAndWait()} is called, so many operations can be
+ * submitted with a single syscall.
+ */
+final class IOUringSubmissionQueue {
+
+    private static final long NSEC_PER_SEC = 1000000000L;
+
+    // Offsets into the struct io_uring_sqe, see /usr/include/linux/io_uring.h
+    private static final int SQE_OP_CODE_FIELD = 0;
+    private static final int SQE_FLAGS_FIELD = 1;
+    private static final int SQE_IOPRIO_FIELD = 2;
+    private static final int SQE_FD_FIELD = 4;
+    private static final int SQE_OFFSET_FIELD = 8;
+    private static final int SQE_ADDRESS_FIELD = 16;
+    private static final int SQE_LEN_FIELD = 24;
+    private static final int SQE_RW_FLAGS_FIELD = 28;
+    private static final int SQE_USER_DATA_FIELD = 32;
+    private static final int SQE_PAD_FIELD = 40;
+
+    private static final int KERNEL_TIMESPEC_TV_SEC_FIELD = 0;
+    private static final int KERNEL_TIMESPEC_TV_NSEC_FIELD = 8;
+
+    private final long kHeadAddress;
+    private final long kTailAddress;
+    private final long kFlagsAddress;
+    private final long kDroppedAddress;
+    private final long kArrayAddress;
+    final long submissionQueueArrayAddress;
+
+    final int ringSize;
+    final long ringAddress;
+    final int ringFd;
+
+    private final int ringEntries;
+    private final int ringMask;
+    private int head;
+    private int tail;
+
+    private final long timeoutMemoryAddress;
+
+    IOUringSubmissionQueue(long kHeadAddress, long kTailAddress, long kRingMaskAddress, long kRingEntriesAddress,
+                           long kFlagsAddress, long kDroppedAddress, long kArrayAddress,
+                           long submissionQueueArrayAddress, int ringSize, long ringAddress, int ringFd) {
+        this.kHeadAddress = kHeadAddress;
+        this.kTailAddress = kTailAddress;
+        this.kFlagsAddress = kFlagsAddress;
+        this.kDroppedAddress = kDroppedAddress;
+        this.kArrayAddress = kArrayAddress;
+        this.submissionQueueArrayAddress = submissionQueueArrayAddress;
+        this.ringSize = ringSize;
+        this.ringAddress = ringAddress;
+        this.ringFd = ringFd;
+        ringEntries = PlatformDependent.getIntVolatile(kRingEntriesAddress);
+        ringMask = PlatformDependent.getIntVolatile(kRingMaskAddress);
+        head = PlatformDependent.getIntVolatile(kHeadAddress);
+        tail = PlatformDependent.getIntVolatile(kTailAddress);
+
+        timeoutMemoryAddress = PlatformDependent.allocateMemory(Native.SIZEOF_KERNEL_TIMESPEC);
+
+        // Zero the memory of all entries so we don't need to reset fields which we not use for each submission.
+        PlatformDependent.setMemory(submissionQueueArrayAddress, (long) ringEntries * Native.SIZEOF_IO_URING_SQE,
+                (byte) 0);
+
+        // Fill the array with the indices of the sqes. As we always use the sqes in order we never need to touch
+        // the array again.
+        long address = kArrayAddress;
+        for (int i = 0; i < ringEntries; i++, address += 4) {
+            PlatformDependent.putInt(address, i);
+        }
+    }
+
+    private boolean enqueueSqe(byte op, int rwFlags, int fd, long bufferAddress, int length, long offset,
+                               long udata) {
+        int pending = tail - head;
+        boolean submitted = false;
+        if (pending == ringEntries) {
+            // The ring is full, submit what we have so far so we can reuse the slots.
+            int submit = submit();
+            if (submit == 0) {
+                // We can't submit anything right now and so also can't enqueue.
+                throw new IllegalStateException("Submission queue full: " + pending + " pending submissions");
+            }
+            submitted = true;
+        }
+        long sqe = submissionQueueArrayAddress + (long) (tail++ & ringMask) * Native.SIZEOF_IO_URING_SQE;
+        setData(sqe, op, rwFlags, fd, bufferAddress, length, offset, udata);
+        return submitted;
+    }
+
+    private static void setData(long sqe, byte op, int rwFlags, int fd, long bufferAddress, int length,
+                                long offset, long udata) {
+        PlatformDependent.putByte(sqe + SQE_OP_CODE_FIELD, op);
+        PlatformDependent.putByte(sqe + SQE_FLAGS_FIELD, (byte) 0);
+        PlatformDependent.putShort(sqe + SQE_IOPRIO_FIELD, (short) 0);
+        PlatformDependent.putInt(sqe + SQE_FD_FIELD, fd);
+        PlatformDependent.putLong(sqe + SQE_OFFSET_FIELD, offset);
+        PlatformDependent.putLong(sqe + SQE_ADDRESS_FIELD, bufferAddress);
+        PlatformDependent.putInt(sqe + SQE_LEN_FIELD, length);
+        PlatformDependent.putInt(sqe + SQE_RW_FLAGS_FIELD, rwFlags);
+        PlatformDependent.putLong(sqe + SQE_USER_DATA_FIELD, udata);
+
+        // pad field array -> all fields should be zero
+        long pad = sqe + SQE_PAD_FIELD;
+        for (int i = SQE_PAD_FIELD; i < Native.SIZEOF_IO_URING_SQE; i += 8, pad += 8) {
+            PlatformDependent.putLong(pad, 0);
+        }
+    }
+
+    boolean addRead(int fd, long bufferAddress, int pos, int limit, int id) {
+        return enqueueSqe(Native.IORING_OP_READ, 0, fd, bufferAddress + pos, limit - pos, 0,
+                UserData.encode(id, Native.IORING_OP_READ, (short) 0));
+    }
+
+    boolean addWrite(int fd, long bufferAddress, int pos, int limit, int id) {
+        return enqueueSqe(Native.IORING_OP_WRITE, 0, fd, bufferAddress + pos, limit - pos, 0,
+                UserData.encode(id, Native.IORING_OP_WRITE, (short) 0));
+    }
+
+    boolean addWritev(int fd, long iovecArrayAddress, int length, int id) {
+        return enqueueSqe(Native.IORING_OP_WRITEV, 0, fd, iovecArrayAddress, length, 0,
+                UserData.encode(id, Native.IORING_OP_WRITEV, (short) 0));
+    }
+
+    boolean addAccept(int fd, int id) {
+        return enqueueSqe(Native.IORING_OP_ACCEPT, Native.SOCK_NONBLOCK | Native.SOCK_CLOEXEC, fd, 0, 0, 0,
+                UserData.encode(id, Native.IORING_OP_ACCEPT, (short) 0));
+    }
+
+    boolean addRecvmsg(int fd, long msgHdrAddress, int id) {
+        return enqueueSqe(Native.IORING_OP_RECVMSG, 0, fd, msgHdrAddress, 1, 0,
+                UserData.encode(id, Native.IORING_OP_RECVMSG, (short) 0));
+    }
+
+    boolean addSendmsg(int fd, long msgHdrAddress, int id) {
+        return enqueueSqe(Native.IORING_OP_SENDMSG, 0, fd, msgHdrAddress, 1, 0,
+                UserData.encode(id, Native.IORING_OP_SENDMSG, (short) 0));
+    }
+
+    /**
+     * Add a one-shot poll for the given mask. The mask is also attached to the completion so it can be told apart
+     * from other polls of the same file descriptor.
+     */
+    boolean addPoll(int fd, int pollMask, int id) {
+        return enqueueSqe(Native.IORING_OP_POLL_ADD, pollMask, fd, 0, 0, 0,
+                UserData.encode(id, Native.IORING_OP_POLL_ADD, (short) pollMask));
+    }
+
+    boolean addPollRemove(int fd, int pollMask, int id) {
+        return enqueueSqe(Native.IORING_OP_POLL_REMOVE, 0, fd,
+                UserData.encode(id, Native.IORING_OP_POLL_ADD, (short) pollMask), 0, 0,
+                UserData.encode(id, Native.IORING_OP_POLL_REMOVE, (short) pollMask));
+    }
+
+    /**
+     * Cancel the operation {@code op} of the channel with the given id, if it is still in flight.
+     */
+    boolean addCancel(int fd, byte op, int id) {
+        return enqueueSqe(Native.IORING_OP_ASYNC_CANCEL, 0, fd, UserData.encode(id, op, (short) 0), 0, 0,
+                UserData.encode(id, Native.IORING_OP_ASYNC_CANCEL, (short) 0));
+    }
+
+    boolean addTimeout(long nanoSeconds, int id) {
+        setTimeout(nanoSeconds);
+        return enqueueSqe(Native.IORING_OP_TIMEOUT, 0, -1, timeoutMemoryAddress, 1, 0,
+                UserData.encode(id, Native.IORING_OP_TIMEOUT, (short) 0));
+    }
+
+    boolean addTimeoutRemove(int id) {
+        return enqueueSqe(Native.IORING_OP_TIMEOUT_REMOVE, 0, -1,
+                UserData.encode(id, Native.IORING_OP_TIMEOUT, (short) 0), 0, 0,
+                UserData.encode(id, Native.IORING_OP_TIMEOUT_REMOVE, (short) 0));
+    }
+
+    private void setTimeout(long timeoutNanoSeconds) {
+        long seconds, nanoSeconds;
+
+        if (timeoutNanoSeconds == 0) {
+            seconds = 0;
+            nanoSeconds = 0;
+        } else {
+            seconds = (int) Math.min(timeoutNanoSeconds / NSEC_PER_SEC, Integer.MAX_VALUE);
+            nanoSeconds = (int) Math.max(timeoutNanoSeconds - seconds * NSEC_PER_SEC, 0);
+        }
+
+        PlatformDependent.putLong(timeoutMemoryAddress + KERNEL_TIMESPEC_TV_SEC_FIELD, seconds);
+        PlatformDependent.putLong(timeoutMemoryAddress + KERNEL_TIMESPEC_TV_NSEC_FIELD, nanoSeconds);
+    }
+
+    /**
+     * Returns the number of operations which were added but not submitted yet.
+     */
+    int pending() {
+        return tail - head;
+    }
+
+    /**
+     * Submit all pending operations without waiting for any completion.
+     */
+    int submit() {
+        return submit(0, 0);
+    }
+
+    /**
+     * Submit all pending operations and wait until at least one completion is ready.
+     */
+    int submitAndWait() {
+        return submit(1, Native.IORING_ENTER_GETEVENTS);
+    }
+
+    private int submit(int minComplete, int flags) {
+        int submit = tail - head;
+        if (submit == 0 && minComplete == 0) {
+            return 0;
+        }
+        PlatformDependent.putIntOrdered(kTailAddress, tail); // release memory barrier
+        int ret;
+        try {
+            ret = Native.ioUringEnter(ringFd, submit, minComplete, flags);
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+        // The kernel consumed the submissions, refresh the head so the slots can be reused. If not all submissions
+        // were consumed (for example because the completion queue is overflowing) the remaining ones are retried on
+        // the next call.
+        head = PlatformDependent.getIntVolatile(kHeadAddress);
+        return ret;
+    }
+
+    /**
+     * Returns the number of submissions the kernel dropped because they were invalid.
+     */
+    int dropped() {
+        return PlatformDependent.getIntVolatile(kDroppedAddress);
+    }
+
+    int flags() {
+        return PlatformDependent.getIntVolatile(kFlagsAddress);
+    }
+
+    int ringEntries() {
+        return ringEntries;
+    }
+
+    void release() {
+        PlatformDependent.freeMemory(timeoutMemoryAddress);
+    }
+}
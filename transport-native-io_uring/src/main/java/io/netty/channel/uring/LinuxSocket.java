@@ -0,0 +1,74 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.ChannelException;
+import io.netty.channel.socket.InternetProtocolFamily;
+import io.netty.channel.unix.Socket;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * A socket which is driven by io_uring.
+ */
+final class LinuxSocket extends Socket {
+    static final InetAddress INET6_ANY = unsafeInetAddrByName("::");
+
+    LinuxSocket(int fd) {
+        super(fd);
+    }
+
+    InternetProtocolFamily family() {
+        return ipv6 ? InternetProtocolFamily.IPv6 : InternetProtocolFamily.IPv4;
+    }
+
+    boolean isIpv6() {
+        return ipv6;
+    }
+
+    static LinuxSocket newSocketStream(boolean ipv6) {
+        return new LinuxSocket(newSocketStream0(ipv6));
+    }
+
+    static LinuxSocket newSocketStream(InternetProtocolFamily protocol) {
+        return newSocketStream(protocol == InternetProtocolFamily.IPv6);
+    }
+
+    public static LinuxSocket newSocketStream() {
+        return newSocketStream(isIPv6Preferred());
+    }
+
+    static LinuxSocket newSocketDgram(boolean ipv6) {
+        return new LinuxSocket(newSocketDgram0(ipv6));
+    }
+
+    static LinuxSocket newSocketDgram(InternetProtocolFamily family) {
+        return newSocketDgram(family == InternetProtocolFamily.IPv6);
+    }
+
+    public static LinuxSocket newSocketDgram() {
+        return newSocketDgram(isIPv6Preferred());
+    }
+
+    private static InetAddress unsafeInetAddrByName(String inetName) {
+        try {
+            return InetAddress.getByName(inetName);
+        } catch (UnknownHostException uhe) {
+            throw new ChannelException(uhe);
+        }
+    }
+}
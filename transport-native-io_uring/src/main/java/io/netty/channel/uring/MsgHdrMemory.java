@@ -0,0 +1,100 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.unix.Buffer;
+import io.netty.util.internal.PlatformDependent;
+
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Native memory which holds a {@code struct msghdr} together with the {@code struct sockaddr_storage} and the
+ * {@code struct iovec} it points to. Used for the {@code IORING_OP_SENDMSG} and {@code IORING_OP_RECVMSG}
+ * operations, the memory must not be touched while such an operation is in flight.
+ */
+final class MsgHdrMemory {
+    private static final int ADDRESS_SIZE = Buffer.addressSize();
+
+    private final long memory;
+    private final long msgHdrAddress;
+    private final long sockAddress;
+    private final long iovAddress;
+
+    MsgHdrMemory() {
+        int size = Native.SIZEOF_MSGHDR + Native.SIZEOF_SOCKADDR_STORAGE + 2 * ADDRESS_SIZE;
+        memory = PlatformDependent.allocateMemory(size);
+        PlatformDependent.setMemory(memory, size, (byte) 0);
+        msgHdrAddress = memory;
+        sockAddress = memory + Native.SIZEOF_MSGHDR;
+        iovAddress = sockAddress + Native.SIZEOF_SOCKADDR_STORAGE;
+    }
+
+    /**
+     * Prepare the memory for sending the given data to the given address. If {@code address} is {@code null} the
+     * data is sent to the address the socket is connected to.
+     */
+    void prepareWrite(boolean ipv6, InetSocketAddress address, long bufferAddress, int length) {
+        final int addressLength;
+        if (address == null) {
+            addressLength = 0;
+        } else {
+            addressLength = SockaddrIn.write(ipv6, sockAddress, address);
+        }
+        prepare(address == null ? 0 : sockAddress, addressLength, bufferAddress, length);
+    }
+
+    /**
+     * Prepare the memory for receiving data into the given buffer.
+     */
+    void prepareRead(long bufferAddress, int length) {
+        prepare(sockAddress, Native.SIZEOF_SOCKADDR_STORAGE, bufferAddress, length);
+    }
+
+    private void prepare(long name, int nameLength, long bufferAddress, int length) {
+        putAddress(iovAddress, bufferAddress);
+        putAddress(iovAddress + ADDRESS_SIZE, length);
+
+        putAddress(msgHdrAddress + Native.MSGHDR_OFFSETOF_NAME, name);
+        PlatformDependent.putInt(msgHdrAddress + Native.MSGHDR_OFFSETOF_NAMELEN, nameLength);
+        putAddress(msgHdrAddress + Native.MSGHDR_OFFSETOF_IOV, iovAddress);
+        putAddress(msgHdrAddress + Native.MSGHDR_OFFSETOF_IOVLEN, 1);
+    }
+
+    private static void putAddress(long address, long value) {
+        if (ADDRESS_SIZE == 8) {
+            PlatformDependent.putLong(address, value);
+        } else {
+            assert ADDRESS_SIZE == 4;
+            PlatformDependent.putInt(address, (int) value);
+        }
+    }
+
+    /**
+     * Returns the address of the sender of the last received datagram.
+     */
+    InetSocketAddress sender() throws UnknownHostException {
+        return SockaddrIn.read(sockAddress);
+    }
+
+    long address() {
+        return msgHdrAddress;
+    }
+
+    void release() {
+        PlatformDependent.freeMemory(memory);
+    }
+}
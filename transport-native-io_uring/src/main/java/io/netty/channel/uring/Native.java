@@ -0,0 +1,221 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.Unix;
+import io.netty.util.internal.NativeLibraryLoader;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.ThrowableUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.Selector;
+import java.util.Locale;
+
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.afInet;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.afInet6;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ecanceled;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.etime;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringEnterGetevents;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringOpAccept;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringOpAsyncCancel;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringOpPollAdd;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringOpPollRemove;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringOpRead;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringOpRecvmsg;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringOpSendmsg;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringOpTimeout;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringOpTimeoutRemove;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringOpWrite;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.ioringOpWritev;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.kernelVersion;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.offsetofMsghdrIov;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.offsetofMsghdrIovlen;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.offsetofMsghdrName;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.offsetofMsghdrNamelen;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.pollin;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.pollout;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.pollrdhup;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.sizeofIoUringCqe;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.sizeofIoUringSqe;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.sizeofKernelTimespec;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.sizeofMsghdr;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.sizeofSockaddrIn;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.sizeofSockaddrIn6;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.sizeofSockaddrStorage;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.sockCloexec;
+import static io.netty.channel.uring.NativeStaticallyReferencedJniMethods.sockNonblock;
+import static io.netty.channel.unix.Errors.newIOException;
+
+/**
+ * Native helper methods
+ * <p><strong>Internal usage only!</strong>
+ * <p>Static members which call JNI methods must be defined in {@link NativeStaticallyReferencedJniMethods}.
+ */
+final class Native {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(Native.class);
+
+    static {
+        Selector selector = null;
+        try {
+            // We call Selector.open() as this will under the hood cause IOUtil to be loaded.
+            // This is a workaround for a possible classloader deadlock that could happen otherwise:
+            //
+            // See https://github.com/netty/netty/issues/10187
+            selector = Selector.open();
+        } catch (IOException ignore) {
+            // Just ignore
+        }
+        try {
+            // First, try calling a side-effect free JNI method to see if the library was already
+            // loaded by the application.
+            sizeofIoUringSqe();
+        } catch (UnsatisfiedLinkError ignore) {
+            // The library was not previously loaded, load it now.
+            loadNativeLibrary();
+        } finally {
+            try {
+                if (selector != null) {
+                    selector.close();
+                }
+            } catch (IOException ignore) {
+                // Just ignore
+            }
+        }
+        Unix.registerInternal(new Runnable() {
+            @Override
+            public void run() {
+                registerUnix();
+            }
+        });
+    }
+
+    static final int DEFAULT_RING_SIZE = Math.max(64, SystemPropertyUtil.getInt("io.netty.uring.ringSize", 4096));
+
+    static final int SIZEOF_IO_URING_SQE = sizeofIoUringSqe();
+    static final int SIZEOF_IO_URING_CQE = sizeofIoUringCqe();
+    static final int SIZEOF_KERNEL_TIMESPEC = sizeofKernelTimespec();
+    static final int SIZEOF_MSGHDR = sizeofMsghdr();
+    static final int MSGHDR_OFFSETOF_NAME = offsetofMsghdrName();
+    static final int MSGHDR_OFFSETOF_NAMELEN = offsetofMsghdrNamelen();
+    static final int MSGHDR_OFFSETOF_IOV = offsetofMsghdrIov();
+    static final int MSGHDR_OFFSETOF_IOVLEN = offsetofMsghdrIovlen();
+    static final int SIZEOF_SOCKADDR_STORAGE = sizeofSockaddrStorage();
+    static final int SIZEOF_SOCKADDR_IN = sizeofSockaddrIn();
+    static final int SIZEOF_SOCKADDR_IN6 = sizeofSockaddrIn6();
+    static final int AF_INET = afInet();
+    static final int AF_INET6 = afInet6();
+    static final int POLLIN = pollin();
+    static final int POLLOUT = pollout();
+    static final int POLLRDHUP = pollrdhup();
+    static final int SOCK_NONBLOCK = sockNonblock();
+    static final int SOCK_CLOEXEC = sockCloexec();
+    static final int ERRNO_ETIME_NEGATIVE = -etime();
+    static final int ERRNO_ECANCELED_NEGATIVE = -ecanceled();
+    static final int IORING_ENTER_GETEVENTS = ioringEnterGetevents();
+    static final byte IORING_OP_WRITEV = (byte) ioringOpWritev();
+    static final byte IORING_OP_POLL_ADD = (byte) ioringOpPollAdd();
+    static final byte IORING_OP_POLL_REMOVE = (byte) ioringOpPollRemove();
+    static final byte IORING_OP_SENDMSG = (byte) ioringOpSendmsg();
+    static final byte IORING_OP_RECVMSG = (byte) ioringOpRecvmsg();
+    static final byte IORING_OP_TIMEOUT = (byte) ioringOpTimeout();
+    static final byte IORING_OP_TIMEOUT_REMOVE = (byte) ioringOpTimeoutRemove();
+    static final byte IORING_OP_ACCEPT = (byte) ioringOpAccept();
+    static final byte IORING_OP_ASYNC_CANCEL = (byte) ioringOpAsyncCancel();
+    static final byte IORING_OP_READ = (byte) ioringOpRead();
+    static final byte IORING_OP_WRITE = (byte) ioringOpWrite();
+    static final String KERNEL_VERSION = kernelVersion();
+
+    static RingBuffer createRingBuffer() {
+        return createRingBuffer(DEFAULT_RING_SIZE);
+    }
+
+    static RingBuffer createRingBuffer(int ringSize) {
+        long[] values = ioUringSetup(ringSize);
+        assert values.length == 21;
+        IOUringSubmissionQueue submissionQueue = new IOUringSubmissionQueue(
+                values[0],
+                values[1],
+                values[2],
+                values[3],
+                values[4],
+                values[5],
+                values[6],
+                values[7],
+                (int) values[8],
+                values[9],
+                (int) values[19]);
+        IOUringCompletionQueue completionQueue = new IOUringCompletionQueue(
+                values[10],
+                values[11],
+                values[12],
+                values[13],
+                values[14],
+                values[15],
+                (int) values[16],
+                values[17],
+                (int) values[19]);
+        return new RingBuffer(submissionQueue, completionQueue, (int) values[18], (int) values[20]);
+    }
+
+    static int ioUringEnter(int ringFd, int toSubmit, int minComplete, int flags) throws IOException {
+        int res = ioUringEnter0(ringFd, toSubmit, minComplete, flags);
+        if (res < 0) {
+            throw newIOException("io_uring_enter", res);
+        }
+        return res;
+    }
+
+    static FileDescriptor newEventFd() {
+        return new FileDescriptor(eventFd());
+    }
+
+    private static native long[] ioUringSetup(int entries);
+    static native void ioUringExit(long sqRingAddress, int sqRingSize, long cqRingAddress, int cqRingSize,
+                                   long sqesAddress, int sqesSize, int ringFd);
+    private static native int ioUringEnter0(int ringFd, int toSubmit, int minComplete, int flags);
+    private static native int eventFd();
+    static native void eventFdWrite(int fd, long value);
+    private static native int registerUnix();
+
+    private static void loadNativeLibrary() {
+        String name = SystemPropertyUtil.get("os.name").toLowerCase(Locale.UK).trim();
+        if (!name.startsWith("linux")) {
+            throw new IllegalStateException("Only supported on Linux");
+        }
+        String staticLibName = "netty_transport_native_io_uring";
+        String sharedLibName = staticLibName + '_' + PlatformDependent.normalizedArch();
+        ClassLoader cl = PlatformDependent.getClassLoader(Native.class);
+        try {
+            NativeLibraryLoader.load(sharedLibName, cl);
+        } catch (UnsatisfiedLinkError e1) {
+            try {
+                NativeLibraryLoader.load(staticLibName, cl);
+                logger.debug("Failed to load {}", sharedLibName, e1);
+            } catch (UnsatisfiedLinkError e2) {
+                ThrowableUtil.addSuppressed(e1, e2);
+                throw e1;
+            }
+        }
+    }
+
+    private Native() {
+        // utility
+    }
+}
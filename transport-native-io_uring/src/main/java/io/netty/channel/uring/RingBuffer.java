@@ -0,0 +1,62 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+/**
+ * Holds the submission and completion queue of one io_uring instance.
+ */
+final class RingBuffer {
+    private final IOUringSubmissionQueue ioUringSubmissionQueue;
+    private final IOUringCompletionQueue ioUringCompletionQueue;
+    private final int sqesSize;
+    private final int features;
+
+    RingBuffer(IOUringSubmissionQueue ioUringSubmissionQueue, IOUringCompletionQueue ioUringCompletionQueue,
+               int sqesSize, int features) {
+        this.ioUringSubmissionQueue = ioUringSubmissionQueue;
+        this.ioUringCompletionQueue = ioUringCompletionQueue;
+        this.sqesSize = sqesSize;
+        this.features = features;
+    }
+
+    int fd() {
+        return ioUringCompletionQueue.ringFd;
+    }
+
+    int features() {
+        return features;
+    }
+
+    IOUringSubmissionQueue ioUringSubmissionQueue() {
+        return ioUringSubmissionQueue;
+    }
+
+    IOUringCompletionQueue ioUringCompletionQueue() {
+        return ioUringCompletionQueue;
+    }
+
+    void close() {
+        ioUringSubmissionQueue.release();
+        Native.ioUringExit(
+                ioUringSubmissionQueue.ringAddress,
+                ioUringSubmissionQueue.ringSize,
+                ioUringCompletionQueue.ringAddress,
+                ioUringCompletionQueue.ringSize,
+                ioUringSubmissionQueue.submissionQueueArrayAddress,
+                sqesSize,
+                ioUringCompletionQueue.ringFd);
+    }
+}
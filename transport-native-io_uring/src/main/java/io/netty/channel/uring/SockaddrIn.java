@@ -0,0 +1,126 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Reads and writes {@code struct sockaddr_in} and {@code struct sockaddr_in6} from / to native memory.
+ */
+final class SockaddrIn {
+    static final byte[] IPV4_MAPPED_IPV6_PREFIX = {
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, (byte) 0xff, (byte) 0xff };
+
+    // Offsets into struct sockaddr_in / struct sockaddr_in6, which are the same on all linux platforms.
+    private static final int SOCKADDR_FAMILY_OFFSET = 0;
+    private static final int SOCKADDR_PORT_OFFSET = 2;
+    private static final int SOCKADDR_IN_ADDR_OFFSET = 4;
+    private static final int SOCKADDR_IN6_FLOWINFO_OFFSET = 4;
+    private static final int SOCKADDR_IN6_ADDR_OFFSET = 8;
+    private static final int SOCKADDR_IN6_SCOPE_ID_OFFSET = 24;
+
+    private SockaddrIn() { }
+
+    /**
+     * Write the given address to the memory and return the length of the written {@code struct sockaddr}.
+     */
+    static int write(boolean ipv6, long memory, InetSocketAddress address) {
+        if (ipv6) {
+            return writeIPv6(memory, address.getAddress(), address.getPort());
+        }
+        return writeIPv4(memory, address.getAddress(), address.getPort());
+    }
+
+    static int writeIPv4(long memory, InetAddress address, int port) {
+        PlatformDependent.setMemory(memory, Native.SIZEOF_SOCKADDR_IN, (byte) 0);
+
+        PlatformDependent.putShort(memory + SOCKADDR_FAMILY_OFFSET, (short) Native.AF_INET);
+        PlatformDependent.putShort(memory + SOCKADDR_PORT_OFFSET, handleNetworkOrder((short) port));
+
+        byte[] bytes = address.getAddress();
+        int offset = 0;
+        if (bytes.length == 16) {
+            // IPv4-mapped-on-IPv6 address, only use the IPv4 part.
+            offset = IPV4_MAPPED_IPV6_PREFIX.length;
+        }
+        PlatformDependent.copyMemory(bytes, offset, memory + SOCKADDR_IN_ADDR_OFFSET, 4);
+        return Native.SIZEOF_SOCKADDR_IN;
+    }
+
+    static int writeIPv6(long memory, InetAddress address, int port) {
+        PlatformDependent.setMemory(memory, Native.SIZEOF_SOCKADDR_IN6, (byte) 0);
+
+        PlatformDependent.putShort(memory + SOCKADDR_FAMILY_OFFSET, (short) Native.AF_INET6);
+        PlatformDependent.putShort(memory + SOCKADDR_PORT_OFFSET, handleNetworkOrder((short) port));
+        PlatformDependent.putInt(memory + SOCKADDR_IN6_FLOWINFO_OFFSET, 0);
+
+        byte[] bytes = address.getAddress();
+        long addrMemory = memory + SOCKADDR_IN6_ADDR_OFFSET;
+        if (bytes.length == 4) {
+            // Convert to IPv4-mapped-on-IPv6 address.
+            PlatformDependent.copyMemory(IPV4_MAPPED_IPV6_PREFIX, 0, addrMemory, IPV4_MAPPED_IPV6_PREFIX.length);
+            PlatformDependent.copyMemory(bytes, 0, addrMemory + IPV4_MAPPED_IPV6_PREFIX.length, 4);
+        } else {
+            PlatformDependent.copyMemory(bytes, 0, addrMemory, 16);
+            PlatformDependent.putInt(memory + SOCKADDR_IN6_SCOPE_ID_OFFSET, ((Inet6Address) address).getScopeId());
+        }
+        return Native.SIZEOF_SOCKADDR_IN6;
+    }
+
+    /**
+     * Read the {@code struct sockaddr} that is stored in the memory.
+     */
+    static InetSocketAddress read(long memory) throws UnknownHostException {
+        int family = PlatformDependent.getShort(memory + SOCKADDR_FAMILY_OFFSET);
+        int port = handleNetworkOrder(PlatformDependent.getShort(memory + SOCKADDR_PORT_OFFSET)) & 0xFFFF;
+        final InetAddress address;
+        if (family == Native.AF_INET) {
+            byte[] bytes = new byte[4];
+            PlatformDependent.copyMemory(memory + SOCKADDR_IN_ADDR_OFFSET, bytes, 0, bytes.length);
+            address = InetAddress.getByAddress(bytes);
+        } else {
+            byte[] bytes = new byte[16];
+            PlatformDependent.copyMemory(memory + SOCKADDR_IN6_ADDR_OFFSET, bytes, 0, bytes.length);
+            if (isIPv4Mapped(bytes)) {
+                byte[] ipv4 = new byte[4];
+                System.arraycopy(bytes, IPV4_MAPPED_IPV6_PREFIX.length, ipv4, 0, ipv4.length);
+                address = InetAddress.getByAddress(ipv4);
+            } else {
+                address = Inet6Address.getByAddress(
+                        null, bytes, PlatformDependent.getInt(memory + SOCKADDR_IN6_SCOPE_ID_OFFSET));
+            }
+        }
+        return new InetSocketAddress(address, port);
+    }
+
+    private static boolean isIPv4Mapped(byte[] bytes) {
+        for (int i = 0; i < IPV4_MAPPED_IPV6_PREFIX.length; i++) {
+            if (bytes[i] != IPV4_MAPPED_IPV6_PREFIX[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static short handleNetworkOrder(short v) {
+        return PlatformDependent.BIG_ENDIAN_NATIVE_ORDER ? v : Short.reverseBytes(v);
+    }
+}
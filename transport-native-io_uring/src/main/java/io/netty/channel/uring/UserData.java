@@ -0,0 +1,44 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+/**
+ * Encodes and decodes the {@code user_data} that is attached to each submission and returned with its completion.
+ * <p>
+ * The layout is {@code [id: 32 bits][op: 8 bits][unused: 8 bits][data: 16 bits]}.
+ */
+final class UserData {
+
+    static long encode(int id, byte op, short data) {
+        return ((long) id << 32) | ((op & 0xFFL) << 24) | (data & 0xFFFFL);
+    }
+
+    static int decodeId(long udata) {
+        return (int) (udata >>> 32);
+    }
+
+    static byte decodeOp(long udata) {
+        return (byte) ((udata >>> 24) & 0xFF);
+    }
+
+    static short decodeData(long udata) {
+        return (short) (udata & 0xFFFF);
+    }
+
+    private UserData() {
+        // utility
+    }
+}
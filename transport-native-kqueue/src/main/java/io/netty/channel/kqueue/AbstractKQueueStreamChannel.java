@@ -27,6 +27,7 @@ import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.DefaultFileRegion;
 import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopMetrics;
 import io.netty.channel.FileRegion;
 import io.netty.channel.internal.ChannelUtils;
 import io.netty.channel.socket.DuplexChannel;
@@ -522,6 +523,8 @@ public abstract class AbstractKQueueStreamChannel extends AbstractKQueueChannel
 
             ByteBuf byteBuf = null;
             boolean close = false;
+            long readBytes = 0;
+            int readMessages = 0;
             try {
                 do {
                     // we use a direct buffer here as the native implementations only be able
@@ -540,6 +543,8 @@ public abstract class AbstractKQueueStreamChannel extends AbstractKQueueChannel
                         break;
                     }
                     allocHandle.incMessagesRead(1);
+                    readBytes += allocHandle.lastBytesRead();
+                    readMessages++;
                     readPending = false;
                     pipeline.fireChannelRead(byteBuf);
                     byteBuf = null;
@@ -561,6 +566,10 @@ public abstract class AbstractKQueueStreamChannel extends AbstractKQueueChannel
                 } while (allocHandle.continueReading());
 
                 allocHandle.readComplete();
+                EventLoopMetrics metrics = eventLoopMetrics();
+                if (metrics != null) {
+                    metrics.channelRead(AbstractKQueueStreamChannel.this, readBytes, readMessages);
+                }
                 pipeline.fireChannelReadComplete();
 
                 if (close) {
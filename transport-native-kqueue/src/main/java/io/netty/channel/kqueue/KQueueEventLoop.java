@@ -17,6 +17,7 @@ package io.netty.channel.kqueue;
 
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.EventLoopMetrics;
 import io.netty.channel.EventLoopTaskQueueFactory;
 import io.netty.channel.SelectStrategy;
 import io.netty.channel.SingleThreadEventLoop;
@@ -146,6 +147,10 @@ final class KQueueEventLoop extends SingleThreadEventLoop {
     protected void wakeup(boolean inEventLoop) {
         if (!inEventLoop && WAKEN_UP_UPDATER.compareAndSet(this, 0, 1)) {
             wakeup();
+            EventLoopMetrics metrics = metrics();
+            if (metrics != null) {
+                metrics.wakeup(this);
+            }
         }
     }
 
@@ -273,26 +278,36 @@ final class KQueueEventLoop extends SingleThreadEventLoop {
                 }
 
                 final int ioRatio = this.ioRatio;
+                final EventLoopMetrics metrics = metrics();
+                final long completedTasks = metrics != null ? completedTasks() : 0;
+                final long ioStartTime = metrics != null || ioRatio != 100 ? System.nanoTime() : 0;
+                long ioEndTime = ioStartTime;
                 if (ioRatio == 100) {
                     try {
                         if (strategy > 0) {
                             processReady(strategy);
                         }
                     } finally {
+                        if (metrics != null) {
+                            ioEndTime = System.nanoTime();
+                        }
                         runAllTasks();
                     }
                 } else {
-                    final long ioStartTime = System.nanoTime();
-
                     try {
                         if (strategy > 0) {
                             processReady(strategy);
                         }
                     } finally {
-                        final long ioTime = System.nanoTime() - ioStartTime;
+                        ioEndTime = System.nanoTime();
+                        final long ioTime = ioEndTime - ioStartTime;
                         runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
                     }
                 }
+                if (metrics != null) {
+                    metrics.iterationCompleted(this, ioEndTime - ioStartTime, System.nanoTime() - ioEndTime,
+                            completedTasks() - completedTasks, pendingTasks());
+                }
                 if (allowGrowing && strategy == eventList.capacity()) {
                     //increase the size of the array as we needed the whole space for the events
                     eventList.realloc(false);
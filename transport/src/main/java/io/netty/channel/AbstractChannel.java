@@ -154,6 +154,16 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
         return eventLoop;
     }
 
+    /**
+     * Returns the {@link EventLoopMetrics} of the {@link EventLoop} this {@link Channel} is registered to, or
+     * {@code null} if metrics are disabled.
+     */
+    @UnstableApi
+    protected final EventLoopMetrics eventLoopMetrics() {
+        EventLoop eventLoop = this.eventLoop;
+        return eventLoop instanceof SingleThreadEventLoop ? ((SingleThreadEventLoop) eventLoop).metrics() : null;
+    }
+
     @Override
     public SocketAddress localAddress() {
         SocketAddress localAddress = this.localAddress;
@@ -937,6 +947,8 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
                 return;
             }
 
+            EventLoopMetrics metrics = eventLoopMetrics();
+            outboundBuffer.metrics(metrics);
             try {
                 doWrite(outboundBuffer);
             } catch (Throwable t) {
@@ -944,6 +956,10 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
             } finally {
                 inFlush0 = false;
             }
+
+            if (metrics != null) {
+                outboundBuffer.reportFlushed();
+            }
         }
 
         protected final void handleWriteError(Throwable t) {
@@ -89,6 +89,11 @@ public final class ChannelOutboundBuffer {
 
     private boolean inFail;
 
+    // Only set while metrics are enabled, so nothing is counted otherwise. Only accessed from the event loop.
+    private EventLoopMetrics metrics;
+    private long writtenBytes;
+    private long writtenMessages;
+
     private static final AtomicLongFieldUpdater<ChannelOutboundBuffer> TOTAL_PENDING_SIZE_UPDATER =
             AtomicLongFieldUpdater.newUpdater(ChannelOutboundBuffer.class, "totalPendingSize");
 
@@ -238,6 +243,9 @@ public final class ChannelOutboundBuffer {
      * Notify the {@link ChannelPromise} of the current message about writing progress.
      */
     public void progress(long amount) {
+        if (metrics != null) {
+            writtenBytes += amount;
+        }
         Entry e = flushedEntry;
         assert e != null;
         ChannelPromise p = e.promise;
@@ -268,6 +276,9 @@ public final class ChannelOutboundBuffer {
 
         if (!e.cancelled) {
             // only release message, notify and decrement if it was not canceled before.
+            if (metrics != null) {
+                writtenMessages++;
+            }
             ReferenceCountUtil.safeRelease(msg);
             safeSuccess(promise);
             decrementPendingOutboundBytes(size, false, true);
@@ -279,6 +290,62 @@ public final class ChannelOutboundBuffer {
         return true;
     }
 
+    /**
+     * Sets the {@link EventLoopMetrics} the written bytes and messages are counted for, or {@code null} to not count
+     * them at all.
+     */
+    void metrics(EventLoopMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Reports the bytes and messages written since the last call to the {@link EventLoopMetrics} set via
+     * {@link #metrics(EventLoopMetrics)}, if any.
+     */
+    void reportFlushed() {
+        EventLoopMetrics metrics = this.metrics;
+        if (metrics != null) {
+            long bytes = writtenBytes;
+            long messages = writtenMessages;
+            writtenBytes = 0;
+            writtenMessages = 0;
+            metrics.channelFlushed(channel, bytes, messages);
+        }
+    }
+
+    /**
+     * Will remove the current message without releasing it and without notifying its {@link ChannelPromise}, and
+     * return this {@link ChannelPromise}. The caller takes over the message and is responsible for releasing it and
+     * notifying the returned {@link ChannelPromise} once the transport does not use its memory anymore. This is useful
+     * for transports which are only notified asynchronously once the written memory may be reused.
+     * If no flushed message exists, or the message was cancelled before, it will return {@code null}.
+     */
+    public ChannelPromise removeDeferred() {
+        Entry e = flushedEntry;
+        if (e == null) {
+            clearNioBuffers();
+            return null;
+        }
+        ChannelPromise promise = e.promise;
+        int size = e.pendingSize;
+        boolean cancelled = e.cancelled;
+
+        removeEntry(e);
+
+        if (!cancelled) {
+            // only decrement if it was not canceled before.
+            if (metrics != null) {
+                writtenMessages++;
+            }
+            decrementPendingOutboundBytes(size, false, true);
+        }
+
+        // recycle the entry
+        e.recycle();
+
+        return cancelled ? null : promise;
+    }
+
     /**
      * Will remove the current message, mark its {@link ChannelPromise} as failure using the given {@link Throwable}
      * and return {@code true}. If no   flushed message exists at the time this method is called it will return
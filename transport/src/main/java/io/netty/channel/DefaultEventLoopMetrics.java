@@ -0,0 +1,204 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * Default {@link EventLoopMetrics} implementation, which aggregates the metrics of all event loops and channels it
+ * was set on. It is thread-safe and can be shared by all event loops of a {@link MultithreadEventLoopGroup}.
+ * <p>
+ * Histograms are returned as an array of 64 buckets, where bucket {@code 0} counts the value {@code 0} and bucket
+ * {@code i} counts the values in the range {@code [2^(i-1), 2^i)}.
+ */
+@UnstableApi
+public final class DefaultEventLoopMetrics implements EventLoopMetrics {
+
+    private final LongCounter iterations = PlatformDependent.newLongCounter();
+    private final LongCounter ioTimeNanos = PlatformDependent.newLongCounter();
+    private final LongCounter taskTimeNanos = PlatformDependent.newLongCounter();
+    private final LongCounter tasksRun = PlatformDependent.newLongCounter();
+    private final LongCounter wakeups = PlatformDependent.newLongCounter();
+    private final LongCounter bytesRead = PlatformDependent.newLongCounter();
+    private final LongCounter messagesRead = PlatformDependent.newLongCounter();
+    private final LongCounter bytesWritten = PlatformDependent.newLongCounter();
+    private final LongCounter messagesWritten = PlatformDependent.newLongCounter();
+    private final LongCounter flushes = PlatformDependent.newLongCounter();
+    private final Histogram iterationTimeHistogram = new Histogram();
+    private final Histogram tasksRunHistogram = new Histogram();
+    private final Histogram pendingTasksHistogram = new Histogram();
+
+    @Override
+    public void iterationCompleted(SingleThreadEventLoop eventLoop, long ioTimeNanos, long taskTimeNanos,
+                                   long tasksRun, int pendingTasks) {
+        iterations.increment();
+        this.ioTimeNanos.add(ioTimeNanos);
+        this.taskTimeNanos.add(taskTimeNanos);
+        this.tasksRun.add(tasksRun);
+        iterationTimeHistogram.record(ioTimeNanos + taskTimeNanos);
+        tasksRunHistogram.record(tasksRun);
+        pendingTasksHistogram.record(pendingTasks);
+    }
+
+    @Override
+    public void wakeup(SingleThreadEventLoop eventLoop) {
+        wakeups.increment();
+    }
+
+    @Override
+    public void channelRead(Channel channel, long bytes, long messages) {
+        bytesRead.add(bytes);
+        messagesRead.add(messages);
+    }
+
+    @Override
+    public void channelFlushed(Channel channel, long bytes, long messages) {
+        flushes.increment();
+        bytesWritten.add(bytes);
+        messagesWritten.add(messages);
+    }
+
+    /**
+     * Returns the number of completed event loop iterations.
+     */
+    public long iterations() {
+        return iterations.value();
+    }
+
+    /**
+     * Returns the total time spent processing I/O events, in nanoseconds.
+     */
+    public long ioTimeNanos() {
+        return ioTimeNanos.value();
+    }
+
+    /**
+     * Returns the total time spent running tasks, in nanoseconds.
+     */
+    public long taskTimeNanos() {
+        return taskTimeNanos.value();
+    }
+
+    /**
+     * Returns the total number of tasks that were run.
+     */
+    public long tasksRun() {
+        return tasksRun.value();
+    }
+
+    /**
+     * Returns the number of times an event loop was woken up by another thread.
+     */
+    public long wakeups() {
+        return wakeups.value();
+    }
+
+    /**
+     * Returns the total number of bytes read by all channels.
+     */
+    public long bytesRead() {
+        return bytesRead.value();
+    }
+
+    /**
+     * Returns the total number of messages read by all channels.
+     */
+    public long messagesRead() {
+        return messagesRead.value();
+    }
+
+    /**
+     * Returns the total number of bytes written by all channels.
+     */
+    public long bytesWritten() {
+        return bytesWritten.value();
+    }
+
+    /**
+     * Returns the total number of messages written by all channels.
+     */
+    public long messagesWritten() {
+        return messagesWritten.value();
+    }
+
+    /**
+     * Returns the total number of flushes of all channels.
+     */
+    public long flushes() {
+        return flushes.value();
+    }
+
+    /**
+     * Returns the histogram of the busy time (I/O and tasks) of each event loop iteration, in nanoseconds.
+     */
+    public long[] iterationTimeHistogram() {
+        return iterationTimeHistogram.snapshot();
+    }
+
+    /**
+     * Returns the histogram of the number of tasks run per event loop iteration.
+     */
+    public long[] tasksRunHistogram() {
+        return tasksRunHistogram.snapshot();
+    }
+
+    /**
+     * Returns the histogram of the number of pending tasks at the end of each event loop iteration.
+     */
+    public long[] pendingTasksHistogram() {
+        return pendingTasksHistogram.snapshot();
+    }
+
+    @Override
+    public String toString() {
+        return "DefaultEventLoopMetrics(iterations: " + iterations() +
+                ", ioTimeNanos: " + ioTimeNanos() +
+                ", taskTimeNanos: " + taskTimeNanos() +
+                ", tasksRun: " + tasksRun() +
+                ", wakeups: " + wakeups() +
+                ", bytesRead: " + bytesRead() +
+                ", messagesRead: " + messagesRead() +
+                ", bytesWritten: " + bytesWritten() +
+                ", messagesWritten: " + messagesWritten() +
+                ", flushes: " + flushes() + ')';
+    }
+
+    private static final class Histogram {
+        private final LongCounter[] buckets = new LongCounter[64];
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = PlatformDependent.newLongCounter();
+            }
+        }
+
+        void record(long value) {
+            // Negative values can only be the result of a non-monotonic clock, just count them as 0.
+            buckets[value <= 0 ? 0 : Math.min(64 - Long.numberOfLeadingZeros(value), buckets.length - 1)]
+                    .increment();
+        }
+
+        long[] snapshot() {
+            long[] values = new long[buckets.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = buckets[i].value();
+            }
+            return values;
+        }
+    }
+}
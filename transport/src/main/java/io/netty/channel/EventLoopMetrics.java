@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * Receives metrics about the work done by a {@link SingleThreadEventLoop} and the {@link Channel}s registered to it.
+ * <p>
+ * Metrics are disabled by default, and an event loop only collects them once an instance was set via
+ * {@link SingleThreadEventLoop#setMetrics(EventLoopMetrics)} or {@link MultithreadEventLoopGroup#setMetrics(
+ * EventLoopMetrics)}. All methods except {@link #wakeup(SingleThreadEventLoop)} are called from the event loop
+ * thread, so an implementation that is shared between multiple event loops must be thread-safe. Implementations
+ * should never block, as this would block the event loop.
+ */
+@UnstableApi
+public interface EventLoopMetrics {
+
+    /**
+     * Called at the end of each event loop iteration.
+     *
+     * @param eventLoop     the event loop which completed the iteration.
+     * @param ioTimeNanos   the time spent processing I/O events in this iteration, which does not include the time
+     *                      spent waiting for I/O events.
+     * @param taskTimeNanos the time spent running tasks in this iteration.
+     * @param tasksRun      the number of tasks that were run in this iteration.
+     * @param pendingTasks  the number of tasks that are still pending at the end of this iteration.
+     */
+    void iterationCompleted(SingleThreadEventLoop eventLoop, long ioTimeNanos, long taskTimeNanos, long tasksRun,
+                            int pendingTasks);
+
+    /**
+     * Called when a thread outside of the event loop actually woke it up, which is a {@code Selector.wakeup()} or a
+     * write to an event file descriptor depending on the transport. This method may be called from any thread.
+     */
+    void wakeup(SingleThreadEventLoop eventLoop);
+
+    /**
+     * Called after a {@link Channel} completed reading from the socket.
+     *
+     * @param channel  the channel that was read from.
+     * @param bytes    the number of bytes read.
+     * @param messages the number of messages read.
+     */
+    void channelRead(Channel channel, long bytes, long messages);
+
+    /**
+     * Called after a {@link Channel} was flushed.
+     *
+     * @param channel  the channel that was flushed.
+     * @param bytes    the number of bytes written since the last call for this channel.
+     * @param messages the number of messages that were completely written since the last call for this channel.
+     */
+    void channelFlushed(Channel channel, long bytes, long messages);
+}
@@ -17,9 +17,11 @@ package io.netty.channel;
 
 import io.netty.util.NettyRuntime;
 import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.EventExecutorChooserFactory;
 import io.netty.util.concurrent.MultithreadEventExecutorGroup;
 import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.UnstableApi;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
@@ -97,4 +99,18 @@ public abstract class MultithreadEventLoopGroup extends MultithreadEventExecutor
         return next().register(channel, promise);
     }
 
+    /**
+     * Sets the {@link EventLoopMetrics} of all {@link SingleThreadEventLoop}s of this group, or {@code null} to
+     * disable metrics.
+     *
+     * @see SingleThreadEventLoop#setMetrics(EventLoopMetrics)
+     */
+    @UnstableApi
+    public void setMetrics(EventLoopMetrics metrics) {
+        for (EventExecutor e: this) {
+            if (e instanceof SingleThreadEventLoop) {
+                ((SingleThreadEventLoop) e).setMetrics(metrics);
+            }
+        }
+    }
 }
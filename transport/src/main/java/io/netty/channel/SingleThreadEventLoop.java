@@ -36,6 +36,7 @@ public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor im
             SystemPropertyUtil.getInt("io.netty.eventLoop.maxPendingTasks", Integer.MAX_VALUE));
 
     private final Queue<Runnable> tailTasks;
+    private volatile EventLoopMetrics metrics;
 
     protected SingleThreadEventLoop(EventLoopGroup parent, ThreadFactory threadFactory, boolean addTaskWakesUp) {
         this(parent, threadFactory, addTaskWakesUp, DEFAULT_MAX_PENDING_TASKS, RejectedExecutionHandlers.reject());
@@ -154,4 +155,21 @@ public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor im
     public int registeredChannels() {
         return -1;
     }
+
+    /**
+     * Sets the {@link EventLoopMetrics} this {@link EventLoop} and the {@link Channel}s registered to it report
+     * into, or {@code null} to disable metrics. Metrics are disabled by default.
+     */
+    @UnstableApi
+    public void setMetrics(EventLoopMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the {@link EventLoopMetrics} of this {@link EventLoop} or {@code null} if metrics are disabled.
+     */
+    @UnstableApi
+    public final EventLoopMetrics metrics() {
+        return metrics;
+    }
 }
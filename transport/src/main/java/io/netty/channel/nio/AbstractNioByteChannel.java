@@ -23,6 +23,7 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelMetadata;
 import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopMetrics;
 import io.netty.channel.FileRegion;
 import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.internal.ChannelUtils;
@@ -145,6 +146,8 @@ public abstract class AbstractNioByteChannel extends AbstractNioChannel {
 
             ByteBuf byteBuf = null;
             boolean close = false;
+            long readBytes = 0;
+            int readMessages = 0;
             try {
                 do {
                     byteBuf = allocHandle.allocate(allocator);
@@ -162,12 +165,18 @@ public abstract class AbstractNioByteChannel extends AbstractNioChannel {
                     }
 
                     allocHandle.incMessagesRead(1);
+                    readBytes += allocHandle.lastBytesRead();
+                    readMessages++;
                     readPending = false;
                     pipeline.fireChannelRead(byteBuf);
                     byteBuf = null;
                 } while (allocHandle.continueReading());
 
                 allocHandle.readComplete();
+                EventLoopMetrics metrics = eventLoopMetrics();
+                if (metrics != null) {
+                    metrics.channelRead(AbstractNioByteChannel.this, readBytes, readMessages);
+                }
                 pipeline.fireChannelReadComplete();
 
                 if (close) {
@@ -19,6 +19,7 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelException;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopException;
+import io.netty.channel.EventLoopMetrics;
 import io.netty.channel.EventLoopTaskQueueFactory;
 import io.netty.channel.SelectStrategy;
 import io.netty.channel.SingleThreadEventLoop;
@@ -477,6 +478,10 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                 cancelledKeys = 0;
                 needsToSelectAgain = false;
                 final int ioRatio = this.ioRatio;
+                final EventLoopMetrics metrics = metrics();
+                final long completedTasks = metrics != null ? completedTasks() : 0;
+                final long ioStartTime = metrics != null || ioRatio != 100 && strategy > 0 ? System.nanoTime() : 0;
+                long ioEndTime = ioStartTime;
                 boolean ranTasks;
                 if (ioRatio == 100) {
                     try {
@@ -484,21 +489,28 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                             processSelectedKeys();
                         }
                     } finally {
+                        if (metrics != null) {
+                            ioEndTime = System.nanoTime();
+                        }
                         // Ensure we always run tasks.
                         ranTasks = runAllTasks();
                     }
                 } else if (strategy > 0) {
-                    final long ioStartTime = System.nanoTime();
                     try {
                         processSelectedKeys();
                     } finally {
                         // Ensure we always run tasks.
-                        final long ioTime = System.nanoTime() - ioStartTime;
+                        ioEndTime = System.nanoTime();
+                        final long ioTime = ioEndTime - ioStartTime;
                         ranTasks = runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
                     }
                 } else {
                     ranTasks = runAllTasks(0); // This will run the minimum number of tasks
                 }
+                if (metrics != null) {
+                    metrics.iterationCompleted(this, ioEndTime - ioStartTime, System.nanoTime() - ioEndTime,
+                            completedTasks() - completedTasks, pendingTasks());
+                }
 
                 if (ranTasks || strategy > 0) {
                     if (selectCnt > MIN_PREMATURE_SELECTOR_RETURNS && logger.isDebugEnabled()) {
@@ -782,6 +794,10 @@ public final class NioEventLoop extends SingleThreadEventLoop {
     protected void wakeup(boolean inEventLoop) {
         if (!inEventLoop && nextWakeupNanos.getAndSet(AWAKE) != AWAKE) {
             selector.wakeup();
+            EventLoopMetrics metrics = metrics();
+            if (metrics != null) {
+                metrics.wakeup(this);
+            }
         }
     }
 
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket;
+
+import io.netty.util.internal.UnstableApi;
+
+import java.io.IOException;
+
+/**
+ * A {@link SocketChannel} which is able to hand the TLS record layer over to the kernel (kTLS) once the
+ * handshake was completed in user space. After {@link #enableKernelTls(KernelTlsCryptoInfo, KernelTlsCryptoInfo)}
+ * returned successfully all bytes written to and read from the {@link SocketChannel} are plaintext application data,
+ * which allows to use zero-copy transfers like {@code sendfile} for encrypted connections.
+ */
+@UnstableApi
+public interface KernelTlsChannel extends SocketChannel {
+
+    /**
+     * Returns {@code true} if the TLS record layer was handed over to the kernel.
+     */
+    boolean isKernelTlsEnabled();
+
+    /**
+     * Install the given crypto state for the transmit and receive direction in the kernel. This method must be
+     * called from the {@link io.netty.channel.EventLoop} of the {@link SocketChannel} while no encrypted bytes are
+     * buffered in user space.
+     * <p>
+     * If an {@link IOException} is thrown while the channel is still {@link #isActive() active} nothing was changed
+     * and the caller can continue to process the TLS records in user space. If the kernel accepted only a part of
+     * the crypto state the channel is closed, as it can not be recovered in this case.
+     *
+     * @param tx the crypto state used to encrypt outbound records.
+     * @param rx the crypto state used to decrypt inbound records.
+     * @throws IOException if the kernel does not support TLS offloading for the given crypto state.
+     */
+    void enableKernelTls(KernelTlsCryptoInfo tx, KernelTlsCryptoInfo rx) throws IOException;
+}
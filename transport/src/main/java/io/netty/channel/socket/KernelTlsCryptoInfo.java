@@ -0,0 +1,146 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket;
+
+import io.netty.util.internal.UnstableApi;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * The crypto state of one direction of a TLS connection which is passed to
+ * {@link KernelTlsChannel#enableKernelTls(KernelTlsCryptoInfo, KernelTlsCryptoInfo)}. The layout mirrors
+ * {@code struct tls12_crypto_info_aes_gcm_128} / {@code struct tls12_crypto_info_aes_gcm_256} of the linux kernel.
+ */
+@UnstableApi
+public final class KernelTlsCryptoInfo {
+
+    /**
+     * The wire version of TLSv1.2.
+     */
+    public static final int TLS_1_2_VERSION = 0x0303;
+
+    /**
+     * {@code TLS_CIPHER_AES_GCM_128}.
+     */
+    public static final int CIPHER_AES_GCM_128 = 51;
+
+    /**
+     * {@code TLS_CIPHER_AES_GCM_256}.
+     */
+    public static final int CIPHER_AES_GCM_256 = 52;
+
+    private static final int IV_LENGTH = 8;
+    private static final int SALT_LENGTH = 4;
+    private static final int RECORD_SEQUENCE_LENGTH = 8;
+
+    private final int version;
+    private final int cipherType;
+    private final byte[] key;
+    private final byte[] iv;
+    private final byte[] salt;
+    private final byte[] recordSequence;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param version the TLS protocol version, only {@link #TLS_1_2_VERSION} is supported at the moment.
+     * @param cipherType the cipher type, either {@link #CIPHER_AES_GCM_128} or {@link #CIPHER_AES_GCM_256}.
+     * @param key the write key of the direction.
+     * @param iv the explicit part of the nonce, which is sent on the wire.
+     * @param salt the implicit part of the nonce, which is the write IV derived from the key block.
+     * @param recordSequence the sequence number of the next record in big-endian byte order.
+     */
+    public KernelTlsCryptoInfo(int version, int cipherType, byte[] key, byte[] iv, byte[] salt,
+                               byte[] recordSequence) {
+        if (version != TLS_1_2_VERSION) {
+            throw new IllegalArgumentException("version: " + version + " (expected: " + TLS_1_2_VERSION + ')');
+        }
+        final int keyLength;
+        switch (cipherType) {
+            case CIPHER_AES_GCM_128:
+                keyLength = 16;
+                break;
+            case CIPHER_AES_GCM_256:
+                keyLength = 32;
+                break;
+            default:
+                throw new IllegalArgumentException("cipherType: " + cipherType + " (expected: " +
+                        CIPHER_AES_GCM_128 + " or " + CIPHER_AES_GCM_256 + ')');
+        }
+        this.version = version;
+        this.cipherType = cipherType;
+        this.key = checkLength(key, keyLength, "key");
+        this.iv = checkLength(iv, IV_LENGTH, "iv");
+        this.salt = checkLength(salt, SALT_LENGTH, "salt");
+        this.recordSequence = checkLength(recordSequence, RECORD_SEQUENCE_LENGTH, "recordSequence");
+    }
+
+    private static byte[] checkLength(byte[] array, int length, String name) {
+        checkNotNull(array, name);
+        if (array.length != length) {
+            throw new IllegalArgumentException(name + ".length: " + array.length + " (expected: " + length + ')');
+        }
+        return array.clone();
+    }
+
+    /**
+     * Returns the TLS protocol version.
+     */
+    public int version() {
+        return version;
+    }
+
+    /**
+     * Returns the cipher type.
+     */
+    public int cipherType() {
+        return cipherType;
+    }
+
+    /**
+     * Returns a copy of the write key.
+     */
+    public byte[] key() {
+        return key.clone();
+    }
+
+    /**
+     * Returns a copy of the explicit part of the nonce.
+     */
+    public byte[] iv() {
+        return iv.clone();
+    }
+
+    /**
+     * Returns a copy of the implicit part of the nonce.
+     */
+    public byte[] salt() {
+        return salt.clone();
+    }
+
+    /**
+     * Returns a copy of the sequence number of the next record.
+     */
+    public byte[] recordSequence() {
+        return recordSequence.clone();
+    }
+
+    @Override
+    public String toString() {
+        // Never include the key material.
+        return "KernelTlsCryptoInfo(version: " + version + ", cipherType: " + cipherType + ')';
+    }
+}
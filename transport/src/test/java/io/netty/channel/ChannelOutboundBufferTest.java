@@ -20,6 +20,7 @@ import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.util.CharsetUtil;
 import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.ImmediateEventExecutor;
 import io.netty.util.concurrent.RejectedExecutionHandlers;
 import io.netty.util.concurrent.SingleThreadEventExecutor;
 import org.junit.Test;
@@ -150,6 +151,74 @@ public class ChannelOutboundBufferTest {
         buf.release();
     }
 
+    @Test
+    public void testRemoveDeferred() {
+        TestChannel channel = new TestChannel();
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        assertNull(buffer.removeDeferred());
+
+        ByteBuf buf = directBuffer().writeBytes("buf1".getBytes(CharsetUtil.US_ASCII));
+        ChannelPromise promise = new DefaultChannelPromise(channel, ImmediateEventExecutor.INSTANCE);
+        buffer.addMessage(buf, buf.readableBytes(), promise);
+        buffer.addFlush();
+        assertEquals(buf.readableBytes() + ChannelOutboundBuffer.CHANNEL_OUTBOUND_BUFFER_ENTRY_OVERHEAD,
+                buffer.totalPendingWriteBytes());
+
+        assertSame(promise, buffer.removeDeferred());
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, buffer.totalPendingWriteBytes());
+        // The message and the promise are owned by the caller now.
+        assertFalse(promise.isDone());
+        assertEquals(1, buf.refCnt());
+
+        promise.setSuccess();
+        assertTrue(buf.release());
+    }
+
+    @Test
+    public void testMetricsCountRemoveDeferred() {
+        TestChannel channel = new TestChannel();
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        DefaultEventLoopMetrics metrics = new DefaultEventLoopMetrics();
+        buffer.metrics(metrics);
+
+        ByteBuf buf = directBuffer().writeBytes("buf1".getBytes(CharsetUtil.US_ASCII));
+        ChannelPromise promise = new DefaultChannelPromise(channel, ImmediateEventExecutor.INSTANCE);
+        buffer.addMessage(buf, buf.readableBytes(), promise);
+        ByteBuf buf2 = directBuffer().writeBytes("buf2".getBytes(CharsetUtil.US_ASCII));
+        buffer.addMessage(buf2, buf2.readableBytes(), channel.voidPromise());
+        buffer.addFlush();
+
+        buffer.progress(buf.readableBytes());
+        assertSame(promise, buffer.removeDeferred());
+        buffer.removeBytes(buf2.readableBytes());
+        buffer.reportFlushed();
+        assertEquals(8, metrics.bytesWritten());
+        assertEquals(2, metrics.messagesWritten());
+        assertEquals(1, metrics.flushes());
+
+        promise.setSuccess();
+        assertTrue(buf.release());
+    }
+
+    @Test
+    public void testMetricsDisabled() {
+        TestChannel channel = new TestChannel();
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+
+        ByteBuf buf = directBuffer().writeBytes("buf1".getBytes(CharsetUtil.US_ASCII));
+        buffer.addMessage(buf, buf.readableBytes(), channel.voidPromise());
+        buffer.addFlush();
+        buffer.removeBytes(buf.readableBytes());
+
+        // Nothing was counted while the metrics were disabled.
+        DefaultEventLoopMetrics metrics = new DefaultEventLoopMetrics();
+        buffer.metrics(metrics);
+        buffer.reportFlushed();
+        assertEquals(0, metrics.bytesWritten());
+        assertEquals(0, metrics.messagesWritten());
+    }
+
     private static void release(ChannelOutboundBuffer buffer) {
         for (;;) {
             if (!buffer.remove()) {
@@ -15,8 +15,13 @@
  */
 package io.netty.channel.nio;
 
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.AbstractEventLoopTest;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoopMetrics;
 import io.netty.channel.DefaultSelectStrategyFactory;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
@@ -26,6 +31,7 @@ import io.netty.channel.SelectStrategyFactory;
 import io.netty.channel.SingleThreadEventLoop;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.util.IntSupplier;
 import io.netty.util.concurrent.DefaultEventExecutorChooserFactory;
 import io.netty.util.concurrent.DefaultThreadFactory;
@@ -338,4 +344,44 @@ public class NioEventLoopTest extends AbstractEventLoopTest {
         }
     }
 
+    @Test(timeout = 10000)
+    public void testMetrics() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        DefaultEventLoopMetrics metrics = new DefaultEventLoopMetrics();
+        group.setMetrics(metrics);
+        try {
+            Channel sc = new ServerBootstrap().group(group).channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInboundHandlerAdapter())
+                    .bind(new InetSocketAddress(0)).syncUninterruptibly().channel();
+            Channel cc = new Bootstrap().group(group).channel(NioSocketChannel.class)
+                    .handler(new ChannelInboundHandlerAdapter())
+                    .connect(sc.localAddress()).syncUninterruptibly().channel();
+
+            // Let the event loop go to sleep so writing from outside needs to wake it up.
+            Thread.sleep(100);
+            cc.writeAndFlush(Unpooled.wrappedBuffer(new byte[8])).syncUninterruptibly();
+
+            while (metrics.bytesRead() < 8) {
+                Thread.sleep(10);
+            }
+            assertEquals(8, metrics.bytesWritten());
+            assertEquals(1, metrics.messagesWritten());
+            assertTrue(metrics.flushes() > 0);
+            assertTrue(metrics.messagesRead() > 0);
+            assertTrue(metrics.wakeups() > 0);
+            assertTrue(metrics.iterations() > 0);
+            assertTrue(metrics.tasksRun() > 0);
+
+            long histogramCount = 0;
+            for (long count : metrics.iterationTimeHistogram()) {
+                histogramCount += count;
+            }
+            assertTrue(histogramCount > 0);
+
+            cc.close().syncUninterruptibly();
+            sc.close().syncUninterruptibly();
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
 }